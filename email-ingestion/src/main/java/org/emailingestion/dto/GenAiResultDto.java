@@ -0,0 +1,21 @@
+package org.emailingestion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * GenAI result DTO, published directly when an attachment's content was already processed
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenAiResultDto {
+    private Long documentId;
+    private String objectKey;
+    private String extractedText;
+    private String summary;
+    private LocalDateTime processedAt;
+}
@@ -16,7 +16,10 @@ import java.time.Instant;
  * The objectKey links metadata to the actual file in object storage.
  */
 @Entity
-@Table(name = "file_metadata")
+@Table(name = "file_metadata", indexes = {
+        @Index(name = "idx_file_metadata_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_file_metadata_object_key", columnList = "object_key")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -45,9 +48,14 @@ public class FileMetadata {
     private Long size;
 
     @NotBlank(message = "Object key is required")
-    @Column(name = "object_key", nullable = false, unique = true)
+    // Not unique: attachments with identical content share one content-addressed object
+    @Column(name = "object_key", nullable = false)
     private String objectKey;
 
+    // SHA-256 of the file content (hex)
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "upload_time", nullable = false)
     private Instant uploadTime;
 
@@ -57,6 +65,9 @@ public class FileMetadata {
     @Column(name = "summary", length = 5000)
     private String summary;
 
+    @Column(name = "extracted_text", columnDefinition = "TEXT")
+    private String extractedText;
+
     // Automatically sets upload and edit timestamps on entity creation
     @PrePersist
     protected void onCreate() {
@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for FileMetadata with custom search and duplicate detection queries
@@ -30,4 +31,11 @@ public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long
 
     // Checks if a file with the same name already exists for the given author (duplicate detection)
     boolean existsByFilenameAndAuthor(String filename, String author);
+
+    // Transaction-scoped lock per storage object, the REST service takes it while counting references before a delete
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtext(:objectKey))) AS object_lock", nativeQuery = true)
+    long lockObjectKey(@Param("objectKey") String objectKey);
+
+    // Earliest fully processed document with identical content, used to skip OCR/GenAI
+    Optional<FileMetadata> findFirstByContentHashAndSummaryIsNotNullAndExtractedTextIsNotNullOrderByIdAsc(String contentHash);
 }
@@ -5,13 +5,17 @@ import jakarta.mail.internet.MimeUtility;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.emailingestion.exception.DuplicateFileException;
+import org.emailingestion.exception.FileStorageException;
 import org.emailingestion.model.FileMetadata;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
 
 /**
@@ -22,6 +26,8 @@ import java.util.List;
 @Slf4j
 public class AttachmentProcessor {
 
+    private static final String CONTENT_PREFIX = "sha256/";
+
     private final FileMetadataService fileMetadataService;
     private final FileStorage fileStorage;
 
@@ -35,7 +41,7 @@ public class AttachmentProcessor {
      * Validates and processes an email attachment:
      * 1. decodes filename
      * 2. validates extension and size
-     * 3. uploads to MinIO
+     * 3. uploads to MinIO under its content hash (skipped if identical content is already stored)
      * 4. saves metadata
      * 5. triggers OCR/GenAI
      */
@@ -86,8 +92,9 @@ public class AttachmentProcessor {
             log.info("Attachment validated - filename: {}, size: {} bytes, type: {}",
                     filename, fileBytes.length, bodyPart.getContentType());
 
-            // Generate unique object key (timestamp + filename)
-            String objectKey = System.currentTimeMillis() + "-" + filename;
+            // Content-addressed object key, identical attachments share one object
+            String contentHash = sha256Hex(fileBytes);
+            String objectKey = CONTENT_PREFIX + contentHash;
 
             // Upload to MinIO
             String contentType = bodyPart.getContentType();
@@ -99,9 +106,7 @@ public class AttachmentProcessor {
                 contentType = "application/octet-stream";
             }
 
-            log.info("Uploading file to MinIO - key: {}, contentType: {}", objectKey, contentType);
-            fileStorage.upload(objectKey, fileBytes, contentType);
-            log.info("File uploaded successfully to MinIO");
+            storeContent(objectKey, fileBytes, contentType);
 
             // Create FileMetadata entity
             FileMetadata fileMetadata = FileMetadata.builder()
@@ -110,12 +115,20 @@ public class AttachmentProcessor {
                     .fileType(getFileExtension(filename))
                     .size((long) fileBytes.length)
                     .objectKey(objectKey)
+                    .contentHash(contentHash)
                     .uploadTime(Instant.now())
                     .build();
 
             // CRITICAL: This triggers the entire document processing pipeline
             log.info("Saving file metadata and triggering OCR/GenAI processing pipeline");
-            fileMetadataService.createFileMetadataWithWorkerNotification(fileMetadata);
+            try {
+                fileMetadataService.createFileMetadataWithWorkerNotification(fileMetadata);
+            } catch (FileStorageException e) {
+                // A document deleted in the REST service removed the shared object after the check above
+                log.warn("{}, storing attachment '{}' again", e.getMessage(), filename);
+                storeContent(objectKey, fileBytes, contentType);
+                fileMetadataService.createFileMetadataWithWorkerNotification(fileMetadata);
+            }
 
             log.info("Successfully processed attachment '{}' from '{}' - ID: {}, ObjectKey: {}",
                     filename, author, fileMetadata.getId(), objectKey);
@@ -127,6 +140,16 @@ public class AttachmentProcessor {
         }
     }
 
+    private void storeContent(String objectKey, byte[] fileBytes, String contentType) {
+        if (fileStorage.exists(objectKey)) {
+            log.info("Content already stored in MinIO under key: {}, skipping upload", objectKey);
+        } else {
+            log.info("Uploading file to MinIO - key: {}, contentType: {}", objectKey, contentType);
+            fileStorage.upload(objectKey, fileBytes, contentType);
+            log.info("File uploaded successfully to MinIO");
+        }
+    }
+
     private boolean isValidFileType(String filename) {
         if (filename == null || filename.isBlank()) {
             return false;
@@ -146,6 +169,14 @@ public class AttachmentProcessor {
         return isValid;
     }
 
+    private String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     private String getFileExtension(String filename) {
         if (filename == null || !filename.contains(".")) {
             return "";
@@ -0,0 +1,141 @@
+package org.emailingestion.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.emailingestion.dto.BatchPublishResultDto;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes RabbitMQ messages in batches with correlated publisher confirms.
+ * Every batch goes out on a single channel and each message is confirmed individually;
+ * the caller blocks until the broker acked or nacked every message of the call.
+ */
+@Component
+@Slf4j
+public class BatchingMessagePublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @Value("${rabbitmq.publisher.batch-size:50}")
+    private int batchSize;
+
+    @Value("${rabbitmq.publisher.confirm-timeout-ms:10000}")
+    private long confirmTimeoutMs;
+
+    public BatchingMessagePublisher(RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("rabbitmq.publisher.in.flight", inFlight, AtomicInteger::get)
+                .description("Messages published but not yet confirmed by the broker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes all payloads in batches right away and blocks until every message was confirmed or failed
+     */
+    public BatchPublishResultDto sendBatch(String routingKey, List<?> payloads) {
+        List<PendingMessage> pendingMessages = new ArrayList<>(payloads.size());
+        for (Object payload : payloads) {
+            pendingMessages.add(new PendingMessage(payload, new CompletableFuture<>()));
+        }
+        for (int from = 0; from < pendingMessages.size(); from += batchSize) {
+            publishBatch(routingKey, pendingMessages.subList(from, Math.min(from + batchSize, pendingMessages.size())));
+        }
+
+        int confirmed = 0;
+        for (PendingMessage pending : pendingMessages) {
+            if (awaitConfirm(pending.confirmed())) {
+                confirmed++;
+            }
+        }
+        log.info("Batch to {} published: {} confirmed, {} nacked", routingKey, confirmed, payloads.size() - confirmed);
+
+        return BatchPublishResultDto.builder()
+                .total(payloads.size())
+                .confirmed(confirmed)
+                .nacked(payloads.size() - confirmed)
+                .build();
+    }
+
+    private void publishBatch(String routingKey, List<PendingMessage> batch) {
+        try {
+            // One channel for the whole batch instead of a checkout per message
+            rabbitTemplate.invoke(operations -> {
+                for (PendingMessage pending : batch) {
+                    CorrelationData correlationData = new CorrelationData();
+                    inFlight.incrementAndGet();
+                    correlationData.getFuture()
+                            .orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS)
+                            .whenComplete((confirm, error) -> {
+                                inFlight.decrementAndGet();
+                                if (error == null && confirm.isAck()) {
+                                    confirmed(routingKey, pending);
+                                } else {
+                                    failed(routingKey, pending, error != null ? error.toString() : confirm.getReason());
+                                }
+                            });
+                    try {
+                        operations.convertAndSend(routingKey, pending.payload(), correlationData);
+                    } catch (AmqpException e) {
+                        correlationData.getFuture().completeExceptionally(e);
+                    }
+                }
+                return null;
+            });
+        } catch (AmqpException e) {
+            // No channel available, nothing of this batch reached the broker
+            log.error("Failed to publish batch of {} messages to {}: {}", batch.size(), routingKey, e.getMessage());
+            batch.forEach(pending -> failed(routingKey, pending, e.getMessage()));
+        }
+    }
+
+    private void confirmed(String routingKey, PendingMessage pending) {
+        if (pending.confirmed().complete(true)) {
+            counter("rabbitmq.publisher.confirmed", routingKey).increment();
+        }
+    }
+
+    private void failed(String routingKey, PendingMessage pending, String reason) {
+        if (pending.confirmed().complete(false)) {
+            log.warn("Message to {} was not confirmed: {}", routingKey, reason);
+            counter("rabbitmq.publisher.nacked", routingKey).increment();
+        }
+    }
+
+    private Counter counter(String name, String routingKey) {
+        return Counter.builder(name)
+                .tag("queue", routingKey)
+                .register(meterRegistry);
+    }
+
+    private boolean awaitConfirm(CompletableFuture<Boolean> confirmed) {
+        try {
+            // Confirms time out on their own, the extra margin only guards against a lost callback
+            return confirmed.get(confirmTimeoutMs * 2, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record PendingMessage(Object payload, CompletableFuture<Boolean> confirmed) {
+    }
+}
@@ -3,14 +3,20 @@ package org.emailingestion.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.emailingestion.dto.FileMessageDto;
+import org.emailingestion.dto.GenAiResultDto;
 import org.emailingestion.exception.DuplicateFileException;
+import org.emailingestion.exception.FileStorageException;
 import org.emailingestion.model.FileMetadata;
 import org.emailingestion.repository.FileMetadataRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 /**
- * Manages file metadata persistence with duplicate detection and RabbitMQ notification
+ * Manages file metadata persistence with duplicate detection and RabbitMQ notification.
+ * Attachments whose content hash matches an already processed document reuse its result.
  */
 @Service
 @RequiredArgsConstructor
@@ -20,6 +26,7 @@ public class FileMetadataService {
 
     private final FileMetadataRepository fileMetadataRepository;
     private final MessageProducerService messageProducerService;
+    private final FileStorage fileStorage;
 
     public FileMetadata createFileMetadata(FileMetadata fileMetadata) {
         log.info("Creating file metadata for filename: {} by author: {}",
@@ -42,11 +49,24 @@ public class FileMetadataService {
     }
 
     /**
-     * Creates file metadata and sends notification to OCR queue to start processing pipeline
+     * Creates file metadata and sends notification to OCR queue to start processing pipeline.
+     * Throws FileStorageException if the object was deleted since it was stored, the caller stores it again.
      */
     public FileMetadata createFileMetadataWithWorkerNotification(FileMetadata fileMetadata) {
+        // Held until commit: the REST service deletes an unreferenced object only under the same lock, so the
+        // object checked here stays until this document references it
+        fileMetadataRepository.lockObjectKey(fileMetadata.getObjectKey());
+        if (!fileStorage.exists(fileMetadata.getObjectKey())) {
+            throw new FileStorageException("Stored object " + fileMetadata.getObjectKey() + " was deleted concurrently");
+        }
+
         FileMetadata savedMetadata = createFileMetadata(fileMetadata);
 
+        // Identical content was already processed, reuse its result instead of running OCR/GenAI again
+        if (reuseProcessingResult(savedMetadata)) {
+            return savedMetadata;
+        }
+
         // Send to OCR Queue for processing (OCR will then send to GenAI)
         log.info("Sending file metadata with id {} to OCR queue", savedMetadata.getId());
         FileMessageDto fileMessage = new FileMessageDto(
@@ -62,4 +82,32 @@ public class FileMetadataService {
 
         return savedMetadata;
     }
+
+    /**
+     * Publishes the extracted text and summary of an already processed document with the same
+     * content hash as the GenAI result of the new document, so the REST service persists and indexes it
+     */
+    private boolean reuseProcessingResult(FileMetadata fileMetadata) {
+        if (fileMetadata.getContentHash() == null) {
+            return false;
+        }
+
+        Optional<FileMetadata> processed = fileMetadataRepository
+                .findFirstByContentHashAndSummaryIsNotNullAndExtractedTextIsNotNullOrderByIdAsc(fileMetadata.getContentHash());
+        if (processed.isEmpty() || processed.get().getId().equals(fileMetadata.getId())) {
+            return false;
+        }
+
+        FileMetadata source = processed.get();
+        log.info("Content hash {} of document {} matches processed document {}, skipping OCR/GenAI",
+                fileMetadata.getContentHash(), fileMetadata.getId(), source.getId());
+        messageProducerService.sendToGenAiResultQueue(new GenAiResultDto(
+                fileMetadata.getId(),
+                fileMetadata.getObjectKey(),
+                source.getExtractedText(),
+                source.getSummary(),
+                LocalDateTime.now()
+        ));
+        return true;
+    }
 }
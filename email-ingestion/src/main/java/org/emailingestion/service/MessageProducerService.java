@@ -3,19 +3,25 @@ package org.emailingestion.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.emailingestion.dto.FileMessageDto;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.emailingestion.dto.GenAiResultDto;
+import org.springframework.amqp.AmqpException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
- * Publishes file processing messages to RabbitMQ queues (OCR and GenAI)
+ * Publishes file processing messages to RabbitMQ queues (OCR, GenAI and GenAI results).
+ * Each message is published right away through the BatchingMessagePublisher, without waiting for other messages.
+ * Every send waits for the publisher confirm and throws if the broker did not take the message, so the caller's
+ * transaction rolls back and the metadata row of a document that would never be processed is not committed.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class MessageProducerService {
 
-    private final RabbitTemplate rabbitTemplate;
+    private final BatchingMessagePublisher batchingMessagePublisher;
 
     @Value("${rabbitmq.queue.ocr}")
     private String ocrQueueName;
@@ -23,13 +29,27 @@ public class MessageProducerService {
     @Value("${rabbitmq.queue.genai}")
     private String genaiQueueName;
 
+    @Value("${rabbitmq.queue.genai.result}")
+    private String genaiResultQueueName;
+
     public void sendToOcrQueue(FileMessageDto message) {
         log.info("SENDING message to OCR queue: {}", message);
-        rabbitTemplate.convertAndSend(ocrQueueName, message);
+        send(ocrQueueName, message);
     }
 
     public void sendToGenAiQueue(FileMessageDto message) {
         log.info("SENDING message to GenAI queue: {}", message);
-        rabbitTemplate.convertAndSend(genaiQueueName, message);
+        send(genaiQueueName, message);
+    }
+
+    public void sendToGenAiResultQueue(GenAiResultDto result) {
+        log.info("SENDING reused result to GenAI result queue for document ID: {}", result.getDocumentId());
+        send(genaiResultQueueName, result);
+    }
+
+    private void send(String queue, Object payload) {
+        if (batchingMessagePublisher.sendBatch(queue, List.of(payload)).getConfirmed() != 1) {
+            throw new AmqpException("Message to " + queue + " was not confirmed by the broker");
+        }
     }
 }
@@ -81,7 +81,7 @@ class EmailIngestionIntegrationTest {
         // Assert - Verify full flow
         // 1. File should be uploaded to MinIO
         verify(fileStorage, times(1)).upload(
-                argThat(objectKey -> objectKey.endsWith("-contract-2025.pdf")),
+                argThat(objectKey -> objectKey.startsWith("sha256/")),
                 eq(pdfContent),
                 eq("application/pdf")
         );
@@ -92,7 +92,8 @@ class EmailIngestionIntegrationTest {
                         metadata.getFilename().equals("contract-2025.pdf") &&
                                 metadata.getAuthor().equals("john.doe@example.com") &&
                                 metadata.getFileType().equals("PDF") &&
-                                metadata.getSize() == pdfContent.length
+                                metadata.getSize() == pdfContent.length &&
+                                metadata.getObjectKey().equals("sha256/" + metadata.getContentHash())
                 )
         );
     }
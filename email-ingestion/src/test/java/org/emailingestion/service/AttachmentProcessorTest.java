@@ -1,6 +1,9 @@
 package org.emailingestion.service;
 
+import jakarta.activation.DataHandler;
 import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.util.ByteArrayDataSource;
+import org.emailingestion.exception.FileStorageException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,7 +12,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -109,4 +118,58 @@ class AttachmentProcessorTest {
         verify(fileStorage, never()).upload(any(), any(), any());
         verify(fileMetadataService, never()).createFileMetadataWithWorkerNotification(any());
     }
+
+    @Test
+    void processAttachment_WithValidFile_ShouldUploadUnderContentHash() throws Exception {
+        // Arrange
+        MimeBodyPart bodyPart = new MimeBodyPart();
+        bodyPart.setDataHandler(new DataHandler(new ByteArrayDataSource("invoice content".getBytes(), "application/pdf")));
+        bodyPart.setFileName("invoice.pdf");
+        String expectedKey = "sha256/" + HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest("invoice content".getBytes()));
+        when(fileStorage.exists(expectedKey)).thenReturn(false);
+
+        // Act
+        attachmentProcessor.processAttachment(bodyPart, "test@example.com");
+
+        // Assert
+        verify(fileStorage).upload(eq(expectedKey), any(), any());
+        verify(fileMetadataService).createFileMetadataWithWorkerNotification(argThat(metadata ->
+                expectedKey.equals(metadata.getObjectKey()) && expectedKey.endsWith(metadata.getContentHash())));
+    }
+
+    @Test
+    void processAttachment_WithAlreadyStoredContent_ShouldSkipUpload() throws Exception {
+        // Arrange
+        MimeBodyPart bodyPart = new MimeBodyPart();
+        bodyPart.setDataHandler(new DataHandler(new ByteArrayDataSource("invoice content".getBytes(), "application/pdf")));
+        bodyPart.setFileName("invoice-copy.pdf");
+        when(fileStorage.exists(anyString())).thenReturn(true);
+
+        // Act
+        attachmentProcessor.processAttachment(bodyPart, "other@example.com");
+
+        // Assert
+        verify(fileStorage, never()).upload(any(), any(), any());
+        verify(fileMetadataService).createFileMetadataWithWorkerNotification(any());
+    }
+
+    @Test
+    void processAttachment_WhenObjectDeletedConcurrently_ShouldStoreItAgain() throws Exception {
+        // Arrange - the object existed at the first check but was gone once the metadata service held the lock
+        MimeBodyPart bodyPart = new MimeBodyPart();
+        bodyPart.setDataHandler(new DataHandler(new ByteArrayDataSource("invoice content".getBytes(), "application/pdf")));
+        bodyPart.setFileName("invoice.pdf");
+        when(fileStorage.exists(anyString())).thenReturn(true, false);
+        when(fileMetadataService.createFileMetadataWithWorkerNotification(any()))
+                .thenThrow(new FileStorageException("Stored object was deleted concurrently"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        attachmentProcessor.processAttachment(bodyPart, "test@example.com");
+
+        // Assert
+        verify(fileStorage).upload(anyString(), eq("invoice content".getBytes()), eq("application/pdf"));
+        verify(fileMetadataService, times(2)).createFileMetadataWithWorkerNotification(any());
+    }
 }
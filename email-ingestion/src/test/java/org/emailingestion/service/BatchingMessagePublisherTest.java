@@ -0,0 +1,80 @@
+package org.emailingestion.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.emailingestion.dto.BatchPublishResultDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchingMessagePublisherTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BatchingMessagePublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        publisher = new BatchingMessagePublisher(rabbitTemplate, meterRegistry);
+        ReflectionTestUtils.setField(publisher, "batchSize", 3);
+        ReflectionTestUtils.setField(publisher, "confirmTimeoutMs", 200L);
+
+        // Run the batch callback against the mocked template, as RabbitTemplate does on its dedicated channel
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation -> {
+            RabbitOperations.OperationsCallback<?> callback = invocation.getArgument(0);
+            return callback.doInRabbit(rabbitTemplate);
+        });
+    }
+
+    private void confirmAll(boolean ack) {
+        doAnswer(invocation -> {
+            CorrelationData correlationData = invocation.getArgument(2);
+            correlationData.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "rejected"));
+            return null;
+        }).when(rabbitTemplate).convertAndSend(anyString(), any(Object.class), any(CorrelationData.class));
+    }
+
+    @Test
+    void sendBatch_ShouldPublishEachBatchOnOneChannel() {
+        confirmAll(true);
+
+        BatchPublishResultDto result = publisher.sendBatch("ocr-worker-queue",
+                List.of("attachment-1", "attachment-2", "attachment-3", "attachment-4"));
+
+        assertEquals(4, result.getConfirmed());
+        // 4 messages with batch size 3 -> 2 batches
+        verify(rabbitTemplate, times(2)).invoke(any());
+        verify(rabbitTemplate).convertAndSend(eq("ocr-worker-queue"), eq((Object) "attachment-1"), any(CorrelationData.class));
+        assertEquals(4.0, meterRegistry.counter("rabbitmq.publisher.confirmed", "queue", "ocr-worker-queue").count());
+    }
+
+    @Test
+    void sendBatch_ShouldCountNackedMessages() {
+        confirmAll(false);
+
+        BatchPublishResultDto result = publisher.sendBatch("ocr-worker-queue", List.of("attachment-1", "attachment-2"));
+
+        assertEquals(2, result.getTotal());
+        assertEquals(0, result.getConfirmed());
+        assertEquals(2, result.getNacked());
+        assertEquals(2.0, meterRegistry.counter("rabbitmq.publisher.nacked", "queue", "ocr-worker-queue").count());
+        assertEquals(0.0, meterRegistry.get("rabbitmq.publisher.in.flight").gauge().value());
+    }
+}
@@ -0,0 +1,52 @@
+package org.emailingestion.service;
+
+import org.emailingestion.dto.BatchPublishResultDto;
+import org.emailingestion.dto.FileMessageDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageProducerServiceTest {
+
+    @Mock
+    private BatchingMessagePublisher batchingMessagePublisher;
+
+    @InjectMocks
+    private MessageProducerService messageProducerService;
+
+    private final FileMessageDto message = new FileMessageDto(
+            1L, "invoice.pdf", "sender@example.com", "PDF", 1024L, Instant.now(), "sha256/abc");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(messageProducerService, "ocrQueueName", "ocr-worker-queue");
+    }
+
+    @Test
+    void sendToOcrQueue_WhenConfirmed_ShouldReturn() {
+        when(batchingMessagePublisher.sendBatch("ocr-worker-queue", List.of(message)))
+                .thenReturn(BatchPublishResultDto.builder().total(1).confirmed(1).nacked(0).build());
+
+        assertDoesNotThrow(() -> messageProducerService.sendToOcrQueue(message));
+    }
+
+    @Test
+    void sendToOcrQueue_WhenNotConfirmed_ShouldFailSoMetadataIsRolledBack() {
+        when(batchingMessagePublisher.sendBatch("ocr-worker-queue", List.of(message)))
+                .thenReturn(BatchPublishResultDto.builder().total(1).confirmed(0).nacked(1).build());
+
+        assertThrows(AmqpException.class, () -> messageProducerService.sendToOcrQueue(message));
+    }
+}
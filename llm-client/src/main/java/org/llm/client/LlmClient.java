@@ -0,0 +1,149 @@
+package org.llm.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking client for OpenAI-compatible chat completion endpoints.
+ * One HTTP/2 client is shared so requests are multiplexed over reused connections, callbacks run on
+ * virtual threads, and a semaphore caps the requests in flight so throughput follows that limit
+ * instead of the number of threads waiting on the API.
+ * Waiting for a slot and waiting for the response share one deadline of timeoutSeconds, so callers can rely on
+ * the future completing within that time once the rate limit let the request through.
+ */
+@Slf4j
+public class LlmClient {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    private final String apiUrl;
+    private final String apiKey;
+    private final int timeoutSeconds;
+    private final int maxInFlight;
+    private final LlmRateLimit rateLimit;
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final Timer requestTimer;
+
+    public LlmClient(String apiUrl, String apiKey, int timeoutSeconds, int maxInFlight, LlmRateLimit rateLimit,
+                     MeterRegistry meterRegistry) {
+        this.apiUrl = apiUrl;
+        this.apiKey = apiKey;
+        this.timeoutSeconds = timeoutSeconds;
+        this.maxInFlight = maxInFlight;
+        this.rateLimit = rateLimit;
+        this.inFlight = new Semaphore(maxInFlight, true);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("llm-", 0).factory());
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .executor(executor)
+                .build();
+
+        Gauge.builder("llm.requests.in.flight", this, LlmClient::requestsInFlight)
+                .description("LLM requests sent and not yet answered")
+                .register(meterRegistry);
+        this.requestTimer = Timer.builder("llm.request.duration")
+                .description("Time from acquiring a request slot to the complete LLM response")
+                .register(meterRegistry);
+    }
+
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isEmpty();
+    }
+
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    /**
+     * Posts a chat completion request body without a token estimate, for callers with an unlimited rate limit
+     */
+    public CompletableFuture<HttpResponse<String>> chatCompletionAsync(String requestJson) {
+        return chatCompletionAsync(requestJson, 0);
+    }
+
+    /**
+     * Posts a chat completion request body once the rate limit budget covers estimatedTokens.
+     * The future completes with the raw response for any status code, or exceptionally with an HttpTimeoutException
+     * when slot and response together took longer than the timeout, or with whatever the rate limit threw.
+     */
+    public CompletableFuture<HttpResponse<String>> chatCompletionAsync(String requestJson, int estimatedTokens) {
+        // Waiting for the budget and a slot parks a virtual thread, never the caller
+        return CompletableFuture.supplyAsync(() -> {
+                    rateLimit.acquire(estimatedTokens);
+                    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+                    Timer.Sample sample = acquireSlot(deadline);
+                    return send(request(requestJson, deadline), sample);
+                }, executor)
+                .thenCompose(sent -> sent);
+    }
+
+    private HttpRequest request(String requestJson, long deadline) {
+        // The response gets whatever the slot wait left of the deadline
+        Duration remaining = Duration.ofNanos(Math.max(deadline - System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(1)));
+        return HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + apiKey)
+                .timeout(remaining)
+                .POST(HttpRequest.BodyPublishers.ofString(requestJson))
+                .build();
+    }
+
+    private Timer.Sample acquireSlot(long deadline) {
+        try {
+            if (!inFlight.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new CompletionException(new HttpTimeoutException(
+                        "No free LLM request slot within " + timeoutSeconds + " seconds"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        return Timer.start();
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest request, Timer.Sample sample) {
+        try {
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) -> {
+                        sample.stop(requestTimer);
+                        inFlight.release();
+                        rateLimit.record(response, error);
+                    });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    public int requestsInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * Inferred as destroy method when the client is declared as a Spring bean
+     */
+    public void shutdown() {
+        log.info("Shutting down LLM client with {} requests in flight", requestsInFlight());
+        httpClient.shutdownNow();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,31 @@
+package org.llm.client;
+
+import java.net.http.HttpResponse;
+
+/**
+ * Budget a caller waits for before LlmClient takes a request slot, and that learns from every outcome.
+ * Services without a provider budget of their own use UNLIMITED.
+ */
+public interface LlmRateLimit {
+
+    LlmRateLimit UNLIMITED = new LlmRateLimit() {
+        @Override
+        public void acquire(int estimatedTokens) {
+        }
+
+        @Override
+        public void record(HttpResponse<String> response, Throwable error) {
+        }
+    };
+
+    /**
+     * Blocks the calling virtual thread until the budget covers one request of estimatedTokens,
+     * or throws a RuntimeException that fails the request future
+     */
+    void acquire(int estimatedTokens);
+
+    /**
+     * Called once per sent request with either the response or the error
+     */
+    void record(HttpResponse<String> response, Throwable error);
+}
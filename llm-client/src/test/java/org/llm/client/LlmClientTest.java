@@ -0,0 +1,162 @@
+package org.llm.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmClientTest {
+
+    private static final String RESPONSE = "{\"choices\":[{\"message\":{\"content\":\"Hello\"}}]}";
+
+    private HttpServer server;
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean hang;
+    private LlmClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/v1/chat/completions", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (client != null) {
+            client.shutdown();
+        }
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+        bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        if (hang) {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private LlmClient client(int timeoutSeconds, int maxInFlight, LlmRateLimit rateLimit) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions";
+        client = new LlmClient(url, "test-key", timeoutSeconds, maxInFlight, rateLimit, new SimpleMeterRegistry());
+        return client;
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    @Test
+    void chatCompletionAsync_PostsBodyWithBearerKey() throws Exception {
+        LlmClient llmClient = client(5, 4, LlmRateLimit.UNLIMITED);
+
+        HttpResponse<String> response = llmClient.chatCompletionAsync("{\"model\":\"gpt-4o-mini\"}").get(10, TimeUnit.SECONDS);
+
+        assertEquals(200, response.statusCode());
+        assertEquals(RESPONSE, response.body());
+        assertEquals(List.of("Bearer test-key"), authorizations);
+        assertEquals(List.of("{\"model\":\"gpt-4o-mini\"}"), bodies);
+        assertEquals(0, llmClient.requestsInFlight());
+    }
+
+    @Test
+    void chatCompletionAsync_AcquiresBudgetAndRecordsResponse() throws Exception {
+        AtomicInteger acquiredTokens = new AtomicInteger();
+        List<Integer> recordedStatus = new CopyOnWriteArrayList<>();
+        LlmClient llmClient = client(5, 4, new LlmRateLimit() {
+            @Override
+            public void acquire(int estimatedTokens) {
+                acquiredTokens.addAndGet(estimatedTokens);
+            }
+
+            @Override
+            public void record(HttpResponse<String> response, Throwable error) {
+                recordedStatus.add(response.statusCode());
+            }
+        });
+
+        llmClient.chatCompletionAsync("{}", 1200).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1200, acquiredTokens.get());
+        assertEquals(List.of(200), recordedStatus);
+    }
+
+    @Test
+    void chatCompletionAsync_RateLimitFailureSendsNothing() {
+        LlmClient llmClient = client(5, 4, new LlmRateLimit() {
+            @Override
+            public void acquire(int estimatedTokens) {
+                throw new IllegalStateException("budget exhausted");
+            }
+
+            @Override
+            public void record(HttpResponse<String> response, Throwable error) {
+                fail("Nothing was sent");
+            }
+        });
+
+        Throwable cause = failure(llmClient.chatCompletionAsync("{}", 100));
+
+        assertInstanceOf(IllegalStateException.class, cause);
+        assertTrue(bodies.isEmpty());
+        assertEquals(0, llmClient.requestsInFlight());
+    }
+
+    @Test
+    void chatCompletionAsync_SlotWaitAndResponseShareOneDeadline() {
+        hang = true;
+        LlmClient llmClient = client(1, 1, LlmRateLimit.UNLIMITED);
+
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> first = llmClient.chatCompletionAsync("{}");
+        CompletableFuture<HttpResponse<String>> second = llmClient.chatCompletionAsync("{}");
+
+        assertInstanceOf(HttpTimeoutException.class, failure(first));
+        assertInstanceOf(HttpTimeoutException.class, failure(second));
+        // The second request waited for the slot the whole second, it gets no fresh second for the response
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis < 1800, "Both requests should time out after about one second, took " + elapsedMillis + " ms");
+        assertEquals(0, llmClient.requestsInFlight());
+    }
+
+    @Test
+    void isConfigured_RequiresApiKey() {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions";
+        client = new LlmClient(url, "", 5, 1, LlmRateLimit.UNLIMITED, new SimpleMeterRegistry());
+
+        assertFalse(client.isConfigured());
+    }
+}
@@ -0,0 +1,24 @@
+package org.llmstub;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+@SpringBootApplication
+public class LlmStubApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(LlmStubApplication.class, args);
+    }
+
+    /**
+     * Starts the stub inside another JVM, e.g. from a test; args are property overrides like "--server.port=0".
+     * The caller closes the returned context to stop it.
+     */
+    public static ConfigurableApplicationContext embedded(String... args) {
+        return new SpringApplicationBuilder(LlmStubApplication.class)
+                .logStartupInfo(false)
+                .run(args);
+    }
+}
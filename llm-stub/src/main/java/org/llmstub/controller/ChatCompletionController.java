@@ -0,0 +1,163 @@
+package org.llmstub.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.llmstub.service.CompletionGenerator;
+import org.llmstub.service.LatencyModel;
+import org.llmstub.service.RateLimitSimulator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OpenAI-compatible chat completion endpoint with simulated latency, rate limits and token usage.
+ * Supports plain JSON responses and server-sent event streams ("stream": true).
+ */
+@RestController
+@RequestMapping("/v1")
+@RequiredArgsConstructor
+@Slf4j
+public class ChatCompletionController {
+
+    private static final int DEFAULT_MAX_TOKENS = 256;
+
+    private final CompletionGenerator completionGenerator;
+    private final LatencyModel latencyModel;
+    private final RateLimitSimulator rateLimitSimulator;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong requestIds = new AtomicLong();
+
+    @PostMapping("/chat/completions")
+    public ResponseEntity<?> chatCompletion(@RequestBody JsonNode request) throws InterruptedException {
+        String id = "chatcmpl-stub-" + requestIds.incrementAndGet();
+        String model = request.path("model").asText("stub-model");
+        int maxTokens = request.path("max_tokens").asInt(DEFAULT_MAX_TOKENS);
+        String prompt = prompt(request);
+        int promptTokens = CompletionGenerator.countTokens(prompt);
+
+        RateLimitSimulator.Decision decision = rateLimitSimulator.admit(promptTokens + maxTokens);
+        HttpHeaders headers = new HttpHeaders();
+        decision.headers().forEach(headers::add);
+        headers.add("x-request-id", id);
+        if (!decision.allowed()) {
+            log.debug("Rejecting {} with 429", id);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .headers(headers)
+                    .body(Map.of("error", Map.of(
+                            "message", "Rate limit reached for requests, please try again later.",
+                            "type", "requests",
+                            "code", "rate_limit_exceeded")));
+        }
+
+        List<String> pieces = completionGenerator.generate(prompt, maxTokens);
+        String content = String.join("", pieces);
+        Map<String, Object> usage = usage(promptTokens, CompletionGenerator.countTokens(content));
+        String finishReason = completionGenerator.finishReason(maxTokens);
+
+        if (request.path("stream").asBoolean(false)) {
+            boolean includeUsage = request.path("stream_options").path("include_usage").asBoolean(false);
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body((StreamingResponseBody) out ->
+                            stream(out, id, model, pieces, finishReason, includeUsage ? usage : null));
+        }
+
+        long millis = latencyModel.totalMillis((Integer) usage.get("completion_tokens"));
+        Thread.sleep(millis);
+        headers.add("openai-processing-ms", String.valueOf(millis));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", id);
+        body.put("object", "chat.completion");
+        body.put("created", Instant.now().getEpochSecond());
+        body.put("model", model);
+        body.put("choices", List.of(Map.of(
+                "index", 0,
+                "message", Map.of("role", "assistant", "content", content),
+                "finish_reason", finishReason)));
+        body.put("usage", usage);
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    // One chunk per piece after the first-token latency, then an optional usage chunk and [DONE]
+    private void stream(OutputStream out, String id, String model, List<String> pieces, String finishReason,
+                        Map<String, Object> usage) throws IOException {
+        try {
+            Thread.sleep(latencyModel.firstTokenMillis());
+            writeEvent(out, chunk(id, model, Map.of("role", "assistant", "content", ""), null));
+            for (String piece : pieces) {
+                Thread.sleep(latencyModel.perTokenMillis() * CompletionGenerator.countTokens(piece));
+                writeEvent(out, chunk(id, model, Map.of("content", piece), null));
+            }
+            writeEvent(out, chunk(id, model, Map.of(), finishReason));
+            if (usage != null) {
+                Map<String, Object> usageChunk = chunk(id, model, null, null);
+                usageChunk.put("usage", usage);
+                writeEvent(out, usageChunk);
+            }
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Map<String, Object> chunk(String id, String model, Map<String, Object> delta, String finishReason) {
+        Map<String, Object> chunk = new LinkedHashMap<>();
+        chunk.put("id", id);
+        chunk.put("object", "chat.completion.chunk");
+        chunk.put("created", Instant.now().getEpochSecond());
+        chunk.put("model", model);
+        if (delta == null) {
+            // The usage chunk has no choices
+            chunk.put("choices", List.of());
+        } else {
+            Map<String, Object> choice = new LinkedHashMap<>();
+            choice.put("index", 0);
+            choice.put("delta", delta);
+            choice.put("finish_reason", finishReason);
+            chunk.put("choices", List.of(choice));
+        }
+        return chunk;
+    }
+
+    private void writeEvent(OutputStream out, Object data) throws IOException {
+        out.write(("data: " + objectMapper.writeValueAsString(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static Map<String, Object> usage(int promptTokens, int completionTokens) {
+        Map<String, Object> usage = new LinkedHashMap<>();
+        usage.put("prompt_tokens", promptTokens);
+        usage.put("completion_tokens", completionTokens);
+        usage.put("total_tokens", promptTokens + completionTokens);
+        return usage;
+    }
+
+    // All message contents, the completion only depends on what the model would see
+    private static String prompt(JsonNode request) {
+        StringBuilder prompt = new StringBuilder();
+        for (JsonNode message : request.path("messages")) {
+            prompt.append(message.path("content").asText("")).append('\n');
+        }
+        return prompt.toString();
+    }
+}
@@ -0,0 +1,57 @@
+package org.llmstub.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic completions: the answer is built from words of the prompt, picked by a generator seeded with the
+ * prompt's hash, so the same request always gets the same answer and its length tracks max_tokens.
+ */
+@Component
+public class CompletionGenerator {
+
+    // Answers stop here even with a larger max_tokens, like a real summary would
+    private static final int NATURAL_LENGTH_TOKENS = 150;
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}][\\p{L}\\p{N}.,'-]*");
+    private static final List<String> FALLBACK_WORDS = List.of("the", "document", "contains", "information", "about");
+
+    // Same estimate the services use for their budgets: about 4 characters per token
+    public static int countTokens(String text) {
+        return text == null || text.isEmpty() ? 0 : (text.length() + 3) / 4;
+    }
+
+    /**
+     * Completion pieces for the prompt, each one streamed chunk; joined they form the whole answer
+     */
+    public List<String> generate(String prompt, int maxTokens) {
+        List<String> words = new ArrayList<>();
+        var matcher = WORD.matcher(prompt);
+        while (matcher.find()) {
+            words.add(matcher.group());
+        }
+        if (words.isEmpty()) {
+            words = FALLBACK_WORDS;
+        }
+
+        Random random = new Random(prompt.hashCode());
+        int budget = Math.min(maxTokens, NATURAL_LENGTH_TOKENS);
+        List<String> pieces = new ArrayList<>();
+        pieces.add("Summary:");
+        int tokens = countTokens("Summary:");
+        while (tokens < budget) {
+            String piece = " " + words.get(random.nextInt(words.size()));
+            pieces.add(piece);
+            tokens += countTokens(piece);
+        }
+        return pieces;
+    }
+
+    // "length" when max_tokens cut the answer short, like the real API
+    public String finishReason(int maxTokens) {
+        return maxTokens < NATURAL_LENGTH_TOKENS ? "length" : "stop";
+    }
+}
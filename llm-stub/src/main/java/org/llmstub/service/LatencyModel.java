@@ -0,0 +1,53 @@
+package org.llmstub.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Response times of the stub: time to the first token drawn from a fixed, uniform or lognormal distribution,
+ * plus a fixed time per generated token. Draws come from a seeded generator so a run can be repeated.
+ */
+@Component
+public class LatencyModel {
+
+    public enum Distribution { FIXED, UNIFORM, LOGNORMAL }
+
+    private final Distribution distribution;
+    private final long baseMs;
+    private final double spread;
+    private final long perTokenMs;
+    private final Random random;
+
+    public LatencyModel(@Value("${llm-stub.latency.distribution:lognormal}") String distribution,
+                        @Value("${llm-stub.latency.base-ms:800}") long baseMs,
+                        @Value("${llm-stub.latency.spread:0.5}") double spread,
+                        @Value("${llm-stub.latency.per-token-ms:5}") long perTokenMs,
+                        @Value("${llm-stub.seed:42}") long seed) {
+        this.distribution = Distribution.valueOf(distribution.trim().toUpperCase(Locale.ROOT));
+        this.baseMs = baseMs;
+        this.spread = spread;
+        this.perTokenMs = perTokenMs;
+        this.random = new Random(seed);
+    }
+
+    // Uniform: base +/- spread * base, lognormal: median base with sigma spread
+    public synchronized long firstTokenMillis() {
+        double millis = switch (distribution) {
+            case FIXED -> baseMs;
+            case UNIFORM -> baseMs + (random.nextDouble() * 2 - 1) * spread * baseMs;
+            case LOGNORMAL -> baseMs * Math.exp(spread * random.nextGaussian());
+        };
+        return Math.max(0, Math.round(millis));
+    }
+
+    public long perTokenMillis() {
+        return perTokenMs;
+    }
+
+    public long totalMillis(int completionTokens) {
+        return firstTokenMillis() + perTokenMs * completionTokens;
+    }
+}
@@ -0,0 +1,112 @@
+package org.llmstub.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Simulated account limits: request and token budgets per minute that refill continuously, reported in the same
+ * x-ratelimit-* headers as the real API. A request is rejected with 429 when a budget is exhausted, or at random
+ * with the configured error rate to test retry paths under a steady load.
+ */
+@Component
+public class RateLimitSimulator {
+
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int requestLimit;
+    private final int tokenLimit;
+    private final double errorRate;
+    private final int retryAfterSeconds;
+    private final Random random;
+    private final LongSupplier nanoClock;
+
+    private double availableRequests;
+    private double availableTokens;
+    private long lastRefill;
+
+    public record Decision(boolean allowed, Map<String, String> headers) {
+    }
+
+    @Autowired
+    public RateLimitSimulator(@Value("${llm-stub.rate-limit.requests-per-minute:10000}") int requestsPerMinute,
+                              @Value("${llm-stub.rate-limit.tokens-per-minute:10000000}") int tokensPerMinute,
+                              @Value("${llm-stub.rate-limit.error-rate:0.0}") double errorRate,
+                              @Value("${llm-stub.rate-limit.retry-after-seconds:1}") int retryAfterSeconds,
+                              @Value("${llm-stub.seed:42}") long seed) {
+        this(requestsPerMinute, tokensPerMinute, errorRate, retryAfterSeconds, seed, System::nanoTime);
+    }
+
+    RateLimitSimulator(int requestsPerMinute, int tokensPerMinute, double errorRate, int retryAfterSeconds,
+                       long seed, LongSupplier nanoClock) {
+        this.requestLimit = requestsPerMinute;
+        this.tokenLimit = tokensPerMinute;
+        this.errorRate = errorRate;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.random = new Random(seed);
+        this.nanoClock = nanoClock;
+        this.availableRequests = requestsPerMinute;
+        this.availableTokens = tokensPerMinute;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    public synchronized Decision admit(int tokens) {
+        refill();
+        boolean injected = errorRate > 0 && random.nextDouble() < errorRate;
+        boolean allowed = !injected && availableRequests >= 1 && availableTokens >= tokens;
+        if (allowed) {
+            availableRequests -= 1;
+            availableTokens -= tokens;
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("x-ratelimit-limit-requests", String.valueOf(requestLimit));
+        headers.put("x-ratelimit-limit-tokens", String.valueOf(tokenLimit));
+        headers.put("x-ratelimit-remaining-requests", String.valueOf((long) Math.max(0, availableRequests)));
+        headers.put("x-ratelimit-remaining-tokens", String.valueOf((long) Math.max(0, availableTokens)));
+        headers.put("x-ratelimit-reset-requests", formatDuration(resetNanos(availableRequests, requestLimit)));
+        headers.put("x-ratelimit-reset-tokens", formatDuration(resetNanos(availableTokens, tokenLimit)));
+        if (!allowed) {
+            long waitNanos = injected ? TimeUnit.SECONDS.toNanos(retryAfterSeconds)
+                    : Math.max(deficitNanos(availableRequests, 1, requestLimit), deficitNanos(availableTokens, tokens, tokenLimit));
+            headers.put("retry-after", String.valueOf(Math.max(1, (long) Math.ceil(waitNanos / 1e9))));
+        }
+        return new Decision(allowed, headers);
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        long elapsed = now - lastRefill;
+        if (elapsed <= 0) {
+            return;
+        }
+        availableRequests = Math.min(requestLimit, availableRequests + (double) requestLimit * elapsed / MINUTE_NANOS);
+        availableTokens = Math.min(tokenLimit, availableTokens + (double) tokenLimit * elapsed / MINUTE_NANOS);
+        lastRefill = now;
+    }
+
+    // Time until the budget is full again
+    private static long resetNanos(double available, int limit) {
+        return limit <= 0 ? 0 : (long) ((limit - Math.max(0, available)) / limit * MINUTE_NANOS);
+    }
+
+    private static long deficitNanos(double available, double needed, int limit) {
+        return available >= needed || limit <= 0 ? 0 : (long) Math.ceil((needed - available) / limit * MINUTE_NANOS);
+    }
+
+    // Same format as the real API, e.g. "20ms", "1s", "6m0s"
+    static String formatDuration(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (millis < 1000) {
+            return millis + "ms";
+        }
+        long seconds = millis / 1000;
+        return seconds < 60 ? seconds + "s" : (seconds / 60) + "m" + (seconds % 60) + "s";
+    }
+}
@@ -0,0 +1,89 @@
+package org.llmstub.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "llm-stub.latency.distribution=fixed",
+        "llm-stub.latency.base-ms=0",
+        "llm-stub.latency.per-token-ms=0",
+        "llm-stub.rate-limit.requests-per-minute=3"
+})
+@AutoConfigureMockMvc
+// Every test starts with a full request budget
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ChatCompletionControllerTest {
+
+    private static final String REQUEST = """
+            {"model": "gpt-4o-mini", "max_tokens": 40, "messages": [
+              {"role": "system", "content": "You are a document summarization assistant."},
+              {"role": "user", "content": "Summarize this document: invoice 42 from ACME GmbH over 1.250,00 EUR"}
+            ]}""";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void chatCompletion_DeterministicAnswerWithUsageAndRateLimitHeaders() throws Exception {
+        String first = mockMvc.perform(post("/v1/chat/completions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isOk())
+                .andExpect(header().string("x-ratelimit-limit-requests", "3"))
+                .andExpect(header().exists("x-ratelimit-remaining-tokens"))
+                .andExpect(jsonPath("$.object").value("chat.completion"))
+                .andExpect(jsonPath("$.choices[0].message.content", startsWith("Summary:")))
+                .andExpect(jsonPath("$.choices[0].finish_reason").value("length"))
+                .andExpect(jsonPath("$.usage.completion_tokens", lessThanOrEqualTo(41)))
+                .andReturn().getResponse().getContentAsString();
+
+        String second = mockMvc.perform(post("/v1/chat/completions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(first.replaceAll("\"(id|created)\":\"?[^,]*,", ""),
+                second.replaceAll("\"(id|created)\":\"?[^,]*,", ""));
+
+        // Three requests per minute: the third passes, the fourth is throttled
+        mockMvc.perform(post("/v1/chat/completions").contentType(MediaType.APPLICATION_JSON).content(REQUEST))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/v1/chat/completions").contentType(MediaType.APPLICATION_JSON).content(REQUEST))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("retry-after"))
+                .andExpect(jsonPath("$.error.code").value("rate_limit_exceeded"));
+    }
+
+    @Test
+    void chatCompletion_StreamsServerSentEvents() throws Exception {
+        MvcResult result = mockMvc.perform(post("/v1/chat/completions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST.replace("\"max_tokens\": 40,",
+                                "\"max_tokens\": 40, \"stream\": true, \"stream_options\": {\"include_usage\": true},")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(body.contains("\"object\":\"chat.completion.chunk\""));
+        assertTrue(body.contains("\"delta\":{\"content\":\"Summary:\"}"));
+        assertTrue(body.contains("\"usage\":{\"prompt_tokens\""));
+        assertTrue(body.endsWith("data: [DONE]\n\n"));
+    }
+}
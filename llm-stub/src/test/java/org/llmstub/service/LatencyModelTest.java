@@ -0,0 +1,48 @@
+package org.llmstub.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyModelTest {
+
+    @Test
+    void firstTokenMillis_FixedAddsPerTokenTime() {
+        LatencyModel model = new LatencyModel("fixed", 200, 0.5, 10, 1);
+
+        assertEquals(200, model.firstTokenMillis());
+        assertEquals(700, model.totalMillis(50));
+    }
+
+    @Test
+    void firstTokenMillis_UniformStaysWithinSpread() {
+        LatencyModel model = new LatencyModel("uniform", 1000, 0.2, 0, 1);
+
+        LongStream.range(0, 1000).map(i -> model.firstTokenMillis())
+                .forEach(millis -> assertTrue(millis >= 800 && millis <= 1200, millis + " ms"));
+    }
+
+    @Test
+    void firstTokenMillis_LognormalHasMedianBaseAndLongTail() {
+        LatencyModel model = new LatencyModel("lognormal", 500, 0.5, 0, 1);
+
+        long[] samples = LongStream.range(0, 10_000).map(i -> model.firstTokenMillis()).sorted().toArray();
+
+        assertEquals(500, samples[samples.length / 2], 25);
+        assertTrue(samples[(int) (samples.length * 0.99)] > 1000);
+    }
+
+    @Test
+    void firstTokenMillis_SameSeedRepeatsRun() {
+        LatencyModel first = new LatencyModel("lognormal", 500, 0.5, 0, 7);
+        LatencyModel second = new LatencyModel("lognormal", 500, 0.5, 0, 7);
+
+        long[] a = LongStream.range(0, 100).map(i -> first.firstTokenMillis()).toArray();
+        long[] b = LongStream.range(0, 100).map(i -> second.firstTokenMillis()).toArray();
+
+        assertTrue(Arrays.equals(a, b));
+    }
+}
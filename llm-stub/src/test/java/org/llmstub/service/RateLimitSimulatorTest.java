@@ -0,0 +1,51 @@
+package org.llmstub.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitSimulatorTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void admit_RejectsWhenTokenBudgetIsExhaustedUntilRefill() {
+        RateLimitSimulator simulator = new RateLimitSimulator(1000, 6000, 0.0, 1, 1, clock::get);
+
+        assertTrue(simulator.admit(5000).allowed());
+        RateLimitSimulator.Decision rejected = simulator.admit(2000);
+        assertFalse(rejected.allowed());
+        // 1000 missing tokens at 100 tokens per second
+        assertEquals("10", rejected.headers().get("retry-after"));
+        assertEquals("1000", rejected.headers().get("x-ratelimit-remaining-tokens"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(simulator.admit(2000).allowed());
+    }
+
+    @Test
+    void admit_InjectsErrorsAtConfiguredRate() {
+        RateLimitSimulator simulator = new RateLimitSimulator(1_000_000, 1_000_000_000, 0.25, 2, 1, clock::get);
+
+        int rejected = 0;
+        for (int i = 0; i < 10_000; i++) {
+            RateLimitSimulator.Decision decision = simulator.admit(10);
+            if (!decision.allowed()) {
+                rejected++;
+                assertEquals("2", decision.headers().get("retry-after"));
+            }
+        }
+
+        assertEquals(2500, rejected, 150);
+    }
+
+    @Test
+    void formatDuration_MatchesApiFormat() {
+        assertEquals("20ms", RateLimitSimulator.formatDuration(TimeUnit.MILLISECONDS.toNanos(20)));
+        assertEquals("1s", RateLimitSimulator.formatDuration(TimeUnit.SECONDS.toNanos(1)));
+        assertEquals("6m0s", RateLimitSimulator.formatDuration(TimeUnit.MINUTES.toNanos(6)));
+    }
+}
@@ -0,0 +1,52 @@
+package org.workers.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Listener advice that tracks how many consumers of one worker are busy, relative to the container's maximum.
+ * A utilization close to 1 means messages wait in the queue for a free consumer.
+ */
+public class ListenerUtilization implements MethodInterceptor {
+
+    private final int maxConsumers;
+    private final AtomicInteger busy = new AtomicInteger();
+    private final Timer timer;
+
+    public ListenerUtilization(String worker, int maxConsumers, MeterRegistry meterRegistry) {
+        this.maxConsumers = maxConsumers;
+        Gauge.builder("worker.listener.busy", busy, AtomicInteger::get)
+                .description("Consumers currently processing a message")
+                .tag("worker", worker)
+                .register(meterRegistry);
+        Gauge.builder("worker.listener.utilization", this, ListenerUtilization::utilization)
+                .description("Busy consumers divided by the maximum number of consumers")
+                .tag("worker", worker)
+                .register(meterRegistry);
+        this.timer = Timer.builder("worker.listener.processing")
+                .description("Time a consumer spends on one message")
+                .tag("worker", worker)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        busy.incrementAndGet();
+        Timer.Sample sample = Timer.start();
+        try {
+            return invocation.proceed();
+        } finally {
+            sample.stop(timer);
+            busy.decrementAndGet();
+        }
+    }
+
+    public double utilization() {
+        return maxConsumers > 0 ? (double) busy.get() / maxConsumers : 0;
+    }
+}
@@ -0,0 +1,25 @@
+package org.workers.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.llm.client.LlmClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.workers.service.LlmRateLimiter;
+
+/**
+ * Configures the shared LLM client, every GenAI request first waits for the worker-wide rate limit budget
+ */
+@Configuration
+public class LlmClientConfig {
+
+    @Bean
+    public LlmClient llmClient(@Value("${openai.api.url:https://api.openai.com/v1/chat/completions}") String apiUrl,
+                               @Value("${openai.api.key:}") String apiKey,
+                               @Value("${openai.timeout.seconds:30}") int timeoutSeconds,
+                               @Value("${openai.max-in-flight:64}") int maxInFlight,
+                               LlmRateLimiter rateLimiter,
+                               MeterRegistry meterRegistry) {
+        return new LlmClient(apiUrl, apiKey, timeoutSeconds, maxInFlight, rateLimiter, meterRegistry);
+    }
+}
@@ -2,15 +2,21 @@ package org.workers.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 
 /**
- * Configures RabbitMQ with JSON message serialization for worker queue communication
+ * Configures RabbitMQ with JSON message serialization for worker queue communication,
+ * and separate listener containers for the CPU-bound OCR and the I/O-bound GenAI worker
  */
 @Configuration
 public class RabbitMqConfig {
@@ -29,4 +35,47 @@ public class RabbitMqConfig {
         rabbitTemplate.setMessageConverter(jsonMessageConverter());
         return rabbitTemplate;
     }
+
+    // OCR parallelism comes from the Tesseract pool inside one message, so few consumers with a small prefetch
+    @Bean
+    public SimpleRabbitListenerContainerFactory ocrListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            MeterRegistry meterRegistry,
+            @Value("${workers.ocr.listener.concurrency:1}") int concurrency,
+            @Value("${workers.ocr.listener.max-concurrency:2}") int maxConcurrency,
+            @Value("${workers.ocr.listener.prefetch:1}") int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = listenerContainerFactory(configurer, connectionFactory,
+                concurrency, maxConcurrency, prefetch);
+        factory.setAdviceChain(new ListenerUtilization("ocr", maxConcurrency, meterRegistry));
+        return factory;
+    }
+
+    // GenAI consumers mostly wait for OpenAI, virtual threads keep hundreds of them cheap
+    @Bean
+    public SimpleRabbitListenerContainerFactory genAiListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            MeterRegistry meterRegistry,
+            @Value("${workers.genai.listener.concurrency:8}") int concurrency,
+            @Value("${workers.genai.listener.max-concurrency:200}") int maxConcurrency,
+            @Value("${workers.genai.listener.prefetch:5}") int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = listenerContainerFactory(configurer, connectionFactory,
+                concurrency, maxConcurrency, prefetch);
+        factory.setTaskExecutor(new VirtualThreadTaskExecutor("genai-consumer-"));
+        factory.setAdviceChain(new ListenerUtilization("genai", maxConcurrency, meterRegistry));
+        return factory;
+    }
+
+    private SimpleRabbitListenerContainerFactory listenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            int concurrency, int maxConcurrency, int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setMessageConverter(jsonMessageConverter());
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(Math.max(concurrency, maxConcurrency));
+        factory.setPrefetchCount(prefetch);
+        return factory;
+    }
 }
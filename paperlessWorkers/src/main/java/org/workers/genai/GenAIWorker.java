@@ -2,14 +2,19 @@ package org.workers.genai;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 import org.workers.dto.GenAiResultDto;
 import org.workers.dto.OcrResultDto;
+import org.workers.service.LlmRateLimitedException;
 import org.workers.service.OpenAIService;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 /**
@@ -21,24 +26,43 @@ import java.time.LocalDateTime;
 @Slf4j
 public class GenAIWorker {
 
+    // Number of times the message was already deferred because of throttling
+    static final String RETRY_COUNT_HEADER = "x-retry-count";
+
     private final RabbitTemplate rabbitTemplate;
     private final OpenAIService openAIService;
 
     @Value("${rabbitmq.queue.genai.result}")
     private String resultQueueName;
 
+    @Value("${rabbitmq.queue.genai}")
+    private String genAiQueueName;
+
+    // Throttled attempts per document before it gets the placeholder summary instead of another retry
+    @Value("${workers.genai.max-attempts:5}")
+    private int maxAttempts;
+
+    // Longest pause before a throttled document goes back to the queue, the consumer is a virtual thread
+    @Value("${workers.genai.requeue-delay-max-seconds:30}")
+    private long requeueDelayMaxSeconds;
+
     /**
-     * Processes OCR results: generates AI summary and sends complete result to persistence layer
+     * Processes OCR results: generates AI summary and sends complete result to persistence layer.
+     * Throttled documents are published again with an attempt count, up to workers.genai.max-attempts
      */
-    @RabbitListener(queues = "genai-worker-queue")
-    public void processGenAiTask(OcrResultDto ocrResult) {
+    @RabbitListener(queues = "genai-worker-queue", containerFactory = "genAiListenerContainerFactory")
+    public void processGenAiTask(OcrResultDto ocrResult,
+                                 @Header(name = RETRY_COUNT_HEADER, required = false) Integer retryCount) {
         log.info("GenAI Worker received OCR result for document ID: {}, text length: {} chars", 
                 ocrResult.getDocumentId(), ocrResult.getExtractedText().length());
 
         try {
             // Generate AI summary from OCR text
             log.debug("Generating AI summary for document ID: {} with OpenAI", ocrResult.getDocumentId());
-            String summary = openAIService.generateSummary(ocrResult.getExtractedText());
+            String summary = summarize(ocrResult, retryCount != null ? retryCount : 0);
+            if (summary == null) {
+                return;
+            }
             log.info("GenAI Worker generated summary ({} chars) for document ID: {}", 
                     summary.length(), ocrResult.getDocumentId());
 
@@ -57,9 +81,49 @@ public class GenAIWorker {
             rabbitTemplate.convertAndSend(resultQueueName, genAiResult);
             log.info("GenAI Worker successfully sent result to result queue");
 
+        } catch (ImmediateRequeueAmqpException e) {
+            throw e;
         } catch (Exception e) {
             log.error("GenAI Worker failed to process document ID {}: {}", 
                     ocrResult.getDocumentId(), e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    // Summary of the document, or null when a throttled document was sent back to the queue for a later attempt
+    private String summarize(OcrResultDto ocrResult, int retryCount) {
+        try {
+            return openAIService.generateSummary(ocrResult.getExtractedText());
+        } catch (LlmRateLimitedException e) {
+            int attempt = retryCount + 1;
+            if (attempt >= maxAttempts) {
+                log.warn("GenAI Worker giving up on document ID {} after {} throttled attempts, using placeholder summary: {}",
+                        ocrResult.getDocumentId(), attempt, e.getMessage());
+                return openAIService.generatePlaceholderSummary(ocrResult.getExtractedText());
+            }
+            log.warn("GenAI Worker deferring document ID {} (attempt {} of {}): {}",
+                    ocrResult.getDocumentId(), attempt, maxAttempts, e.getMessage());
+            pauseBeforeRequeue(e.getRetryAfter());
+            // Published again with the attempt count instead of a plain requeue, which could not count attempts
+            try {
+                rabbitTemplate.convertAndSend(genAiQueueName, ocrResult, message -> {
+                    message.getMessageProperties().setHeader(RETRY_COUNT_HEADER, attempt);
+                    return message;
+                });
+            } catch (AmqpException publishError) {
+                // Not republished, so the original delivery must not be acknowledged
+                throw new ImmediateRequeueAmqpException("Could not defer document " + ocrResult.getDocumentId(), publishError);
+            }
+            return null;
+        }
+    }
+
+    private void pauseBeforeRequeue(Duration retryAfter) {
+        Duration maxDelay = Duration.ofSeconds(requeueDelayMaxSeconds);
+        Duration delay = retryAfter == null || retryAfter.compareTo(maxDelay) > 0 ? maxDelay : retryAfter;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -7,11 +7,19 @@ import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.workers.dto.FileMessageDto;
+import org.workers.dto.OcrChunkDto;
 import org.workers.dto.OcrResultDto;
 import org.workers.service.FileStorage;
+import org.workers.service.OcrResultCache;
 import org.workers.service.TesseractOcrService;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
 
 /**
  * RabbitMQ listener that processes files from MinIO using Tesseract OCR.
@@ -25,6 +33,7 @@ public class OcrWorker {
     private final RabbitTemplate rabbitTemplate;
     private final FileStorage fileStorage;
     private final TesseractOcrService tesseractOcrService;
+    private final OcrResultCache ocrResultCache;
 
     @Value("${rabbitmq.queue.genai}")
     private String genAiQueueName;
@@ -32,22 +41,32 @@ public class OcrWorker {
     @Value("${minio.bucket-name}")
     private String bucketName;
 
+    @Value("${rabbitmq.queue.ocr-chunks}")
+    private String chunkQueueName;
+
+    // Publish page text to the search-service while OCR is still running, the full result still goes to GenAI
+    @Value("${ocr.chunks.enabled:true}")
+    private boolean chunksEnabled;
+
+    @Value("${ocr.chunks.pages-per-chunk:5}")
+    private int pagesPerChunk;
+
     /**
      * Processes file messages: downloads from MinIO, extracts text via OCR, forwards to GenAI
      */
-    @RabbitListener(queues = "ocr-worker-queue")
+    @RabbitListener(queues = "ocr-worker-queue", containerFactory = "ocrListenerContainerFactory")
     public void processOcrTask(FileMessageDto message) {
         log.info("OCR Worker received message for document ID: {}, file: {}", 
                 message.getId(), message.getFilename());
 
+        Path file = null;
         try {
-            // Download file from MinIO
-            byte[] fileContent = fileStorage.download(message.getObjectKey());
-            log.info("OCR Worker downloaded file from MinIO: {} ({} bytes)", 
-                    message.getObjectKey(), fileContent.length);
+            // Download file from MinIO into a temp file, pages are read from disk as they are rendered
+            file = fileStorage.downloadToTempFile(message.getObjectKey());
+            log.info("OCR Worker downloaded file from MinIO: {} to {}", message.getObjectKey(), file);
 
             // Perform OCR processing with Tesseract
-            String extractedText = performOcrProcessing(fileContent, message.getFilename(), message.getFileType());
+            String extractedText = performOcrProcessing(file, message);
             log.info("OCR Worker extracted {} characters from file: {}", 
                     extractedText.length(), message.getFilename());
 
@@ -69,23 +88,171 @@ public class OcrWorker {
         } catch (Exception e) {
             log.error("OCR Worker failed to process document ID {}: {}", 
                     message.getId(), e.getMessage(), e);
+        } finally {
+            deleteTempFile(file);
+        }
+    }
+
+    // Perform OCR processing based on file type, unless the same file was already processed with the same OCR version
+    private String performOcrProcessing(Path file, FileMessageDto message) {
+        String filename = message.getFilename();
+        String fileType = message.getFileType();
+        if (!"PDF".equalsIgnoreCase(fileType) && !isImageFile(fileType)) {
+            log.warn("Unsupported file type for OCR: {}", fileType);
+            return "[OCR not supported for file type: " + fileType + "]";
         }
+
+        String cacheKey = cacheKey(file, filename);
+        if (cacheKey != null) {
+            Optional<String> cached = ocrResultCache.get(cacheKey);
+            if (cached.isPresent()) {
+                log.info("OCR Worker found cached OCR result for {}, skipping OCR", filename);
+                // Replay the cached pages so the chunks carry the same page ranges as a fresh extraction
+                ChunkBuffer chunks = new ChunkBuffer(message);
+                String[] pages = cached.get().split(Pattern.quote(TesseractOcrService.PAGE_SEPARATOR));
+                for (int i = 0; i < pages.length; i++) {
+                    chunks.add(i + 1, pages[i]);
+                }
+                chunks.complete();
+                return cached.get();
+            }
+        }
+
+        Extraction extraction = extractText(file, message);
+        // Errors, including single failed pages, are not cached so the next upload of the same file gets another attempt
+        if (cacheKey != null && extraction.complete()) {
+            ocrResultCache.put(cacheKey, extraction.text());
+        } else if (cacheKey != null) {
+            log.warn("OCR Worker not caching incomplete OCR result for {}", filename);
+        }
+        return extraction.text();
     }
 
-    // Perform OCR processing based on file type
-    private String performOcrProcessing(byte[] fileContent, String filename, String fileType) {
+    private String cacheKey(Path file, String filename) {
+        if (!ocrResultCache.isEnabled()) {
+            return null;
+        }
+        try {
+            return ocrResultCache.key(file, tesseractOcrService.getCacheVersion());
+        } catch (IOException e) {
+            log.warn("OCR Worker could not hash {} for the result cache: {}", filename, e.getMessage());
+            return null;
+        }
+    }
+
+    private Extraction extractText(Path file, FileMessageDto message) {
+        String filename = message.getFilename();
+        String fileType = message.getFileType();
         try {
             if ("PDF".equalsIgnoreCase(fileType)) {
-                return tesseractOcrService.extractTextFromPdf(fileContent, filename);
-            } else if (isImageFile(fileType)) {
-                return tesseractOcrService.extractTextFromImage(fileContent, filename);
+                ChunkBuffer chunks = new ChunkBuffer(message);
+                StringJoiner extractedText = new StringJoiner(TesseractOcrService.PAGE_SEPARATOR);
+                TesseractOcrService.PdfExtractionResult result =
+                        tesseractOcrService.extractTextFromPdf(file, filename, (pageNumber, text) -> {
+                            extractedText.add(text);
+                            chunks.add(pageNumber, text);
+                        });
+                chunks.complete();
+                return new Extraction(extractedText.toString().trim(), result.complete());
             } else {
-                log.warn("Unsupported file type for OCR: {}", fileType);
-                return "[OCR not supported for file type: " + fileType + "]";
+                String extractedText = tesseractOcrService.extractTextFromImage(file, filename);
+                ChunkBuffer chunks = new ChunkBuffer(message);
+                chunks.add(1, extractedText);
+                chunks.complete();
+                return new Extraction(extractedText, true);
             }
         } catch (Exception e) {
             log.error("OCR processing failed for {}: {}", filename, e.getMessage(), e);
-            return "[OCR Error: " + e.getMessage() + "]";
+            return new Extraction("[OCR Error: " + e.getMessage() + "]", false);
+        }
+    }
+
+    // Extracted text and whether every page of it was OCRed successfully
+    private record Extraction(String text, boolean complete) {
+    }
+
+    /**
+     * Collects page texts of one document into chunks of pagesPerChunk pages and publishes each chunk when full.
+     * Publishing is best effort: the search-service gets the full text with the final result anyway.
+     */
+    private final class ChunkBuffer {
+
+        private final FileMessageDto message;
+        private StringJoiner text = new StringJoiner(TesseractOcrService.PAGE_SEPARATOR);
+        private int sequenceNumber;
+        private int firstPage;
+        private int lastPage;
+        private int pages;
+
+        private ChunkBuffer(FileMessageDto message) {
+            this.message = message;
+        }
+
+        private void add(int pageNumber, String pageText) {
+            if (!chunksEnabled) {
+                return;
+            }
+            if (pages == 0) {
+                firstPage = pageNumber;
+            }
+            text.add(pageText);
+            lastPage = pageNumber;
+            if (++pages >= pagesPerChunk) {
+                flush();
+            }
+        }
+
+        private void complete() {
+            if (!chunksEnabled) {
+                return;
+            }
+            flush();
+            send(chunk().sequenceNumber(sequenceNumber).complete(true).totalChunks(sequenceNumber).build());
+            log.info("OCR Worker published {} chunk(s) for document ID: {}", sequenceNumber, message.getId());
+        }
+
+        private void flush() {
+            if (pages == 0) {
+                return;
+            }
+            send(chunk()
+                    .sequenceNumber(sequenceNumber++)
+                    .firstPage(firstPage)
+                    .lastPage(lastPage)
+                    .text(text.toString().trim())
+                    .build());
+            text = new StringJoiner(TesseractOcrService.PAGE_SEPARATOR);
+            pages = 0;
+        }
+
+        private OcrChunkDto.OcrChunkDtoBuilder chunk() {
+            return OcrChunkDto.builder()
+                    .documentId(message.getId())
+                    .objectKey(message.getObjectKey())
+                    .filename(message.getFilename())
+                    .author(message.getAuthor())
+                    .fileType(message.getFileType())
+                    .size(message.getSize());
+        }
+
+        private void send(OcrChunkDto chunk) {
+            try {
+                rabbitTemplate.convertAndSend(chunkQueueName, chunk);
+            } catch (Exception e) {
+                log.warn("OCR Worker could not publish chunk {} of document ID {}: {}",
+                        chunk.getSequenceNumber(), message.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void deleteTempFile(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("OCR Worker could not delete temp file {}: {}", file, e.getMessage());
         }
     }
 
@@ -0,0 +1,50 @@
+package org.workers.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// In-memory LRU of chunk summaries per chunk text and prompt settings, so an edited or re-sent document only pays for changed chunks
+@Component
+public class ChunkSummaryCache {
+
+    private final MemoryLruCache entries;
+
+    public ChunkSummaryCache(@Value("${openai.summary.chunk-cache.max-entries:2048}") int maxEntries,
+                             MeterRegistry meterRegistry) {
+        this.entries = new MemoryLruCache(maxEntries, "genai.chunk.cache", "Chunk summary cache lookups",
+                "Chunk summaries in the cache", meterRegistry);
+    }
+
+    // SHA-256 over the request settings and the chunk text, each part length-prefixed so boundaries cannot shift
+    public String key(String settings, String chunk) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{settings, chunk}) {
+                byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public String get(String key) {
+        return entries.get(key);
+    }
+
+    public void put(String key, String summary) {
+        entries.put(key, summary);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
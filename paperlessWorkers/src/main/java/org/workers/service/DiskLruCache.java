@@ -0,0 +1,170 @@
+package org.workers.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Text values in one file per key under a directory, kept under a size cap by dropping the least recently used files.
+ * File modification times carry the LRU order across restarts. Metrics and key derivation stay with the callers,
+ * I/O failures are logged and treated as misses because every value can be computed again.
+ */
+@Slf4j
+class DiskLruCache {
+
+    private final Path directory;
+    private final String suffix;
+    private final long maxBytes;
+    private final String label;
+    private final Runnable onEviction;
+    // Access-ordered index of the cache files and their sizes, least recently used first
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Loads the files of an earlier run unless maxBytes is 0, which disables the cache.
+     * label names the values in log messages, onEviction runs once per file removed to stay under the cap.
+     */
+    DiskLruCache(Path directory, String suffix, long maxBytes, String label, Runnable onEviction) throws IOException {
+        this.directory = directory;
+        this.suffix = suffix;
+        this.maxBytes = maxBytes;
+        this.label = label;
+        this.onEviction = onEviction;
+        if (isEnabled()) {
+            loadIndex();
+        }
+    }
+
+    boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    Optional<String> read(String key) {
+        synchronized (this) {
+            // get() also moves the entry to the most recently used end
+            if (index.get(key) == null) {
+                return Optional.empty();
+            }
+        }
+        Path file = fileFor(key);
+        try {
+            String value = Files.readString(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(value);
+        } catch (NoSuchFileException e) {
+            // Evicted by another thread in between or removed from outside
+            forget(key);
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Could not read cached {} {}: {}", label, file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    void write(String key, String value) {
+        Path file = fileFor(key);
+        try {
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            Files.writeString(temp, value);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long size = Files.size(file);
+
+            synchronized (this) {
+                Long previous = index.put(key, size);
+                totalBytes += size - (previous != null ? previous : 0);
+                evictOverCap();
+            }
+        } catch (IOException e) {
+            log.warn("Could not write {} to cache {}: {}", label, file, e.getMessage());
+        }
+    }
+
+    // Drop least recently used files until the cache fits its cap again
+    private void evictOverCap() {
+        Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            onEviction.run();
+            try {
+                Files.deleteIfExists(fileFor(entry.getKey()));
+            } catch (IOException e) {
+                log.warn("Could not delete evicted {} {}: {}", label, entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void forget(String key) {
+        Long size = index.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    // Rebuild the LRU order from the file modification times of an earlier run
+    private void loadIndex() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (var stream = Files.list(directory)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(suffix))
+                    .sorted(Comparator.comparing(DiskLruCache::lastModified))
+                    .toList();
+        }
+        synchronized (this) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long size = Files.size(file);
+                index.put(name.substring(0, name.length() - suffix.length()), size);
+                totalBytes += size;
+            }
+            evictOverCap();
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private Path fileFor(String key) {
+        return directory.resolve(key + suffix);
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package org.workers.service;
 
+import java.nio.file.Path;
+
 public interface FileStorage {
-    byte[] download(String objectKey);
+    // Streams the object into a new temp file, the caller deletes it when done
+    Path downloadToTempFile(String objectKey);
     boolean exists(String objectKey);
 }
\ No newline at end of file
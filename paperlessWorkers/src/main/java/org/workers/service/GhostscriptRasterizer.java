@@ -0,0 +1,131 @@
+package org.workers.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Renders PDF pages by forking Ghostscript into a temp directory of PNGs, used as fallback for PDFs PDFBox cannot render
+@Component
+@Slf4j
+public class GhostscriptRasterizer implements PdfRasterizer {
+
+	@Override
+	public void render(Path pdfFile, List<Integer> pageNumbers, OcrProfile profile, PageImageConsumer consumer)
+			throws IOException, InterruptedException {
+		Path tempDir = null;
+		List<Path> imagePaths = new ArrayList<>();
+
+		try {
+			// Create temporary directory
+			tempDir = Files.createTempDirectory("ocr-pdf-");
+
+			// Convert PDF to images using Ghostscript, the PNGs wait on disk and are loaded one page at a time
+			imagePaths = convertPdfToImagesWithGhostscript(pdfFile, tempDir, pageNumbers, profile.getDefaultDpi());
+			log.info("Ghostscript converted PDF to {} image(s)", imagePaths.size());
+
+			for (int i = 0; i < imagePaths.size(); i++) {
+				// Ghostscript numbers its output sequentially, map back to the document's page number
+				int pageNumber = pageNumbers != null ? pageNumbers.get(i) : i + 1;
+				BufferedImage image = ImageIO.read(imagePaths.get(i).toFile());
+				if (image == null) {
+					throw new IOException("Failed to read rendered page " + pageNumber);
+				}
+				Files.delete(imagePaths.get(i));
+				consumer.accept(pageNumber, image);
+			}
+		} finally {
+			// Cleanup temporary files
+			cleanupTempFiles(imagePaths, tempDir);
+		}
+	}
+
+	// Convert PDF to images using Ghostscript CLI, only the given pages if a page list is passed
+	// Ghostscript renders every page at the profile's default DPI, the per-page adaptive DPI needs PDFBox
+	private List<Path> convertPdfToImagesWithGhostscript(Path pdfPath, Path outputDir, List<Integer> pageNumbers, int dpi)
+			throws IOException, InterruptedException {
+
+		String outputPattern = outputDir.resolve("page-%d.png").toString();
+
+		// Ghostscript command to convert PDF to grayscale PNG images
+		List<String> command = new ArrayList<>(List.of(
+				"gs",	                    					// Ghostscript executable
+				"-dSAFER",	                				// Safe mode
+				"-dBATCH",	                				// Exit after processing
+				"-dNOPAUSE",	            					// No pause after each page
+				"-sDEVICE=pnggray",	        				// Output device: 8-bit grayscale PNG, a third of png16m
+				"-r" + dpi,	                				// Resolution of the OCR profile
+				"-sOutputFile=" + outputPattern));		// Output: page-1.png, page-2.png, ...
+		if (pageNumbers != null) {
+			command.add("-sPageList=" + pageNumbers.stream().map(String::valueOf).collect(Collectors.joining(",")));
+		}
+		command.add(pdfPath.toString());	    				// Input PDF file
+
+		log.debug("Executing Ghostscript command: {}", String.join(" ", command));
+
+		ProcessBuilder processBuilder = new ProcessBuilder(command);
+		processBuilder.redirectErrorStream(true);
+
+		Process process = processBuilder.start();
+
+		// Read output for logging
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(process.getInputStream()))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				log.debug("Ghostscript: {}", line);
+			}
+		}
+
+		int exitCode = process.waitFor();
+		if (exitCode != 0) {
+			throw new IOException("Ghostscript conversion failed with exit code: " + exitCode);
+		}
+
+		// Find all generated PNG files, ordered by page number (page-10 must follow page-9)
+		List<Path> imagePaths = new ArrayList<>();
+		try (var stream = Files.list(outputDir)) {
+			stream.filter(path -> path.toString().endsWith(".png"))
+					.sorted(Comparator.comparingInt(GhostscriptRasterizer::pageNumberOf))
+					.forEach(imagePaths::add);
+		}
+
+		if (imagePaths.isEmpty()) {
+			throw new IOException("Ghostscript did not generate any images");
+		}
+
+		return imagePaths;
+	}
+
+	private static int pageNumberOf(Path imagePath) {
+		String name = imagePath.getFileName().toString();
+		return Integer.parseInt(name.substring("page-".length(), name.length() - ".png".length()));
+	}
+
+	// Cleanup temporary files and directories
+	private void cleanupTempFiles(List<Path> imagePaths, Path tempDir) {
+		try {
+			for (Path imagePath : imagePaths) {
+				if (Files.exists(imagePath)) {
+					Files.delete(imagePath);
+				}
+			}
+			if (tempDir != null && Files.exists(tempDir)) {
+				Files.delete(tempDir);
+			}
+			log.debug("Temporary files cleaned up");
+		} catch (IOException e) {
+			log.warn("Failed to cleanup temporary files: {}", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package org.workers.service;
+
+import java.time.Duration;
+
+/**
+ * The LLM API is rate limited or overloaded right now, the request should be retried after retryAfter
+ * instead of falling back to a placeholder result
+ */
+public class LlmRateLimitedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public LlmRateLimitedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public LlmRateLimitedException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,246 @@
+package org.workers.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.llm.client.LlmRateLimit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Request-per-minute and token-per-minute budget for the LLM API, shared by all GenAI consumers.
+ * Both budgets refill continuously and are corrected from the x-ratelimit-* headers of every response,
+ * a 429 or timeout pauses all callers with a backoff that doubles until a request succeeds again.
+ * Callers reserve their share up front and wait for it, so bursts are spread out instead of being rejected by the provider.
+ */
+@Component
+@Slf4j
+public class LlmRateLimiter implements LlmRateLimit {
+
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(2);
+    // OpenAI reset values look like "1s", "6m0s", "20ms" or "1h2m3.5s"
+    private static final Pattern RESET_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private final LongSupplier nanoClock;
+    private final long maxWaitNanos;
+    private final Duration initialBackoff;
+
+    private double requestLimit;
+    private double tokenLimit;
+    private double availableRequests;
+    private double availableTokens;
+    private long lastRefill;
+    private long pausedUntil;
+    private Duration backoff;
+
+    private final Timer waitTimer;
+    private final Counter throttledCounter;
+
+    @Autowired
+    public LlmRateLimiter(@Value("${openai.rate-limit.requests-per-minute:500}") int requestsPerMinute,
+                          @Value("${openai.rate-limit.tokens-per-minute:200000}") int tokensPerMinute,
+                          @Value("${openai.rate-limit.max-wait-seconds:60}") int maxWaitSeconds,
+                          @Value("${openai.rate-limit.initial-backoff-ms:1000}") long initialBackoffMs,
+                          MeterRegistry meterRegistry) {
+        this(requestsPerMinute, tokensPerMinute, maxWaitSeconds, initialBackoffMs, meterRegistry, System::nanoTime);
+    }
+
+    LlmRateLimiter(int requestsPerMinute, int tokensPerMinute, int maxWaitSeconds, long initialBackoffMs,
+                   MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.maxWaitNanos = TimeUnit.SECONDS.toNanos(maxWaitSeconds);
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.backoff = initialBackoff;
+        this.requestLimit = requestsPerMinute;
+        this.tokenLimit = tokensPerMinute;
+        this.availableRequests = requestsPerMinute;
+        this.availableTokens = tokensPerMinute;
+        this.lastRefill = nanoClock.getAsLong();
+        this.pausedUntil = lastRefill;
+
+        Gauge.builder("llm.rate.limit.remaining", this, limiter -> limiter.remaining(true))
+                .description("Requests left in the current per-minute budget")
+                .tag("budget", "requests")
+                .register(meterRegistry);
+        Gauge.builder("llm.rate.limit.remaining", this, limiter -> limiter.remaining(false))
+                .description("Tokens left in the current per-minute budget")
+                .tag("budget", "tokens")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("llm.rate.limit.wait")
+                .description("Time a request waited for the rate limit budget")
+                .register(meterRegistry);
+        this.throttledCounter = Counter.builder("llm.rate.limit.throttled")
+                .description("Responses that were rate limited or timed out and paused all callers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserves one request and the estimated tokens, then waits until the budget covers them.
+     * Throws LlmRateLimitedException without reserving anything when the wait would exceed the configured maximum.
+     */
+    @Override
+    public void acquire(int estimatedTokens) {
+        long waitNanos = reserve(estimatedTokens);
+        if (waitNanos <= 0) {
+            return;
+        }
+        log.debug("Waiting {} ms for the LLM rate limit budget", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmRateLimitedException("Interrupted while waiting for the LLM rate limit", Duration.ofNanos(waitNanos));
+        }
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    synchronized long reserve(int estimatedTokens) {
+        long now = nanoClock.getAsLong();
+        refill(now);
+        // A single request larger than the whole budget only waits for a full bucket
+        double tokens = Math.min(estimatedTokens, tokenLimit);
+        long waitNanos = Math.max(pausedUntil - now,
+                Math.max(deficitNanos(availableRequests, 1, requestLimit), deficitNanos(availableTokens, tokens, tokenLimit)));
+        if (waitNanos > maxWaitNanos) {
+            throw new LlmRateLimitedException("LLM rate limit budget exhausted for the next "
+                    + TimeUnit.NANOSECONDS.toSeconds(waitNanos) + " seconds", Duration.ofNanos(waitNanos));
+        }
+        // Balances may go negative, later callers then wait for the refill behind this reservation
+        availableRequests -= 1;
+        availableTokens -= tokens;
+        return waitNanos;
+    }
+
+    /**
+     * Feeds every LLM response or timeout back into the budget and the backoff
+     */
+    @Override
+    public void record(HttpResponse<String> response, Throwable error) {
+        if (response != null) {
+            update(response.headers());
+            if (response.statusCode() == 429) {
+                onThrottled(response.headers());
+            } else if (response.statusCode() == 200) {
+                onSuccess();
+            }
+        } else if (error instanceof HttpTimeoutException
+                || error instanceof CompletionException && error.getCause() instanceof HttpTimeoutException) {
+            // An overloaded API answers late before it answers 429, back off the same way
+            onThrottled(null);
+        }
+    }
+
+    /**
+     * Corrects the budgets from the provider's view, which also covers requests sent by other worker replicas
+     */
+    public synchronized void update(HttpHeaders headers) {
+        long now = nanoClock.getAsLong();
+        refill(now);
+        headerNumber(headers, "x-ratelimit-limit-requests").ifPresent(limit -> requestLimit = limit);
+        headerNumber(headers, "x-ratelimit-limit-tokens").ifPresent(limit -> tokenLimit = limit);
+        headerNumber(headers, "x-ratelimit-remaining-requests")
+                .ifPresent(remaining -> availableRequests = Math.min(availableRequests, remaining));
+        headerNumber(headers, "x-ratelimit-remaining-tokens")
+                .ifPresent(remaining -> availableTokens = Math.min(availableTokens, remaining));
+    }
+
+    /**
+     * The request succeeded, the next throttling starts again with the initial backoff
+     */
+    public synchronized void onSuccess() {
+        backoff = initialBackoff;
+    }
+
+    /**
+     * Pauses all callers after a 429 or timeout, for the provider's retry hint if there is one,
+     * otherwise for a backoff that doubles with every consecutive throttling
+     */
+    public synchronized Duration onThrottled(HttpHeaders headers) {
+        throttledCounter.increment();
+        Duration pause = headers == null ? Duration.ZERO : retryAfter(headers)
+                .or(() -> headerDuration(headers, "x-ratelimit-reset-requests"))
+                .or(() -> headerDuration(headers, "x-ratelimit-reset-tokens"))
+                .orElse(Duration.ZERO);
+        if (pause.isZero()) {
+            pause = backoff;
+            backoff = backoff.multipliedBy(2).compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff.multipliedBy(2);
+        }
+        long now = nanoClock.getAsLong();
+        pausedUntil = Math.max(pausedUntil, now + pause.toNanos());
+        log.warn("LLM API throttled, pausing requests for {} ms", pause.toMillis());
+        return pause;
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed <= 0) {
+            return;
+        }
+        availableRequests = Math.min(requestLimit, availableRequests + requestLimit * elapsed / MINUTE_NANOS);
+        availableTokens = Math.min(tokenLimit, availableTokens + tokenLimit * elapsed / MINUTE_NANOS);
+        lastRefill = now;
+    }
+
+    private static long deficitNanos(double available, double needed, double perMinute) {
+        if (available >= needed || perMinute <= 0) {
+            return 0;
+        }
+        return (long) Math.ceil((needed - available) / perMinute * MINUTE_NANOS);
+    }
+
+    private synchronized double remaining(boolean requests) {
+        refill(nanoClock.getAsLong());
+        return requests ? availableRequests : availableTokens;
+    }
+
+    private static Optional<Duration> retryAfter(HttpHeaders headers) {
+        return headerNumber(headers, "retry-after-ms").map(ms -> Duration.ofMillis(ms.longValue()))
+                .or(() -> headerNumber(headers, "retry-after").map(seconds -> Duration.ofMillis((long) (seconds * 1000))));
+    }
+
+    private static Optional<Double> headerNumber(HttpHeaders headers, String name) {
+        return headers.firstValue(name).flatMap(value -> {
+            try {
+                return Optional.of(Double.parseDouble(value.trim()));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    static Optional<Duration> headerDuration(HttpHeaders headers, String name) {
+        return headers.firstValue(name).flatMap(LlmRateLimiter::parseReset);
+    }
+
+    static Optional<Duration> parseReset(String value) {
+        Matcher matcher = RESET_PART.matcher(value.trim());
+        double millis = 0;
+        boolean matched = false;
+        while (matcher.find()) {
+            matched = true;
+            double amount = Double.parseDouble(matcher.group(1));
+            millis += switch (matcher.group(2)) {
+                case "h" -> amount * 3_600_000;
+                case "m" -> amount * 60_000;
+                case "s" -> amount * 1000;
+                default -> amount;
+            };
+        }
+        return matched ? Optional.of(Duration.ofMillis((long) Math.ceil(millis))) : Optional.empty();
+    }
+}
@@ -0,0 +1,61 @@
+package org.workers.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-memory LRU of text values with hit/miss counters and a size gauge under one metric name.
+ * A cap of 0 disables it, every lookup is then a counted miss. Key derivation stays with the callers.
+ */
+class MemoryLruCache {
+
+    private final int maxEntries;
+    private final Map<String, String> entries;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    /**
+     * Registers metricName with result=hit|miss tags and metricName.size as gauge
+     */
+    MemoryLruCache(int maxEntries, String metricName, String lookupDescription, String sizeDescription,
+                   MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > MemoryLruCache.this.maxEntries;
+            }
+        };
+        this.hitCounter = Counter.builder(metricName)
+                .description(lookupDescription)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder(metricName)
+                .description(lookupDescription)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder(metricName + ".size", this, MemoryLruCache::size)
+                .description(sizeDescription)
+                .register(meterRegistry);
+    }
+
+    synchronized String get(String key) {
+        String value = maxEntries > 0 ? entries.get(key) : null;
+        (value != null ? hitCounter : missCounter).increment();
+        return value;
+    }
+
+    synchronized void put(String key, String value) {
+        if (maxEntries > 0) {
+            entries.put(key, value);
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
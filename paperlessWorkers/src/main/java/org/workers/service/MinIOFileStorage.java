@@ -9,6 +9,9 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 
@@ -21,25 +24,27 @@ public class MinIOFileStorage implements FileStorage {
 	private final MinioClient minioClient;
 	private final MinIOConfig minioConfig;
 
-	// Download object/file from MinIO as byte array
+	// Download object/file from MinIO into a temp file, streamed so large scans never sit in memory as a whole
 	@Override
-	public byte[] download(String objectKey) {
+	public Path downloadToTempFile(String objectKey) {
+		Path tempFile = null;
 		try {
 			log.info("Downloading file from MinIO - bucket: {}, key: {}",
 					minioConfig.getBucketName(), objectKey);
 
+			tempFile = Files.createTempFile("ocr-download-", null);
 			try (InputStream stream = minioClient.getObject(
 					GetObjectArgs.builder()
 							.bucket(minioConfig.getBucketName())
 							.object(objectKey)
 							.build())) {
 
-				// Read all bytes from the stream into memory
-				byte[] content = stream.readAllBytes();
-				log.info("File downloaded successfully from MinIO: {} ({} bytes)", objectKey, content.length);
-				return content;
+				long size = Files.copy(stream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+				log.info("File downloaded successfully from MinIO: {} ({} bytes)", objectKey, size);
+				return tempFile;
 			}
 		} catch (ErrorResponseException e) {
+			deleteQuietly(tempFile);
 			if (e.errorResponse().code().equals("NoSuchKey")) {
 				log.error("File not found in MinIO: {}", objectKey);
 				throw new RuntimeException("File not found: " + objectKey);
@@ -47,11 +52,22 @@ public class MinIOFileStorage implements FileStorage {
 			log.error("MinIO error during download - key: {}, error: {}", objectKey, e.getMessage());
 			throw new RuntimeException("Failed to download file from MinIO: " + e.getMessage(), e);
 		} catch (MinioException | IOException | NoSuchAlgorithmException | InvalidKeyException e) {
+			deleteQuietly(tempFile);
 			log.error("Error during file download - key: {}, error: {}", objectKey, e.getMessage());
 			throw new RuntimeException("Failed to download file: " + e.getMessage(), e);
 		}
 	}
 
+	private void deleteQuietly(Path tempFile) {
+		try {
+			if (tempFile != null) {
+				Files.deleteIfExists(tempFile);
+			}
+		} catch (IOException e) {
+			log.warn("Failed to delete temp file {}: {}", tempFile, e.getMessage());
+		}
+	}
+
 	// Check if object exists in MinIO, using statObject
 	@Override
 	public boolean exists(String objectKey) {
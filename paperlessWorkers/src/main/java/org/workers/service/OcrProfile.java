@@ -0,0 +1,40 @@
+package org.workers.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Locale;
+
+/**
+ * Quality/speed trade-off of the OCR pipeline, selected with ocr.profile.
+ * The target line height is the height of a rendered text line in pixels the DPI choice aims for.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum OcrProfile {
+
+	// Lower resolution and binarized input, fine for clean office documents
+	FAST(150, 200, 250, 30, true, false),
+	// Around 300 DPI for body text, more for small print
+	BALANCED(200, 300, 350, 42, true, false),
+	// Higher resolution, grayscale input so Tesseract thresholds locally, deskew for crooked scans
+	ACCURATE(300, 300, 450, 55, false, true);
+
+	private final int minDpi;
+	private final int defaultDpi;
+	private final int maxDpi;
+	private final int targetLineHeight;
+	private final boolean binarize;
+	private final boolean deskew;
+
+	public static OcrProfile from(String name) {
+		if (name == null || name.isBlank()) {
+			return BALANCED;
+		}
+		try {
+			return valueOf(name.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown OCR profile: " + name + " (expected fast, balanced or accurate)");
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package org.workers.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.BucketExistsArgs;
+import io.minio.GetObjectArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+
+// Extracted text per file content and OCR version: local disk LRU with a size cap, optionally shared through a MinIO side bucket
+@Component
+@Slf4j
+public class OcrResultCache {
+
+	private static final String SUFFIX = ".txt";
+
+	private final DiskLruCache disk;
+	private final String bucket;
+	private final MinioClient minioClient;
+	private volatile boolean bucketChecked;
+
+	private final Counter diskHitCounter;
+	private final Counter bucketHitCounter;
+	private final Counter missCounter;
+	private final Counter evictionCounter;
+
+	public OcrResultCache(@Value("${ocr.result-cache.dir:}") String directory,
+						  @Value("${ocr.result-cache.max-size-mb:512}") long maxSizeMb,
+						  @Value("${ocr.result-cache.bucket:}") String bucket,
+						  MinioClient minioClient, MeterRegistry meterRegistry) throws IOException {
+		this.bucket = bucket == null || bucket.isBlank() ? null : bucket;
+		this.minioClient = minioClient;
+
+		this.diskHitCounter = Counter.builder("ocr.result.cache")
+				.description("OCR result cache lookups")
+				.tags("result", "hit", "tier", "disk")
+				.register(meterRegistry);
+		this.bucketHitCounter = Counter.builder("ocr.result.cache")
+				.description("OCR result cache lookups")
+				.tags("result", "hit", "tier", "minio")
+				.register(meterRegistry);
+		this.missCounter = Counter.builder("ocr.result.cache")
+				.description("OCR result cache lookups")
+				.tags("result", "miss", "tier", "none")
+				.register(meterRegistry);
+		this.evictionCounter = Counter.builder("ocr.result.cache.evictions")
+				.description("OCR results removed from the disk cache to stay under the size cap")
+				.register(meterRegistry);
+
+		this.disk = new DiskLruCache(directory == null || directory.isBlank()
+				? Path.of(System.getProperty("java.io.tmpdir"), "ocr-result-cache")
+				: Path.of(directory), SUFFIX, maxSizeMb * 1024 * 1024, "OCR result", evictionCounter::increment);
+		Gauge.builder("ocr.result.cache.size.bytes", this, OcrResultCache::totalBytes)
+				.description("Size of the OCR results on local disk")
+				.register(meterRegistry);
+
+		if (isEnabled()) {
+			log.info("OCR result cache at {} with {} entries ({} of {} MB used), MinIO bucket: {}",
+					disk.directory(), disk.size(), disk.totalBytes() / (1024 * 1024), maxSizeMb, this.bucket);
+		} else {
+			log.info("OCR result cache disabled");
+		}
+	}
+
+	public boolean isEnabled() {
+		return disk.isEnabled();
+	}
+
+	// SHA-256 of the file bytes, plus the version so a new engine or profile never serves stale text
+	public String key(Path file, String ocrVersion) throws IOException {
+		MessageDigest fileDigest = DiskLruCache.sha256();
+		try (InputStream in = Files.newInputStream(file)) {
+			byte[] buffer = new byte[64 * 1024];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				fileDigest.update(buffer, 0, read);
+			}
+		}
+		String version = HexFormat.of().formatHex(DiskLruCache.sha256().digest(ocrVersion.getBytes(StandardCharsets.UTF_8)));
+		return HexFormat.of().formatHex(fileDigest.digest()) + "-" + version.substring(0, 16);
+	}
+
+	public Optional<String> get(String key) {
+		if (!isEnabled()) {
+			return Optional.empty();
+		}
+
+		Optional<String> text = disk.read(key);
+		if (text.isPresent()) {
+			diskHitCounter.increment();
+			return text;
+		}
+
+		text = readBucket(key);
+		if (text.isPresent()) {
+			bucketHitCounter.increment();
+			disk.write(key, text.get());
+			return text;
+		}
+
+		missCounter.increment();
+		return Optional.empty();
+	}
+
+	public void put(String key, String text) {
+		if (!isEnabled()) {
+			return;
+		}
+		disk.write(key, text);
+		writeBucket(key, text);
+	}
+
+	public long totalBytes() {
+		return disk.totalBytes();
+	}
+
+	private Optional<String> readBucket(String key) {
+		if (!bucketAvailable()) {
+			return Optional.empty();
+		}
+		try (InputStream stream = minioClient.getObject(GetObjectArgs.builder()
+				.bucket(bucket)
+				.object(key + SUFFIX)
+				.build())) {
+			return Optional.of(new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+		} catch (ErrorResponseException e) {
+			if (!"NoSuchKey".equals(e.errorResponse().code())) {
+				log.warn("Could not read OCR result {} from MinIO: {}", key, e.getMessage());
+			}
+			return Optional.empty();
+		} catch (Exception e) {
+			log.warn("Could not read OCR result {} from MinIO: {}", key, e.getMessage());
+			return Optional.empty();
+		}
+	}
+
+	// Best effort, the local copy is enough for this worker
+	private void writeBucket(String key, String text) {
+		if (!bucketAvailable()) {
+			return;
+		}
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		try {
+			minioClient.putObject(PutObjectArgs.builder()
+					.bucket(bucket)
+					.object(key + SUFFIX)
+					.stream(new ByteArrayInputStream(bytes), bytes.length, -1)
+					.contentType("text/plain; charset=utf-8")
+					.build());
+		} catch (Exception e) {
+			log.warn("Could not write OCR result {} to MinIO: {}", key, e.getMessage());
+		}
+	}
+
+	// Creates the side bucket on first use
+	private boolean bucketAvailable() {
+		if (bucket == null || minioClient == null) {
+			return false;
+		}
+		if (!bucketChecked) {
+			try {
+				if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build())) {
+					minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucket).build());
+					log.info("Created MinIO bucket for OCR results: {}", bucket);
+				}
+				bucketChecked = true;
+			} catch (Exception e) {
+				log.warn("MinIO bucket for OCR results not available: {}", e.getMessage());
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -1,120 +1,273 @@
 package org.workers.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.extern.slf4j.Slf4j;
+import org.llm.client.LlmClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 // Service for generating document summaries using OpenAI API
 @Service
 @Slf4j
 public class OpenAIService {
-    
-    private final HttpClient httpClient;
+
+    private static final String DOCUMENT_PROMPT =
+            "You are a document summarization assistant. " +
+            "Create a concise, informative summary of the provided document text. " +
+            "Focus on the main topics, key points, and important information. " +
+            "Keep the summary under 200 words.";
+    private static final String CHUNK_PROMPT =
+            "You are a document summarization assistant. " +
+            "You receive one section of a longer document. " +
+            "Summarize the section, keeping names, dates, amounts, obligations and other key facts. " +
+            "Keep the summary under 150 words.";
+    private static final String REDUCE_PROMPT =
+            "You are a document summarization assistant. " +
+            "You receive summaries of consecutive sections of one document. " +
+            "Combine them into a single concise, informative summary of the whole document. " +
+            "Focus on the main topics, key points, and important information. " +
+            "Keep the summary under 200 words.";
+
+    private final LlmClient llmClient;
+    private final ChunkSummaryCache chunkSummaryCache;
+    private final SummaryCache summaryCache;
     private final ObjectMapper objectMapper;
     
-    @Value("${openai.api.key:}")
-    private String apiKey;
-    @Value("${openai.api.url:https://api.openai.com/v1/chat/completions}")
-    private String apiUrl;
     @Value("${openai.model:gpt-4o-mini}")
     private String model;
     @Value("${openai.temperature:0.3}")
     private double temperature;
     @Value("${openai.max.tokens:300}")
     private int maxTokens;
-    @Value("${openai.timeout.seconds:30}")
-    private int timeoutSeconds;
+    // Input budget of one request, longer documents are summarized chunk by chunk and the chunk summaries combined
+    @Value("${openai.summary.chunk-tokens:3000}")
+    private int chunkTokens;
+    // Chunk requests of one document in flight at the same time
+    @Value("${openai.summary.max-parallel-chunks:4}")
+    private int maxParallelChunks;
 
-    public OpenAIService() {
+    public OpenAIService(LlmClient llmClient, ChunkSummaryCache chunkSummaryCache, SummaryCache summaryCache) {
+        this.llmClient = llmClient;
+        this.chunkSummaryCache = chunkSummaryCache;
+        this.summaryCache = summaryCache;
         this.objectMapper = new ObjectMapper();
-        this.httpClient = HttpClient.newHttpClient();
     }
 
-    // Generate a summary from OCR extracted text using OpenAI
+    // Generate a summary from OCR extracted text using OpenAI, blocking the caller (a virtual thread in the GenAI listener)
     public String generateSummary(String ocrText) {
-        if (apiKey == null || apiKey.isEmpty()) {
+        try {
+            return generateSummaryAsync(ocrText).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Generate a summary without holding a thread while OpenAI answers.
+     * Text longer than one request budget is split on page and paragraph boundaries, the chunks are summarized
+     * concurrently and their summaries combined into one. Texts that normalize to an already summarized text with the
+     * same settings are answered from the summary cache without calling OpenAI.
+     * A rate limited (429) or overloaded (503) API completes the future with LlmRateLimitedException so the document
+     * can be retried later, any other error including timeouts falls back to the placeholder summary.
+     */
+    public CompletableFuture<String> generateSummaryAsync(String ocrText) {
+        if (!llmClient.isConfigured()) {
             log.warn("OpenAI API key is not configured, returning placeholder summary");
-            return generatePlaceholderSummary(ocrText);
+            return CompletableFuture.completedFuture(generatePlaceholderSummary(ocrText));
         }
 
+        List<String> chunks = SummaryChunker.split(ocrText, chunkChars());
+        String cacheKey = summaryCache.key(ocrText, summarySettings());
+        Optional<String> cached = summaryCache.get(cacheKey, estimateSummaryTokens(ocrText, chunks.size()));
+        if (cached.isPresent()) {
+            log.info("Using cached summary for text of length: {} chars", ocrText.length());
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        log.info("Generating summary using OpenAI for text of length: {} chars in {} chunk(s)",
+                ocrText.length(), Math.max(1, chunks.size()));
+        log.debug("Calling OpenAI API with model: {}", model);
+        CompletableFuture<String> summary = chunks.size() <= 1
+                ? complete(DOCUMENT_PROMPT, "Summarize this document:\n\n" + ocrText)
+                : mapReduce(chunks);
+        return summary
+                .thenApply(result -> {
+                    log.info("Successfully generated summary using OpenAI (length: {} chars)", result.length());
+                    // Only real summaries are cached, placeholders and throttled documents get another attempt
+                    summaryCache.put(cacheKey, result.trim());
+                    return result.trim();
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof LlmRateLimitedException rateLimited) {
+                        throw rateLimited;
+                    }
+                    if (cause instanceof HttpTimeoutException) {
+                        log.error("OpenAI API request timed out after {} seconds for text length: {} chars",
+                                llmClient.getTimeoutSeconds(), ocrText.length());
+                        return generatePlaceholderSummary(ocrText);
+                    }
+                    log.error("Error calling OpenAI API: {}", cause.getMessage(), cause);
+                    return generatePlaceholderSummary(ocrText);
+                });
+    }
+
+    // Map: summarize every chunk with at most maxParallelChunks requests in flight, reduce: combine the chunk summaries
+    private CompletableFuture<String> mapReduce(List<String> chunks) {
+        List<CompletableFuture<String>> partials = new ArrayList<>(chunks.size());
+        int parallelism = Math.max(1, maxParallelChunks);
+        for (int i = 0; i < chunks.size(); i++) {
+            String chunk = chunks.get(i);
+            // Chunk i starts when chunk i - parallelism is done, a failed chunk stops the ones behind it
+            CompletableFuture<?> slot = i >= parallelism
+                    ? partials.get(i - parallelism)
+                    : CompletableFuture.completedFuture(null);
+            partials.add(slot.thenCompose(ignored -> summarizeChunk(chunk)));
+        }
+        return CompletableFuture.allOf(partials.toArray(CompletableFuture[]::new))
+                .thenCompose(ignored -> reduce(partials.stream().map(CompletableFuture::join).toList()));
+    }
+
+    private CompletableFuture<String> reduce(List<String> chunkSummaries) {
+        StringJoiner combined = new StringJoiner("\n\n");
+        for (int i = 0; i < chunkSummaries.size(); i++) {
+            combined.add("Section " + (i + 1) + ":\n" + chunkSummaries.get(i).trim());
+        }
+        if (combined.length() <= chunkChars()) {
+            return complete(REDUCE_PROMPT, "Combine these section summaries:\n\n" + combined);
+        }
+        // Too many sections for one request: summarize groups of section summaries first
+        log.debug("Reducing {} chunk summaries in another round", chunkSummaries.size());
+        return mapReduce(SummaryChunker.split(combined.toString(), chunkChars()));
+    }
+
+    private CompletableFuture<String> summarizeChunk(String chunk) {
+        String key = chunkSummaryCache.key(cacheSettings(), chunk);
+        String cached = chunkSummaryCache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return complete(CHUNK_PROMPT, "Summarize this section:\n\n" + chunk)
+                .thenApply(summary -> {
+                    chunkSummaryCache.put(key, summary);
+                    return summary;
+                });
+    }
+
+    // One chat completion, fails with LlmRateLimitedException on 429/503 and IllegalStateException on other errors
+    private CompletableFuture<String> complete(String systemPrompt, String userContent) {
+        String requestBody;
         try {
-            log.info("Generating summary using OpenAI for text of length: {} chars", ocrText.length());
-            
-            // Build messages array for OpenAI API
-            ArrayNode messages = objectMapper.createArrayNode();
-            
-            // System message (to define the assistant's role)
-            ObjectNode systemMsg = objectMapper.createObjectNode();
-            systemMsg.put("role", "system");
-            systemMsg.put("content", 
-                "You are a document summarization assistant. " +
-                "Create a concise, informative summary of the provided document text. " +
-                "Focus on the main topics, key points, and important information. " +
-                "Keep the summary under 200 words.");
-            messages.add(systemMsg);
-            
-            // User message: The OCR text to summarize
-            ObjectNode userMsg = objectMapper.createObjectNode();
-            userMsg.put("role", "user");
-            // Limit OCR text to avoid token limits (keep first 3000 chars)
-            String truncatedText = ocrText.length() > 3000 
-                ? ocrText.substring(0, 3000) + "..." 
-                : ocrText;
-            userMsg.put("content", "Summarize this document:\n\n" + truncatedText);
-            messages.add(userMsg);
-            
-            // Build request body
-            ObjectNode requestBody = objectMapper.createObjectNode();
-            requestBody.put("model", model);
-            requestBody.set("messages", messages);
-            requestBody.put("temperature", temperature);
-            requestBody.put("max_tokens", maxTokens);
-            
-            // Call OpenAI API
-            HttpRequest httpRequest = HttpRequest.newBuilder()
-                    .uri(URI.create(apiUrl))
-                    .header("Content-Type", "application/json")
-                    .header("Authorization", "Bearer " + apiKey)
-                    .timeout(Duration.ofSeconds(timeoutSeconds))
-                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(requestBody)))
-                    .build();
-            
-            log.debug("Calling OpenAI API: {} with model: {}", apiUrl, model);
-            HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
-            
-            if (response.statusCode() != 200) {
-                log.error("OpenAI API error: {} - {}", response.statusCode(), response.body());
-                return generatePlaceholderSummary(ocrText);
-            }
-            
-            // Parse response
-            JsonNode responseJson = objectMapper.readTree(response.body());
-            String summary = responseJson.get("choices").get(0).get("message").get("content").asText();
-            
-            log.info("Successfully generated summary using OpenAI (length: {} chars)", summary.length());
-            return summary.trim();
-            
-        } catch (java.net.http.HttpTimeoutException e) {
-            log.error("OpenAI API request timed out after {} seconds for text length: {} chars", timeoutSeconds, ocrText.length());
-            return generatePlaceholderSummary(ocrText);
-        } catch (Exception e) {
-            log.error("Error calling OpenAI API: {}", e.getMessage(), e);
-            return generatePlaceholderSummary(ocrText);
+            requestBody = buildRequestBody(systemPrompt, userContent);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return llmClient.chatCompletionAsync(requestBody, estimateTokens(requestBody))
+                .thenApply(response -> {
+                    if (response.statusCode() == 429 || response.statusCode() == 503) {
+                        log.warn("OpenAI API throttled or unavailable: {} - {}", response.statusCode(), response.body());
+                        throw new LlmRateLimitedException("OpenAI API returned " + response.statusCode(),
+                                retryAfter(response));
+                    }
+                    if (response.statusCode() != 200) {
+                        log.error("OpenAI API error: {} - {}", response.statusCode(), response.body());
+                        throw new IllegalStateException("OpenAI API returned " + response.statusCode());
+                    }
+                    return parseSummary(response.body());
+                });
+    }
+
+    private int chunkChars() {
+        return chunkTokens * SummaryChunker.CHARS_PER_TOKEN;
+    }
+
+    // Everything besides the chunk text that changes a chunk summary
+    private String cacheSettings() {
+        return model + "|" + temperature + "|" + maxTokens + "|" + CHUNK_PROMPT;
+    }
+
+    // Everything besides the document text that changes a document summary
+    private String summarySettings() {
+        return model + "|" + temperature + "|" + maxTokens + "|" + chunkTokens + "|"
+                + DOCUMENT_PROMPT + "|" + CHUNK_PROMPT + "|" + REDUCE_PROMPT;
+    }
+
+    // Input tokens of the text plus one completion per chunk and one for combining them
+    private long estimateSummaryTokens(String ocrText, int chunkCount) {
+        int completions = chunkCount <= 1 ? 1 : chunkCount + 1;
+        return (long) ocrText.length() / SummaryChunker.CHARS_PER_TOKEN + (long) completions * maxTokens;
+    }
+
+    // Rough token count of the prompt plus the completion budget
+    private int estimateTokens(String requestBody) {
+        return requestBody.length() / SummaryChunker.CHARS_PER_TOKEN + maxTokens;
+    }
+
+    private Duration retryAfter(HttpResponse<String> response) {
+        return response.headers().firstValue("retry-after")
+                .flatMap(value -> {
+                    try {
+                        return Optional.of(Duration.ofSeconds(Long.parseLong(value.trim())));
+                    } catch (NumberFormatException e) {
+                        return Optional.empty();
+                    }
+                })
+                .orElse(Duration.ZERO);
+    }
+
+    private String buildRequestBody(String systemPrompt, String userContent) throws JsonProcessingException {
+        // Build messages array for OpenAI API
+        ArrayNode messages = objectMapper.createArrayNode();
+        
+        // System message (to define the assistant's role)
+        ObjectNode systemMsg = objectMapper.createObjectNode();
+        systemMsg.put("role", "system");
+        systemMsg.put("content", systemPrompt);
+        messages.add(systemMsg);
+        
+        // User message: The text to summarize
+        ObjectNode userMsg = objectMapper.createObjectNode();
+        userMsg.put("role", "user");
+        userMsg.put("content", userContent);
+        messages.add(userMsg);
+        
+        // Build request body
+        ObjectNode requestBody = objectMapper.createObjectNode();
+        requestBody.put("model", model);
+        requestBody.set("messages", messages);
+        requestBody.put("temperature", temperature);
+        requestBody.put("max_tokens", maxTokens);
+        return objectMapper.writeValueAsString(requestBody);
+    }
+
+    private String parseSummary(String responseBody) {
+        try {
+            JsonNode responseJson = objectMapper.readTree(responseBody);
+            return responseJson.get("choices").get(0).get("message").get("content").asText();
+        } catch (JsonProcessingException e) {
+            throw new CompletionException(e);
         }
     }
 
     // Placeholder summary when OpenAI is not available
-    private String generatePlaceholderSummary(String ocrText) {
+    public String generatePlaceholderSummary(String ocrText) {
         int wordCount = ocrText.split("\\s+").length;
         int charCount = ocrText.length();
         String preview = ocrText.substring(0, Math.min(150, ocrText.length())).trim();
@@ -0,0 +1,242 @@
+package org.workers.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalDouble;
+
+// Prepares page images for Tesseract: DPI choice from page size and text height, grayscale, binarization and deskew
+@Component
+@Slf4j
+public class PageImagePreprocessor {
+
+	// Resolution of the cheap probe render used to measure text height, at 72 DPI one pixel is one point
+	public static final int PROBE_DPI = 72;
+
+	// Upper bound for a rendered page (about A2 at 300 DPI), keeps posters and drawings from exhausting memory
+	static final long MAX_PIXELS = 36_000_000L;
+
+	private static final double MAX_SKEW_DEGREES = 5.0;
+	private static final double SKEW_STEP_DEGREES = 0.25;
+	// Smaller angles are not worth the interpolation blur of a rotation
+	private static final double MIN_SKEW_DEGREES = 0.5;
+	private static final int SKEW_ANALYSIS_WIDTH = 1000;
+	private static final int MIN_TEXT_LINES = 3;
+
+	// Render resolution so that text lines come out at the profile's target height, limited by page size
+	public int chooseDpi(OcrProfile profile, float pageWidthPt, float pageHeightPt, BufferedImage probe) {
+		int dpi = profile.getDefaultDpi();
+		OptionalDouble lineHeight = probe != null ? estimateLineHeight(toGray(probe)) : OptionalDouble.empty();
+		if (lineHeight.isPresent()) {
+			long scaled = Math.round(PROBE_DPI * profile.getTargetLineHeight() / lineHeight.getAsDouble());
+			dpi = Math.clamp(scaled, profile.getMinDpi(), profile.getMaxDpi());
+		}
+
+		double squareInches = (pageWidthPt / 72.0) * (pageHeightPt / 72.0);
+		int maxDpiForPage = squareInches > 0 ? (int) Math.sqrt(MAX_PIXELS / squareInches) : dpi;
+		return Math.max(1, Math.min(dpi, maxDpiForPage));
+	}
+
+	// Grayscale, optional deskew and binarization as configured by the profile
+	public BufferedImage preprocess(BufferedImage image, OcrProfile profile) {
+		BufferedImage result = toGray(image);
+		if (profile.isDeskew()) {
+			double skew = estimateSkew(result);
+			if (Math.abs(skew) >= MIN_SKEW_DEGREES) {
+				log.debug("Deskewing page by {} degrees", skew);
+				result = rotate(result, -skew);
+			}
+		}
+		if (profile.isBinarize()) {
+			result = binarize(result, otsuThreshold(result));
+		}
+		return result;
+	}
+
+	static BufferedImage toGray(BufferedImage image) {
+		if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+			return image;
+		}
+		BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+		Graphics2D g = gray.createGraphics();
+		try {
+			g.drawImage(image, 0, 0, null);
+		} finally {
+			g.dispose();
+		}
+		return gray;
+	}
+
+	// Global threshold maximizing the between-class variance of ink and paper
+	static int otsuThreshold(BufferedImage gray) {
+		int[] histogram = new int[256];
+		WritableRaster raster = gray.getRaster();
+		int[] row = new int[gray.getWidth()];
+		for (int y = 0; y < gray.getHeight(); y++) {
+			raster.getSamples(0, y, row.length, 1, 0, row);
+			for (int value : row) {
+				histogram[value]++;
+			}
+		}
+
+		long total = (long) gray.getWidth() * gray.getHeight();
+		double sum = 0;
+		for (int i = 0; i < 256; i++) {
+			sum += (double) i * histogram[i];
+		}
+		double sumBackground = 0;
+		long weightBackground = 0;
+		double bestVariance = -1;
+		int threshold = 127;
+		for (int i = 0; i < 256; i++) {
+			weightBackground += histogram[i];
+			if (weightBackground == 0) {
+				continue;
+			}
+			long weightForeground = total - weightBackground;
+			if (weightForeground == 0) {
+				break;
+			}
+			sumBackground += (double) i * histogram[i];
+			double meanBackground = sumBackground / weightBackground;
+			double meanForeground = (sum - sumBackground) / weightForeground;
+			double variance = (double) weightBackground * weightForeground
+					* (meanBackground - meanForeground) * (meanBackground - meanForeground);
+			if (variance > bestVariance) {
+				bestVariance = variance;
+				threshold = i;
+			}
+		}
+		return threshold;
+	}
+
+	static BufferedImage binarize(BufferedImage gray, int threshold) {
+		int width = gray.getWidth();
+		BufferedImage binary = new BufferedImage(width, gray.getHeight(), BufferedImage.TYPE_BYTE_BINARY);
+		WritableRaster source = gray.getRaster();
+		WritableRaster target = binary.getRaster();
+		int[] row = new int[width];
+		for (int y = 0; y < gray.getHeight(); y++) {
+			source.getSamples(0, y, width, 1, 0, row);
+			for (int x = 0; x < width; x++) {
+				row[x] = row[x] > threshold ? 1 : 0;
+			}
+			target.setSamples(0, y, width, 1, 0, row);
+		}
+		return binary;
+	}
+
+	// Median height of the ink bands in the horizontal projection, empty if the page has too few text lines
+	static OptionalDouble estimateLineHeight(BufferedImage gray) {
+		int threshold = otsuThreshold(gray);
+		int width = gray.getWidth();
+		int minInk = Math.max(1, width / 200);
+		WritableRaster raster = gray.getRaster();
+		int[] row = new int[width];
+
+		List<Integer> bands = new ArrayList<>();
+		int bandHeight = 0;
+		for (int y = 0; y <= gray.getHeight(); y++) {
+			int ink = 0;
+			if (y < gray.getHeight()) {
+				raster.getSamples(0, y, width, 1, 0, row);
+				for (int value : row) {
+					if (value <= threshold) {
+						ink++;
+					}
+				}
+			}
+			if (ink >= minInk) {
+				bandHeight++;
+			} else {
+				// Bands of one pixel are rules, underlines or noise rather than text
+				if (bandHeight > 1) {
+					bands.add(bandHeight);
+				}
+				bandHeight = 0;
+			}
+		}
+
+		if (bands.size() < MIN_TEXT_LINES) {
+			return OptionalDouble.empty();
+		}
+		bands.sort(null);
+		return OptionalDouble.of(bands.get(bands.size() / 2));
+	}
+
+	// Skew angle in degrees: the angle whose projection of ink pixels has the sharpest peaks
+	static double estimateSkew(BufferedImage gray) {
+		double scale = Math.min(1.0, (double) SKEW_ANALYSIS_WIDTH / gray.getWidth());
+		int width = Math.max(1, (int) (gray.getWidth() * scale));
+		int height = Math.max(1, (int) (gray.getHeight() * scale));
+		BufferedImage small = gray;
+		if (scale < 1.0) {
+			small = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+			Graphics2D g = small.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.drawImage(gray, 0, 0, width, height, null);
+			} finally {
+				g.dispose();
+			}
+		}
+
+		int threshold = otsuThreshold(small);
+		WritableRaster raster = small.getRaster();
+		int[] row = new int[width];
+		List<int[]> ink = new ArrayList<>();
+		for (int y = 0; y < height; y++) {
+			raster.getSamples(0, y, width, 1, 0, row);
+			for (int x = 0; x < width; x++) {
+				if (row[x] <= threshold) {
+					ink.add(new int[]{x, y});
+				}
+			}
+		}
+		if (ink.isEmpty()) {
+			return 0;
+		}
+
+		int offset = (int) Math.ceil(width * Math.tan(Math.toRadians(MAX_SKEW_DEGREES))) + 1;
+		double bestAngle = 0;
+		double bestScore = -1;
+		for (double angle = -MAX_SKEW_DEGREES; angle <= MAX_SKEW_DEGREES + 1e-9; angle += SKEW_STEP_DEGREES) {
+			double tan = Math.tan(Math.toRadians(angle));
+			int[] bins = new int[height + 2 * offset];
+			for (int[] pixel : ink) {
+				bins[(int) Math.round(pixel[1] - pixel[0] * tan) + offset]++;
+			}
+			double score = 0;
+			for (int count : bins) {
+				score += (double) count * count;
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				bestAngle = angle;
+			}
+		}
+		return bestAngle;
+	}
+
+	static BufferedImage rotate(BufferedImage gray, double degrees) {
+		BufferedImage rotated = new BufferedImage(gray.getWidth(), gray.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+		Graphics2D g = rotated.createGraphics();
+		try {
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, rotated.getWidth(), rotated.getHeight());
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.rotate(Math.toRadians(degrees), gray.getWidth() / 2.0, gray.getHeight() / 2.0);
+			g.drawImage(gray, 0, 0, null);
+		} finally {
+			g.dispose();
+		}
+		return rotated;
+	}
+}
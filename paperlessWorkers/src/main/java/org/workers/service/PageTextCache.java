@@ -0,0 +1,61 @@
+package org.workers.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// In-memory LRU of OCR text per preprocessed page image, so repeated pages (cover sheets, templates, blank pages) skip Tesseract
+@Component
+public class PageTextCache {
+
+	private final MemoryLruCache entries;
+
+	public PageTextCache(@Value("${ocr.page-cache.max-entries:512}") int maxEntries, MeterRegistry meterRegistry) {
+		this.entries = new MemoryLruCache(maxEntries, "ocr.page.cache", "Page OCR cache lookups",
+				"Pages in the OCR cache", meterRegistry);
+	}
+
+	// SHA-256 over the profile and the pixels Tesseract would see
+	public String key(BufferedImage image, OcrProfile profile) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(profile.name().getBytes(StandardCharsets.UTF_8));
+			digest.update(ByteBuffer.allocate(12).putInt(image.getWidth()).putInt(image.getHeight()).putInt(image.getType()).array());
+			if (image.getRaster().getDataBuffer() instanceof DataBufferByte buffer) {
+				digest.update(buffer.getData());
+			} else {
+				int[] row = new int[image.getWidth()];
+				ByteBuffer bytes = ByteBuffer.allocate(row.length * Integer.BYTES);
+				for (int y = 0; y < image.getHeight(); y++) {
+					image.getRGB(0, y, row.length, 1, row, 0, row.length);
+					bytes.clear();
+					bytes.asIntBuffer().put(row);
+					digest.update(bytes.array());
+				}
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	public String get(String key) {
+		return entries.get(key);
+	}
+
+	public void put(String key, String text) {
+		entries.put(key, text);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+}
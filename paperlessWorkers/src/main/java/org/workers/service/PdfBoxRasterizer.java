@@ -0,0 +1,56 @@
+package org.workers.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// In-process PDF rendering with PDFBox: 8-bit grayscale images straight into memory, no process spawn or PNG round trip
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PdfBoxRasterizer implements PdfRasterizer {
+
+	private final PageImagePreprocessor preprocessor;
+
+	@Override
+	public void render(Path pdfFile, List<Integer> pageNumbers, OcrProfile profile, PageImageConsumer consumer)
+			throws IOException, InterruptedException {
+		// Read the file on demand and spill decoded streams to disk instead of loading the whole document into memory
+		try (PDDocument document = Loader.loadPDF(pdfFile.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+			// Don't keep fonts and images of already rendered pages around for the rest of a long document
+			document.setResourceCache(null);
+			PDFRenderer renderer = new PDFRenderer(document);
+			List<Integer> pages = pageNumbers != null
+					? pageNumbers
+					: IntStream.rangeClosed(1, document.getNumberOfPages()).boxed().toList();
+
+			// PDFRenderer is not thread-safe, pages are rendered one after another
+			for (int pageNumber : pages) {
+				long start = System.nanoTime();
+				int dpi = chooseDpi(document, renderer, pageNumber, profile);
+				var image = renderer.renderImageWithDPI(pageNumber - 1, dpi, ImageType.GRAY);
+				log.debug("PDFBox rendered page {} at {} DPI in {} ms", pageNumber, dpi, (System.nanoTime() - start) / 1_000_000);
+				consumer.accept(pageNumber, image);
+			}
+		}
+	}
+
+	// A low resolution probe render shows how large the text is, so small print gets more pixels and large print fewer
+	private int chooseDpi(PDDocument document, PDFRenderer renderer, int pageNumber, OcrProfile profile) throws IOException {
+		PDRectangle cropBox = document.getPage(pageNumber - 1).getCropBox();
+		BufferedImage probe = renderer.renderImageWithDPI(pageNumber - 1, PageImagePreprocessor.PROBE_DPI, ImageType.GRAY);
+		return preprocessor.chooseDpi(profile, cropBox.getWidth(), cropBox.getHeight(), probe);
+	}
+}
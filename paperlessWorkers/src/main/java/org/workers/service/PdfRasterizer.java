@@ -0,0 +1,23 @@
+package org.workers.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Renders PDF pages to images for OCR, handing them over one page at a time in page order
+ */
+public interface PdfRasterizer {
+
+	/**
+	 * Renders the given 1-based pages (all pages if null) at the profile's resolution and passes each image to the consumer
+	 */
+	void render(Path pdfFile, List<Integer> pageNumbers, OcrProfile profile, PageImageConsumer consumer)
+			throws IOException, InterruptedException;
+
+	@FunctionalInterface
+	interface PageImageConsumer {
+		void accept(int pageNumber, BufferedImage image) throws IOException, InterruptedException;
+	}
+}
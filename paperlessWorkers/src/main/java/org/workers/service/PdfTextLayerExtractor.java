@@ -0,0 +1,50 @@
+package org.workers.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads the embedded text layer of born-digital PDFs page by page with PDFBox
+@Component
+@Slf4j
+public class PdfTextLayerExtractor {
+
+	private final int minChars;
+
+	public PdfTextLayerExtractor(@Value("${ocr.text-layer.min-chars:20}") int minChars) {
+		this.minChars = minChars;
+	}
+
+	// Returns the text of every page, or an empty list if PDFBox cannot read the document
+	public List<String> extractPageTexts(Path pdfFile, String filename) {
+		try (PDDocument document = Loader.loadPDF(pdfFile.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+			PDFTextStripper stripper = new PDFTextStripper();
+			stripper.setSortByPosition(true);
+
+			List<String> pageTexts = new ArrayList<>(document.getNumberOfPages());
+			for (int page = 1; page <= document.getNumberOfPages(); page++) {
+				stripper.setStartPage(page);
+				stripper.setEndPage(page);
+				pageTexts.add(stripper.getText(document).trim());
+			}
+			return pageTexts;
+		} catch (IOException e) {
+			log.warn("Could not read text layer of {}, falling back to OCR for all pages: {}", filename, e.getMessage());
+			return List.of();
+		}
+	}
+
+	// Scanned pages have no (or only a few stray) characters in their text layer
+	public boolean hasUsableText(String pageText) {
+		return pageText.codePoints().filter(c -> !Character.isWhitespace(c)).count() >= minChars;
+	}
+}
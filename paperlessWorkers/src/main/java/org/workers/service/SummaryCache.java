@@ -0,0 +1,126 @@
+package org.workers.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Document summaries per normalized text and request settings, in a local disk LRU that survives restarts.
+ * Normalization folds case, Unicode forms and whitespace, so re-uploads and copies that only differ in OCR layout
+ * share one summary. Hits are counted together with the tokens and the estimated API cost they saved.
+ */
+@Component
+@Slf4j
+public class SummaryCache {
+
+    private static final String SUFFIX = ".summary";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final DiskLruCache disk;
+    private final double costPer1kTokens;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter tokensSavedCounter;
+    private final Counter costSavedCounter;
+
+    public SummaryCache(@Value("${openai.summary.cache.dir:}") String directory,
+                        @Value("${openai.summary.cache.max-size-mb:64}") long maxSizeMb,
+                        @Value("${openai.summary.cache.cost-per-1k-tokens:0.0003}") double costPer1kTokens,
+                        MeterRegistry meterRegistry) throws IOException {
+        this.disk = new DiskLruCache(directory == null || directory.isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "genai-summary-cache")
+                : Path.of(directory), SUFFIX, maxSizeMb * 1024 * 1024, "summary", () -> { });
+        this.costPer1kTokens = costPer1kTokens;
+
+        this.hitCounter = Counter.builder("genai.summary.cache")
+                .description("Summary cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("genai.summary.cache")
+                .description("Summary cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("genai.summary.cache.hit.ratio", this, SummaryCache::hitRatio)
+                .description("Share of summary requests answered from the cache since start")
+                .register(meterRegistry);
+        this.tokensSavedCounter = Counter.builder("genai.summary.cache.tokens.saved")
+                .description("Estimated OpenAI tokens not spent because of cache hits")
+                .register(meterRegistry);
+        this.costSavedCounter = Counter.builder("genai.summary.cache.cost.saved")
+                .description("Estimated OpenAI cost not spent because of cache hits")
+                .baseUnit("usd")
+                .register(meterRegistry);
+        Gauge.builder("genai.summary.cache.size.bytes", this, SummaryCache::totalBytes)
+                .description("Size of the cached summaries on local disk")
+                .register(meterRegistry);
+
+        if (isEnabled()) {
+            log.info("Summary cache at {} with {} entries ({} of {} MB used)",
+                    disk.directory(), disk.size(), disk.totalBytes() / (1024 * 1024), maxSizeMb);
+        } else {
+            log.info("Summary cache disabled");
+        }
+    }
+
+    public boolean isEnabled() {
+        return disk.isEnabled();
+    }
+
+    // SHA-256 of the normalized text, plus the settings (model, prompts, temperature) so other settings never share a summary
+    public String key(String text, String settings) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFKC))
+                .replaceAll(" ")
+                .trim()
+                .toLowerCase(Locale.ROOT);
+        String textHash = HexFormat.of().formatHex(DiskLruCache.sha256().digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        String settingsHash = HexFormat.of().formatHex(DiskLruCache.sha256().digest(settings.getBytes(StandardCharsets.UTF_8)));
+        return textHash + "-" + settingsHash.substring(0, 16);
+    }
+
+    /**
+     * Cached summary for the key; a hit is credited with the estimated tokens a fresh summary would have cost
+     */
+    public Optional<String> get(String key, long estimatedTokens) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        Optional<String> summary = disk.read(key);
+        if (summary.isPresent()) {
+            hitCounter.increment();
+            tokensSavedCounter.increment(estimatedTokens);
+            costSavedCounter.increment(estimatedTokens / 1000.0 * costPer1kTokens);
+        } else {
+            missCounter.increment();
+        }
+        return summary;
+    }
+
+    public void put(String key, String summary) {
+        if (!isEnabled()) {
+            return;
+        }
+        disk.write(key, summary);
+    }
+
+    public double hitRatio() {
+        double lookups = hitCounter.count() + missCounter.count();
+        return lookups > 0 ? hitCounter.count() / lookups : 0;
+    }
+
+    public long totalBytes() {
+        return disk.totalBytes();
+    }
+}
@@ -0,0 +1,76 @@
+package org.workers.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Splits document text into chunks of at most maxChars for map-reduce summarization.
+ * Every page break (the form feed in TesseractOcrService.PAGE_SEPARATOR) ends a chunk, so the chunks of one page do
+ * not depend on the text of the pages before it and an edit keeps the chunk summary cache keys of all other pages. Within a page cuts prefer blank lines, then line
+ * breaks, sentence ends and finally any whitespace, so a chunk only ends mid-word when a single word is longer than
+ * the whole budget.
+ */
+public final class SummaryChunker {
+
+    // Rough size of one token in English and German text, good enough for budgeting requests
+    public static final int CHARS_PER_TOKEN = 4;
+
+    private static final String CHUNK_SEPARATOR = "\n\n";
+    private static final Pattern PAGE_BREAK = Pattern.compile("\f");
+    private static final Pattern[] BOUNDARIES = {
+            Pattern.compile("\\n\\s*\\n"),
+            Pattern.compile("\\n"),
+            Pattern.compile("(?<=[.!?])\\s+"),
+            Pattern.compile("\\s+")
+    };
+
+    private SummaryChunker() {
+    }
+
+    public static List<String> split(String text, int maxChars) {
+        List<String> chunks = new ArrayList<>();
+        for (String page : PAGE_BREAK.split(text)) {
+            chunks.addAll(pack(pieces(page.trim(), maxChars, 0), maxChars));
+        }
+        return chunks;
+    }
+
+    // Join consecutive pieces of one page while they fit into maxChars
+    private static List<String> pack(List<String> pieces, int maxChars) {
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String piece : pieces) {
+            if (!current.isEmpty() && current.length() + CHUNK_SEPARATOR.length() + piece.length() > maxChars) {
+                chunks.add(current.toString());
+                current.setLength(0);
+            }
+            if (!current.isEmpty()) {
+                current.append(CHUNK_SEPARATOR);
+            }
+            current.append(piece);
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+
+    // Pieces no longer than maxChars, split at the coarsest boundary that makes them fit
+    private static List<String> pieces(String text, int maxChars, int level) {
+        if (text.length() <= maxChars) {
+            return text.isEmpty() ? List.of() : List.of(text);
+        }
+        List<String> pieces = new ArrayList<>();
+        if (level == BOUNDARIES.length) {
+            for (int start = 0; start < text.length(); start += maxChars) {
+                pieces.add(text.substring(start, Math.min(text.length(), start + maxChars)));
+            }
+            return pieces;
+        }
+        for (String part : BOUNDARIES[level].split(text)) {
+            pieces.addAll(pieces(part.trim(), maxChars, level + 1));
+        }
+        return pieces;
+    }
+}
@@ -1,174 +1,369 @@
 package org.workers.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import net.sourceforge.tess4j.Tesseract;
 import net.sourceforge.tess4j.TesseractException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.*;
-import java.nio.file.Files;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-
-// Service for performing OCR on documents using Tesseract
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Service for extracting text from documents: PDF text layer where present, otherwise OCR with pooled Tesseract instances (pages streamed through in parallel)
 @Service
 @Slf4j
 public class TesseractOcrService {
 
-	private final Tesseract tesseract;
-
-	public TesseractOcrService() {
-		this.tesseract = new Tesseract();
-
-		// Try to set tessdata path from environment or use default
-		String tessdataPath = System.getenv("TESSDATA_PREFIX");
-		if (tessdataPath != null && !tessdataPath.isEmpty()) {
-			tesseract.setDatapath(tessdataPath);
-			log.info("Tesseract initialized with tessdata path: {}", tessdataPath);
-		} else {
-			// Default path for Alpine Linux
-			tesseract.setDatapath("/usr/share/tessdata");
-			log.info("Tesseract initialized with default tessdata path");
-		}
-
-		tesseract.setLanguage("eng+deu");   // English + German languages
-		tesseract.setPageSegMode(1);        // Automatic page segmentation with OSD
-		tesseract.setOcrEngineMode(3);      // Default
+	private static final String RASTERIZER_GHOSTSCRIPT = "ghostscript";
+	// Bump whenever rendering, preprocessing or text layer handling changes the text produced for the same file
+	private static final int PIPELINE_VERSION = 2;
+
+	// Separates the pages of extracted text, summary chunking cuts at the form feed
+	public static final String PAGE_SEPARATOR = "\n\f\n";
+
+	private final TesseractPool tesseractPool;
+	private final PdfTextLayerExtractor pdfTextLayerExtractor;
+	private final PdfBoxRasterizer pdfBoxRasterizer;
+	private final GhostscriptRasterizer ghostscriptRasterizer;
+	private final PageImagePreprocessor preprocessor;
+	private final PageTextCache pageTextCache;
+	private final OcrProfile profile;
+	private final ExecutorService pageExecutor;
+	private final int maxPagesInFlight;
+	// Rendered pages not yet OCRed, across all documents, so peak memory stays bounded by page count and not document size
+	private final Semaphore pageSlots;
+	private final Timer pageTimer;
+	private final Counter textLayerPageCounter;
+	private final Counter ocrPageCounter;
+
+	// "pdfbox" renders in-process and falls back to Ghostscript, "ghostscript" always forks gs
+	@Value("${ocr.rasterizer:pdfbox}")
+	private String rasterizer;
+
+	public TesseractOcrService(TesseractPool tesseractPool, PdfTextLayerExtractor pdfTextLayerExtractor,
+							   PdfBoxRasterizer pdfBoxRasterizer, GhostscriptRasterizer ghostscriptRasterizer,
+							   PageImagePreprocessor preprocessor, PageTextCache pageTextCache,
+							   @Value("${ocr.profile:balanced}") String profileName,
+							   @Value("${ocr.max-pages-in-flight:0}") int configuredMaxPagesInFlight,
+							   MeterRegistry meterRegistry) {
+		this.tesseractPool = tesseractPool;
+		this.pdfTextLayerExtractor = pdfTextLayerExtractor;
+		this.pdfBoxRasterizer = pdfBoxRasterizer;
+		this.ghostscriptRasterizer = ghostscriptRasterizer;
+		this.preprocessor = preprocessor;
+		this.pageTextCache = pageTextCache;
+		this.profile = OcrProfile.from(profileName);
+
+		// One OCR thread per pooled Tesseract instance, so no page task waits for an engine
+		AtomicInteger threadCount = new AtomicInteger();
+		this.pageExecutor = Executors.newFixedThreadPool(tesseractPool.size(), runnable -> {
+			Thread thread = new Thread(runnable, "ocr-page-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		// Default: one queued page per OCR thread, enough to keep every Tesseract instance busy while the next page renders
+		this.maxPagesInFlight = configuredMaxPagesInFlight > 0 ? configuredMaxPagesInFlight : 2 * tesseractPool.size();
+		this.pageSlots = new Semaphore(maxPagesInFlight);
+		Gauge.builder("ocr.pages.in.flight", pageSlots, slots -> maxPagesInFlight - slots.availablePermits())
+				.description("Rendered pages waiting for or in OCR")
+				.register(meterRegistry);
+
+		this.pageTimer = Timer.builder("ocr.page.duration")
+				.description("Time to OCR a single page")
+				.publishPercentiles(0.5, 0.95)
+				.register(meterRegistry);
+		this.textLayerPageCounter = Counter.builder("ocr.pdf.pages")
+				.description("PDF pages by extraction path")
+				.tag("path", "text-layer")
+				.register(meterRegistry);
+		this.ocrPageCounter = Counter.builder("ocr.pdf.pages")
+				.description("PDF pages by extraction path")
+				.tag("path", "ocr")
+				.register(meterRegistry);
+
+		log.info("TesseractOcrService initialized with profile {}, {} parallel page OCR thread(s), at most {} page(s) in flight",
+				profile, tesseractPool.size(), maxPagesInFlight);
+	}
 
-		log.info("TesseractOcrService initialized successfully with languages: eng+deu");
+	@PreDestroy
+	public void shutdown() {
+		pageExecutor.shutdownNow();
 	}
 
-	// Extract text from PDF document using Ghostscript for PDF to image conversion
-	public String extractTextFromPdf(byte[] pdfBytes, String filename) throws IOException {
-		log.info("Starting OCR processing for PDF using Ghostscript: {}", filename);
+	/**
+	 * Receives the text of each page as soon as it is available, strictly in page order
+	 */
+	@FunctionalInterface
+	public interface PageTextConsumer {
+		void accept(int pageNumber, String text) throws IOException;
+	}
 
-		Path tempDir = null;
-		Path pdfPath = null;
-		List<Path> imagePaths = new ArrayList<>();
+	/**
+	 * Outcome of a page by page extraction. Failed pages were handed to the consumer as an "[OCR Error: ...]"
+	 * placeholder, so the text is usable but must not be treated as the final result for the file.
+	 */
+	public record PdfExtractionResult(int pages, int failedPages) {
 
-		try {
-			// Create temporary directory
-			tempDir = Files.createTempDirectory("ocr-pdf-");
-			pdfPath = tempDir.resolve("input.pdf");
+		public boolean complete() {
+			return failedPages == 0;
+		}
+	}
 
-			// Write PDF to temp file
-			Files.write(pdfPath, pdfBytes);
-			log.debug("PDF written to temporary file: {}", pdfPath);
+	// Extract text from PDF document and return it as one string, pages separated by PAGE_SEPARATOR
+	public String extractTextFromPdf(Path pdfFile, String filename) throws IOException {
+		StringJoiner extractedText = new StringJoiner(PAGE_SEPARATOR);
+		extractTextFromPdf(pdfFile, filename, (pageNumber, text) -> extractedText.add(text));
+		return extractedText.toString().trim();
+	}
 
-			// Convert PDF to images using Ghostscript
-			imagePaths = convertPdfToImagesWithGhostscript(pdfPath, tempDir);
-			log.info("Ghostscript converted PDF to {} image(s)", imagePaths.size());
+	/**
+	 * Extracts text page by page: embedded text layer where usable, rendering + Tesseract for the other pages.
+	 * Each page is rendered, OCRed, handed to the consumer and released, so memory does not grow with page count.
+	 * Returns the number of pages passed to the consumer and how many of them could not be OCRed.
+	 */
+	public PdfExtractionResult extractTextFromPdf(Path pdfFile, String filename, PageTextConsumer consumer) throws IOException {
+		log.info("Starting text extraction for PDF: {}", filename);
+
+		// Probe the text layer first, born-digital pages need no rendering or OCR at all
+		List<String> textLayer = pdfTextLayerExtractor.extractPageTexts(pdfFile, filename);
+		List<Integer> pagesToOcr = new ArrayList<>();
+		for (int i = 0; i < textLayer.size(); i++) {
+			if (!pdfTextLayerExtractor.hasUsableText(textLayer.get(i))) {
+				pagesToOcr.add(i + 1);
+			}
+		}
+		int textLayerPages = textLayer.size() - pagesToOcr.size();
+		textLayerPageCounter.increment(textLayerPages);
+
+		PageStream pageStream = new PageStream(filename, textLayer, consumer);
+		if (!textLayer.isEmpty() && pagesToOcr.isEmpty()) {
+			pageStream.emitRemainingTextLayerPages();
+			log.info("Text layer extraction completed for {}: {} page(s), OCR skipped", filename, textLayer.size());
+			return pageStream.result();
+		}
 
-			// Perform OCR on each image
-			StringBuilder extractedText = new StringBuilder();
-			for (int i = 0; i < imagePaths.size(); i++) {
-				Path imagePath = imagePaths.get(i);
-				log.debug("Processing page {} of {}", i + 1, imagePaths.size());
+		// Unreadable for PDFBox: let Ghostscript render every page as before
+		ocrPdfPages(pdfFile, filename, textLayer.isEmpty() ? null : pagesToOcr, pageStream);
+		ocrPageCounter.increment(pageStream.submittedPages);
 
-				BufferedImage image = ImageIO.read(imagePath.toFile());
-				String pageText = performOcr(image);
-				extractedText.append(pageText).append("\n\n");
+		log.info("Text extraction completed for {}: {} page(s), {} from text layer, {} OCRed, {} failed",
+				filename, pageStream.emittedPages, textLayerPages, pageStream.submittedPages, pageStream.failedPages);
+		return pageStream.result();
+	}
 
-				log.debug("Extracted {} characters from page {}", pageText.length(), i + 1);
+	// Render the given pages (all pages if null) and OCR them in parallel while rendering continues
+	private void ocrPdfPages(Path pdfFile, String filename, List<Integer> pageNumbers, PageStream pageStream)
+			throws IOException {
+		try {
+			long startTime = System.nanoTime();
+			if (RASTERIZER_GHOSTSCRIPT.equalsIgnoreCase(rasterizer)) {
+				ghostscriptRasterizer.render(pdfFile, pageNumbers, profile, pageStream::submit);
+			} else {
+				try {
+					pdfBoxRasterizer.render(pdfFile, pageNumbers, profile, pageStream::submit);
+				} catch (IOException | RuntimeException e) {
+					// Pages already submitted are kept, Ghostscript only has to deliver the rest
+					log.warn("PDFBox could not render {} after {} page(s), falling back to Ghostscript: {}",
+							filename, pageStream.submittedPages, e.getMessage());
+					ghostscriptRasterizer.render(pdfFile, pageStream.remaining(pageNumbers), profile, pageStream::submit);
+				}
 			}
+			pageStream.finish();
 
-			String result = extractedText.toString().trim();
-			log.info("OCR completed for {}: extracted {} characters from {} page(s)",
-					filename, result.length(), imagePaths.size());
-
-			return result;
+			long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+			log.info("OCR completed for {}: {} page(s) in {} ms ({} ms OCR time on {} thread(s))",
+					filename, pageStream.submittedPages, wallMillis, pageStream.ocrMillis, tesseractPool.size());
 
 		} catch (IOException | InterruptedException e) {
 			log.error("Failed to process PDF {}: {}", filename, e.getMessage(), e);
 			throw new IOException("PDF OCR processing failed: " + e.getMessage(), e);
 		} finally {
-			// Cleanup temporary files
-			cleanupTempFiles(pdfPath, imagePaths, tempDir);
+			// Stop remaining page tasks of a failed document and give back their slots
+			pageStream.cancel();
 		}
 	}
 
-	// Convert PDF to images using Ghostscript CLI
-	private List<Path> convertPdfToImagesWithGhostscript(Path pdfPath, Path outputDir)
-			throws IOException, InterruptedException {
+	/**
+	 * Ordered hand-off between the renderer, the OCR threads and the consumer of one document.
+	 * Only used from the rendering thread, the OCR threads just complete the futures.
+	 */
+	private final class PageStream {
+
+		private final String filename;
+		private final List<String> textLayer;
+		private final PageTextConsumer consumer;
+		// Submitted in ascending page order, so the head is always the next page due
+		private final Deque<PendingPage> pending = new ArrayDeque<>();
+		private int nextPage = 1;
+		private int lastSubmittedPage;
+		private int submittedPages;
+		private int emittedPages;
+		private int failedPages;
+		private long ocrMillis;
+
+		private PageStream(String filename, List<String> textLayer, PageTextConsumer consumer) {
+			this.filename = filename;
+			this.textLayer = textLayer;
+			this.consumer = consumer;
+		}
+
+		// Called by the rasterizer for every rendered page: waits for a free slot, then queues the page for OCR
+		private void submit(int pageNumber, BufferedImage image) throws IOException, InterruptedException {
+			if (pageNumber <= lastSubmittedPage) {
+				return;
+			}
+			// Hand over finished pages first, a blocked renderer must not hold back text that is already done
+			emitCompleted(false);
+			while (!pageSlots.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+				emitCompleted(false);
+			}
 
-		String outputPattern = outputDir.resolve("page-%d.png").toString();
+			PendingPage page = new PendingPage();
+			try {
+				page.future = pageExecutor.submit(() -> {
+					try {
+						return ocrPage(image, pageNumber);
+					} finally {
+						page.releaseSlot();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				page.releaseSlot();
+				throw new IOException("OCR executor is shut down", e);
+			}
+			pending.addLast(page);
+			lastSubmittedPage = pageNumber;
+			submittedPages++;
+			emitCompleted(false);
+		}
 
-		// Ghostscript command to convert PDF to PNG images at 300 DPI
-		List<String> command = List.of(
-				"gs",	                    					// Ghostscript executable
-				"-dSAFER",	                				// Safe mode
-				"-dBATCH",	                				// Exit after processing
-				"-dNOPAUSE",	            					// No pause after each page
-				"-sDEVICE=png16m",	        				// Output device: 24-bit color PNG
-				"-r300",	                					// 300 DPI resolution
-				"-sOutputFile=" + outputPattern,		// Output: page-1.png, page-2.png, ...
-				pdfPath.toString());	    					// Input PDF file
+		// Pages of the list the rasterizer has not delivered yet, null (all pages) stays null
+		private List<Integer> remaining(List<Integer> pageNumbers) {
+			return pageNumbers == null ? null
+					: pageNumbers.stream().filter(pageNumber -> pageNumber > lastSubmittedPage).toList();
+		}
 
-		log.debug("Executing Ghostscript command: {}", String.join(" ", command));
+		private void finish() throws IOException, InterruptedException {
+			emitCompleted(true);
+			emitRemainingTextLayerPages();
+		}
 
-		ProcessBuilder processBuilder = new ProcessBuilder(command);
-		processBuilder.redirectErrorStream(true);
+		private void emitRemainingTextLayerPages() throws IOException {
+			emitTextLayerPagesBefore(Integer.MAX_VALUE);
+		}
 
-		Process process = processBuilder.start();
+		// Emit the head of the queue while it is done (or wait for it), with any text layer pages in front of it
+		private void emitCompleted(boolean wait) throws IOException, InterruptedException {
+			while (!pending.isEmpty() && (wait || pending.peekFirst().future.isDone())) {
+				PendingPage page = pending.removeFirst();
+				PageResult pageResult = awaitPage(page.future);
+				ocrMillis += pageResult.millis();
+				log.info("Page {} of {}: {} characters in {} ms",
+						pageResult.pageNumber(), filename, pageResult.text().length(), pageResult.millis());
+
+				if (pageResult.failed()) {
+					failedPages++;
+				}
 
-		// Read output for logging
-		try (BufferedReader reader = new BufferedReader(
-				new InputStreamReader(process.getInputStream()))) {
-			String line;
-			while ((line = reader.readLine()) != null) {
-				log.debug("Ghostscript: {}", line);
+				emitTextLayerPagesBefore(pageResult.pageNumber());
+				emit(pageResult.pageNumber(), pageResult.text());
 			}
 		}
 
-		int exitCode = process.waitFor();
-		if (exitCode != 0) {
-			throw new IOException("Ghostscript conversion failed with exit code: " + exitCode);
+		private PdfExtractionResult result() {
+			return new PdfExtractionResult(emittedPages, failedPages);
 		}
 
-		// Find all generated PNG files
-		List<Path> imagePaths = new ArrayList<>();
-		try (var stream = Files.list(outputDir)) {
-			stream.filter(path -> path.toString().endsWith(".png"))
-					.sorted()
-					.forEach(imagePaths::add);
+		private void emitTextLayerPagesBefore(int pageNumber) throws IOException {
+			while (nextPage < pageNumber && nextPage <= textLayer.size()) {
+				emit(nextPage, textLayer.get(nextPage - 1));
+			}
 		}
 
-		if (imagePaths.isEmpty()) {
-			throw new IOException("Ghostscript did not generate any images");
+		private void emit(int pageNumber, String text) throws IOException {
+			consumer.accept(pageNumber, text);
+			nextPage = pageNumber + 1;
+			emittedPages++;
 		}
 
-		return imagePaths;
+		private void cancel() {
+			for (PendingPage page : pending) {
+				page.future.cancel(true);
+				page.releaseSlot();
+			}
+			pending.clear();
+		}
 	}
 
-	// Cleanup temporary files and directories
-	private void cleanupTempFiles(Path pdfPath, List<Path> imagePaths, Path tempDir) {
-		try {
-			if (pdfPath != null && Files.exists(pdfPath)) {
-				Files.delete(pdfPath);
-			}
-			for (Path imagePath : imagePaths) {
-				if (Files.exists(imagePath)) {
-					Files.delete(imagePath);
-				}
-			}
-			if (tempDir != null && Files.exists(tempDir)) {
-				Files.delete(tempDir);
+	private final class PendingPage {
+
+		private final AtomicBoolean slotHeld = new AtomicBoolean(true);
+		private Future<PageResult> future;
+
+		// Both the finished task and a cancellation may release, only the first one counts
+		private void releaseSlot() {
+			if (slotHeld.compareAndSet(true, false)) {
+				pageSlots.release();
 			}
-			log.debug("Temporary files cleaned up");
-		} catch (IOException e) {
-			log.warn("Failed to cleanup temporary files: {}", e.getMessage());
 		}
 	}
 
+	// OCR a single rendered page and record its duration, a Tesseract failure only marks this page as failed
+	private PageResult ocrPage(BufferedImage image, int pageNumber) throws IOException {
+		long pageStart = System.nanoTime();
+		String text;
+		boolean failed = false;
+		try {
+			text = performOcr(image);
+		} catch (TesseractException e) {
+			log.error("Tesseract OCR failed for page {}: {}", pageNumber, e.getMessage(), e);
+			text = "[OCR Error: " + e.getMessage() + "]";
+			failed = true;
+		}
+		long pageNanos = System.nanoTime() - pageStart;
+		pageTimer.record(pageNanos, TimeUnit.NANOSECONDS);
+		return new PageResult(pageNumber, text, TimeUnit.NANOSECONDS.toMillis(pageNanos), failed);
+	}
+
+	private PageResult awaitPage(Future<PageResult> page) throws IOException, InterruptedException {
+		try {
+			return page.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof IOException ioException ? ioException : new IOException(cause.getMessage(), cause);
+		}
+	}
+
+	private record PageResult(int pageNumber, String text, long millis, boolean failed) {
+	}
+
 	// Extract text from image file
-	public String extractTextFromImage(byte[] imageBytes, String filename) throws IOException {
+	public String extractTextFromImage(Path imageFile, String filename) throws IOException {
 		log.info("Starting OCR processing for image: {}", filename);
 
-		try (ByteArrayInputStream inputStream = new ByteArrayInputStream(imageBytes)) {
-			BufferedImage image = ImageIO.read(inputStream);
+		try {
+			BufferedImage image = ImageIO.read(imageFile.toFile());
 
 			if (image == null) {
 				throw new IOException("Failed to read image: " + filename);
@@ -179,20 +374,32 @@ public class TesseractOcrService {
 
 			return result;
 
+		} catch (TesseractException e) {
+			log.error("Tesseract OCR failed for image {}: {}", filename, e.getMessage(), e);
+			throw new IOException("Tesseract OCR failed: " + e.getMessage(), e);
 		} catch (IOException e) {
 			log.error("Failed to process image {}: {}", filename, e.getMessage(), e);
 			throw e;
 		}
 	}
 
-	// Perform OCR on a BufferedImage
-	private String performOcr(BufferedImage image) {
+	// Preprocess the image for the profile and OCR it with a pooled Tesseract instance, unless the same page was OCRed before
+	private String performOcr(BufferedImage image) throws IOException, TesseractException {
+		BufferedImage prepared = preprocessor.preprocess(image, profile);
+		String cacheKey = pageTextCache.key(prepared, profile);
+		String cached = pageTextCache.get(cacheKey);
+		if (cached != null) {
+			return cached;
+		}
+
 		try {
-			String text = tesseract.doOCR(image);
-			return text != null ? text.trim() : "";
-		} catch (TesseractException e) {
-			log.error("Tesseract OCR failed: {}", e.getMessage(), e);
-			return "[OCR Error: " + e.getMessage() + "]";
+			String text = tesseractPool.doOcr(prepared);
+			text = text != null ? text.trim() : "";
+			pageTextCache.put(cacheKey, text);
+			return text;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a Tesseract instance", e);
 		}
 	}
 
@@ -200,4 +407,9 @@ public class TesseractOcrService {
 	public String getVersion() {
 		return "Tesseract OCR v5.13.0 + Ghostscript";
 	}
+
+	// Identifies everything that influences the extracted text, used to key cached OCR results
+	public String getCacheVersion() {
+		return getVersion() + "|" + profile.name() + "|" + rasterizer + "|pipeline-" + PIPELINE_VERSION;
+	}
 }
\ No newline at end of file
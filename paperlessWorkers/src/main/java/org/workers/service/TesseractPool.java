@@ -0,0 +1,59 @@
+package org.workers.service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sourceforge.tess4j.Tesseract;
+import net.sourceforge.tess4j.TesseractException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Bounded pool of Tesseract instances; a Tesseract instance must only be used by one thread at a time
+@Component
+@Slf4j
+public class TesseractPool {
+
+	private final BlockingQueue<Tesseract> instances;
+	private final int size;
+
+	public TesseractPool(@Value("${ocr.tesseract.pool-size:0}") int configuredSize) {
+		this.size = configuredSize > 0 ? configuredSize : Runtime.getRuntime().availableProcessors();
+		this.instances = new ArrayBlockingQueue<>(size);
+
+		String tessdataPath = System.getenv("TESSDATA_PREFIX");
+		if (tessdataPath == null || tessdataPath.isEmpty()) {
+			// Default path for Alpine Linux
+			tessdataPath = "/usr/share/tessdata";
+		}
+		for (int i = 0; i < size; i++) {
+			instances.add(createTesseract(tessdataPath));
+		}
+
+		log.info("Tesseract pool initialized with {} instance(s), tessdata path: {}, languages: eng+deu", size, tessdataPath);
+	}
+
+	private Tesseract createTesseract(String tessdataPath) {
+		Tesseract tesseract = new Tesseract();
+		tesseract.setDatapath(tessdataPath);
+		tesseract.setLanguage("eng+deu");   // English + German languages
+		tesseract.setPageSegMode(1);        // Automatic page segmentation with OSD
+		tesseract.setOcrEngineMode(3);      // Default
+		return tesseract;
+	}
+
+	// Borrow an instance (waiting if all are busy), run OCR and hand it back
+	public String doOcr(BufferedImage image) throws TesseractException, InterruptedException {
+		Tesseract tesseract = instances.take();
+		try {
+			return tesseract.doOCR(image);
+		} finally {
+			instances.add(tesseract);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+}
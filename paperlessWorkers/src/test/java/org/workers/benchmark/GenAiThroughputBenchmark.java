@@ -0,0 +1,104 @@
+package org.workers.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.llm.client.LlmClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.workers.service.ChunkSummaryCache;
+import org.workers.service.LlmRateLimiter;
+import org.workers.service.OpenAIService;
+import org.workers.service.SummaryCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Documents/sec and summary latency of the GenAI stage (rate limiter, LLM client, map-reduce summarization)
+ * against the llm-stub server, so runs are repeatable and cost nothing. Start the stub first
+ * (cd llm-stub && mvn spring-boot:run, or docker compose --profile perf up llm-stub), then:
+ * ./mvnw test -Dtest=GenAiThroughputBenchmark -Dbenchmark.enabled=true [-Dllm.stub.url=http://localhost:8085/v1/chat/completions]
+ */
+@EnabledIfSystemProperty(named = "benchmark.enabled", matches = "true")
+class GenAiThroughputBenchmark {
+
+    private static final int DOCUMENTS = 500;
+    private static final int[] MAX_IN_FLIGHT = {8, 32, 128};
+    private static final String[] WORDS = {
+            "invoice", "contract", "amount", "payment", "delivery", "customer", "account", "reference",
+            "Rechnung", "Vertrag", "Betrag", "Zahlung", "Lieferung", "Kunde", "Konto", "Datum",
+            "2024", "1.250,00", "EUR", "No.", "12345", "Vienna", "GmbH", "Ltd"};
+
+    @Test
+    void throughputByConcurrencyLimit() throws Exception {
+        String url = System.getProperty("llm.stub.url", "http://localhost:8085/v1/chat/completions");
+        List<String> documents = createDocuments();
+
+        System.out.printf("%n%-12s %10s %10s %10s %10s %10s%n", "max-in-flight", "docs", "docs/sec", "p50 ms", "p99 ms", "failed");
+        for (int maxInFlight : MAX_IN_FLIGHT) {
+            run(url, maxInFlight, documents);
+        }
+    }
+
+    private void run(String url, int maxInFlight, List<String> documents) throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Budgets far above the stub's defaults, the stub's own limits and 429s decide
+        LlmRateLimiter rateLimiter = new LlmRateLimiter(1_000_000, 1_000_000_000, 60, 1000, meterRegistry);
+        LlmClient llmClient = new LlmClient(url, "stub", 60, maxInFlight, rateLimiter, meterRegistry);
+
+        // Caches off, every document goes to the stub
+        OpenAIService openAIService = new OpenAIService(llmClient, new ChunkSummaryCache(0, meterRegistry),
+                new SummaryCache("", 0, 0, meterRegistry));
+        ReflectionTestUtils.setField(openAIService, "model", "gpt-4o-mini");
+        ReflectionTestUtils.setField(openAIService, "temperature", 0.3);
+        ReflectionTestUtils.setField(openAIService, "maxTokens", 300);
+        ReflectionTestUtils.setField(openAIService, "chunkTokens", 3000);
+        ReflectionTestUtils.setField(openAIService, "maxParallelChunks", 4);
+
+        try {
+            long[] latencies = new long[documents.size()];
+            AtomicInteger failed = new AtomicInteger();
+            List<CompletableFuture<?>> summaries = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < documents.size(); i++) {
+                int index = i;
+                long submitted = System.nanoTime();
+                summaries.add(openAIService.generateSummaryAsync(documents.get(i)).handle((summary, error) -> {
+                    latencies[index] = (System.nanoTime() - submitted) / 1_000_000;
+                    if (error != null || summary.startsWith("Document Summary (Generated without AI)")) {
+                        failed.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            CompletableFuture.allOf(summaries.toArray(CompletableFuture[]::new)).join();
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            Arrays.sort(latencies);
+            System.out.printf("%-12d %10d %10.1f %10d %10d %10d%n", maxInFlight, documents.size(),
+                    documents.size() / seconds, latencies[latencies.length / 2],
+                    latencies[(int) (latencies.length * 0.99)], failed.get());
+        } finally {
+            llmClient.shutdown();
+        }
+    }
+
+    // Mostly one-page documents, every tenth one long enough for map-reduce
+    private List<String> createDocuments() {
+        Random random = new Random(42);
+        List<String> documents = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            int words = i % 10 == 0 ? 8000 : 300 + random.nextInt(700);
+            StringBuilder text = new StringBuilder("Document ").append(i).append('\n');
+            for (int w = 0; w < words; w++) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(w % 12 == 11 ? ".\n" : " ");
+            }
+            documents.add(text.toString());
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,168 @@
+package org.workers.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.workers.service.GhostscriptRasterizer;
+import org.workers.service.OcrProfile;
+import org.workers.service.PageImagePreprocessor;
+import org.workers.service.PageTextCache;
+import org.workers.service.PdfBoxRasterizer;
+import org.workers.service.PdfTextLayerExtractor;
+import org.workers.service.TesseractOcrService;
+import org.workers.service.TesseractPool;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Pages/sec and character accuracy of the OCR profiles on a generated corpus of scan-like pages
+ * (text as an image without text layer, different font sizes, slight skew and speckle noise).
+ * Requires Tesseract with eng+deu tessdata, run on demand:
+ * ./mvnw test -Dtest=OcrProfileBenchmark -Dbenchmark.enabled=true
+ */
+@EnabledIfSystemProperty(named = "benchmark.enabled", matches = "true")
+class OcrProfileBenchmark {
+
+    private static final int SCAN_DPI = 300;
+    private static final int[] FONT_SIZES = {8, 10, 12, 16};
+    private static final double[] SKEW_DEGREES = {0.0, 1.5};
+    private static final int LINES_PER_PAGE = 24;
+    private static final String[] WORDS = {
+            "invoice", "contract", "amount", "payment", "delivery", "customer", "account", "reference",
+            "Rechnung", "Vertrag", "Betrag", "Zahlung", "Lieferung", "Kunde", "Konto", "Datum",
+            "2024", "1.250,00", "EUR", "No.", "12345", "Vienna", "GmbH", "Ltd"};
+
+    @Test
+    void compareProfiles() throws Exception {
+        List<String> groundTruth = new ArrayList<>();
+        Path corpus = createCorpus(groundTruth);
+
+        System.out.printf("%n%-10s %8s %12s %14s%n", "profile", "pages", "pages/sec", "char accuracy");
+        for (OcrProfile profile : OcrProfile.values()) {
+            run(profile, corpus, groundTruth);
+        }
+    }
+
+    private void run(OcrProfile profile, Path corpus, List<String> groundTruth) throws IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PageImagePreprocessor preprocessor = new PageImagePreprocessor();
+        // Page cache off, every page is OCRed
+        TesseractOcrService service = new TesseractOcrService(new TesseractPool(0), new PdfTextLayerExtractor(20),
+                new PdfBoxRasterizer(preprocessor), new GhostscriptRasterizer(), preprocessor,
+                new PageTextCache(0, meterRegistry), profile.name(), 0, meterRegistry);
+
+        try {
+            List<String> pageTexts = new ArrayList<>();
+            long start = System.nanoTime();
+            service.extractTextFromPdf(corpus, "corpus.pdf", (pageNumber, text) -> pageTexts.add(text));
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            double accuracy = 0;
+            for (int i = 0; i < groundTruth.size(); i++) {
+                accuracy += characterAccuracy(groundTruth.get(i), pageTexts.get(i));
+            }
+            accuracy /= groundTruth.size();
+
+            System.out.printf("%-10s %8d %12.2f %13.1f%%%n",
+                    profile.name().toLowerCase(), pageTexts.size(), pageTexts.size() / seconds, accuracy * 100);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    // One page per font size and skew, text drawn into a 300 DPI image like a flatbed scan
+    private Path createCorpus(List<String> groundTruth) throws IOException {
+        Random random = new Random(42);
+        Path corpus = Files.createTempFile("ocr-profile-benchmark-", ".pdf");
+        corpus.toFile().deleteOnExit();
+
+        try (PDDocument document = new PDDocument()) {
+            for (int fontSize : FONT_SIZES) {
+                for (double skew : SKEW_DEGREES) {
+                    List<String> lines = new ArrayList<>();
+                    for (int i = 0; i < LINES_PER_PAGE; i++) {
+                        StringBuilder line = new StringBuilder();
+                        for (int w = 0; w < 6; w++) {
+                            line.append(w > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+                        }
+                        lines.add(line.toString());
+                    }
+                    groundTruth.add(String.join("\n", lines));
+
+                    PDPage page = new PDPage(PDRectangle.A4);
+                    document.addPage(page);
+                    BufferedImage scan = scanOf(lines, fontSize, skew, random);
+                    PDImageXObject image = LosslessFactory.createFromImage(document, scan);
+                    try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                        content.drawImage(image, 0, 0, PDRectangle.A4.getWidth(), PDRectangle.A4.getHeight());
+                    }
+                }
+            }
+            document.save(corpus.toFile());
+        }
+        return corpus;
+    }
+
+    private BufferedImage scanOf(List<String> lines, int fontSize, double skew, Random random) {
+        int width = (int) (PDRectangle.A4.getWidth() / 72 * SCAN_DPI);
+        int height = (int) (PDRectangle.A4.getHeight() / 72 * SCAN_DPI);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(235, 235, 235));
+        g.fillRect(0, 0, width, height);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.rotate(Math.toRadians(skew), width / 2.0, height / 2.0);
+        g.setColor(new Color(40, 40, 40));
+        g.setFont(new Font(Font.SERIF, Font.PLAIN, fontSize * SCAN_DPI / 72));
+
+        int lineHeight = (int) (fontSize * 1.6 * SCAN_DPI / 72);
+        for (int i = 0; i < lines.size(); i++) {
+            g.drawString(lines.get(i), SCAN_DPI, SCAN_DPI + i * lineHeight);
+        }
+        g.dispose();
+
+        // Speckle noise
+        for (int i = 0; i < width * height / 2000; i++) {
+            image.setRGB(random.nextInt(width), random.nextInt(height), 0xFF505050);
+        }
+        return image;
+    }
+
+    // 1 - edit distance / length, on whitespace-normalized text
+    private static double characterAccuracy(String expected, String actual) {
+        String truth = expected.replaceAll("\\s+", " ").trim();
+        String ocr = actual.replaceAll("\\s+", " ").trim();
+        int[] previous = new int[ocr.length() + 1];
+        int[] current = new int[ocr.length() + 1];
+        for (int j = 0; j <= ocr.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= truth.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= ocr.length(); j++) {
+                int substitution = previous[j - 1] + (truth.charAt(i - 1) == ocr.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j] + 1, current[j - 1] + 1));
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.max(0, 1 - (double) previous[ocr.length()] / truth.length());
+    }
+}
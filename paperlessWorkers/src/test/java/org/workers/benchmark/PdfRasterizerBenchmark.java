@@ -0,0 +1,128 @@
+package org.workers.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.workers.service.GhostscriptRasterizer;
+import org.workers.service.OcrProfile;
+import org.workers.service.PageImagePreprocessor;
+import org.workers.service.PdfBoxRasterizer;
+import org.workers.service.PdfRasterizer;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares in-process PDFBox rendering with the forked Ghostscript renderer.
+ * Reports pages/sec and peak RSS of the JVM plus child processes (sampled from /proc, Linux only).
+ * Requires Ghostscript on the PATH, run on demand:
+ * ./mvnw test -Dtest=PdfRasterizerBenchmark -Dbenchmark.enabled=true
+ */
+@EnabledIfSystemProperty(named = "benchmark.enabled", matches = "true")
+class PdfRasterizerBenchmark {
+
+    private static final int PAGES = 20;
+    private static final int LINES_PER_PAGE = 45;
+
+    @Test
+    void comparePdfBoxAndGhostscript() throws Exception {
+        Path pdf = Files.createTempFile("rasterizer-benchmark-", ".pdf");
+        Files.write(pdf, createCorpusPdf());
+        pdf.toFile().deleteOnExit();
+
+        // Warm up class loading and JIT on a short run of each renderer
+        new PdfBoxRasterizer(new PageImagePreprocessor()).render(pdf, List.of(1, 2), OcrProfile.BALANCED, (pageNumber, image) -> { });
+        new GhostscriptRasterizer().render(pdf, List.of(1, 2), OcrProfile.BALANCED, (pageNumber, image) -> { });
+
+        System.out.printf("%n%-12s %8s %12s %16s%n", "renderer", "pages", "pages/sec", "peak RSS (MB)");
+        run("pdfbox", new PdfBoxRasterizer(new PageImagePreprocessor()), pdf);
+        run("ghostscript", new GhostscriptRasterizer(), pdf);
+    }
+
+    private void run(String name, PdfRasterizer rasterizer, Path pdf) throws Exception {
+        System.gc();
+        AtomicInteger pages = new AtomicInteger();
+        RssSampler sampler = new RssSampler();
+        sampler.start();
+
+        long start = System.nanoTime();
+        rasterizer.render(pdf, null, OcrProfile.BALANCED, (pageNumber, image) -> pages.incrementAndGet());
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        sampler.interrupt();
+        sampler.join();
+        assertEquals(PAGES, pages.get());
+        System.out.printf("%-12s %8d %12.2f %16.1f%n", name, pages.get(), pages.get() / seconds, sampler.peakKb.get() / 1024.0);
+    }
+
+    private byte[] createCorpusPdf() throws IOException {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.TIMES_ROMAN);
+            for (int p = 1; p <= PAGES; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 11);
+                    content.setLeading(14);
+                    content.newLineAtOffset(72, 740);
+                    for (int line = 1; line <= LINES_PER_PAGE; line++) {
+                        content.showText("Page " + p + " line " + line + ": Lorem ipsum dolor sit amet, consectetur adipiscing elit.");
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    // Samples the resident set size of this JVM and all its child processes (e.g. gs)
+    private static final class RssSampler extends Thread {
+        private final AtomicLong peakKb = new AtomicLong();
+
+        RssSampler() {
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                long totalKb = rssKb(ProcessHandle.current().pid())
+                        + ProcessHandle.current().descendants().mapToLong(child -> rssKb(child.pid())).sum();
+                peakKb.accumulateAndGet(totalKb, Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private static long rssKb(long pid) {
+            try {
+                for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        return Long.parseLong(line.replaceAll("\\D", ""));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Process already exited
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.workers.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ListenerUtilizationTest {
+
+    @Test
+    void invoke_TracksBusyConsumersWhileProcessing() throws Throwable {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ListenerUtilization utilization = new ListenerUtilization("genai", 4, meterRegistry);
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.proceed()).thenAnswer(call -> {
+            assertEquals(1.0, meterRegistry.get("worker.listener.busy").tag("worker", "genai").gauge().value());
+            assertEquals(0.25, utilization.utilization());
+            return null;
+        });
+
+        utilization.invoke(invocation);
+
+        assertEquals(0.0, meterRegistry.get("worker.listener.busy").tag("worker", "genai").gauge().value());
+        assertEquals(1, meterRegistry.get("worker.listener.processing").tag("worker", "genai").timer().count());
+    }
+
+    @Test
+    void invoke_ReleasesConsumerWhenListenerFails() throws Throwable {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ListenerUtilization utilization = new ListenerUtilization("ocr", 2, meterRegistry);
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.proceed()).thenThrow(new IllegalStateException("listener failed"));
+
+        assertThrows(IllegalStateException.class, () -> utilization.invoke(invocation));
+
+        assertEquals(0.0, utilization.utilization());
+    }
+}
@@ -7,11 +7,19 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.workers.dto.GenAiResultDto;
 import org.workers.dto.OcrResultDto;
+import org.workers.service.LlmRateLimitedException;
 import org.workers.service.OpenAIService;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -43,6 +51,8 @@ class GenAIWorkerTest {
         } catch (Exception e) {
             fail("Failed to set resultQueueName: " + e.getMessage());
         }
+        ReflectionTestUtils.setField(genAIWorker, "genAiQueueName", "genai-worker-queue");
+        ReflectionTestUtils.setField(genAIWorker, "maxAttempts", 3);
 
         testOcrResult = new OcrResultDto(
                 123L,
@@ -63,7 +73,7 @@ class GenAIWorkerTest {
                 .thenReturn(testSummary);
 
         // Act
-        genAIWorker.processGenAiTask(testOcrResult);
+        genAIWorker.processGenAiTask(testOcrResult, null);
 
         // Assert
         verify(openAIService).generateSummary(testOcrResult.getExtractedText());
@@ -86,12 +96,59 @@ class GenAIWorkerTest {
                 .thenThrow(new RuntimeException("OpenAI API error"));
 
         // Act & Assert (should not throw exception, just log error)
-        assertDoesNotThrow(() -> genAIWorker.processGenAiTask(testOcrResult));
+        assertDoesNotThrow(() -> genAIWorker.processGenAiTask(testOcrResult, null));
         
         verify(openAIService).generateSummary(testOcrResult.getExtractedText());
         verify(rabbitTemplate, never()).convertAndSend(eq("genai-result-queue"), any(GenAiResultDto.class));
     }
 
+    @Test
+    void processGenAiTask_RateLimitedRepublishesWithRetryCount() {
+        // Arrange
+        when(openAIService.generateSummary(testOcrResult.getExtractedText()))
+                .thenThrow(new LlmRateLimitedException("OpenAI API returned 429", Duration.ZERO));
+
+        // Act (message goes back to the queue instead of getting a placeholder summary)
+        genAIWorker.processGenAiTask(testOcrResult, 1);
+
+        // Assert
+        ArgumentCaptor<MessagePostProcessor> captor = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(rabbitTemplate).convertAndSend(eq("genai-worker-queue"), eq(testOcrResult), captor.capture());
+        Message republished = captor.getValue().postProcessMessage(new Message(new byte[0], new MessageProperties()));
+        assertEquals(2, (Integer) republished.getMessageProperties().getHeader("x-retry-count"));
+        verify(rabbitTemplate, never()).convertAndSend(eq("genai-result-queue"), any(GenAiResultDto.class));
+    }
+
+    @Test
+    void processGenAiTask_RateLimitedAtMaxAttemptsUsesPlaceholder() {
+        // Arrange
+        when(openAIService.generateSummary(testOcrResult.getExtractedText()))
+                .thenThrow(new LlmRateLimitedException("OpenAI API returned 503", Duration.ZERO));
+        when(openAIService.generatePlaceholderSummary(testOcrResult.getExtractedText()))
+                .thenReturn("Document Summary (Generated without AI)");
+
+        // Act
+        genAIWorker.processGenAiTask(testOcrResult, 2);
+
+        // Assert
+        ArgumentCaptor<GenAiResultDto> captor = ArgumentCaptor.forClass(GenAiResultDto.class);
+        verify(rabbitTemplate).convertAndSend(eq("genai-result-queue"), captor.capture());
+        assertEquals("Document Summary (Generated without AI)", captor.getValue().getSummary());
+        verify(rabbitTemplate, never()).convertAndSend(eq("genai-worker-queue"), any(Object.class), any(MessagePostProcessor.class));
+    }
+
+    @Test
+    void processGenAiTask_RateLimitedAndRepublishFailsRequeuesMessage() {
+        // Arrange
+        when(openAIService.generateSummary(testOcrResult.getExtractedText()))
+                .thenThrow(new LlmRateLimitedException("OpenAI API returned 429", Duration.ZERO));
+        doThrow(new AmqpException("Connection lost"))
+                .when(rabbitTemplate).convertAndSend(eq("genai-worker-queue"), any(Object.class), any(MessagePostProcessor.class));
+
+        // Act & Assert
+        assertThrows(ImmediateRequeueAmqpException.class, () -> genAIWorker.processGenAiTask(testOcrResult, null));
+    }
+
     @Test
     void processGenAiTask_RabbitTemplateThrowsException() {
         // Arrange
@@ -101,7 +158,7 @@ class GenAIWorkerTest {
                 .when(rabbitTemplate).convertAndSend(eq("genai-result-queue"), any(GenAiResultDto.class));
 
         // Act & Assert (should not throw exception, just log error)
-        assertDoesNotThrow(() -> genAIWorker.processGenAiTask(testOcrResult));
+        assertDoesNotThrow(() -> genAIWorker.processGenAiTask(testOcrResult, null));
         
         verify(openAIService).generateSummary(testOcrResult.getExtractedText());
         verify(rabbitTemplate).convertAndSend(eq("genai-result-queue"), any(GenAiResultDto.class));
@@ -124,7 +181,7 @@ class GenAIWorkerTest {
                 .thenReturn("Short summary");
 
         // Act
-        genAIWorker.processGenAiTask(ocrWithLongText);
+        genAIWorker.processGenAiTask(ocrWithLongText, null);
 
         // Assert
         ArgumentCaptor<GenAiResultDto> captor = ArgumentCaptor.forClass(GenAiResultDto.class);
@@ -3,6 +3,7 @@ package org.workers.ocr;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -10,11 +11,18 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.workers.dto.FileMessageDto;
+import org.workers.dto.OcrChunkDto;
 import org.workers.dto.OcrResultDto;
 import org.workers.service.FileStorage;
+import org.workers.service.OcrResultCache;
 import org.workers.service.TesseractOcrService;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -32,10 +40,17 @@ class OcrWorkerTest {
     @Mock
     private TesseractOcrService tesseractOcrService;
 
+    @Mock
+    private OcrResultCache ocrResultCache;
+
     @InjectMocks
     private OcrWorker ocrWorker;
 
+    @TempDir
+    Path tempDir;
+
     private static final String GENAI_QUEUE = "genai-worker-queue";
+    private static final String CHUNK_QUEUE = "ocr-chunk-queue";
     private static final String BUCKET_NAME = "test-bucket";
     private static final String TESSERACT_VERSION = "Tesseract OCR v5.13.0 + Ghostscript";
 
@@ -43,26 +58,26 @@ class OcrWorkerTest {
     void setUp() {
         ReflectionTestUtils.setField(ocrWorker, "genAiQueueName", GENAI_QUEUE);
         ReflectionTestUtils.setField(ocrWorker, "bucketName", BUCKET_NAME);
+        ReflectionTestUtils.setField(ocrWorker, "chunkQueueName", CHUNK_QUEUE);
     }
 
     @Test
     void testProcessOcrTask_WithPdfFile_Success() throws Exception {
         // Arrange
         FileMessageDto message = createFileMessage(1L, "document.pdf", "PDF", "documents/doc1.pdf");
-        byte[] fileContent = "PDF content bytes".getBytes();
+        Path fileContent = tempFile();
         String extractedText = "This is extracted text from PDF";
 
-        when(fileStorage.download(message.getObjectKey())).thenReturn(fileContent);
-        when(tesseractOcrService.extractTextFromPdf(fileContent, message.getFilename()))
-                .thenReturn(extractedText);
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
+        stubPdfPages(fileContent, message.getFilename(), extractedText);
         when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
 
         // Act
         ocrWorker.processOcrTask(message);
 
         // Assert
-        verify(fileStorage).download("documents/doc1.pdf");
-        verify(tesseractOcrService).extractTextFromPdf(fileContent, "document.pdf");
+        verify(fileStorage).downloadToTempFile("documents/doc1.pdf");
+        verify(tesseractOcrService).extractTextFromPdf(eq(fileContent), eq("document.pdf"), any());
 
         //catch the argument sent to RabbitMQ
         ArgumentCaptor<OcrResultDto> resultCaptor = ArgumentCaptor.forClass(OcrResultDto.class);
@@ -81,10 +96,10 @@ class OcrWorkerTest {
     void testProcessOcrTask_WithPngImage_Success() throws Exception {
         // Arrange
         FileMessageDto message = createFileMessage(2L, "scan.png", "PNG", "images/scan1.png");
-        byte[] fileContent = "PNG image bytes".getBytes();
+        Path fileContent = tempFile();
         String extractedText = "Text from PNG image";
 
-        when(fileStorage.download(message.getObjectKey())).thenReturn(fileContent);
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
         when(tesseractOcrService.extractTextFromImage(fileContent, message.getFilename()))
                 .thenReturn(extractedText);
         when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
@@ -93,7 +108,7 @@ class OcrWorkerTest {
         ocrWorker.processOcrTask(message);
 
         // Assert
-        verify(fileStorage).download("images/scan1.png");
+        verify(fileStorage).downloadToTempFile("images/scan1.png");
         verify(tesseractOcrService).extractTextFromImage(fileContent, "scan.png");
 
         //catch the argument sent to RabbitMQ
@@ -113,10 +128,10 @@ class OcrWorkerTest {
     void testProcessOcrTask_WithJpgImage_Success() throws Exception {
         // Arrange
         FileMessageDto message = createFileMessage(3L, "photo.jpg", "JPG", "images/photo.jpg");
-        byte[] fileContent = "JPG image bytes".getBytes();
+        Path fileContent = tempFile();
         String extractedText = "Text from JPG image";
 
-        when(fileStorage.download(message.getObjectKey())).thenReturn(fileContent);
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
         when(tesseractOcrService.extractTextFromImage(fileContent, message.getFilename()))
                 .thenReturn(extractedText);
         when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
@@ -125,7 +140,7 @@ class OcrWorkerTest {
         ocrWorker.processOcrTask(message);
 
         // Assert
-        verify(fileStorage).download("images/photo.jpg");
+        verify(fileStorage).downloadToTempFile("images/photo.jpg");
         verify(tesseractOcrService).extractTextFromImage(fileContent, "photo.jpg");
 
         ArgumentCaptor<OcrResultDto> resultCaptor = ArgumentCaptor.forClass(OcrResultDto.class);
@@ -144,10 +159,10 @@ class OcrWorkerTest {
     void testProcessOcrTask_WithJpegImage_Success() throws Exception {
         // Arrange
         FileMessageDto message = createFileMessage(4L, "scan.jpeg", "JPEG", "images/scan.jpeg");
-        byte[] fileContent = "JPEG image bytes".getBytes();
+        Path fileContent = tempFile();
         String extractedText = "Text from JPEG image";
 
-        when(fileStorage.download(message.getObjectKey())).thenReturn(fileContent);
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
         when(tesseractOcrService.extractTextFromImage(fileContent, message.getFilename()))
                 .thenReturn(extractedText);
         when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
@@ -156,7 +171,7 @@ class OcrWorkerTest {
         ocrWorker.processOcrTask(message);
 
         // Assert
-        verify(fileStorage).download("images/scan.jpeg");
+        verify(fileStorage).downloadToTempFile("images/scan.jpeg");
         verify(tesseractOcrService).extractTextFromImage(fileContent, "scan.jpeg");
 
         ArgumentCaptor<OcrResultDto> resultCaptor = ArgumentCaptor.forClass(OcrResultDto.class);
@@ -175,10 +190,10 @@ class OcrWorkerTest {
     void testProcessOcrTask_WithTiffImage_Success() throws Exception {
         // Arrange
         FileMessageDto message = createFileMessage(5L, "document.tiff", "TIFF", "images/doc.tiff");
-        byte[] fileContent = "TIFF image bytes".getBytes();
+        Path fileContent = tempFile();
         String extractedText = "Text from TIFF image";
 
-        when(fileStorage.download(message.getObjectKey())).thenReturn(fileContent);
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
         when(tesseractOcrService.extractTextFromImage(fileContent, message.getFilename()))
                 .thenReturn(extractedText);
         when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
@@ -187,7 +202,7 @@ class OcrWorkerTest {
         ocrWorker.processOcrTask(message);
 
         // Assert
-        verify(fileStorage).download("images/doc.tiff");
+        verify(fileStorage).downloadToTempFile("images/doc.tiff");
         verify(tesseractOcrService).extractTextFromImage(fileContent, "document.tiff");
 
         ArgumentCaptor<OcrResultDto> resultCaptor = ArgumentCaptor.forClass(OcrResultDto.class);
@@ -206,10 +221,10 @@ class OcrWorkerTest {
     void testProcessOcrTask_WithBmpImage_Success() throws Exception {
         // Arrange
         FileMessageDto message = createFileMessage(6L, "scan.bmp", "BMP", "images/scan.bmp");
-        byte[] fileContent = "BMP image bytes".getBytes();
+        Path fileContent = tempFile();
         String extractedText = "Text from BMP image";
 
-        when(fileStorage.download(message.getObjectKey())).thenReturn(fileContent);
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
         when(tesseractOcrService.extractTextFromImage(fileContent, message.getFilename()))
                 .thenReturn(extractedText);
         when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
@@ -218,7 +233,7 @@ class OcrWorkerTest {
         ocrWorker.processOcrTask(message);
 
         // Assert
-        verify(fileStorage).download("images/scan.bmp");
+        verify(fileStorage).downloadToTempFile("images/scan.bmp");
         verify(tesseractOcrService).extractTextFromImage(fileContent, "scan.bmp");
 
         ArgumentCaptor<OcrResultDto> resultCaptor = ArgumentCaptor.forClass(OcrResultDto.class);
@@ -237,17 +252,17 @@ class OcrWorkerTest {
     void testProcessOcrTask_WithUnsupportedFileType_ReturnsErrorMessage() throws Exception {
         // Arrange
         FileMessageDto message = createFileMessage(7L, "document.txt", "TXT", "docs/doc.txt");
-        byte[] fileContent = "Text file content".getBytes();
+        Path fileContent = tempFile();
 
-        when(fileStorage.download(message.getObjectKey())).thenReturn(fileContent);
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
         when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
 
         // Act
         ocrWorker.processOcrTask(message);
 
         // Assert
-        verify(fileStorage).download("docs/doc.txt");
-        verify(tesseractOcrService, never()).extractTextFromPdf(any(), any());
+        verify(fileStorage).downloadToTempFile("docs/doc.txt");
+        verify(tesseractOcrService, never()).extractTextFromPdf(any(), any(), any());
         verify(tesseractOcrService, never()).extractTextFromImage(any(), any());
 
         ArgumentCaptor<OcrResultDto> resultCaptor = ArgumentCaptor.forClass(OcrResultDto.class);
@@ -262,15 +277,15 @@ class OcrWorkerTest {
         // Arrange
         FileMessageDto message = createFileMessage(8L, "document.pdf", "PDF", "docs/missing.pdf");
 
-        when(fileStorage.download(message.getObjectKey()))
+        when(fileStorage.downloadToTempFile(message.getObjectKey()))
                 .thenThrow(new RuntimeException("File not found in MinIO"));
 
         // Act
         ocrWorker.processOcrTask(message);
 
         // Assert
-        verify(fileStorage).download("docs/missing.pdf");
-        verify(tesseractOcrService, never()).extractTextFromPdf(any(), any());
+        verify(fileStorage).downloadToTempFile("docs/missing.pdf");
+        verify(tesseractOcrService, never()).extractTextFromPdf(any(), any(), any());
         verify(rabbitTemplate, never()).convertAndSend(anyString(), any(Object.class));
     }
 
@@ -278,16 +293,15 @@ class OcrWorkerTest {
     void testProcessOcrTask_WithCaseInsensitiveFileTypes() throws Exception {
         // Test lowercase 'pdf'
         FileMessageDto messageLowercase = createFileMessage(10L, "test.pdf", "pdf", "docs/test.pdf");
-        byte[] fileContent = "PDF content".getBytes();
+        Path fileContent = tempFile();
 
-        when(fileStorage.download(messageLowercase.getObjectKey())).thenReturn(fileContent);
-        when(tesseractOcrService.extractTextFromPdf(fileContent, messageLowercase.getFilename()))
-                .thenReturn("Extracted text");
+        when(fileStorage.downloadToTempFile(messageLowercase.getObjectKey())).thenReturn(fileContent);
+        stubPdfPages(fileContent, messageLowercase.getFilename(), "Extracted text");
         when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
 
         ocrWorker.processOcrTask(messageLowercase);
 
-        verify(tesseractOcrService).extractTextFromPdf(fileContent, "test.pdf");
+        verify(tesseractOcrService).extractTextFromPdf(eq(fileContent), eq("test.pdf"), any());
         verify(rabbitTemplate).convertAndSend(eq(GENAI_QUEUE), any(OcrResultDto.class));
     }
 
@@ -295,10 +309,10 @@ class OcrWorkerTest {
     void testProcessOcrTask_VerifiesMessageSentToCorrectQueue() throws Exception {
         // Arrange
         FileMessageDto message = createFileMessage(11L, "test.png", "PNG", "images/test.png");
-        byte[] fileContent = "Image bytes".getBytes();
+        Path fileContent = tempFile();
         String extractedText = "Test text";
 
-        when(fileStorage.download(message.getObjectKey())).thenReturn(fileContent);
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
         when(tesseractOcrService.extractTextFromImage(fileContent, message.getFilename()))
                 .thenReturn(extractedText);
         when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
@@ -315,12 +329,11 @@ class OcrWorkerTest {
     void testProcessOcrTask_VerifiesAllFieldsInOcrResultDto() throws Exception {
         // Arrange
         FileMessageDto message = createFileMessage(13L, "complete.pdf", "PDF", "docs/complete.pdf");
-        byte[] fileContent = "PDF content".getBytes();
+        Path fileContent = tempFile();
         String extractedText = "Complete extracted text";
 
-        when(fileStorage.download(message.getObjectKey())).thenReturn(fileContent);
-        when(tesseractOcrService.extractTextFromPdf(fileContent, message.getFilename()))
-                .thenReturn(extractedText);
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
+        stubPdfPages(fileContent, message.getFilename(), extractedText);
         when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
 
         // Act
@@ -346,6 +359,243 @@ class OcrWorkerTest {
         assertEquals(TESSERACT_VERSION, result.getOcrEngine());
     }
 
+    @Test
+    void testProcessOcrTask_DeletesDownloadedTempFile() throws Exception {
+        // Arrange
+        FileMessageDto message = createFileMessage(14L, "scan.pdf", "PDF", "docs/scan.pdf");
+        Path fileContent = tempFile();
+
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
+        when(tesseractOcrService.extractTextFromPdf(eq(fileContent), eq(message.getFilename()), any()))
+                .thenThrow(new IOException("PDF OCR processing failed"));
+        when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
+
+        // Act
+        ocrWorker.processOcrTask(message);
+
+        // Assert - the download is removed even when OCR fails
+        assertFalse(Files.exists(fileContent));
+        ArgumentCaptor<OcrResultDto> resultCaptor = ArgumentCaptor.forClass(OcrResultDto.class);
+        verify(rabbitTemplate).convertAndSend(eq(GENAI_QUEUE), resultCaptor.capture());
+        assertTrue(resultCaptor.getValue().getExtractedText().startsWith("[OCR Error:"));
+    }
+
+    @Test
+    void testProcessOcrTask_WithChunksEnabled_PublishesChunksAndCompleteMarker() throws Exception {
+        // Arrange - five pages in chunks of two
+        ReflectionTestUtils.setField(ocrWorker, "chunksEnabled", true);
+        ReflectionTestUtils.setField(ocrWorker, "pagesPerChunk", 2);
+        FileMessageDto message = createFileMessage(15L, "contract.pdf", "PDF", "docs/contract.pdf");
+        Path fileContent = tempFile();
+
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
+        stubPdfPages(fileContent, message.getFilename(), "p1", "p2", "p3", "p4", "p5");
+        when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
+
+        // Act
+        ocrWorker.processOcrTask(message);
+
+        // Assert - three text chunks in page order, then the complete marker
+        ArgumentCaptor<OcrChunkDto> chunkCaptor = ArgumentCaptor.forClass(OcrChunkDto.class);
+        verify(rabbitTemplate, times(4)).convertAndSend(eq(CHUNK_QUEUE), chunkCaptor.capture());
+        List<OcrChunkDto> chunks = chunkCaptor.getAllValues();
+
+        assertEquals("p1\n\f\np2", chunks.get(0).getText());
+        assertEquals(0, chunks.get(0).getSequenceNumber());
+        assertEquals(1, chunks.get(0).getFirstPage());
+        assertEquals(2, chunks.get(0).getLastPage());
+        assertEquals("p5", chunks.get(2).getText());
+        assertEquals(2, chunks.get(2).getSequenceNumber());
+        assertEquals(5, chunks.get(2).getFirstPage());
+        assertFalse(chunks.get(2).isComplete());
+
+        OcrChunkDto marker = chunks.get(3);
+        assertTrue(marker.isComplete());
+        assertEquals(3, marker.getTotalChunks());
+        assertNull(marker.getText());
+        assertEquals(15L, marker.getDocumentId());
+        assertEquals("contract.pdf", marker.getFilename());
+
+        // The full text still goes to GenAI
+        ArgumentCaptor<OcrResultDto> resultCaptor = ArgumentCaptor.forClass(OcrResultDto.class);
+        verify(rabbitTemplate).convertAndSend(eq(GENAI_QUEUE), resultCaptor.capture());
+        assertEquals("p1\n\f\np2\n\f\np3\n\f\np4\n\f\np5", resultCaptor.getValue().getExtractedText());
+    }
+
+    @Test
+    void testProcessOcrTask_WithChunksEnabled_NoCompleteMarkerWhenOcrFails() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(ocrWorker, "chunksEnabled", true);
+        ReflectionTestUtils.setField(ocrWorker, "pagesPerChunk", 1);
+        FileMessageDto message = createFileMessage(16L, "broken.pdf", "PDF", "docs/broken.pdf");
+        Path fileContent = tempFile();
+
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
+        when(tesseractOcrService.extractTextFromPdf(eq(fileContent), eq(message.getFilename()), any()))
+                .thenAnswer(invocation -> {
+                    invocation.getArgument(2, TesseractOcrService.PageTextConsumer.class).accept(1, "p1");
+                    throw new IOException("PDF OCR processing failed");
+                });
+        when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
+
+        // Act
+        ocrWorker.processOcrTask(message);
+
+        // Assert - the page that was done is searchable, but the document is not marked complete
+        ArgumentCaptor<OcrChunkDto> chunkCaptor = ArgumentCaptor.forClass(OcrChunkDto.class);
+        verify(rabbitTemplate).convertAndSend(eq(CHUNK_QUEUE), chunkCaptor.capture());
+        assertEquals("p1", chunkCaptor.getValue().getText());
+        assertFalse(chunkCaptor.getValue().isComplete());
+    }
+
+    @Test
+    void testProcessOcrTask_WithCachedResult_SkipsOcr() throws Exception {
+        // Arrange
+        FileMessageDto message = createFileMessage(17L, "cached.pdf", "PDF", "docs/cached.pdf");
+        Path fileContent = tempFile();
+
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
+        when(ocrResultCache.isEnabled()).thenReturn(true);
+        when(tesseractOcrService.getCacheVersion()).thenReturn("v1");
+        when(ocrResultCache.key(fileContent, "v1")).thenReturn("abc-v1");
+        when(ocrResultCache.get("abc-v1")).thenReturn(Optional.of("Cached text"));
+        when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
+
+        // Act
+        ocrWorker.processOcrTask(message);
+
+        // Assert
+        verify(tesseractOcrService, never()).extractTextFromPdf(any(), any(), any());
+        verify(ocrResultCache, never()).put(any(), any());
+
+        ArgumentCaptor<OcrResultDto> resultCaptor = ArgumentCaptor.forClass(OcrResultDto.class);
+        verify(rabbitTemplate).convertAndSend(eq(GENAI_QUEUE), resultCaptor.capture());
+        assertEquals("Cached text", resultCaptor.getValue().getExtractedText());
+    }
+
+    @Test
+    void testProcessOcrTask_WithCachedResult_ReplaysPagesAsChunks() throws Exception {
+        // Arrange - three cached pages in chunks of two
+        ReflectionTestUtils.setField(ocrWorker, "chunksEnabled", true);
+        ReflectionTestUtils.setField(ocrWorker, "pagesPerChunk", 2);
+        FileMessageDto message = createFileMessage(21L, "cached.pdf", "PDF", "docs/cached.pdf");
+        Path fileContent = tempFile();
+
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
+        when(ocrResultCache.isEnabled()).thenReturn(true);
+        when(tesseractOcrService.getCacheVersion()).thenReturn("v1");
+        when(ocrResultCache.key(fileContent, "v1")).thenReturn("mno-v1");
+        when(ocrResultCache.get("mno-v1")).thenReturn(Optional.of("p1\n\f\np2\n\f\np3"));
+        when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
+
+        // Act
+        ocrWorker.processOcrTask(message);
+
+        // Assert - the same page ranges as a fresh extraction, then the complete marker
+        ArgumentCaptor<OcrChunkDto> chunkCaptor = ArgumentCaptor.forClass(OcrChunkDto.class);
+        verify(rabbitTemplate, times(3)).convertAndSend(eq(CHUNK_QUEUE), chunkCaptor.capture());
+        List<OcrChunkDto> chunks = chunkCaptor.getAllValues();
+
+        assertEquals("p1\n\f\np2", chunks.get(0).getText());
+        assertEquals(1, chunks.get(0).getFirstPage());
+        assertEquals(2, chunks.get(0).getLastPage());
+        assertEquals("p3", chunks.get(1).getText());
+        assertEquals(3, chunks.get(1).getFirstPage());
+        assertEquals(3, chunks.get(1).getLastPage());
+        assertTrue(chunks.get(2).isComplete());
+        assertEquals(2, chunks.get(2).getTotalChunks());
+        verify(tesseractOcrService, never()).extractTextFromPdf(any(), any(), any());
+    }
+
+    @Test
+    void testProcessOcrTask_WithCacheMiss_StoresResult() throws Exception {
+        // Arrange
+        FileMessageDto message = createFileMessage(18L, "new.pdf", "PDF", "docs/new.pdf");
+        Path fileContent = tempFile();
+
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
+        when(ocrResultCache.isEnabled()).thenReturn(true);
+        when(tesseractOcrService.getCacheVersion()).thenReturn("v1");
+        when(ocrResultCache.key(fileContent, "v1")).thenReturn("def-v1");
+        when(ocrResultCache.get("def-v1")).thenReturn(Optional.empty());
+        stubPdfPages(fileContent, message.getFilename(), "page one", "page two");
+        when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
+
+        // Act
+        ocrWorker.processOcrTask(message);
+
+        // Assert
+        verify(ocrResultCache).put("def-v1", "page one\n\f\npage two");
+    }
+
+    @Test
+    void testProcessOcrTask_WithOcrError_DoesNotCacheResult() throws Exception {
+        // Arrange
+        FileMessageDto message = createFileMessage(19L, "broken.png", "PNG", "images/broken.png");
+        Path fileContent = tempFile();
+
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
+        when(ocrResultCache.isEnabled()).thenReturn(true);
+        when(tesseractOcrService.getCacheVersion()).thenReturn("v1");
+        when(ocrResultCache.key(fileContent, "v1")).thenReturn("ghi-v1");
+        when(ocrResultCache.get("ghi-v1")).thenReturn(Optional.empty());
+        when(tesseractOcrService.extractTextFromImage(fileContent, message.getFilename()))
+                .thenThrow(new IOException("Image unreadable"));
+        when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
+
+        // Act
+        ocrWorker.processOcrTask(message);
+
+        // Assert
+        verify(ocrResultCache, never()).put(any(), any());
+    }
+
+    @Test
+    void testProcessOcrTask_WithFailedPage_DoesNotCacheResult() throws Exception {
+        // Arrange - page two failed in Tesseract and was emitted as a placeholder
+        FileMessageDto message = createFileMessage(20L, "partial.pdf", "PDF", "docs/partial.pdf");
+        Path fileContent = tempFile();
+
+        when(fileStorage.downloadToTempFile(message.getObjectKey())).thenReturn(fileContent);
+        when(ocrResultCache.isEnabled()).thenReturn(true);
+        when(tesseractOcrService.getCacheVersion()).thenReturn("v1");
+        when(ocrResultCache.key(fileContent, "v1")).thenReturn("jkl-v1");
+        when(ocrResultCache.get("jkl-v1")).thenReturn(Optional.empty());
+        when(tesseractOcrService.extractTextFromPdf(eq(fileContent), eq(message.getFilename()), any()))
+                .thenAnswer(invocation -> {
+                    TesseractOcrService.PageTextConsumer consumer = invocation.getArgument(2);
+                    consumer.accept(1, "page one");
+                    consumer.accept(2, "[OCR Error: Tesseract crashed]");
+                    consumer.accept(3, "page three");
+                    return new TesseractOcrService.PdfExtractionResult(3, 1);
+                });
+        when(tesseractOcrService.getVersion()).thenReturn(TESSERACT_VERSION);
+
+        // Act
+        ocrWorker.processOcrTask(message);
+
+        // Assert - the partial text still goes to GenAI, but the next upload gets another OCR attempt
+        verify(ocrResultCache, never()).put(any(), any());
+        ArgumentCaptor<OcrResultDto> resultCaptor = ArgumentCaptor.forClass(OcrResultDto.class);
+        verify(rabbitTemplate).convertAndSend(eq(GENAI_QUEUE), resultCaptor.capture());
+        assertEquals("page one\n\f\n[OCR Error: Tesseract crashed]\n\f\npage three", resultCaptor.getValue().getExtractedText());
+    }
+
+    // The mocked service hands the given page texts to the worker's page consumer like the real pipeline
+    private void stubPdfPages(Path file, String filename, String... pages) throws IOException {
+        when(tesseractOcrService.extractTextFromPdf(eq(file), eq(filename), any())).thenAnswer(invocation -> {
+            TesseractOcrService.PageTextConsumer consumer = invocation.getArgument(2);
+            for (int i = 0; i < pages.length; i++) {
+                consumer.accept(i + 1, pages[i]);
+            }
+            return new TesseractOcrService.PdfExtractionResult(pages.length, 0);
+        });
+    }
+
+    private Path tempFile() throws IOException {
+        return Files.createTempFile(tempDir, "download-", null);
+    }
+
     private FileMessageDto createFileMessage(Long id, String filename, String fileType, String objectKey) {
         return new FileMessageDto(
                 id,
@@ -0,0 +1,101 @@
+package org.workers.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmRateLimiterTest {
+
+    private AtomicLong clock;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(0);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private LlmRateLimiter limiter(int requestsPerMinute, int tokensPerMinute) {
+        return new LlmRateLimiter(requestsPerMinute, tokensPerMinute, 60, 1000, meterRegistry, clock::get);
+    }
+
+    private static HttpHeaders headers(Map<String, String> values) {
+        return HttpHeaders.of(values.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> List.of(e.getValue()))),
+                (name, value) -> true);
+    }
+
+    @Test
+    void reserve_WaitsForRequestBudgetToRefill() {
+        LlmRateLimiter limiter = limiter(60, 1_000_000);
+
+        for (int i = 0; i < 60; i++) {
+            assertEquals(0, limiter.reserve(10));
+        }
+
+        // 60 requests per minute refill one request per second
+        assertEquals(TimeUnit.SECONDS.toNanos(1), limiter.reserve(10), TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    void reserve_WaitsForTokenBudget() {
+        LlmRateLimiter limiter = limiter(1000, 6000);
+
+        assertEquals(0, limiter.reserve(6000));
+
+        // 6000 tokens per minute refill 100 tokens per second
+        assertEquals(TimeUnit.SECONDS.toNanos(3), limiter.reserve(300), TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    void reserve_ThrowsWhenWaitExceedsMaximum() {
+        LlmRateLimiter limiter = limiter(1, 1_000_000);
+        assertEquals(0, limiter.reserve(10));
+        assertEquals(TimeUnit.SECONDS.toNanos(60), limiter.reserve(10), TimeUnit.MILLISECONDS.toNanos(1));
+
+        LlmRateLimitedException e = assertThrows(LlmRateLimitedException.class, () -> limiter.reserve(10));
+        assertTrue(e.getRetryAfter().compareTo(Duration.ofSeconds(60)) > 0);
+    }
+
+    @Test
+    void update_LowersBudgetToRemainingFromHeaders() {
+        LlmRateLimiter limiter = limiter(500, 1_000_000);
+
+        limiter.update(headers(Map.of("x-ratelimit-limit-requests", "60", "x-ratelimit-remaining-requests", "0")));
+
+        assertEquals(TimeUnit.SECONDS.toNanos(1), limiter.reserve(10), TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    void onThrottled_UsesRetryHintOrDoublingBackoff() {
+        LlmRateLimiter limiter = limiter(500, 1_000_000);
+
+        assertEquals(Duration.ofSeconds(3), limiter.onThrottled(headers(Map.of("retry-after", "3"))));
+        assertEquals(Duration.ofSeconds(1), limiter.onThrottled(null));
+        assertEquals(Duration.ofSeconds(2), limiter.onThrottled(null));
+        limiter.onSuccess();
+        assertEquals(Duration.ofSeconds(1), limiter.onThrottled(null));
+
+        assertEquals(TimeUnit.SECONDS.toNanos(3), limiter.reserve(10));
+        assertEquals(4.0, meterRegistry.get("llm.rate.limit.throttled").counter().count());
+    }
+
+    @Test
+    void parseReset_ReadsOpenAiDurations() {
+        assertEquals(Optional.of(Duration.ofMillis(20)), LlmRateLimiter.parseReset("20ms"));
+        assertEquals(Optional.of(Duration.ofSeconds(360)), LlmRateLimiter.parseReset("6m0s"));
+        assertEquals(Optional.of(Duration.ofMillis(3_723_500)), LlmRateLimiter.parseReset("1h2m3.5s"));
+        assertEquals(Optional.empty(), LlmRateLimiter.parseReset("soon"));
+    }
+}
@@ -0,0 +1,56 @@
+package org.workers.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryLruCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void put_EvictsLeastRecentlyUsedOverCap() {
+        MemoryLruCache cache = new MemoryLruCache(2, "test.cache", "lookups", "entries", meterRegistry);
+
+        cache.put("first", "1");
+        cache.put("second", "2");
+        // Reading "first" makes "second" the least recently used entry
+        cache.get("first");
+        cache.put("third", "3");
+
+        assertEquals("1", cache.get("first"));
+        assertNull(cache.get("second"));
+        assertEquals("3", cache.get("third"));
+        assertEquals(2.0, meterRegistry.get("test.cache.size").gauge().value());
+    }
+
+    @Test
+    void get_CountsHitsAndMisses() {
+        MemoryLruCache cache = new MemoryLruCache(2, "test.cache", "lookups", "entries", meterRegistry);
+
+        cache.get("doc");
+        cache.put("doc", "text");
+        cache.get("doc");
+
+        assertEquals(1.0, meterRegistry.get("test.cache").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("test.cache").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void zeroCap_StoresNothing() {
+        MemoryLruCache cache = new MemoryLruCache(0, "test.cache", "lookups", "entries", meterRegistry);
+
+        cache.put("doc", "text");
+
+        assertNull(cache.get("doc"));
+        assertEquals(0, cache.size());
+        assertEquals(1.0, meterRegistry.get("test.cache").tag("result", "miss").counter().count());
+    }
+}
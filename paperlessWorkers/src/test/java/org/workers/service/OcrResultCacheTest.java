@@ -0,0 +1,131 @@
+package org.workers.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.BucketExistsArgs;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import okhttp3.Headers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OcrResultCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path cacheDir;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        cacheDir = tempDir.resolve("cache");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void key_DependsOnFileContentAndVersion() throws IOException {
+        OcrResultCache cache = new OcrResultCache(cacheDir.toString(), 1, "", null, meterRegistry);
+        Path first = Files.write(tempDir.resolve("a.pdf"), "same content".getBytes());
+        Path second = Files.write(tempDir.resolve("b.pdf"), "same content".getBytes());
+        Path other = Files.write(tempDir.resolve("c.pdf"), "other content".getBytes());
+
+        assertEquals(cache.key(first, "v1"), cache.key(second, "v1"));
+        assertNotEquals(cache.key(first, "v1"), cache.key(other, "v1"));
+        assertNotEquals(cache.key(first, "v1"), cache.key(first, "v2"));
+    }
+
+    @Test
+    void getAndPut_CountHitsAndMisses() throws IOException {
+        OcrResultCache cache = new OcrResultCache(cacheDir.toString(), 1, "", null, meterRegistry);
+
+        assertEquals(Optional.empty(), cache.get("doc"));
+        cache.put("doc", "Extracted text");
+
+        assertEquals(Optional.of("Extracted text"), cache.get("doc"));
+        assertEquals(1.0, meterRegistry.get("ocr.result.cache").tags("result", "hit", "tier", "disk").counter().count());
+        assertEquals(1.0, meterRegistry.get("ocr.result.cache").tags("result", "miss").counter().count());
+        assertEquals(14.0, meterRegistry.get("ocr.result.cache.size.bytes").gauge().value());
+    }
+
+    @Test
+    void put_EvictsLeastRecentlyUsedOverSizeCap() throws IOException {
+        OcrResultCache cache = new OcrResultCache(cacheDir.toString(), 1, "", null, meterRegistry);
+        String text = "x".repeat(400 * 1024);
+
+        cache.put("first", text);
+        cache.put("second", text);
+        // Reading "first" makes "second" the least recently used entry
+        cache.get("first");
+        cache.put("third", text);
+
+        assertTrue(cache.get("first").isPresent());
+        assertTrue(cache.get("second").isEmpty());
+        assertTrue(cache.get("third").isPresent());
+        assertFalse(Files.exists(cacheDir.resolve("second.txt")));
+        assertEquals(1.0, meterRegistry.get("ocr.result.cache.evictions").counter().count());
+        assertTrue(cache.totalBytes() <= 1024 * 1024);
+    }
+
+    @Test
+    void constructor_ReloadsEntriesFromEarlierRun() throws IOException {
+        new OcrResultCache(cacheDir.toString(), 1, "", null, meterRegistry).put("doc", "Persisted text");
+
+        OcrResultCache reopened = new OcrResultCache(cacheDir.toString(), 1, "", null, new SimpleMeterRegistry());
+
+        assertEquals(Optional.of("Persisted text"), reopened.get("doc"));
+        assertEquals(14, reopened.totalBytes());
+    }
+
+    @Test
+    void get_FallsBackToMinioAndFillsLocalCache() throws Exception {
+        MinioClient minioClient = mock(MinioClient.class);
+        when(minioClient.bucketExists(any(BucketExistsArgs.class))).thenReturn(true);
+        when(minioClient.getObject(any(GetObjectArgs.class))).thenReturn(new GetObjectResponse(
+                Headers.of(), "ocr-results", "", "doc.txt",
+                new ByteArrayInputStream("Shared text".getBytes(StandardCharsets.UTF_8))));
+        OcrResultCache cache = new OcrResultCache(cacheDir.toString(), 1, "ocr-results", minioClient, meterRegistry);
+
+        assertEquals(Optional.of("Shared text"), cache.get("doc"));
+        assertEquals(Optional.of("Shared text"), cache.get("doc"));
+
+        verify(minioClient, times(1)).getObject(any(GetObjectArgs.class));
+        assertEquals(1.0, meterRegistry.get("ocr.result.cache").tags("result", "hit", "tier", "minio").counter().count());
+        assertEquals(1.0, meterRegistry.get("ocr.result.cache").tags("result", "hit", "tier", "disk").counter().count());
+    }
+
+    @Test
+    void put_WritesToMinioBucket() throws Exception {
+        MinioClient minioClient = mock(MinioClient.class);
+        when(minioClient.bucketExists(any(BucketExistsArgs.class))).thenReturn(true);
+        OcrResultCache cache = new OcrResultCache(cacheDir.toString(), 1, "ocr-results", minioClient, meterRegistry);
+
+        cache.put("doc", "Extracted text");
+
+        verify(minioClient).putObject(any(PutObjectArgs.class));
+    }
+
+    @Test
+    void zeroSize_DisablesCache() throws IOException {
+        OcrResultCache cache = new OcrResultCache(cacheDir.toString(), 0, "", null, meterRegistry);
+
+        cache.put("doc", "Extracted text");
+
+        assertFalse(cache.isEnabled());
+        assertEquals(Optional.empty(), cache.get("doc"));
+        assertFalse(Files.exists(cacheDir));
+    }
+}
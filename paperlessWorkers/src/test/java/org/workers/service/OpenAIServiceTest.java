@@ -0,0 +1,217 @@
+package org.workers.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.llm.client.LlmClient;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OpenAIServiceTest {
+
+    @Mock
+    private LlmClient llmClient;
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> userMessages = new CopyOnWriteArrayList<>();
+    private OpenAIService openAIService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        openAIService = new OpenAIService(llmClient, new ChunkSummaryCache(64, meterRegistry),
+                new SummaryCache(tempDir.toString(), 1, 0.001, meterRegistry));
+        ReflectionTestUtils.setField(openAIService, "model", "gpt-4o-mini");
+        ReflectionTestUtils.setField(openAIService, "temperature", 0.3);
+        ReflectionTestUtils.setField(openAIService, "maxTokens", 300);
+        // 25 tokens = 100 characters per chunk
+        ReflectionTestUtils.setField(openAIService, "chunkTokens", 25);
+        ReflectionTestUtils.setField(openAIService, "maxParallelChunks", 2);
+
+        when(llmClient.isConfigured()).thenReturn(true);
+        lenient().when(llmClient.chatCompletionAsync(anyString(), anyInt())).thenAnswer(invocation -> {
+            String userMessage = objectMapper.readTree(invocation.<String>getArgument(0))
+                    .get("messages").get(1).get("content").asText();
+            userMessages.add(userMessage);
+            return CompletableFuture.completedFuture(response(200, "summary " + userMessages.size()));
+        });
+    }
+
+    private HttpResponse<String> response(int status, String content) throws Exception {
+        return new StubResponse(status, objectMapper.writeValueAsString(
+                Map.of("choices", List.of(Map.of("message", Map.of("content", content))))));
+    }
+
+    private record StubResponse(int statusCode, String body) implements HttpResponse<String> {
+
+        @Override
+        public HttpRequest request() {
+            return null;
+        }
+
+        @Override
+        public Optional<HttpResponse<String>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return HttpHeaders.of(Map.of(), (name, value) -> true);
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return URI.create("http://localhost/v1/chat/completions");
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_2;
+        }
+    }
+
+    private static String paragraphs(String... texts) {
+        return String.join("\n\n", texts);
+    }
+
+    @Test
+    void generateSummary_ShortTextIsOneRequest() {
+        String summary = openAIService.generateSummary("A short invoice.");
+
+        assertEquals("summary 1", summary);
+        assertEquals(1, userMessages.size());
+        assertTrue(userMessages.get(0).endsWith("A short invoice."));
+    }
+
+    @Test
+    void generateSummary_LongTextIsSummarizedPerChunkAndCombined() {
+        String text = paragraphs("a".repeat(90), "b".repeat(90), "c".repeat(90));
+
+        String summary = openAIService.generateSummary(text);
+
+        // Three chunk summaries, then one request combining them
+        assertEquals(4, userMessages.size());
+        assertEquals("summary 4", summary);
+        assertTrue(userMessages.get(3).startsWith("Combine these section summaries"));
+        assertTrue(userMessages.stream().limit(3).allMatch(message -> message.startsWith("Summarize this section")));
+    }
+
+    @Test
+    void generateSummary_UnchangedChunksComeFromCache() {
+        openAIService.generateSummary(paragraphs("a".repeat(90), "b".repeat(90), "c".repeat(90)));
+        userMessages.clear();
+
+        openAIService.generateSummary(paragraphs("a".repeat(90), "B".repeat(90), "c".repeat(90)));
+
+        // Only the edited chunk and the combination are requested again
+        assertEquals(2, userMessages.size());
+        assertTrue(userMessages.get(0).endsWith("B".repeat(90)));
+    }
+
+    @Test
+    void generateSummary_EditOnFirstPageKeepsCachedSummariesOfLaterPages() {
+        String laterPages = TesseractOcrService.PAGE_SEPARATOR + "b".repeat(40)
+                + TesseractOcrService.PAGE_SEPARATOR + "c".repeat(40);
+        openAIService.generateSummary("a".repeat(40) + laterPages);
+        userMessages.clear();
+
+        // The longer first page would have shifted every later cut if the pages were packed together
+        openAIService.generateSummary("A".repeat(70) + laterPages);
+
+        // Only the edited page and the combination are requested again
+        assertEquals(2, userMessages.size());
+        assertTrue(userMessages.get(0).endsWith("A".repeat(70)));
+    }
+
+    @Test
+    void generateSummary_NearIdenticalTextComesFromSummaryCache() {
+        String first = openAIService.generateSummary("Invoice  No. 42\nTotal: 100 EUR");
+
+        String second = openAIService.generateSummary("invoice no. 42 total:   100 EUR\n");
+
+        assertEquals(first, second);
+        assertEquals(1, userMessages.size());
+        assertEquals(1.0, meterRegistry.get("genai.summary.cache").tag("result", "hit").counter().count());
+        assertTrue(meterRegistry.get("genai.summary.cache.tokens.saved").counter().count() > 300);
+    }
+
+    @Test
+    void generateSummary_PlaceholderIsNotCached() throws Exception {
+        doReturn(CompletableFuture.completedFuture(response(400, "")))
+                .when(llmClient).chatCompletionAsync(anyString(), anyInt());
+        openAIService.generateSummary("A short invoice.");
+
+        openAIService.generateSummary("A short invoice.");
+
+        verify(llmClient, times(2)).chatCompletionAsync(anyString(), anyInt());
+    }
+
+    @Test
+    void generateSummary_ThrottledChunkFailsWithRateLimit() throws Exception {
+        doReturn(CompletableFuture.completedFuture(response(429, "")))
+                .when(llmClient).chatCompletionAsync(anyString(), anyInt());
+
+        assertThrows(LlmRateLimitedException.class,
+                () -> openAIService.generateSummary(paragraphs("a".repeat(90), "b".repeat(90))));
+    }
+
+    @Test
+    void generateSummary_ServerErrorIsNotTreatedAsThrottling() throws Exception {
+        doReturn(CompletableFuture.completedFuture(response(500, "")))
+                .when(llmClient).chatCompletionAsync(anyString(), anyInt());
+
+        String summary = openAIService.generateSummary("A short invoice.");
+
+        assertTrue(summary.startsWith("Document Summary (Generated without AI)"));
+    }
+
+    @Test
+    void generateSummary_ServiceUnavailableFailsWithRateLimit() throws Exception {
+        doReturn(CompletableFuture.completedFuture(response(503, "")))
+                .when(llmClient).chatCompletionAsync(anyString(), anyInt());
+
+        assertThrows(LlmRateLimitedException.class, () -> openAIService.generateSummary("A short invoice."));
+    }
+
+    @Test
+    void generateSummary_OtherErrorsFallBackToPlaceholder() throws Exception {
+        doReturn(CompletableFuture.completedFuture(response(400, "")))
+                .when(llmClient).chatCompletionAsync(anyString(), anyInt());
+
+        String summary = openAIService.generateSummary("A short invoice.");
+
+        assertTrue(summary.startsWith("Document Summary (Generated without AI)"));
+    }
+}
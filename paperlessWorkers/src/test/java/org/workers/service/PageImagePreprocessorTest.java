@@ -0,0 +1,120 @@
+package org.workers.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.OptionalDouble;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageImagePreprocessorTest {
+
+    private final PageImagePreprocessor preprocessor = new PageImagePreprocessor();
+
+    // White page with dark bars standing in for text lines of the given height
+    private static BufferedImage linedPage(int width, int height, int lineHeight, int lineCount) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.BLACK);
+        for (int i = 0; i < lineCount; i++) {
+            g.fillRect(width / 10, height / 10 + i * lineHeight * 2, width * 8 / 10, lineHeight);
+        }
+        g.dispose();
+        return image;
+    }
+
+    @Test
+    void testEstimateLineHeight() {
+        // Act
+        OptionalDouble lineHeight = PageImagePreprocessor.estimateLineHeight(linedPage(612, 792, 10, 20));
+
+        // Assert
+        assertTrue(lineHeight.isPresent());
+        assertEquals(10.0, lineHeight.getAsDouble(), 1.0);
+    }
+
+    @Test
+    void testEstimateLineHeight_WithTooFewLines() {
+        assertTrue(PageImagePreprocessor.estimateLineHeight(linedPage(612, 792, 10, 2)).isEmpty());
+    }
+
+    @Test
+    void testChooseDpi_ScalesWithTextHeight() {
+        // 10 pt text at the 72 DPI probe, the balanced target of 42 px asks for about 300 DPI
+        assertEquals(302, preprocessor.chooseDpi(OcrProfile.BALANCED, 612, 792, linedPage(612, 792, 10, 20)));
+        // Large print needs fewer pixels, but not fewer than the profile's minimum
+        assertEquals(200, preprocessor.chooseDpi(OcrProfile.BALANCED, 612, 792, linedPage(612, 792, 24, 10)));
+        // Small print gets more, up to the profile's maximum
+        assertEquals(350, preprocessor.chooseDpi(OcrProfile.BALANCED, 612, 792, linedPage(612, 792, 6, 30)));
+    }
+
+    @Test
+    void testChooseDpi_WithoutTextUsesProfileDefault() {
+        assertEquals(200, preprocessor.chooseDpi(OcrProfile.FAST, 612, 792, linedPage(612, 792, 10, 0)));
+        assertEquals(300, preprocessor.chooseDpi(OcrProfile.ACCURATE, 612, 792, null));
+    }
+
+    @Test
+    void testChooseDpi_LimitedByPageSize() {
+        // A0 poster (2384 x 3370 pt) at 300 DPI would be about 140 megapixels
+        int dpi = preprocessor.chooseDpi(OcrProfile.BALANCED, 2384, 3370, null);
+
+        assertTrue(dpi < 300);
+        assertTrue((2384 / 72.0 * dpi) * (3370 / 72.0 * dpi) <= PageImagePreprocessor.MAX_PIXELS);
+    }
+
+    @Test
+    void testPreprocess_BinarizesForBalancedProfile() {
+        // Arrange - gray text on light gray paper
+        BufferedImage image = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(220, 220, 220));
+        g.fillRect(0, 0, 200, 100);
+        g.setColor(new Color(60, 60, 60));
+        g.fillRect(20, 40, 160, 10);
+        g.dispose();
+
+        // Act
+        BufferedImage result = preprocessor.preprocess(image, OcrProfile.BALANCED);
+
+        // Assert
+        assertEquals(BufferedImage.TYPE_BYTE_BINARY, result.getType());
+        assertEquals(0xFFFFFFFF, result.getRGB(5, 5));
+        assertEquals(0xFF000000, result.getRGB(100, 45));
+    }
+
+    @Test
+    void testPreprocess_KeepsGrayscaleForAccurateProfile() {
+        BufferedImage result = preprocessor.preprocess(linedPage(300, 400, 8, 10), OcrProfile.ACCURATE);
+
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, result.getType());
+    }
+
+    @Test
+    void testEstimateSkew_AndDeskew() {
+        // Arrange - text lines rotated by 2 degrees as on a crooked scan
+        BufferedImage straight = linedPage(800, 1000, 8, 25);
+        BufferedImage skewed = PageImagePreprocessor.rotate(straight, 2.0);
+
+        // Act
+        double skew = PageImagePreprocessor.estimateSkew(skewed);
+        BufferedImage deskewed = preprocessor.preprocess(skewed, OcrProfile.ACCURATE);
+
+        // Assert
+        assertEquals(2.0, skew, 0.3);
+        assertEquals(0.0, PageImagePreprocessor.estimateSkew(deskewed), 0.3);
+        assertEquals(0.0, PageImagePreprocessor.estimateSkew(straight), 0.3);
+    }
+
+    @Test
+    void testOcrProfileFrom() {
+        assertEquals(OcrProfile.FAST, OcrProfile.from("fast"));
+        assertEquals(OcrProfile.ACCURATE, OcrProfile.from(" Accurate "));
+        assertEquals(OcrProfile.BALANCED, OcrProfile.from(null));
+        assertThrows(IllegalArgumentException.class, () -> OcrProfile.from("turbo"));
+    }
+}
@@ -0,0 +1,68 @@
+package org.workers.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfBoxRasterizerTest {
+
+    private final PdfBoxRasterizer rasterizer = new PdfBoxRasterizer(new PageImagePreprocessor());
+
+    @TempDir
+    Path tempDir;
+
+    private Path write(byte[] content) throws IOException {
+        return Files.write(Files.createTempFile(tempDir, "render-", ".pdf"), content);
+    }
+
+    @Test
+    void testRender_AllPagesInOrderAsGrayscale() throws Exception {
+        // Arrange
+        Path pdf = write(TesseractOcrServiceTest.createPdf("First page", "Second page", null));
+        List<Integer> renderedPages = new ArrayList<>();
+        List<BufferedImage> images = new ArrayList<>();
+
+        // Act
+        rasterizer.render(pdf, null, OcrProfile.BALANCED, (pageNumber, image) -> {
+            renderedPages.add(pageNumber);
+            images.add(image);
+        });
+
+        // Assert - US Letter (612 x 792 pt) at 300 DPI, too little text for an adaptive DPI
+        assertEquals(List.of(1, 2, 3), renderedPages);
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, images.getFirst().getType());
+        assertEquals(2550, images.getFirst().getWidth(), 1);
+        assertEquals(3300, images.getFirst().getHeight(), 1);
+    }
+
+    @Test
+    void testRender_OnlyRequestedPages() throws Exception {
+        // Arrange
+        Path pdf = write(TesseractOcrServiceTest.createPdf("First page", null, "Third page"));
+        List<Integer> renderedPages = new ArrayList<>();
+
+        // Act
+        rasterizer.render(pdf, List.of(2, 3), OcrProfile.BALANCED, (pageNumber, image) -> renderedPages.add(pageNumber));
+
+        // Assert
+        assertEquals(List.of(2, 3), renderedPages);
+    }
+
+    @Test
+    void testRender_WithInvalidPdf() throws IOException {
+        // Arrange
+        Path invalid = write("This is not a PDF".getBytes());
+
+        // Act & Assert - the caller falls back to Ghostscript on this exception
+        assertThrows(IOException.class, () ->
+                rasterizer.render(invalid, null, OcrProfile.BALANCED, (pageNumber, image) -> fail("No page expected")));
+    }
+}
@@ -0,0 +1,52 @@
+package org.workers.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfTextLayerExtractorTest {
+
+    private final PdfTextLayerExtractor extractor = new PdfTextLayerExtractor(20);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testExtractPageTexts_MixedDocument() throws IOException {
+        // Arrange - page 2 has no text layer like a scanned page
+        Path pdf = Files.write(tempDir.resolve("contract.pdf"),
+                TesseractOcrServiceTest.createPdf("Contract between ACME GmbH and Example Ltd", null));
+
+        // Act
+        List<String> pageTexts = extractor.extractPageTexts(pdf, "contract.pdf");
+
+        // Assert
+        assertEquals(2, pageTexts.size());
+        assertEquals("Contract between ACME GmbH and Example Ltd", pageTexts.get(0));
+        assertTrue(extractor.hasUsableText(pageTexts.get(0)));
+        assertEquals("", pageTexts.get(1));
+        assertFalse(extractor.hasUsableText(pageTexts.get(1)));
+    }
+
+    @Test
+    void testExtractPageTexts_WithInvalidPdf() throws IOException {
+        // Act - unreadable documents yield no pages so the caller OCRs the whole file
+        Path invalid = Files.write(tempDir.resolve("invalid.pdf"), "This is not a PDF".getBytes());
+        List<String> pageTexts = extractor.extractPageTexts(invalid, "invalid.pdf");
+
+        // Assert
+        assertTrue(pageTexts.isEmpty());
+    }
+
+    @Test
+    void testHasUsableText_IgnoresWhitespace() {
+        assertFalse(extractor.hasUsableText("  a b c \n\n d e f  "));
+        assertTrue(extractor.hasUsableText("Rechnungsnummer 12345 vom 01.02."));
+    }
+}
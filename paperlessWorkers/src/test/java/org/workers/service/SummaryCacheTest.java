@@ -0,0 +1,111 @@
+package org.workers.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SummaryCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path cacheDir;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        cacheDir = tempDir.resolve("cache");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void key_NormalizesCaseWhitespaceAndUnicodeForms() throws IOException {
+        SummaryCache cache = new SummaryCache(cacheDir.toString(), 1, 0.001, meterRegistry);
+
+        String key = cache.key("Invoice  No. 42\nTotal: 100 EUR", "gpt-4o-mini");
+
+        assertEquals(key, cache.key("  invoice no. 42 total:\t100 eur ", "gpt-4o-mini"));
+        // NFKC folds the full-width digits and the ligature into their plain forms
+        assertEquals(cache.key("office 42", "gpt-4o-mini"), cache.key("oﬃce ４２", "gpt-4o-mini"));
+        assertNotEquals(key, cache.key("Invoice No. 43 Total: 100 EUR", "gpt-4o-mini"));
+        assertNotEquals(key, cache.key("Invoice No. 42 Total: 100 EUR", "gpt-4.1-mini"));
+    }
+
+    @Test
+    void get_CountsHitsAndSavedTokens() throws IOException {
+        SummaryCache cache = new SummaryCache(cacheDir.toString(), 1, 0.001, meterRegistry);
+
+        assertEquals(Optional.empty(), cache.get("doc", 2000));
+        cache.put("doc", "Summary");
+
+        assertEquals(Optional.of("Summary"), cache.get("doc", 2000));
+        assertEquals(1.0, meterRegistry.get("genai.summary.cache").tags("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("genai.summary.cache").tags("result", "miss").counter().count());
+        assertEquals(2000.0, meterRegistry.get("genai.summary.cache.tokens.saved").counter().count());
+        assertEquals(0.002, meterRegistry.get("genai.summary.cache.cost.saved").counter().count(), 1e-9);
+        assertEquals(0.5, cache.hitRatio());
+    }
+
+    @Test
+    void put_EvictsLeastRecentlyUsedOverSizeCap() throws IOException {
+        SummaryCache cache = new SummaryCache(cacheDir.toString(), 1, 0.001, meterRegistry);
+        String summary = "x".repeat(400 * 1024);
+
+        cache.put("first", summary);
+        cache.put("second", summary);
+        // Reading "first" makes "second" the least recently used entry
+        cache.get("first", 0);
+        cache.put("third", summary);
+
+        assertTrue(cache.get("first", 0).isPresent());
+        assertTrue(cache.get("second", 0).isEmpty());
+        assertTrue(cache.get("third", 0).isPresent());
+        assertFalse(Files.exists(cacheDir.resolve("second.summary")));
+        assertTrue(cache.totalBytes() <= 1024 * 1024);
+    }
+
+    @Test
+    void constructor_ReloadsEntriesFromEarlierRun() throws IOException {
+        new SummaryCache(cacheDir.toString(), 1, 0.001, meterRegistry).put("doc", "Persisted summary");
+
+        SummaryCache reopened = new SummaryCache(cacheDir.toString(), 1, 0.001, new SimpleMeterRegistry());
+
+        assertEquals(Optional.of("Persisted summary"), reopened.get("doc", 0));
+        assertEquals(17, reopened.totalBytes());
+    }
+
+    @Test
+    void constructor_EvictsOldestFilesOfEarlierRunOverSizeCap() throws IOException {
+        Files.createDirectories(cacheDir);
+        Path older = Files.writeString(cacheDir.resolve("older.summary"), "x".repeat(600 * 1024));
+        Path newer = Files.writeString(cacheDir.resolve("newer.summary"), "y".repeat(600 * 1024));
+        Files.setLastModifiedTime(older, FileTime.fromMillis(1_000));
+        Files.setLastModifiedTime(newer, FileTime.fromMillis(2_000));
+
+        SummaryCache reopened = new SummaryCache(cacheDir.toString(), 1, 0.001, meterRegistry);
+
+        assertFalse(Files.exists(older));
+        assertTrue(reopened.get("older", 0).isEmpty());
+        assertTrue(reopened.get("newer", 0).isPresent());
+    }
+
+    @Test
+    void disabledCache_NeverStoresOrCreatesDirectory() throws IOException {
+        SummaryCache cache = new SummaryCache(cacheDir.toString(), 0, 0.001, meterRegistry);
+
+        cache.put("doc", "Summary");
+
+        assertFalse(cache.isEnabled());
+        assertEquals(Optional.empty(), cache.get("doc", 100));
+        assertFalse(Files.exists(cacheDir));
+    }
+}
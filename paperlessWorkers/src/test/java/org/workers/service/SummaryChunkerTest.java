@@ -0,0 +1,75 @@
+package org.workers.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SummaryChunkerTest {
+
+    @Test
+    void split_ShortTextIsOneChunk() {
+        assertEquals(List.of("Short document."), SummaryChunker.split("  Short document.\n", 100));
+        assertEquals(List.of(), SummaryChunker.split("   ", 100));
+    }
+
+    @Test
+    void split_PrefersPageBreaksOverParagraphs() {
+        String page1 = "First page first paragraph.\n\nFirst page second paragraph.";
+        String page2 = "Second page.";
+
+        List<String> chunks = SummaryChunker.split(page1 + "\f" + page2, page1.length());
+
+        assertEquals(List.of(page1, page2), chunks);
+    }
+
+    @Test
+    void split_AlwaysCutsAtPageBreaks() {
+        assertEquals(List.of("Page one.", "Page two."), SummaryChunker.split("Page one.\fPage two.", 100));
+        assertEquals(List.of("Page one.", "Page three."), SummaryChunker.split("Page one.\f \fPage three.", 100));
+    }
+
+    @Test
+    void split_EditOnFirstPageKeepsChunksOfLaterPages() {
+        String page2 = "Second page first paragraph.\n\nSecond page second paragraph.";
+        String page3 = "Third page.";
+        String laterPages = TesseractOcrService.PAGE_SEPARATOR + page2 + TesseractOcrService.PAGE_SEPARATOR + page3;
+        List<String> before = SummaryChunker.split("First page." + laterPages, 40);
+
+        List<String> after = SummaryChunker.split("First page, now with a longer edited text." + laterPages, 40);
+
+        assertEquals(before.subList(1, before.size()), after.subList(after.size() - 3, after.size()));
+        assertEquals(List.of("Second page first paragraph.", "Second page second paragraph.", page3),
+                after.subList(after.size() - 3, after.size()));
+    }
+
+    @Test
+    void split_PacksParagraphsUpToBudget() {
+        String text = "aaaa\n\nbbbb\n\ncccc\n\ndddd";
+
+        List<String> chunks = SummaryChunker.split(text, 10);
+
+        assertEquals(List.of("aaaa\n\nbbbb", "cccc\n\ndddd"), chunks);
+    }
+
+    @Test
+    void split_FallsBackToSentencesAndHardCuts() {
+        List<String> sentences = SummaryChunker.split("One sentence here. Another one there.", 20);
+        assertEquals(List.of("One sentence here.", "Another one there."), sentences);
+
+        List<String> word = SummaryChunker.split("x".repeat(25), 10);
+        assertEquals(List.of("x".repeat(10), "x".repeat(10), "x".repeat(5)), word);
+    }
+
+    @Test
+    void split_NoChunkExceedsBudget() {
+        String text = ("Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(20) + "\n\n").repeat(30);
+
+        List<String> chunks = SummaryChunker.split(text, 500);
+
+        assertTrue(chunks.size() > 1);
+        chunks.forEach(chunk -> assertTrue(chunk.length() <= 500, "chunk of " + chunk.length() + " chars"));
+        assertEquals(text.replaceAll("\\s+", ""), String.join("", chunks).replaceAll("\\s+", ""));
+    }
+}
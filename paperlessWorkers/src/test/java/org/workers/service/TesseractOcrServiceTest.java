@@ -1,11 +1,32 @@
 package org.workers.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+import net.sourceforge.tess4j.TesseractException;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for TesseractOcrService
@@ -19,10 +40,56 @@ import static org.junit.jupiter.api.Assertions.*;
 class TesseractOcrServiceTest {
 
     private TesseractOcrService tesseractOcrService;
+    private SimpleMeterRegistry meterRegistry;
+    private TesseractPool pool;
+
+    @TempDir
+    Path tempDir;
 
     @BeforeEach
     void setUp() {
-        tesseractOcrService = new TesseractOcrService();
+        meterRegistry = new SimpleMeterRegistry();
+        PageImagePreprocessor preprocessor = new PageImagePreprocessor();
+        tesseractOcrService = new TesseractOcrService(new TesseractPool(2), new PdfTextLayerExtractor(20),
+                new PdfBoxRasterizer(preprocessor), new GhostscriptRasterizer(), preprocessor,
+                new PageTextCache(16, meterRegistry), "balanced", 0, meterRegistry);
+    }
+
+    private Path write(byte[] content) throws IOException {
+        return Files.write(Files.createTempFile(tempDir, "ocr-test-", null), content);
+    }
+
+    // Builds a born-digital PDF with one page per entry, null entries become blank (scan-like) pages
+    static byte[] createPdf(String... pageTexts) throws IOException {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (String pageText : pageTexts) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                if (pageText != null) {
+                    try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                        content.beginText();
+                        content.setFont(font, 12);
+                        content.newLineAtOffset(72, 700);
+                        content.showText(pageText);
+                        content.endText();
+                    }
+                }
+            }
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        tesseractOcrService.shutdown();
+    }
+
+    @Test
+    void testTesseractPoolSize() {
+        assertEquals(2, new TesseractPool(2).size());
+        assertEquals(Runtime.getRuntime().availableProcessors(), new TesseractPool(0).size());
     }
 
     @Test
@@ -42,7 +109,7 @@ class TesseractOcrServiceTest {
 
         // Act & Assert
         IOException exception = assertThrows(IOException.class, () -> {
-            tesseractOcrService.extractTextFromImage(invalidBytes, "invalid.png");
+            tesseractOcrService.extractTextFromImage(write(invalidBytes), "invalid.png");
         });
 
         assertTrue(exception.getMessage().contains("Failed to read image"),
@@ -56,8 +123,8 @@ class TesseractOcrServiceTest {
 
         // Act & Assert
         assertThrows(IOException.class, () -> {
-            tesseractOcrService.extractTextFromImage(emptyBytes, "empty.png");
-        }, "Should throw IOException for empty byte array");
+            tesseractOcrService.extractTextFromImage(write(emptyBytes), "empty.png");
+        }, "Should throw IOException for an empty file");
     }
 
     @Test
@@ -76,7 +143,7 @@ class TesseractOcrServiceTest {
         // Act - filename is only used for logging, so it shouldn't cause an exception
         // The invalid image bytes will cause the IOException
         assertThrows(IOException.class, () -> {
-            tesseractOcrService.extractTextFromImage(validBytes, null);
+            tesseractOcrService.extractTextFromImage(write(validBytes), null);
         });
     }
 
@@ -87,7 +154,7 @@ class TesseractOcrServiceTest {
 
         // Act & Assert
         IOException exception = assertThrows(IOException.class, () -> {
-            tesseractOcrService.extractTextFromPdf(invalidBytes, "invalid.pdf");
+            tesseractOcrService.extractTextFromPdf(write(invalidBytes), "invalid.pdf");
         });
 
         assertTrue(exception.getMessage().contains("PDF OCR processing failed") ||
@@ -102,7 +169,7 @@ class TesseractOcrServiceTest {
 
         // Act & Assert
         assertThrows(IOException.class, () -> {
-            tesseractOcrService.extractTextFromPdf(emptyBytes, "empty.pdf");
+            tesseractOcrService.extractTextFromPdf(write(emptyBytes), "empty.pdf");
         }, "Should throw IOException for empty PDF bytes");
     }
 
@@ -110,7 +177,7 @@ class TesseractOcrServiceTest {
     void testExtractTextFromPdf_WithNullBytes() {
         // Act & Assert
         assertThrows(NullPointerException.class, () -> {
-            tesseractOcrService.extractTextFromPdf(null, "null.pdf");
+            tesseractOcrService.extractTextFromPdf((Path) null, "null.pdf");
         }, "Should throw NullPointerException for null PDF input");
     }
 
@@ -121,10 +188,143 @@ class TesseractOcrServiceTest {
 
         // Act & Assert
         assertThrows(IOException.class, () -> {
-            tesseractOcrService.extractTextFromPdf(corruptedPdf, "corrupted.pdf");
+            tesseractOcrService.extractTextFromPdf(write(corruptedPdf), "corrupted.pdf");
         }, "Should throw IOException for corrupted PDF");
     }
 
+    @Test
+    void testExtractTextFromPdf_WithTextLayer_SkipsOcr() throws IOException {
+        // Arrange - Ghostscript/Tesseract are not needed when every page has a text layer
+        byte[] pdf = createPdf("Invoice 2024-001 for consulting services", "Total amount due: 1.250,00 EUR");
+
+        // Act
+        String text = tesseractOcrService.extractTextFromPdf(write(pdf), "invoice.pdf");
+
+        // Assert - pages in order, both served by the text layer
+        assertEquals("Invoice 2024-001 for consulting services\n\f\nTotal amount due: 1.250,00 EUR", text);
+        assertEquals(2.0, meterRegistry.counter("ocr.pdf.pages", "path", "text-layer").count());
+        assertEquals(0.0, meterRegistry.counter("ocr.pdf.pages", "path", "ocr").count());
+    }
+
+    @Test
+    void testExtractTextFromPdf_StreamsPagesInOrder() throws IOException {
+        // Arrange - pages 2, 3 and 5 have no text layer and are rendered with PDFBox, Tesseract is mocked
+        TesseractOcrService service = serviceWithMockedTesseract(2, 0, 16, new AtomicInteger(), new AtomicInteger());
+        Path pdf = write(createPdf("Cover letter for the rental agreement", null, null,
+                "Appendix A: floor plan and inventory", null));
+        List<String> emitted = new ArrayList<>();
+
+        try {
+            // Act
+            TesseractOcrService.PdfExtractionResult result =
+                    service.extractTextFromPdf(pdf, "agreement.pdf", (pageNumber, text) -> emitted.add(pageNumber + ":" + text));
+
+            // Assert - text layer and OCR pages interleaved in page order
+            assertEquals(5, result.pages());
+            assertTrue(result.complete());
+            assertEquals(List.of("1:Cover letter for the rental agreement", "2:ocr text", "3:ocr text",
+                    "4:Appendix A: floor plan and inventory", "5:ocr text"), emitted);
+            assertEquals(3.0, meterRegistry.counter("ocr.pdf.pages", "path", "ocr").count());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void testExtractTextFromPdf_ReportsFailedPages() throws Exception {
+        // Arrange - Tesseract fails on every rendered page, page 1 comes from the text layer
+        TesseractOcrService service = serviceWithMockedTesseract(2, 0, 0, new AtomicInteger(), new AtomicInteger());
+        when(pool.doOcr(any(BufferedImage.class))).thenThrow(new TesseractException("engine crashed"));
+        Path pdf = write(createPdf("Cover letter for the rental agreement", null));
+        List<String> emitted = new ArrayList<>();
+
+        try {
+            // Act
+            TesseractOcrService.PdfExtractionResult result =
+                    service.extractTextFromPdf(pdf, "partial.pdf", (pageNumber, text) -> emitted.add(text));
+
+            // Assert - the failed page keeps its place as a placeholder and is counted
+            assertEquals(2, result.pages());
+            assertEquals(1, result.failedPages());
+            assertFalse(result.complete());
+            assertEquals("[OCR Error: engine crashed]", emitted.get(1));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void testExtractTextFromPdf_BoundsPagesInFlight() throws IOException {
+        // Arrange - four OCR threads, but only one rendered page may wait for or be in OCR at a time
+        AtomicInteger inOcr = new AtomicInteger();
+        AtomicInteger maxInOcr = new AtomicInteger();
+        TesseractOcrService service = serviceWithMockedTesseract(4, 1, 0, inOcr, maxInOcr);
+        Path pdf = write(createPdf(null, null, null, null, null, null));
+
+        try {
+            // Act
+            String text = service.extractTextFromPdf(pdf, "scan.pdf");
+
+            // Assert
+            assertEquals(6, text.split(TesseractOcrService.PAGE_SEPARATOR).length);
+            assertEquals(1, maxInOcr.get());
+            assertEquals(0.0, meterRegistry.get("ocr.pages.in.flight").gauge().value());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void testExtractTextFromPdf_RepeatedPagesServedFromPageCache() throws IOException {
+        // Arrange - one page at a time, so every later blank page finds the first one in the cache
+        AtomicInteger ocrCalls = new AtomicInteger();
+        TesseractOcrService service = serviceWithMockedTesseract(2, 1, 16, new AtomicInteger(), ocrCalls);
+        Path pdf = write(createPdf(null, null, null));
+
+        try {
+            // Act
+            String text = service.extractTextFromPdf(pdf, "blank.pdf");
+
+            // Assert
+            assertEquals("ocr text\n\f\nocr text\n\f\nocr text", text);
+            assertEquals(1, ocrCalls.get());
+            assertEquals(2.0, meterRegistry.counter("ocr.page.cache", "result", "hit").count());
+            assertEquals(1.0, meterRegistry.counter("ocr.page.cache", "result", "miss").count());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void testUnknownProfile_FailsAtStartup() {
+        PageImagePreprocessor preprocessor = new PageImagePreprocessor();
+        assertThrows(IllegalArgumentException.class, () -> new TesseractOcrService(new TesseractPool(1),
+                new PdfTextLayerExtractor(20), new PdfBoxRasterizer(preprocessor), new GhostscriptRasterizer(),
+                preprocessor, new PageTextCache(0, meterRegistry), "turbo", 0, meterRegistry));
+    }
+
+    // Service whose Tesseract pool returns a fixed text after a short delay and tracks concurrent OCR calls
+    private TesseractOcrService serviceWithMockedTesseract(int poolSize, int maxPagesInFlight, int pageCacheSize,
+                                                          AtomicInteger inOcr, AtomicInteger maxInOcr) {
+        pool = mock(TesseractPool.class);
+        when(pool.size()).thenReturn(poolSize);
+        try {
+            when(pool.doOcr(any(BufferedImage.class))).thenAnswer(invocation -> {
+                maxInOcr.accumulateAndGet(inOcr.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                inOcr.decrementAndGet();
+                return "ocr text";
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        meterRegistry = new SimpleMeterRegistry();
+        PageImagePreprocessor preprocessor = new PageImagePreprocessor();
+        return new TesseractOcrService(pool, new PdfTextLayerExtractor(20), new PdfBoxRasterizer(preprocessor),
+                new GhostscriptRasterizer(), preprocessor, new PageTextCache(pageCacheSize, meterRegistry),
+                "balanced", maxPagesInFlight, meterRegistry);
+    }
+
     @Test
     void testServiceInitialization() {
         // Assert that service was created successfully
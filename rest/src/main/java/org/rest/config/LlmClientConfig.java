@@ -0,0 +1,24 @@
+package org.rest.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.llm.client.LlmClient;
+import org.llm.client.LlmRateLimit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures the shared LLM client for chat completions, interactive chat is only capped by the request slots
+ */
+@Configuration
+public class LlmClientConfig {
+
+    @Bean
+    public LlmClient llmClient(@Value("${openai.api.url:https://api.openai.com/v1/chat/completions}") String apiUrl,
+                               @Value("${openai.api.key:}") String apiKey,
+                               @Value("${openai.timeout.seconds:30}") int timeoutSeconds,
+                               @Value("${openai.max-in-flight:64}") int maxInFlight,
+                               MeterRegistry meterRegistry) {
+        return new LlmClient(apiUrl, apiKey, timeoutSeconds, maxInFlight, LlmRateLimit.UNLIMITED, meterRegistry);
+    }
+}
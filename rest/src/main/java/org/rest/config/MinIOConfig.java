@@ -26,6 +26,9 @@ public class MinIOConfig {
 	private String bucketName;
 	@Value("${minio.use-ssl}")
 	private boolean useSsl;
+	// Multipart upload part size in bytes (MinIO requires at least 5 MiB)
+	@Value("${minio.upload.part-size:10485760}")
+	private long uploadPartSize;
 
 	/**
 	 * Creates the MinioClient bean for file storage operations
@@ -1,5 +1,6 @@
 package org.rest.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
@@ -11,6 +12,7 @@ import org.springframework.context.annotation.Configuration;
  * Configures RabbitMQ with JSON message serialization for queue communication
  */
 @Configuration
+@Slf4j
 public class RabbitMqConfig {
 
     /**
@@ -25,6 +27,10 @@ public class RabbitMqConfig {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(jsonMessageConverter());
+        // Unroutable messages come back instead of being dropped, the returned message is also set on the CorrelationData
+        rabbitTemplate.setMandatory(true);
+        rabbitTemplate.setReturnsCallback(returned -> log.warn("Message to {} returned by the broker: {} {}",
+                returned.getRoutingKey(), returned.getReplyCode(), returned.getReplyText()));
         return rabbitTemplate;
     }
 }
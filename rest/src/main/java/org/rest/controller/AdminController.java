@@ -2,6 +2,7 @@ package org.rest.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.rest.dto.BatchPublishResultDto;
 import org.rest.dto.DocumentIndexDto;
 import org.rest.model.FileMetadata;
 import org.rest.service.FileMetadataService;
@@ -9,6 +10,7 @@ import org.rest.service.MessageProducerService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,7 +29,7 @@ public class AdminController {
     private final MessageProducerService messageProducerService;
 
     // Reindex all documents from PostgreSQL to Elasticsearch
-    // Fetch all documents and send them to search-indexing-queue
+    // Fetch all documents and send them to search-indexing-queue in confirmed batches
     // Return Response with reindex statistics
     @PostMapping("/reindex")
     public ResponseEntity<Map<String, Object>> reindexAllDocuments() {
@@ -38,13 +40,12 @@ public class AdminController {
             List<FileMetadata> allDocuments = fileMetadataService.getAllFileMetadata();
             log.info("Found {} documents to reindex", allDocuments.size());
             
-            int successCount = 0;
             int failureCount = 0;
+            List<DocumentIndexDto> indexDtos = new ArrayList<>(allDocuments.size());
             
-            // Send each document to search-indexing-queue for indexing
             for (FileMetadata metadata : allDocuments) {
                 try {
-                    DocumentIndexDto indexDto = DocumentIndexDto.builder()
+                    indexDtos.add(DocumentIndexDto.builder()
                             .documentId(metadata.getId())
                             .filename(metadata.getFilename())
                             .author(metadata.getAuthor())
@@ -52,20 +53,20 @@ public class AdminController {
                             .size(metadata.getSize())
                             .objectKey(metadata.getObjectKey())
                             .uploadTime(metadata.getUploadTime().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime())
-                            .extractedText(null)  // not stored in FileMetadata yet
+                            .extractedText(metadata.getExtractedText())
                             .summary(metadata.getSummary())
-                            .build();
-                    
-                    // Send DocumentIndexDto directly (same as from workers)
-                    messageProducerService.sendDocumentForIndexing(indexDto);
-                    successCount++;
-                    log.debug("Sent document {} for reindexing", metadata.getId());
+                            .build());
                 } catch (Exception e) {
                     failureCount++;
-                    log.error("Failed to send document {} for reindexing: {}", metadata.getId(), e.getMessage());
+                    log.error("Failed to prepare document {} for reindexing: {}", metadata.getId(), e.getMessage());
                 }
             }
             
+            // Send DocumentIndexDto (same as from workers) in confirmed batches instead of one round trip per document
+            BatchPublishResultDto publishResult = messageProducerService.sendDocumentsForIndexing(indexDtos);
+            int successCount = publishResult.getConfirmed();
+            failureCount += publishResult.getNacked();
+            
             log.info("Reindex operation completed: {} successful, {} failed", successCount, failureCount);
             
             Map<String, Object> response = new HashMap<>();
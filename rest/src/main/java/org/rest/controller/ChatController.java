@@ -12,6 +12,8 @@ import org.rest.service.OpenAIService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * REST controller for chat completion using OpenAI
  */
@@ -31,19 +33,21 @@ public class ChatController {
             @ApiResponse(responseCode = "200", description = "Chat response generated successfully"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<ChatCompletionResponseDto> generateChatCompletion(
+    public CompletableFuture<ResponseEntity<ChatCompletionResponseDto>> generateChatCompletion(
             @RequestBody ChatCompletionRequestDto request) {
         
         log.info("Received chat completion request with message: {}", request.getMessage());
         
-        try {
-            String response = openAIService.generateChatCompletion(request);
-            log.info("Chat completion generated successfully");
-            
-            return ResponseEntity.ok(new ChatCompletionResponseDto(response));
-        } catch (Exception e) {
-            log.error("Error generating chat completion", e);
-            throw e;
-        }
+        // The servlet thread is released while OpenAI answers, the response is written when the future completes
+        return openAIService.generateChatCompletionAsync(request)
+                .thenApply(response -> {
+                    log.info("Chat completion generated successfully");
+                    return ResponseEntity.ok(new ChatCompletionResponseDto(response));
+                })
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        log.error("Error generating chat completion", error);
+                    }
+                });
     }
 }
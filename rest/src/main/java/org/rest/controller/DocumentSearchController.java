@@ -5,8 +5,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.rest.dto.SearchRequestDto;
 import org.rest.dto.SearchResponseDto;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -57,6 +59,14 @@ public class DocumentSearchController {
 
             return ResponseEntity.ok(response);
 
+        } catch (HttpClientErrorException.Gone e) {
+            // The point in time behind the cursor expired, the client has to start again without a cursor
+            log.warn("Search cursor expired: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        } catch (HttpClientErrorException.BadRequest e) {
+            // e.g. an expired or tampered pagination cursor
+            log.warn("Search service rejected search request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Error proxying search request to search-service", e);
             throw new RuntimeException("Search service unavailable", e);
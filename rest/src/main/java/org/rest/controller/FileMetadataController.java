@@ -7,19 +7,31 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.rest.dto.FileMetadataPageDto;
 import org.rest.dto.FileMetadataResponseDto;
 import org.rest.dto.FileUploadDto;
+import org.rest.dto.StoredObjectDto;
 import org.rest.mapper.FileMetadataMapper;
 import org.rest.model.FileMetadata;
 import org.rest.service.FileMetadataService;
 import org.rest.service.FileStorage;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 /**
@@ -61,24 +73,30 @@ public class FileMetadataController {
             uploadDto.setAuthor(author);
             FileMetadata fileMetadata = fileMetadataMapper.toEntity(uploadDto, file);
 
-            // Generate unique object key for MinIO (using timestamp + filename for uniqueness)
-            String objectKey = String.format("%d-%s", System.currentTimeMillis(), file.getOriginalFilename());
-            fileMetadata.setObjectKey(objectKey);
-
-            // Upload file to MinIO
-            byte[] fileBytes = file.getBytes();
+            // Stream file to MinIO without loading it into memory, the object key is derived from the content hash
             String contentType = file.getContentType() != null ? file.getContentType() : "application/octet-stream";
-            fileStorage.upload(objectKey, fileBytes, contentType);
-            log.info("File uploaded to MinIO with object key: {}", objectKey);
+            StoredObjectDto stagedObject;
+            try (InputStream inputStream = file.getInputStream()) {
+                stagedObject = fileStorage.stageContentAddressed(inputStream, file.getSize(), contentType);
+            }
 
-            // Save metadata and notify workers
-            FileMetadata savedMetadata = fileMetadataService.createFileMetadataWithWorkerNotification(fileMetadata);
-            log.info("File metadata created with ID: {}, objectKey: {}", savedMetadata.getId(), savedMetadata.getObjectKey());
+            // Store the object under its key, save metadata and notify workers
+            FileMetadata savedMetadata;
+            try {
+                savedMetadata = fileMetadataService.createFileMetadataWithWorkerNotification(fileMetadata, stagedObject);
+            } catch (RuntimeException e) {
+                discardPromoted(stagedObject);
+                throw e;
+            } finally {
+                discardStaged(stagedObject);
+            }
+            log.info("File metadata created with ID: {}, objectKey: {} (deduplicated: {})",
+                    savedMetadata.getId(), savedMetadata.getObjectKey(), stagedObject.isDeduplicated());
 
             FileMetadataResponseDto response = fileMetadataMapper.toResponseDto(savedMetadata);
             return new ResponseEntity<>(response, HttpStatus.CREATED);
         } catch (IOException e) {
-            log.error("Failed to read file bytes: {}", e.getMessage(), e);
+            log.error("Failed to read file stream: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to process file upload", e);
         }
     }
@@ -100,52 +118,148 @@ public class FileMetadataController {
     }
 
     @GetMapping("/{id}/download")
-    @Operation(summary = "Download file content", description = "Download the actual file content from MinIO storage")
+    @Operation(summary = "Download file content", description = "Stream the file content from MinIO storage, honoring Range and If-Range headers")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "File downloaded successfully"),
+            @ApiResponse(responseCode = "206", description = "Requested byte range returned"),
             @ApiResponse(responseCode = "404", description = "File or file metadata not found"),
+            @ApiResponse(responseCode = "416", description = "Requested range not satisfiable"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<byte[]> downloadFile(
-            @Parameter(description = "File metadata ID") @PathVariable Long id) {
-        log.info("Received request to download file with ID: {}", id);
+    public ResponseEntity<StreamingResponseBody> downloadFile(
+            @Parameter(description = "File metadata ID") @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRangeHeader) {
+        log.info("Received request to download file with ID: {}, range: {}", id, rangeHeader);
 
         FileMetadata fileMetadata = fileMetadataService.getFileMetadataById(id);
-        byte[] fileContent = fileStorage.download(fileMetadata.getObjectKey());
+        StoredObjectDto storedObject = fileStorage.stat(fileMetadata.getObjectKey());
+        long totalSize = storedObject.getSize();
 
-        String contentType = "application/octet-stream";
-        
-        log.info("Sending file download - filename: {}, size: {} bytes, content-type: {}", 
-                fileMetadata.getFilename(), fileContent.length, contentType);
-
-        return ResponseEntity.ok()
-                .header("Content-Type", contentType)
-                .header("Content-Disposition", "attachment; filename=\"" + fileMetadata.getFilename() + "\"")
-                .header("Content-Length", String.valueOf(fileContent.length))
-                .body(fileContent);
+        MediaType contentType = resolveContentType(storedObject.getContentType());
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename(fileMetadata.getFilename())
+                .build();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        headers.setContentDisposition(contentDisposition);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (storedObject.getEtag() != null) {
+            headers.setETag(quoteEtag(storedObject.getEtag()));
+        }
+        if (storedObject.getLastModified() != null) {
+            headers.setLastModified(storedObject.getLastModified());
+        }
+
+        // Only a single range is served, multi-range requests fall back to the full body
+        HttpRange range = null;
+        if (rangeHeader != null && isIfRangeSatisfied(ifRangeHeader, storedObject)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                if (ranges.size() == 1) {
+                    range = ranges.get(0);
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring malformed Range header '{}' for file ID: {}", rangeHeader, id);
+            }
+        }
+
+        if (range == null) {
+            log.info("Streaming file download - filename: {}, size: {} bytes, content-type: {}",
+                    fileMetadata.getFilename(), totalSize, contentType);
+            headers.setContentLength(totalSize);
+            InputStream inputStream = fileStorage.openStream(fileMetadata.getObjectKey(), 0, null);
+            return new ResponseEntity<>(streamBody(inputStream), headers, HttpStatus.OK);
+        }
+
+        long start = range.getRangeStart(totalSize);
+        long end = range.getRangeEnd(totalSize);
+        if (start >= totalSize || start > end) {
+            log.warn("Range '{}' not satisfiable for file ID: {} with size {}", rangeHeader, id, totalSize);
+            HttpHeaders errorHeaders = new HttpHeaders();
+            errorHeaders.set(HttpHeaders.CONTENT_RANGE, "bytes */" + totalSize);
+            return new ResponseEntity<>(errorHeaders, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        }
+
+        long length = end - start + 1;
+        log.info("Streaming partial file download - filename: {}, bytes {}-{}/{}, content-type: {}",
+                fileMetadata.getFilename(), start, end, totalSize, contentType);
+        headers.setContentLength(length);
+        headers.set(HttpHeaders.CONTENT_RANGE, String.format("bytes %d-%d/%d", start, end, totalSize));
+        InputStream inputStream = fileStorage.openStream(fileMetadata.getObjectKey(), start, length);
+        return new ResponseEntity<>(streamBody(inputStream), headers, HttpStatus.PARTIAL_CONTENT);
+    }
+
+    // Copies the storage stream to the response in small chunks and always releases the connection
+    private StreamingResponseBody streamBody(InputStream inputStream) {
+        return outputStream -> {
+            try (inputStream) {
+                inputStream.transferTo(outputStream);
+            }
+        };
+    }
+
+    private MediaType resolveContentType(String storedContentType) {
+        if (storedContentType == null || storedContentType.isBlank()) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            return MediaType.parseMediaType(storedContentType);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    // If-Range holds either an ETag or an HTTP date; the range applies only if it still matches the stored object
+    private boolean isIfRangeSatisfied(String ifRangeHeader, StoredObjectDto storedObject) {
+        if (ifRangeHeader == null || ifRangeHeader.isBlank()) {
+            return true;
+        }
+        String value = ifRangeHeader.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return storedObject.getEtag() != null && value.equals(quoteEtag(storedObject.getEtag()));
+        }
+        if (storedObject.getLastModified() == null) {
+            return false;
+        }
+        try {
+            Instant ifRangeTime = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return storedObject.getLastModified().getEpochSecond() <= ifRangeTime.getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private String quoteEtag(String etag) {
+        return etag.startsWith("\"") ? etag : "\"" + etag + "\"";
     }
 
     @GetMapping
-    @Operation(summary = "Get all file metadata", description = "Retrieve all file metadata entries, optionally filtered")
+    @Operation(summary = "Get all file metadata",
+            description = "Retrieve all file metadata entries, optionally filtered. Filtered results are paginated only when page or size is given")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "File metadata retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid page or page size"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public ResponseEntity<List<FileMetadataResponseDto>> getAllFileMetadata(
             @Parameter(description = "Search keyword (optional)") @RequestParam(required = false) String search,
             @Parameter(description = "Filter by author (optional)") @RequestParam(required = false) String author,
-            @Parameter(description = "Filter by file type (optional)") @RequestParam(required = false) String fileType) {
-        log.info("Received request to get all file metadata with filters - search: {}, author: {}, fileType: {}",
-                search, author, fileType);
+            @Parameter(description = "Filter by file type (optional)") @RequestParam(required = false) String fileType,
+            @Parameter(description = "Page index for filtered results (optional, 0 when only size is given)") @RequestParam(required = false) Integer page,
+            @Parameter(description = "Page size for filtered results (optional, capped by the server, default page size when only page is given)") @RequestParam(required = false) Integer size) {
+        log.info("Received request to get all file metadata with filters - search: {}, author: {}, fileType: {}, page: {}, size: {}",
+                search, author, fileType, page, size);
 
         List<FileMetadata> fileMetadataList;
 
         if (search != null && !search.trim().isEmpty()) {
-            fileMetadataList = fileMetadataService.searchFileMetadata(search.trim());
+            fileMetadataList = fileMetadataService.searchFileMetadata(search.trim(), page, size);
         } else if (author != null && !author.trim().isEmpty()) {
-            fileMetadataList = fileMetadataService.getFileMetadataByAuthor(author.trim());
+            fileMetadataList = fileMetadataService.getFileMetadataByAuthor(author.trim(), page, size);
         } else if (fileType != null && !fileType.trim().isEmpty()) {
-            fileMetadataList = fileMetadataService.getFileMetadataByFileType(fileType.trim());
+            fileMetadataList = fileMetadataService.getFileMetadataByFileType(fileType.trim(), page, size);
         } else {
             fileMetadataList = fileMetadataService.getAllFileMetadata();
         }
@@ -155,6 +269,22 @@ public class FileMetadataController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/page")
+    @Operation(summary = "Get a page of file metadata",
+            description = "Retrieve file metadata newest first using cursor-based pagination, without summaries")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "File metadata page retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<FileMetadataPageDto> getFileMetadataPage(
+            @Parameter(description = "Cursor returned as nextCursor by the previous page (optional)") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (optional, capped by the server)") @RequestParam(required = false) Integer limit) {
+        log.info("Received request to get file metadata page - cursor: {}, limit: {}", cursor, limit);
+        
+        return ResponseEntity.ok(fileMetadataService.getFileMetadataPage(cursor, limit));
+    }
+
     @PatchMapping(value = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Update file metadata", description = "Partially update file metadata and optionally replace the file")
     @ApiResponses(value = {
@@ -171,7 +301,8 @@ public class FileMetadataController {
 
         try {
             FileMetadata updates = new FileMetadata();
-            boolean fileReplaced = false;
+            StoredObjectDto stagedObject = null;
+            String oldObjectKey = null;
             
             // If a new file is uploaded, replace it in MinIO
             if (file != null && !file.isEmpty()) {
@@ -179,27 +310,19 @@ public class FileMetadataController {
                 
                 // Get existing metadata to retrieve old objectKey
                 FileMetadata existingMetadata = fileMetadataService.getFileMetadataById(id);
-                String oldObjectKey = existingMetadata.getObjectKey();
+                oldObjectKey = existingMetadata.getObjectKey();
                 
-                // Generate new unique object key
-                String newObjectKey = String.format("%d-%s", System.currentTimeMillis(), file.getOriginalFilename());
-                
-                // Upload new file to MinIO
-                byte[] fileBytes = file.getBytes();
+                // Stream new file to MinIO under its content-addressed key
                 String contentType = file.getContentType() != null ? file.getContentType() : "application/octet-stream";
-                fileStorage.upload(newObjectKey, fileBytes, contentType);
-                log.info("New file uploaded to MinIO with object key: {}", newObjectKey);
-                
-                // Delete old file from MinIO
-                fileStorage.delete(oldObjectKey);
-                log.info("Old file deleted from MinIO: {}", oldObjectKey);
+                try (InputStream inputStream = file.getInputStream()) {
+                    stagedObject = fileStorage.stageContentAddressed(inputStream, file.getSize(), contentType);
+                }
+                log.info("New file staged in MinIO for object key: {}", stagedObject.getObjectKey());
                 
-                // Update metadata fields
+                // Update metadata fields, objectKey and contentHash are set once the staged file is stored
                 updates.setFilename(file.getOriginalFilename());
                 updates.setFileType(fileMetadataMapper.extractExtensionUpper(file.getOriginalFilename()));
                 updates.setSize(file.getSize());
-                updates.setObjectKey(newObjectKey);
-                fileReplaced = true;
             }
             
             // Update author if provided
@@ -208,12 +331,29 @@ public class FileMetadataController {
             }
             
             // Update metadata and notify workers if file was replaced
-            FileMetadata updatedMetadata = fileMetadataService.updateFileMetadataWithWorkerNotification(id, updates, fileReplaced);
+            FileMetadata updatedMetadata;
+            if (stagedObject != null) {
+                try {
+                    updatedMetadata = fileMetadataService.updateFileMetadataWithWorkerNotification(id, updates, stagedObject);
+                } catch (RuntimeException e) {
+                    discardPromoted(stagedObject);
+                    throw e;
+                } finally {
+                    discardStaged(stagedObject);
+                }
+            } else {
+                updatedMetadata = fileMetadataService.updateFileMetadataWithWorkerNotification(id, updates, false);
+            }
+            
+            // Old object may still be shared with other documents
+            if (oldObjectKey != null && !oldObjectKey.equals(updatedMetadata.getObjectKey())) {
+                fileMetadataService.deleteObjectIfUnreferenced(oldObjectKey);
+            }
             
             FileMetadataResponseDto response = fileMetadataMapper.toResponseDto(updatedMetadata);
             return ResponseEntity.ok(response);
         } catch (IOException e) {
-            log.error("Failed to read file bytes during update: {}", e.getMessage(), e);
+            log.error("Failed to read file stream during update: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to process file update", e);
         }
     }
@@ -237,10 +377,28 @@ public class FileMetadataController {
         fileMetadataService.deleteFileMetadata(id);
         log.info("File metadata deleted from database: {}", id);
         
-        // Delete from MinIO
-        fileStorage.delete(objectKey);
-        log.info("File deleted from MinIO: {}", objectKey);
+        // Delete from MinIO once no other document shares the object
+        fileMetadataService.deleteObjectIfUnreferenced(objectKey);
         
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    // The metadata transaction rolled back, so an object promoted to its content-addressed key may have no document.
+    // It is only deleted if no other document shares the same content.
+    private void discardPromoted(StoredObjectDto stagedObject) {
+        try {
+            fileMetadataService.deleteObjectIfUnreferenced(stagedObject.getObjectKey());
+        } catch (RuntimeException e) {
+            log.warn("Failed to remove unreferenced object {}: {}", stagedObject.getObjectKey(), e.getMessage());
+        }
+    }
+
+    // The staged copy is no longer needed once it was stored under its key, or when storing failed
+    private void discardStaged(StoredObjectDto stagedObject) {
+        try {
+            fileStorage.delete(stagedObject.getStagingKey());
+        } catch (RuntimeException e) {
+            log.warn("Failed to remove staged object {}: {}", stagedObject.getStagingKey(), e.getMessage());
+        }
+    }
+}
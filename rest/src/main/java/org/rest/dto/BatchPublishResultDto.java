@@ -0,0 +1,19 @@
+package org.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a batched RabbitMQ publish, counted from the broker's publisher confirms
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPublishResultDto {
+    private int total;
+    private int confirmed;
+    private int nacked; // nacked, timed out or never reached the broker
+}
@@ -0,0 +1,39 @@
+package org.rest.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Lightweight list projection of file metadata without summary and extracted text.
+ * Populated directly by a JPQL constructor expression, so the constructor argument order matters.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO for a file metadata list entry")
+public class FileMetadataListItemDto {
+    @Schema(description = "ID of the file metadata", example = "1")
+    private Long id;
+
+    @Schema(description = "Filename of the document", example = "invoice.pdf")
+    private String filename;
+
+    @Schema(description = "Author of the document", example = "John Doe")
+    private String author;
+
+    @Schema(description = "Type of the file", example = "PDF")
+    private String fileType;
+
+    @Schema(description = "Size of the file in bytes", example = "1024")
+    private Long size;
+
+    @Schema(description = "Upload time of the file", example = "2024-06-01T12:00:00Z")
+    private Instant uploadTime;
+
+    @Schema(description = "Last edited time of the file", example = "2024-06-02T15:30:00Z")
+    private Instant lastEdited;
+}
@@ -0,0 +1,31 @@
+package org.rest.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the keyset-paginated file listing with the cursor for the next page
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO for a page of file metadata entries")
+public class FileMetadataPageDto {
+    @Schema(description = "Entries of this page, newest first")
+    private List<FileMetadataListItemDto> items;
+
+    @Schema(description = "Opaque cursor for the next page, null on the last page", example = "MjAyNC0wNi0wMVQxMjowMDowMFp8NDI")
+    private String nextCursor;
+
+    @Schema(description = "Whether more entries follow this page", example = "true")
+    private boolean hasMore;
+
+    @Schema(description = "Requested page size", example = "50")
+    private int limit;
+}
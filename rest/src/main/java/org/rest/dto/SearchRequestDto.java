@@ -32,4 +32,12 @@ public class SearchRequestDto {
 
     @Builder.Default
     private String sortOrder = "desc";
+
+    private String cursor; // nextCursor of the previous page, replaces page for deep pagination
+
+    @Builder.Default
+    private Boolean pointInTime = false; // browse a snapshot that does not shift while documents are indexed
+
+    @Builder.Default
+    private Boolean facets = false; // return facet counts together with the hits
 }
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Response DTO for document search containing results, page info and search metrics
@@ -21,4 +22,6 @@ public class SearchResponseDto {
     private Integer size;
     private Integer totalPages;
     private Long searchTimeMs;
+    private String nextCursor; // set while more results may follow, pass it back as cursor
+    private Map<String, List<FacetBucketDto>> facets; // author, fileType, uploadTime, size
 }
@@ -0,0 +1,28 @@
+package org.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Object metadata reported by the storage backend (size, content type, ETag, last modification).
+ * For content-addressed uploads it also carries the SHA-256 content hash, the staging key the upload waits under
+ * until it is promoted, and whether the object already existed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredObjectDto {
+    private String objectKey;
+    private long size;
+    private String contentType;
+    private String etag;
+    private Instant lastModified;
+    private String contentHash;
+    private String stagingKey;
+    private boolean deduplicated;
+}
@@ -34,10 +34,10 @@ public class GenAIResultListener {
 		log.info("REST received GenAI result for document ID: {}, summary length: {} chars, extractedText length: {} chars",
 				result.getDocumentId(), result.getSummary().length(), result.getExtractedText().length());
 
-		// Save summary to database
+		// Save summary and extracted text to database
 		try {
-			fileMetadataService.updateSummary(result.getDocumentId(), result.getSummary());
-			log.info("Summary saved to database for document ID: {}", result.getDocumentId());
+			fileMetadataService.updateProcessingResult(result.getDocumentId(), result.getSummary(), result.getExtractedText());
+			log.info("Summary and extracted text saved to database for document ID: {}", result.getDocumentId());
 		} catch (Exception e) {
 			log.error("Failed to save summary for document ID: {}", result.getDocumentId(), e);
 			return; // Don't index if DB update fails
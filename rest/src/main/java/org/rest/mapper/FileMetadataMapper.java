@@ -22,6 +22,8 @@ public interface FileMetadataMapper {
     @Mapping(target = "lastEdited", ignore = true)
     @Mapping(target = "objectKey", ignore = true)
     @Mapping(target = "summary", ignore = true)
+    @Mapping(target = "contentHash", ignore = true)
+    @Mapping(target = "extractedText", ignore = true)
     @Mapping(target = "filename", expression = "java(file.getOriginalFilename())")
     @Mapping(target = "fileType", expression = "java(extractExtensionUpper(file.getOriginalFilename()))")
     @Mapping(target = "size", expression = "java(file.getSize())")
@@ -13,10 +13,15 @@ import java.time.Instant;
 /**
  * JPA entity representing metadata for files stored in the system.
  * Links persisted metadata (filename, author, timestamps, summary) to the
- * actual object stored in MinIO via "objectKey"
+ * actual object stored in MinIO via "objectKey", which is shared between
+ * documents with the same "contentHash"
  */
 @Entity
-@Table(name = "file_metadata")
+@Table(name = "file_metadata", indexes = {
+        @Index(name = "idx_file_metadata_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_file_metadata_object_key", columnList = "object_key"),
+        @Index(name = "idx_file_metadata_upload_time_id", columnList = "upload_time DESC, id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,9 +49,14 @@ public class FileMetadata {
     private Long size;
     
     @NotBlank(message = "Object key is required")
-    @Column(name = "object_key", nullable = false, unique = true)
+    // Not unique: documents with identical content share one content-addressed object
+    @Column(name = "object_key", nullable = false)
     private String objectKey;
     
+    // SHA-256 of the file content (hex), computed while streaming to storage
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
     @Column(name = "upload_time", nullable = false)
     private Instant uploadTime;
     
@@ -56,6 +66,10 @@ public class FileMetadata {
     @Column(name = "summary", length = 5000)
     private String summary;
     
+    // OCR output, kept so documents with identical content can reuse it
+    @Column(name = "extracted_text", columnDefinition = "TEXT")
+    private String extractedText;
+    
     @PrePersist
     protected void onCreate() {
         Instant now = Instant.now();
@@ -1,12 +1,17 @@
 package org.rest.repository;
 
+import org.rest.dto.FileMetadataListItemDto;
 import org.rest.model.FileMetadata;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
  
 /**
  * Repository for FileMetadata providing custom search queries and duplicate-detection helpers.
@@ -15,19 +20,59 @@ import java.util.List;
 @Repository
 public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long> {
     
-    @Query("SELECT f FROM FileMetadata f WHERE LOWER(f.author) LIKE LOWER(CONCAT('%', :author, '%'))")
-    List<FileMetadata> findByAuthor(@Param("author") String author);
+    // Trigram search (PostgreSQL pg_trgm), ILIKE '%term%' is answered by the GIN trigram indexes
+    String TRIGRAM_KEYWORD_SEARCH = "SELECT * FROM file_metadata f " +
+            "WHERE f.filename ILIKE CONCAT('%', :keyword, '%') OR f.author ILIKE CONCAT('%', :keyword, '%') " +
+            "ORDER BY GREATEST(similarity(f.filename, :keyword), similarity(f.author, :keyword)) DESC, f.upload_time DESC, f.id DESC";
     
-    @Query("SELECT f FROM FileMetadata f WHERE LOWER(f.fileType) LIKE LOWER(CONCAT('%', :fileType, '%'))")
-    List<FileMetadata> findByFileType(@Param("fileType") String fileType);
+    String TRIGRAM_AUTHOR_SEARCH = "SELECT * FROM file_metadata f " +
+            "WHERE f.author ILIKE CONCAT('%', :author, '%') ORDER BY f.upload_time DESC, f.id DESC";
     
-    @Query("SELECT f FROM FileMetadata f WHERE LOWER(f.filename) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(f.author) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<FileMetadata> searchByKeyword(@Param("keyword") String keyword);
+    String TRIGRAM_FILE_TYPE_SEARCH = "SELECT * FROM file_metadata f " +
+            "WHERE f.file_type ILIKE CONCAT('%', :fileType, '%') ORDER BY f.upload_time DESC, f.id DESC";
+    
+    @Query(value = TRIGRAM_KEYWORD_SEARCH, nativeQuery = true)
+    List<FileMetadata> searchByKeywordTrigram(@Param("keyword") String keyword, Pageable pageable);
+    
+    @Query(value = TRIGRAM_AUTHOR_SEARCH, nativeQuery = true)
+    List<FileMetadata> findByAuthorTrigram(@Param("author") String author, Pageable pageable);
+    
+    @Query(value = TRIGRAM_FILE_TYPE_SEARCH, nativeQuery = true)
+    List<FileMetadata> findByFileTypeTrigram(@Param("fileType") String fileType, Pageable pageable);
+    
+    // Portable LIKE search for databases without pg_trgm (sequential scan)
+    @Query("SELECT f FROM FileMetadata f WHERE LOWER(f.author) LIKE LOWER(CONCAT('%', :author, '%')) ORDER BY f.uploadTime DESC, f.id DESC")
+    List<FileMetadata> findByAuthor(@Param("author") String author, Pageable pageable);
+    
+    @Query("SELECT f FROM FileMetadata f WHERE LOWER(f.fileType) LIKE LOWER(CONCAT('%', :fileType, '%')) ORDER BY f.uploadTime DESC, f.id DESC")
+    List<FileMetadata> findByFileType(@Param("fileType") String fileType, Pageable pageable);
+    
+    @Query("SELECT f FROM FileMetadata f WHERE LOWER(f.filename) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(f.author) LIKE LOWER(CONCAT('%', :keyword, '%')) ORDER BY f.uploadTime DESC, f.id DESC")
+    List<FileMetadata> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
     
     List<FileMetadata> findByOrderByUploadTimeDesc();
     
+    // Keyset pagination on (upload_time, id), served by idx_file_metadata_upload_time_id
+    @Query("SELECT new org.rest.dto.FileMetadataListItemDto(f.id, f.filename, f.author, f.fileType, f.size, f.uploadTime, f.lastEdited) " +
+            "FROM FileMetadata f ORDER BY f.uploadTime DESC, f.id DESC")
+    List<FileMetadataListItemDto> findListPage(Limit limit);
+    
+    @Query("SELECT new org.rest.dto.FileMetadataListItemDto(f.id, f.filename, f.author, f.fileType, f.size, f.uploadTime, f.lastEdited) " +
+            "FROM FileMetadata f WHERE (f.uploadTime, f.id) < (:uploadTime, :id) ORDER BY f.uploadTime DESC, f.id DESC")
+    List<FileMetadataListItemDto> findListPageAfter(@Param("uploadTime") Instant uploadTime, @Param("id") Long id, Limit limit);
+    
     @Query("SELECT f FROM FileMetadata f WHERE f.filename = :filename AND f.author = :author")
     List<FileMetadata> findByFilenameAndAuthor(@Param("filename") String filename, @Param("author") String author);
     
     boolean existsByFilenameAndAuthor(String filename, String author);
+    
+    // Reference count of a (possibly shared) storage object
+    long countByObjectKey(String objectKey);
+    
+    // Transaction-scoped lock per storage object, serializes "reference it" against "count and delete it"
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtext(:objectKey))) AS object_lock", nativeQuery = true)
+    long lockObjectKey(@Param("objectKey") String objectKey);
+    
+    // Earliest fully processed document with identical content, used to skip OCR/GenAI
+    Optional<FileMetadata> findFirstByContentHashAndSummaryIsNotNullAndExtractedTextIsNotNullOrderByIdAsc(String contentHash);
 }
\ No newline at end of file
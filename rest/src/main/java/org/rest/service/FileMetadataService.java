@@ -3,18 +3,33 @@ package org.rest.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.rest.dto.FileMessageDto;
+import org.rest.dto.FileMetadataListItemDto;
+import org.rest.dto.FileMetadataPageDto;
+import org.rest.dto.GenAiResultDto;
+import org.rest.dto.StoredObjectDto;
 import org.rest.exception.DuplicateFileException;
 import org.rest.exception.FileMetadataNotFoundException;
 import org.rest.model.FileMetadata;
 import org.rest.repository.FileMetadataRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Service for file metadata persistence, duplicate detection, and worker pipeline coordination.
  * Manages CRUD operations, triggers OCR/GenAI processing via RabbitMQ, and publishes update events to search indexing.
+ * Messages are written to the transactional outbox and published by OutboxRelay after commit.
+ * Documents whose content hash matches an already processed document reuse its result instead of re-running the pipeline.
  */
 @Service
 @RequiredArgsConstructor
@@ -22,8 +37,22 @@ import java.util.List;
 @Transactional
 public class FileMetadataService {
     
+    private static final String CURSOR_SEPARATOR = "|";
+    private static final String SEARCH_MODE_TRIGRAM = "trigram";
+    
     private final FileMetadataRepository fileMetadataRepository;
-    private final MessageProducerService messageProducerService;
+    private final OutboxService outboxService;
+    private final FileStorage fileStorage;
+    
+    @Value("${files.list.default-page-size:50}")
+    private int defaultPageSize;
+    
+    @Value("${files.list.max-page-size:200}")
+    private int maxPageSize;
+    
+    // "trigram" uses the pg_trgm indexes (PostgreSQL), "like" the portable LOWER(...) LIKE queries
+    @Value("${files.search.mode:trigram}")
+    private String searchMode;
     
     public FileMetadata createFileMetadata(FileMetadata fileMetadata) {
         log.info("Creating file metadata for filename: {} by author: {}", 
@@ -45,9 +74,25 @@ public class FileMetadataService {
         return savedMetadata;
     }
     
+    /**
+     * Stores a staged upload under its content-addressed key and creates the document referencing it, in one transaction.
+     * The object lock is held until commit, so a concurrent delete of the same content sees the new reference.
+     */
+    public FileMetadata createFileMetadataWithWorkerNotification(FileMetadata fileMetadata, StoredObjectDto stagedObject) {
+        StoredObjectDto storedObject = storeStagedObject(stagedObject);
+        fileMetadata.setObjectKey(storedObject.getObjectKey());
+        fileMetadata.setContentHash(storedObject.getContentHash());
+        return createFileMetadataWithWorkerNotification(fileMetadata);
+    }
+    
     public FileMetadata createFileMetadataWithWorkerNotification(FileMetadata fileMetadata) {
         FileMetadata savedMetadata = createFileMetadata(fileMetadata);
         
+        // Identical content was already processed, reuse its result instead of running OCR/GenAI again
+        if (reuseProcessingResult(savedMetadata)) {
+            return savedMetadata;
+        }
+        
         // Send to OCR Queue for processing (OCR will then send to GenAI)
         log.info("Sending file metadata with id {} to OCR queue", savedMetadata.getId());
         FileMessageDto fileMessage = new FileMessageDto(
@@ -59,11 +104,40 @@ public class FileMetadataService {
                 savedMetadata.getUploadTime(),
                 savedMetadata.getObjectKey()
         );
-        messageProducerService.sendToOcrQueue(fileMessage);
+        outboxService.enqueueForOcr(fileMessage);
         
         return savedMetadata;
     }
     
+    /**
+     * Looks up an already processed document with the same content hash and, if found,
+     * publishes its extracted text and summary as the GenAI result for the given document.
+     * The regular result listener then persists and indexes it like any other pipeline result.
+     */
+    private boolean reuseProcessingResult(FileMetadata fileMetadata) {
+        if (fileMetadata.getContentHash() == null) {
+            return false;
+        }
+        
+        Optional<FileMetadata> processed = fileMetadataRepository
+                .findFirstByContentHashAndSummaryIsNotNullAndExtractedTextIsNotNullOrderByIdAsc(fileMetadata.getContentHash());
+        if (processed.isEmpty() || processed.get().getId().equals(fileMetadata.getId())) {
+            return false;
+        }
+        
+        FileMetadata source = processed.get();
+        log.info("Content hash {} of document {} matches processed document {}, skipping OCR/GenAI",
+                fileMetadata.getContentHash(), fileMetadata.getId(), source.getId());
+        outboxService.enqueueGenAiResult(new GenAiResultDto(
+                fileMetadata.getId(),
+                fileMetadata.getObjectKey(),
+                source.getExtractedText(),
+                source.getSummary(),
+                LocalDateTime.now()
+        ));
+        return true;
+    }
+    
     @Transactional(readOnly = true)
     public FileMetadata getFileMetadataById(Long id) {
         log.info("Retrieving file metadata with ID: {}", id);
@@ -79,25 +153,117 @@ public class FileMetadataService {
         return fileMetadataRepository.findByOrderByUploadTimeDesc();
     }
     
+    /**
+     * Returns one page of the file listing, newest first, starting after the given cursor.
+     * Keyset pagination keeps the cost of every page independent of its position and of the table size.
+     */
     @Transactional(readOnly = true)
-    public List<FileMetadata> searchFileMetadata(String keyword) {
-        log.info("Searching file metadata with keyword: {}", keyword);
+    public FileMetadataPageDto getFileMetadataPage(String cursor, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        log.info("Retrieving file metadata page - cursor: {}, limit: {}", cursor, pageSize);
+        
+        // Fetch one extra row to find out whether another page follows
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<FileMetadataListItemDto> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = fileMetadataRepository.findListPage(fetchLimit);
+        } else {
+            ListCursor position = decodeCursor(cursor);
+            rows = fileMetadataRepository.findListPageAfter(position.uploadTime(), position.id(), fetchLimit);
+        }
+        
+        boolean hasMore = rows.size() > pageSize;
+        List<FileMetadataListItemDto> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1)) : null;
         
-        return fileMetadataRepository.searchByKeyword(keyword);
+        return FileMetadataPageDto.builder()
+                .items(List.copyOf(items))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .limit(pageSize)
+                .build();
+    }
+    
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+    
+    private String encodeCursor(FileMetadataListItemDto last) {
+        String raw = last.getUploadTime().toString() + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private ListCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(CURSOR_SEPARATOR);
+            return new ListCursor(Instant.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+    }
+    
+    private record ListCursor(Instant uploadTime, Long id) {
     }
     
     @Transactional(readOnly = true)
-    public List<FileMetadata> getFileMetadataByAuthor(String author) {
-        log.info("Retrieving file metadata by author: {}", author);
+    public List<FileMetadata> searchFileMetadata(String keyword, Integer page, Integer size) {
+        log.info("Searching file metadata with keyword: {} (mode: {}, page: {})", keyword, searchMode, page);
         
-        return fileMetadataRepository.findByAuthor(author);
+        Pageable pageable = resolvePageable(page, size);
+        if (isTrigramSearch()) {
+            return fileMetadataRepository.searchByKeywordTrigram(escapeLikePattern(keyword), pageable);
+        }
+        return fileMetadataRepository.searchByKeyword(keyword, pageable);
     }
     
     @Transactional(readOnly = true)
-    public List<FileMetadata> getFileMetadataByFileType(String fileType) {
-        log.info("Retrieving file metadata by file type: {}", fileType);
+    public List<FileMetadata> getFileMetadataByAuthor(String author, Integer page, Integer size) {
+        log.info("Retrieving file metadata by author: {} (mode: {}, page: {})", author, searchMode, page);
         
-        return fileMetadataRepository.findByFileType(fileType);
+        Pageable pageable = resolvePageable(page, size);
+        if (isTrigramSearch()) {
+            return fileMetadataRepository.findByAuthorTrigram(escapeLikePattern(author), pageable);
+        }
+        return fileMetadataRepository.findByAuthor(author, pageable);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<FileMetadata> getFileMetadataByFileType(String fileType, Integer page, Integer size) {
+        log.info("Retrieving file metadata by file type: {} (mode: {}, page: {})", fileType, searchMode, page);
+        
+        Pageable pageable = resolvePageable(page, size);
+        if (isTrigramSearch()) {
+            return fileMetadataRepository.findByFileTypeTrigram(escapeLikePattern(fileType), pageable);
+        }
+        return fileMetadataRepository.findByFileType(fileType, pageable);
+    }
+    
+    private boolean isTrigramSearch() {
+        return SEARCH_MODE_TRIGRAM.equalsIgnoreCase(searchMode);
+    }
+    
+    // Without page and size the whole result is returned, as before filtered lists could be paginated
+    private Pageable resolvePageable(Integer page, Integer size) {
+        if (page == null && size == null) {
+            return Pageable.unpaged();
+        }
+        int pageIndex = page != null ? page : 0;
+        if (pageIndex < 0) {
+            throw new IllegalArgumentException("Page index must not be negative");
+        }
+        return PageRequest.of(pageIndex, resolvePageSize(size));
+    }
+    
+    // User input is matched literally, % and _ must not act as wildcards inside ILIKE
+    private String escapeLikePattern(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
     
     public FileMetadata updateFileMetadata(Long id, FileMetadata updates) {
@@ -121,6 +287,9 @@ public class FileMetadataService {
         if (updates.getObjectKey() != null) {
             fileMetadata.setObjectKey(updates.getObjectKey());
         }
+        if (updates.getContentHash() != null) {
+            fileMetadata.setContentHash(updates.getContentHash());
+        }
         
         FileMetadata updatedMetadata = fileMetadataRepository.save(fileMetadata);
         log.info("File metadata updated with ID: {}", updatedMetadata.getId());
@@ -128,6 +297,16 @@ public class FileMetadataService {
         return updatedMetadata;
     }
     
+    /**
+     * Replaces the file of a document with a staged upload, see createFileMetadataWithWorkerNotification for the locking
+     */
+    public FileMetadata updateFileMetadataWithWorkerNotification(Long id, FileMetadata updates, StoredObjectDto stagedObject) {
+        StoredObjectDto storedObject = storeStagedObject(stagedObject);
+        updates.setObjectKey(storedObject.getObjectKey());
+        updates.setContentHash(storedObject.getContentHash());
+        return updateFileMetadataWithWorkerNotification(id, updates, true);
+    }
+    
     public FileMetadata updateFileMetadataWithWorkerNotification(Long id, FileMetadata updates, boolean fileReplaced) {
         FileMetadata updatedMetadata = updateFileMetadata(id, updates);
         
@@ -135,9 +314,14 @@ public class FileMetadataService {
         if (fileReplaced) {
             // Clear the old summary so UI shows "Summary is being generated..." and triggers auto-refresh
             updatedMetadata.setSummary(null);
+            updatedMetadata.setExtractedText(null);
             updatedMetadata = fileMetadataRepository.save(updatedMetadata);
             log.info("Summary cleared for file {} before reprocessing", updatedMetadata.getId());
             
+            if (reuseProcessingResult(updatedMetadata)) {
+                return updatedMetadata;
+            }
+            
             log.info("File with id {} was replaced, sending to OCR queue for reprocessing", updatedMetadata.getId());
             FileMessageDto fileMessage = new FileMessageDto(
                     updatedMetadata.getId(),
@@ -148,7 +332,7 @@ public class FileMetadataService {
                     updatedMetadata.getUploadTime(),
                     updatedMetadata.getObjectKey()
             );
-            messageProducerService.sendToOcrQueue(fileMessage);
+            outboxService.enqueueForOcr(fileMessage);
         } else {
             // Only metadata updated (author change), send UPDATE event to Elasticsearch
             log.info("Only metadata updated for id {}, sending UPDATE event to search-indexing queue", updatedMetadata.getId());
@@ -163,7 +347,7 @@ public class FileMetadataService {
                     .extractedText("") // Not needed for metadata-only updates
                     .eventType(org.rest.dto.DocumentUpdateEventDto.EventType.UPDATE)
                     .build();
-            messageProducerService.sendDocumentUpdateEvent(updateEvent);
+            outboxService.enqueueDocumentUpdateEvent(updateEvent);
         }
         
         return updatedMetadata;
@@ -182,6 +366,42 @@ public class FileMetadataService {
                 id, summary != null ? summary.length() : 0);
     }
     
+    /**
+     * Persists the summary and OCR text produced by the worker pipeline
+     */
+    public void updateProcessingResult(Long id, String summary, String extractedText) {
+        log.info("Updating processing result for file metadata with ID: {}", id);
+        
+        FileMetadata fileMetadata = fileMetadataRepository.findById(id)
+                .orElseThrow(() -> new FileMetadataNotFoundException("File metadata not found with ID: " + id));
+        
+        fileMetadata.setSummary(summary);
+        fileMetadata.setExtractedText(extractedText);
+        fileMetadataRepository.save(fileMetadata);
+        
+        log.info("Processing result updated for file metadata with ID: {} (summary length: {} chars, text length: {} chars)", 
+                id, summary != null ? summary.length() : 0, extractedText != null ? extractedText.length() : 0);
+    }
+    
+    /**
+     * Deletes the storage object once no document references it anymore. Counting and deleting happen under the
+     * object lock, an upload of the same content either committed its reference before or copies the object again.
+     */
+    public void deleteObjectIfUnreferenced(String objectKey) {
+        fileMetadataRepository.lockObjectKey(objectKey);
+        if (fileMetadataRepository.countByObjectKey(objectKey) > 0) {
+            log.info("File {} is still referenced by other documents, keeping it in MinIO", objectKey);
+            return;
+        }
+        fileStorage.delete(objectKey);
+        log.info("File deleted from MinIO: {}", objectKey);
+    }
+    
+    private StoredObjectDto storeStagedObject(StoredObjectDto stagedObject) {
+        fileMetadataRepository.lockObjectKey(stagedObject.getObjectKey());
+        return fileStorage.promoteStaged(stagedObject);
+    }
+    
     public void deleteFileMetadata(Long id) {
         log.info("Deleting file metadata with ID: {}", id);
         
@@ -198,6 +418,6 @@ public class FileMetadataService {
                 .documentId(id)
                 .eventType(org.rest.dto.DocumentUpdateEventDto.EventType.DELETE)
                 .build();
-        messageProducerService.sendDocumentUpdateEvent(deleteEvent);
+        outboxService.enqueueDocumentUpdateEvent(deleteEvent);
     }
 }
\ No newline at end of file
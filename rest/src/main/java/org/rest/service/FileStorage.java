@@ -1,11 +1,35 @@
 package org.rest.service;
 
+import org.rest.dto.StoredObjectDto;
+
+import java.io.InputStream;
+
 /**
  * Interface for object storage operations (implemented by MinIO)
  */
 public interface FileStorage {
 	void upload(String objectKey, byte[] fileData, String contentType);
+	/**
+	 * Streams the object to storage without buffering it in memory, size must be the exact byte count
+	 */
+	void upload(String objectKey, InputStream inputStream, long size, String contentType);
+	/**
+	 * Streams the object to a staging key while computing its SHA-256 hash.
+	 * The result carries the content-addressed key; the staged copy stays until the caller deletes its stagingKey.
+	 */
+	StoredObjectDto stageContentAddressed(InputStream inputStream, long size, String contentType);
+	/**
+	 * Copies a staged object to its content-addressed key, unless an object with the same content already exists.
+	 * Callers hold the object lock (FileMetadataService) so a concurrent delete of the same content cannot interleave.
+	 */
+	StoredObjectDto promoteStaged(StoredObjectDto stagedObject);
 	byte[] download(String objectKey);
+	/**
+	 * Opens a stream over the object, or over length bytes starting at offset when length is not null.
+	 * The caller is responsible for closing the returned stream.
+	 */
+	InputStream openStream(String objectKey, long offset, Long length);
+	StoredObjectDto stat(String objectKey);
 	void delete(String objectKey);
 	boolean exists(String objectKey);
 }
\ No newline at end of file
@@ -5,39 +5,54 @@ import io.minio.errors.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.rest.config.MinIOConfig;
+import org.rest.dto.StoredObjectDto;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.DigestInputStream;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
 
 /**
  * MinIO implementation of FileStorage interface for object storage operations.
  * Handles file upload, download, deletion, and existence checks with automatic bucket creation.
+ * Content-addressed uploads are stored under "sha256/{hash}" so identical files share one object.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class MinIOFileStorage implements FileStorage {
 
+	private static final String CONTENT_PREFIX = "sha256/";
+	private static final String STAGING_PREFIX = "staging/";
+
 	private final MinioClient minioClient;
 	private final MinIOConfig minioConfig;
 
 	@Override
 	public void upload(String objectKey, byte[] fileData, String contentType) {
+		upload(objectKey, new ByteArrayInputStream(fileData), fileData.length, contentType);
+	}
+
+	@Override
+	public void upload(String objectKey, InputStream inputStream, long size, String contentType) {
 		try {
 			ensureBucketExists();
 
-			log.info("Uploading file to MinIO - bucket: {}, key: {}, size: {} bytes, contentType: {}",
-					minioConfig.getBucketName(), objectKey, fileData.length, contentType);
+			log.info("Uploading file to MinIO - bucket: {}, key: {}, size: {} bytes, partSize: {} bytes, contentType: {}",
+					minioConfig.getBucketName(), objectKey, size, minioConfig.getUploadPartSize(), contentType);
 
+			// Fixed part size keeps heap usage at one part buffer regardless of the object size
 			minioClient.putObject(
 					PutObjectArgs.builder()
 							.bucket(minioConfig.getBucketName())
 							.object(objectKey)
-							.stream(new ByteArrayInputStream(fileData), fileData.length, -1)
+							.stream(inputStream, size, minioConfig.getUploadPartSize())
 							.contentType(contentType)
 							.build());
 
@@ -51,6 +66,37 @@ public class MinIOFileStorage implements FileStorage {
 		}
 	}
 
+	@Override
+	public StoredObjectDto stageContentAddressed(InputStream inputStream, long size, String contentType) {
+		// Stream to a staging key while hashing, the final key is only known once the last byte is read
+		String stagingKey = STAGING_PREFIX + UUID.randomUUID();
+		MessageDigest digest = newSha256Digest();
+		upload(stagingKey, new DigestInputStream(inputStream, digest), size, contentType);
+
+		String contentHash = HexFormat.of().formatHex(digest.digest());
+		return StoredObjectDto.builder()
+				.objectKey(CONTENT_PREFIX + contentHash)
+				.size(size)
+				.contentType(contentType)
+				.contentHash(contentHash)
+				.stagingKey(stagingKey)
+				.build();
+	}
+
+	@Override
+	public StoredObjectDto promoteStaged(StoredObjectDto stagedObject) {
+		String objectKey = stagedObject.getObjectKey();
+		boolean deduplicated = exists(objectKey);
+		if (deduplicated) {
+			log.info("Content already stored in MinIO under key: {}, staged copy is not needed", objectKey);
+		} else {
+			copyObject(stagedObject.getStagingKey(), objectKey);
+			log.info("Content stored in MinIO under content-addressed key: {}", objectKey);
+		}
+		stagedObject.setDeduplicated(deduplicated);
+		return stagedObject;
+	}
+
 	@Override
 	public byte[] download(String objectKey) {
 		try {
@@ -80,6 +126,61 @@ public class MinIOFileStorage implements FileStorage {
 		}
 	}
 
+	@Override
+	public InputStream openStream(String objectKey, long offset, Long length) {
+		try {
+			log.info("Opening stream from MinIO - bucket: {}, key: {}, offset: {}, length: {}",
+					minioConfig.getBucketName(), objectKey, offset, length);
+
+			GetObjectArgs.Builder args = GetObjectArgs.builder()
+					.bucket(minioConfig.getBucketName())
+					.object(objectKey);
+			if (offset > 0 || length != null) {
+				args.offset(offset);
+				args.length(length);
+			}
+			return minioClient.getObject(args.build());
+		} catch (ErrorResponseException e) {
+			if (e.errorResponse().code().equals("NoSuchKey")) {
+				log.error("File not found in MinIO: {}", objectKey);
+				throw new RuntimeException("File not found: " + objectKey);
+			}
+			log.error("MinIO error while opening stream - key: {}, error: {}", objectKey, e.getMessage());
+			throw new RuntimeException("Failed to download file from MinIO: " + e.getMessage(), e);
+		} catch (MinioException | IOException | NoSuchAlgorithmException | InvalidKeyException e) {
+			log.error("Error while opening stream - key: {}, error: {}", objectKey, e.getMessage());
+			throw new RuntimeException("Failed to download file: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public StoredObjectDto stat(String objectKey) {
+		try {
+			StatObjectResponse response = minioClient.statObject(
+					StatObjectArgs.builder()
+							.bucket(minioConfig.getBucketName())
+							.object(objectKey)
+							.build());
+			return StoredObjectDto.builder()
+					.objectKey(objectKey)
+					.size(response.size())
+					.contentType(response.contentType())
+					.etag(response.etag())
+					.lastModified(response.lastModified() != null ? response.lastModified().toInstant() : null)
+					.build();
+		} catch (ErrorResponseException e) {
+			if (e.errorResponse().code().equals("NoSuchKey")) {
+				log.error("File not found in MinIO: {}", objectKey);
+				throw new RuntimeException("File not found: " + objectKey);
+			}
+			log.error("MinIO error during stat - key: {}, error: {}", objectKey, e.getMessage());
+			throw new RuntimeException("Failed to read file metadata from MinIO: " + e.getMessage(), e);
+		} catch (MinioException | IOException | NoSuchAlgorithmException | InvalidKeyException e) {
+			log.error("Error during file stat - key: {}, error: {}", objectKey, e.getMessage());
+			throw new RuntimeException("Failed to read file metadata: " + e.getMessage(), e);
+		}
+	}
+
 	@Override
 	public void delete(String objectKey) {
 		try {
@@ -120,6 +221,32 @@ public class MinIOFileStorage implements FileStorage {
 		}
 	}
 
+	// Server-side copy, the object content never passes through this service
+	private void copyObject(String sourceKey, String targetKey) {
+		try {
+			minioClient.copyObject(
+					CopyObjectArgs.builder()
+							.bucket(minioConfig.getBucketName())
+							.object(targetKey)
+							.source(CopySource.builder()
+									.bucket(minioConfig.getBucketName())
+									.object(sourceKey)
+									.build())
+							.build());
+		} catch (MinioException | IOException | NoSuchAlgorithmException | InvalidKeyException e) {
+			log.error("Error during object copy - source: {}, target: {}, error: {}", sourceKey, targetKey, e.getMessage());
+			throw new RuntimeException("Failed to copy file: " + e.getMessage(), e);
+		}
+	}
+
+	private MessageDigest newSha256Digest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
 	// Ensures the configured bucket exists, creates it if not
 	private void ensureBucketExists() {
 		try {
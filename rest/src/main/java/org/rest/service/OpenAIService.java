@@ -1,26 +1,26 @@
 package org.rest.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.rest.dto.ChatCompletionRequestDto;
+import org.llm.client.LlmClient;
 import org.rest.model.FileMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
+import java.net.http.HttpTimeoutException;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 /**
@@ -30,16 +30,10 @@ import java.util.stream.Collectors;
 public class OpenAIService {
     private static final Logger logger = LoggerFactory.getLogger(OpenAIService.class);
     
-    private final HttpClient httpClient;
+    private final LlmClient llmClient;
     private final ObjectMapper objectMapper;
     private final FileMetadataService fileMetadataService;
     
-    @Value("${openai.api.key:}")
-    private String apiKey;
-    
-    @Value("${openai.api.url:https://api.openai.com/v1/chat/completions}")
-    private String apiUrl;
-    
     @Value("${openai.model:gpt-4.1-mini}")
     private String model;
     
@@ -49,88 +43,93 @@ public class OpenAIService {
     @Value("${openai.max.tokens:500}")
     private int maxTokens;
 
-    @Value("${openai.timeout.seconds:30}")
-    private int timeoutSeconds;
-
-    public OpenAIService(FileMetadataService fileMetadataService, ObjectMapper objectMapper) {
+    public OpenAIService(FileMetadataService fileMetadataService, ObjectMapper objectMapper, LlmClient llmClient) {
         this.fileMetadataService = fileMetadataService;
         this.objectMapper = objectMapper;
-        this.httpClient = HttpClient.newHttpClient();
+        this.llmClient = llmClient;
     }
 
     /**
-     * Generate a chat completion using OpenAI API with file metadata context
+     * Generate a chat completion using OpenAI API with file metadata context.
+     * No request thread waits for OpenAI, the future completes once the response arrived.
      */
-    public String generateChatCompletion(ChatCompletionRequestDto request) {
-        if (apiKey == null || apiKey.isEmpty()) {
+    public CompletableFuture<String> generateChatCompletionAsync(ChatCompletionRequestDto request) {
+        if (!llmClient.isConfigured()) {
             throw new IllegalStateException("OpenAI API key is not configured");
         }
 
+        String requestBody;
         try {
-            // Build system message with file metadata context
-            String systemMessage = buildSystemMessageWithContext();
-            
-            // Build messages array for OpenAI API
-            ArrayNode messages = objectMapper.createArrayNode();
-            
-            // Add system message
-            ObjectNode systemMsg = objectMapper.createObjectNode();
-            systemMsg.put("role", "system");
-            systemMsg.put("content", systemMessage);
-            messages.add(systemMsg);
-            
-            // Add conversation history
-            if (request.getConversationHistory() != null) {
-                for (ChatCompletionRequestDto.ConversationMessage msg : request.getConversationHistory()) {
-                    ObjectNode historyMsg = objectMapper.createObjectNode();
-                    historyMsg.put("role", msg.getRole());
-                    historyMsg.put("content", msg.getContent());
-                    messages.add(historyMsg);
+            requestBody = buildRequestBody(request);
+        } catch (Exception e) {
+            logger.error("Error building OpenAI request", e);
+            throw new RuntimeException("An error occurred while processing your request: " + e.getMessage(), e);
+        }
+
+        return llmClient.chatCompletionAsync(requestBody).handle((response, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof HttpTimeoutException) {
+                    logger.error("OpenAI API request timed out after {} seconds for chat request", llmClient.getTimeoutSeconds());
+                    throw new RuntimeException("The request took too long to process. Please try again with a simpler question.");
                 }
+                logger.error("Error calling OpenAI API", cause);
+                throw new RuntimeException("An error occurred while processing your request: " + cause.getMessage(), cause);
             }
-            
-            // Add user message
-            ObjectNode userMsg = objectMapper.createObjectNode();
-            userMsg.put("role", "user");
-            userMsg.put("content", request.getMessage());
-            messages.add(userMsg);
-            
-            // Build request body
-            ObjectNode requestBody = objectMapper.createObjectNode();
-            requestBody.put("model", model);
-            requestBody.set("messages", messages);
-            requestBody.put("temperature", temperature);
-            requestBody.put("max_tokens", maxTokens);
-            
-            // Call OpenAI API
-            HttpRequest httpRequest = HttpRequest.newBuilder()
-                    .uri(URI.create(apiUrl))
-                    .header("Content-Type", "application/json")
-                    .header("Authorization", "Bearer " + apiKey)
-                    .timeout(Duration.ofSeconds(timeoutSeconds))
-                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(requestBody)))
-                    .build();
-            
-            HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
-            
+
             if (response.statusCode() != 200) {
                 logger.error("OpenAI API error: {} - {}", response.statusCode(), response.body());
-                throw new RuntimeException("Failed to get response from OpenAI API: " + response.statusCode());
+                throw new RuntimeException("An error occurred while processing your request: "
+                        + "Failed to get response from OpenAI API: " + response.statusCode());
             }
-            
+
             // Parse response
-            JsonNode responseJson = objectMapper.readTree(response.body());
-            String assistantMessage = responseJson.get("choices").get(0).get("message").get("content").asText();
-            
-            return assistantMessage;
-            
-        } catch (java.net.http.HttpTimeoutException e) {
-            logger.error("OpenAI API request timed out after {} seconds for chat request", timeoutSeconds);
-            throw new RuntimeException("The request took too long to process. Please try again with a simpler question.");
-        } catch (Exception e) {
-            logger.error("Error calling OpenAI API", e);
-            throw new RuntimeException("An error occurred while processing your request: " + e.getMessage(), e);
+            try {
+                JsonNode responseJson = objectMapper.readTree(response.body());
+                return responseJson.get("choices").get(0).get("message").get("content").asText();
+            } catch (Exception e) {
+                logger.error("Error parsing OpenAI response", e);
+                throw new RuntimeException("An error occurred while processing your request: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private String buildRequestBody(ChatCompletionRequestDto request) throws JsonProcessingException {
+        // Build system message with file metadata context
+        String systemMessage = buildSystemMessageWithContext();
+        
+        // Build messages array for OpenAI API
+        ArrayNode messages = objectMapper.createArrayNode();
+        
+        // Add system message
+        ObjectNode systemMsg = objectMapper.createObjectNode();
+        systemMsg.put("role", "system");
+        systemMsg.put("content", systemMessage);
+        messages.add(systemMsg);
+        
+        // Add conversation history
+        if (request.getConversationHistory() != null) {
+            for (ChatCompletionRequestDto.ConversationMessage msg : request.getConversationHistory()) {
+                ObjectNode historyMsg = objectMapper.createObjectNode();
+                historyMsg.put("role", msg.getRole());
+                historyMsg.put("content", msg.getContent());
+                messages.add(historyMsg);
+            }
         }
+        
+        // Add user message
+        ObjectNode userMsg = objectMapper.createObjectNode();
+        userMsg.put("role", "user");
+        userMsg.put("content", request.getMessage());
+        messages.add(userMsg);
+        
+        // Build request body
+        ObjectNode requestBody = objectMapper.createObjectNode();
+        requestBody.put("model", model);
+        requestBody.set("messages", messages);
+        requestBody.put("temperature", temperature);
+        requestBody.put("max_tokens", maxTokens);
+        return objectMapper.writeValueAsString(requestBody);
     }
 
     /**
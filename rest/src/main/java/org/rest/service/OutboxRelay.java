@@ -0,0 +1,216 @@
+package org.rest.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.rest.model.OutboxMessage;
+import org.rest.repository.OutboxMessageRepository;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox table to RabbitMQ in batches.
+ * Every batch is published as mandatory with correlated publisher confirms and a row is only deleted
+ * after the broker acknowledged it without returning it; nacked, returned or timed out messages stay
+ * for the next run until they reach the maximum number of attempts and are parked.
+ * Delivery is at-least-once: a crash between confirm and commit publishes the batch again.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+    
+    private static final int MAX_ERROR_LENGTH = 1000;
+    
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Counter parkedCounter;
+    private final Timer batchTimer;
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    
+    @Value("${outbox.relay.batch-size:100}")
+    private int batchSize;
+    
+    // Deadline for the confirms of a whole batch, the batch's rows stay locked while waiting
+    @Value("${outbox.relay.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+    
+    @Value("${outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+    
+    public OutboxRelay(OutboxMessageRepository outboxMessageRepository,
+                       RabbitTemplate rabbitTemplate,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.publishedCounter = Counter.builder("outbox.relay.published")
+                .description("Outbox messages confirmed by the broker")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("outbox.relay.failed")
+                .description("Outbox publish attempts that were nacked, returned, timed out or failed")
+                .register(meterRegistry);
+        this.parkedCounter = Counter.builder("outbox.relay.parked")
+                .description("Outbox messages parked after reaching the maximum number of attempts")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.relay.batch")
+                .description("Time to publish and confirm one outbox batch")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.last.batch.size", lastBatchSize, AtomicLong::get)
+                .description("Number of messages in the most recent outbox batch")
+                .register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:500}")
+    public void relayPendingMessages() {
+        int processed;
+        do {
+            Integer result = transactionTemplate.execute(status -> relayBatch());
+            processed = result != null ? result : 0;
+        } while (processed == batchSize);
+    }
+    
+    /**
+     * Publishes one locked batch and returns how many rows it contained
+     */
+    int relayBatch() {
+        List<OutboxMessage> batch = outboxMessageRepository.lockNextBatch(batchSize);
+        lastBatchSize.set(batch.size());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        
+        Timer.Sample sample = Timer.start();
+        List<OutboxMessage> sent = new ArrayList<>(batch.size());
+        List<CorrelationData> confirms = new ArrayList<>(batch.size());
+        
+        for (OutboxMessage outboxMessage : batch) {
+            CorrelationData correlationData = new CorrelationData(String.valueOf(outboxMessage.getId()));
+            try {
+                rabbitTemplate.send("", outboxMessage.getDestination(), toAmqpMessage(outboxMessage), correlationData);
+            } catch (AmqpException e) {
+                // Broker unreachable, keep the rest of the batch for the next run
+                log.warn("Failed to publish outbox message {}: {}", outboxMessage.getId(), e.getMessage());
+                markFailed(outboxMessage, e.getMessage(), false);
+                break;
+            }
+            sent.add(outboxMessage);
+            confirms.add(correlationData);
+        }
+        
+        awaitConfirms(confirms);
+        List<OutboxMessage> confirmed = new ArrayList<>(sent.size());
+        for (int i = 0; i < sent.size(); i++) {
+            OutboxMessage outboxMessage = sent.get(i);
+            String failure = confirmFailure(confirms.get(i));
+            if (failure == null) {
+                confirmed.add(outboxMessage);
+            } else {
+                log.warn("Outbox message {} to {} not confirmed: {}",
+                        outboxMessage.getId(), outboxMessage.getDestination(), failure);
+                markFailed(outboxMessage, failure, true);
+            }
+        }
+        
+        outboxMessageRepository.deleteAllInBatch(confirmed);
+        publishedCounter.increment(confirmed.size());
+        sample.stop(batchTimer);
+        
+        log.info("Relayed outbox batch: {} confirmed, {} pending retry", confirmed.size(), batch.size() - confirmed.size());
+        // A partially failed batch ends this run, the scheduler retries after the next interval
+        return confirmed.size() == batch.size() ? batch.size() : 0;
+    }
+    
+    // One deadline for the whole batch, confirms still missing afterwards count as timed out
+    private void awaitConfirms(List<CorrelationData> confirms) {
+        if (confirms.isEmpty()) {
+            return;
+        }
+        CompletableFuture<?>[] futures = confirms.stream()
+                .map(CorrelationData::getFuture)
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(futures).get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Evaluated per message below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // Null if the broker acked the message and did not return it, the reason otherwise
+    private String confirmFailure(CorrelationData correlationData) {
+        CompletableFuture<CorrelationData.Confirm> future = correlationData.getFuture();
+        if (!future.isDone()) {
+            return "confirm timed out after " + confirmTimeoutMs + " ms";
+        }
+        try {
+            CorrelationData.Confirm confirm = future.get();
+            if (!confirm.isAck()) {
+                return "nacked: " + confirm.getReason();
+            }
+            // The broker acks unroutable mandatory messages too, the return arrives before that ack
+            ReturnedMessage returned = correlationData.getReturned();
+            return returned == null ? null
+                    : "returned: " + returned.getReplyCode() + " " + returned.getReplyText();
+        } catch (ExecutionException e) {
+            return e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted while waiting for confirm";
+        }
+    }
+    
+    // Broker outages do not count towards parking, only failures of the message itself do
+    private void markFailed(OutboxMessage outboxMessage, String error, boolean parkable) {
+        failedCounter.increment();
+        outboxMessage.setAttempts(outboxMessage.getAttempts() + 1);
+        if (error != null && error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        outboxMessage.setLastError(error);
+        if (parkable && outboxMessage.getAttempts() >= maxAttempts) {
+            log.error("Parking outbox message {} to {} after {} attempts: {}",
+                    outboxMessage.getId(), outboxMessage.getDestination(), outboxMessage.getAttempts(), error);
+            outboxMessage.setParkedAt(Instant.now());
+            parkedCounter.increment();
+        }
+        outboxMessageRepository.save(outboxMessage);
+    }
+    
+    private Message toAmqpMessage(OutboxMessage outboxMessage) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(outboxMessage.getContentType());
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        if (outboxMessage.getPayloadType() != null) {
+            properties.setHeader("__TypeId__", outboxMessage.getPayloadType());
+        }
+        byte[] body = outboxMessage.getPayload().getBytes(StandardCharsets.UTF_8);
+        properties.setContentLength(body.length);
+        return new Message(body, properties);
+    }
+}
@@ -0,0 +1,72 @@
+package org.rest.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.rest.dto.DocumentUpdateEventDto;
+import org.rest.dto.FileMessageDto;
+import org.rest.dto.GenAiResultDto;
+import org.rest.model.OutboxMessage;
+import org.rest.repository.OutboxMessageRepository;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes RabbitMQ messages to the outbox table inside the caller's transaction.
+ * The message only becomes visible to OutboxRelay once the surrounding database change commits,
+ * so a rolled back upload never produces a message and a committed one never loses it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+    
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final MessageConverter messageConverter;
+    
+    @Value("${rabbitmq.queue.ocr}")
+    private String ocrQueueName;
+    
+    @Value("${rabbitmq.queue.genai.result}")
+    private String genaiResultQueueName;
+    
+    @Value("${rabbitmq.queue.search-indexing}")
+    private String searchIndexingQueue;
+    
+    public void enqueueForOcr(FileMessageDto message) {
+        log.info("QUEUEING message for OCR queue in outbox: document ID {}", message.getId());
+        enqueue(ocrQueueName, message);
+    }
+    
+    public void enqueueGenAiResult(GenAiResultDto result) {
+        log.info("QUEUEING reused result for GenAI result queue in outbox: document ID {}", result.getDocumentId());
+        enqueue(genaiResultQueueName, result);
+    }
+    
+    public void enqueueDocumentUpdateEvent(DocumentUpdateEventDto event) {
+        log.info("QUEUEING document {} event for search-indexing queue in outbox: document ID {}",
+                event.getEventType(), event.getDocumentId());
+        enqueue(searchIndexingQueue, event);
+    }
+    
+    private void enqueue(String destination, Object payload) {
+        // Serialize now with the same converter RabbitTemplate uses, the relay publishes the bytes unchanged
+        Message message = messageConverter.toMessage(payload, new MessageProperties());
+        MessageProperties properties = message.getMessageProperties();
+        Object typeId = properties.getHeaders().get("__TypeId__");
+        
+        outboxMessageRepository.save(OutboxMessage.builder()
+                .destination(destination)
+                .payloadType(typeId != null ? typeId.toString() : null)
+                .contentType(properties.getContentType())
+                .payload(new String(message.getBody(), StandardCharsets.UTF_8))
+                .build());
+    }
+}
@@ -0,0 +1,23 @@
+-- Baseline schema as previously generated by Hibernate (ddl-auto=update).
+-- Existing databases are baselined at this version and skip this script.
+
+CREATE TABLE IF NOT EXISTS file_metadata (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    filename    VARCHAR(255)             NOT NULL,
+    author      VARCHAR(255)             NOT NULL,
+    file_type   VARCHAR(255)             NOT NULL,
+    size        BIGINT                   NOT NULL,
+    object_key  VARCHAR(255)             NOT NULL,
+    upload_time TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    last_edited TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    summary     VARCHAR(5000),
+    CONSTRAINT uk_file_metadata_object_key UNIQUE (object_key)
+);
+
+CREATE TABLE IF NOT EXISTS chat_messages (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    role       VARCHAR(255)             NOT NULL,
+    content    VARCHAR(4000)            NOT NULL,
+    session_id VARCHAR(255),
+    timestamp  TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,26 @@
+-- Content-addressed storage: several documents may now share one MinIO object,
+-- so object_key is no longer unique. The reference count of an object is the
+-- number of rows pointing at it.
+
+DO $$
+DECLARE
+    constraint_name TEXT;
+BEGIN
+    FOR constraint_name IN
+        SELECT c.conname
+        FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey)
+        WHERE c.conrelid = 'file_metadata'::regclass
+          AND c.contype = 'u'
+          AND a.attname = 'object_key'
+          AND array_length(c.conkey, 1) = 1
+    LOOP
+        EXECUTE format('ALTER TABLE file_metadata DROP CONSTRAINT %I', constraint_name);
+    END LOOP;
+END $$;
+
+ALTER TABLE file_metadata ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+ALTER TABLE file_metadata ADD COLUMN IF NOT EXISTS extracted_text TEXT;
+
+CREATE INDEX IF NOT EXISTS idx_file_metadata_content_hash ON file_metadata (content_hash);
+CREATE INDEX IF NOT EXISTS idx_file_metadata_object_key ON file_metadata (object_key);
@@ -0,0 +1,3 @@
+-- Composite index backing the keyset-paginated file listing ORDER BY upload_time DESC, id DESC
+
+CREATE INDEX IF NOT EXISTS idx_file_metadata_upload_time_id ON file_metadata (upload_time DESC, id DESC);
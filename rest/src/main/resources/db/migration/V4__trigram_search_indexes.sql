@@ -0,0 +1,9 @@
+-- Trigram GIN indexes so substring search (ILIKE '%term%') on filename, author and
+-- file type can use an index instead of a sequential scan of file_metadata.
+-- pg_trgm is a trusted extension (PostgreSQL 13+), the database owner may create it.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_file_metadata_filename_trgm ON file_metadata USING gin (filename gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_file_metadata_author_trgm ON file_metadata USING gin (author gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_file_metadata_file_type_trgm ON file_metadata USING gin (file_type gin_trgm_ops);
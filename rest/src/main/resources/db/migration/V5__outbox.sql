@@ -0,0 +1,13 @@
+-- Transactional outbox: messages are written in the same transaction as the
+-- file_metadata change and published to RabbitMQ afterwards by OutboxRelay.
+
+CREATE TABLE IF NOT EXISTS outbox (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    destination  VARCHAR(255)             NOT NULL,
+    payload_type VARCHAR(255),
+    content_type VARCHAR(255)             NOT NULL,
+    payload      TEXT                     NOT NULL,
+    created_at   TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    attempts     INTEGER                  NOT NULL DEFAULT 0,
+    last_error   VARCHAR(1000)
+);
@@ -0,0 +1,6 @@
+-- Outbox rows that kept failing are parked instead of blocking the head of every relay batch.
+-- Parked rows stay in the table for inspection and are requeued by clearing parked_at.
+
+ALTER TABLE outbox ADD COLUMN IF NOT EXISTS parked_at TIMESTAMP(6) WITH TIME ZONE;
+
+CREATE INDEX IF NOT EXISTS idx_outbox_pending ON outbox (id) WHERE parked_at IS NULL;
@@ -0,0 +1,123 @@
+package org.rest.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.rest.repository.FileMetadataRepository;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the legacy LOWER(...) LIKE search against the pg_trgm backed ILIKE search
+ * at 10k, 100k and 1M rows. Only runs on demand:
+ * ./mvnw test -Dtest=FileMetadataSearchBenchmarkIT -Dbenchmark.enabled=true
+ */
+@EnabledIfSystemProperty(named = "benchmark.enabled", matches = "true")
+class FileMetadataSearchBenchmarkIT {
+
+    private static final List<Integer> ROW_COUNTS = List.of(10_000, 100_000, 1_000_000);
+    private static final List<String> KEYWORDS = List.of("invoice", "port-4711", "mueller");
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 10;
+    private static final int PAGE_SIZE = 50;
+
+    private static final String LIKE_KEYWORD_SEARCH = "SELECT * FROM file_metadata f " +
+            "WHERE LOWER(f.filename) LIKE LOWER(CONCAT('%', ?, '%')) OR LOWER(f.author) LIKE LOWER(CONCAT('%', ?, '%')) " +
+            "ORDER BY f.upload_time DESC, f.id DESC LIMIT " + PAGE_SIZE;
+
+    private static PostgreSQLContainer<?> postgres;
+
+    @BeforeAll
+    @SuppressWarnings("resource") // Stopped in tearDown
+    static void setUp() {
+        postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:14-alpine"))
+                .withDatabaseName("benchmark")
+                .withUsername("test")
+                .withPassword("test");
+        postgres.start();
+
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .load()
+                .migrate();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    @Test
+    void compareLikeAndTrigramSearch() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())) {
+            System.out.printf("%n%-10s %-12s %14s %14s%n", "rows", "keyword", "like (ms)", "trigram (ms)");
+
+            int inserted = 0;
+            for (int rowCount : ROW_COUNTS) {
+                insertRows(connection, inserted + 1, rowCount);
+                inserted = rowCount;
+
+                for (String keyword : KEYWORDS) {
+                    double likeMillis = measure(connection, LIKE_KEYWORD_SEARCH, keyword, 2);
+                    double trigramMillis = measure(connection,
+                            FileMetadataRepository.TRIGRAM_KEYWORD_SEARCH.replace(":keyword", "?") + " LIMIT " + PAGE_SIZE,
+                            keyword, 4);
+                    System.out.printf("%-10d %-12s %14.2f %14.2f%n", rowCount, keyword, likeMillis, trigramMillis);
+                }
+            }
+
+            assertThat(inserted).isEqualTo(ROW_COUNTS.getLast());
+        }
+    }
+
+    private void insertRows(Connection connection, int from, int to) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO file_metadata (filename, author, file_type, size, object_key, upload_time, last_edited) " +
+                    "SELECT CASE i % 3 WHEN 0 THEN 'invoice-' WHEN 1 THEN 'report-' ELSE 'contract-' END || md5(i::text) || '.pdf', " +
+                    "CASE i % 4 WHEN 0 THEN 'Anna Mueller' WHEN 1 THEN 'Ben Fischer' WHEN 2 THEN 'Clara Weber' ELSE 'port-' || i END, " +
+                    "'PDF', 1024 + i, 'sha256/' || md5(i::text), " +
+                    "now() - (i || ' seconds')::interval, now() - (i || ' seconds')::interval " +
+                    "FROM generate_series(" + from + ", " + to + ") AS s(i)");
+            statement.execute("ANALYZE file_metadata");
+        }
+    }
+
+    private double measure(Connection connection, String sql, String keyword, int parameterCount) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 1; i <= parameterCount; i++) {
+                statement.setString(i, keyword);
+            }
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                drain(statement);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_RUNS; i++) {
+                drain(statement);
+            }
+            return (System.nanoTime() - start) / 1_000_000.0 / MEASURED_RUNS;
+        }
+    }
+
+    private void drain(PreparedStatement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                resultSet.getLong("id");
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.rest.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.rest.config.TestcontainersConfiguration;
+import org.rest.dto.ChatCompletionRequestDto;
+import org.rest.dto.OcrResultDto;
+import org.rest.model.FileMetadata;
+import org.rest.repository.FileMetadataRepository;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Documents/sec through the GenAI queue path (RabbitMQ, GenAIWorker in the worker container, result listener) and
+ * latency of the chat endpoint, with the llm-stub in place of OpenAI, so runs are repeatable and cost nothing.
+ * Only runs on demand, the first run builds the worker and stub images:
+ * ./mvnw test -Dtest=GenAiPipelineBenchmarkIT -Dbenchmark.enabled=true -Dtest.ocr.enabled=true -Dtest.llm-stub.enabled=true
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(TestcontainersConfiguration.class)
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "openai.api.key=stub"
+})
+@EnabledIfSystemProperty(named = "benchmark.enabled", matches = "true")
+class GenAiPipelineBenchmarkIT {
+
+    private static final String GENAI_QUEUE = "genai-worker-queue";
+    private static final String PLACEHOLDER_SUMMARY = "Document Summary (Generated without AI)";
+    private static final int DOCUMENTS = 300;
+    private static final int CHAT_REQUESTS = 300;
+    private static final int CHAT_CONCURRENCY = 32;
+    private static final String[] WORDS = {
+            "invoice", "contract", "amount", "payment", "delivery", "customer", "account", "reference",
+            "Rechnung", "Vertrag", "Betrag", "Zahlung", "Lieferung", "Kunde", "Konto", "Datum",
+            "2024", "1.250,00", "EUR", "No.", "12345", "Vienna", "GmbH", "Ltd"};
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeAll
+    static void requireContainers() {
+        assumeTrue(Boolean.getBoolean("test.ocr.enabled") && Boolean.getBoolean("test.llm-stub.enabled"),
+                "Needs the worker and llm-stub containers: -Dtest.ocr.enabled=true -Dtest.llm-stub.enabled=true");
+    }
+
+    @Test
+    void genAiQueueThroughput() {
+        Random random = new Random(42);
+        List<Long> documentIds = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            documentIds.add(fileMetadataRepository.save(createMetadata(i)).getId());
+        }
+
+        // OCR is not measured, the results go straight to the GenAI queue like the OCR worker sends them
+        long start = System.nanoTime();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            // Mostly one-page documents, every tenth one long enough for map-reduce
+            String text = createText(random, i % 10 == 0 ? 8000 : 300 + random.nextInt(700));
+            rabbitTemplate.convertAndSend(GENAI_QUEUE, new OcrResultDto(documentIds.get(i), "benchmark/" + i + ".pdf",
+                    "test-documents", text, LocalDateTime.now(), "benchmark"));
+        }
+
+        Awaitility.await()
+                .atMost(10, TimeUnit.MINUTES)
+                .pollInterval(500, TimeUnit.MILLISECONDS)
+                .until(() -> summaries(documentIds).size() == DOCUMENTS);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        long placeholders = summaries(documentIds).stream().filter(summary -> summary.startsWith(PLACEHOLDER_SUMMARY)).count();
+
+        System.out.printf("%n%-12s %10s %10s %12s%n", "path", "docs", "docs/sec", "placeholder");
+        System.out.printf("%-12s %10d %10.1f %12d%n", "genai-queue", DOCUMENTS, DOCUMENTS / seconds, placeholders);
+        assertThat(placeholders).isZero();
+    }
+
+    @Test
+    void chatLatency() throws Exception {
+        HttpClient httpClient = HttpClient.newHttpClient();
+        String body = objectMapper.writeValueAsString(new ChatCompletionRequestDto("Which invoices are due this month?", null));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/chat"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        long[] latencies = new long[CHAT_REQUESTS];
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newFixedThreadPool(CHAT_CONCURRENCY)) {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < CHAT_REQUESTS; i++) {
+                int index = i;
+                calls.add(clients.submit(() -> {
+                    long sent = System.nanoTime();
+                    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                    latencies[index] = (System.nanoTime() - sent) / 1_000_000;
+                    if (response.statusCode() != 200) {
+                        failed.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        Arrays.sort(latencies);
+        System.out.printf("%n%-12s %10s %10s %10s %10s %10s%n", "path", "requests", "req/sec", "p50 ms", "p99 ms", "failed");
+        System.out.printf("%-12s %10d %10.1f %10d %10d %10d%n", "chat", CHAT_REQUESTS, CHAT_REQUESTS / seconds,
+                latencies[latencies.length / 2], latencies[(int) (latencies.length * 0.99)], failed.get());
+        assertThat(failed.get()).isZero();
+    }
+
+    private List<String> summaries(List<Long> documentIds) {
+        return fileMetadataRepository.findAllById(documentIds).stream()
+                .map(FileMetadata::getSummary)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private FileMetadata createMetadata(int index) {
+        FileMetadata metadata = new FileMetadata();
+        metadata.setFilename("benchmark-" + index + ".pdf");
+        metadata.setAuthor("Benchmark");
+        metadata.setFileType("PDF");
+        metadata.setSize(1024L);
+        metadata.setObjectKey("benchmark/" + index + ".pdf");
+        return metadata;
+    }
+
+    private String createText(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(w % 12 == 11 ? ".\n" : " ");
+        }
+        return text.toString();
+    }
+}
@@ -22,7 +22,7 @@ public class OcrWorkerTestConfiguration {
      * 
      * Prerequisites:
      * 1. Build the OCR worker Docker image:
-     *    cd paperlessWorkers && docker build -t paperless-workers:latest .
+     *    docker build -t paperless-workers:latest -f paperlessWorkers/Dockerfile .
      */
     @Bean
     @SuppressWarnings("resource")
@@ -4,6 +4,7 @@ import org.springframework.amqp.core.Queue;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.context.annotation.Bean;
+import org.springframework.lang.Nullable;
 import org.springframework.test.context.DynamicPropertyRegistrar;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.testcontainers.containers.GenericContainer;
@@ -19,7 +20,7 @@ import java.nio.file.Paths;
 
 /**
  * Testcontainers configuration for integration tests
- * Provides PostgreSQL, RabbitMQ, MinIO, and optionally OCR Worker containers
+ * Provides PostgreSQL, RabbitMQ, MinIO, and optionally OCR Worker and llm-stub containers
  */
 @TestConfiguration(proxyBeanMethods = false)
 public class TestcontainersConfiguration {
@@ -99,6 +100,45 @@ public class TestcontainersConfiguration {
         };
     }
 
+    /**
+     * llm-stub container in place of OpenAI - only starts when test.llm-stub.enabled=true
+     * The REST service and the OCR Worker container send their chat completions to it, see GenAiPipelineBenchmarkIT
+     */
+    @Bean
+    @SuppressWarnings("resource") // Container lifecycle managed by Spring Test
+    GenericContainer<?> llmStubContainer(Network network) {
+        boolean llmStubEnabled = Boolean.parseBoolean(System.getProperty("test.llm-stub.enabled", "false"));
+        if (!llmStubEnabled) {
+            return null;
+        }
+
+        // The stub's Dockerfile builds from its own directory
+        Path projectRoot = Paths.get(System.getProperty("user.dir")).getParent();
+        ImageFromDockerfile llmStubImage = new ImageFromDockerfile("llm-stub-test:latest", false)
+                .withDockerfile(projectRoot.resolve("llm-stub/Dockerfile"));
+
+        GenericContainer<?> container = new GenericContainer<>(llmStubImage)
+                .withExposedPorts(8085)
+                .withNetwork(network)
+                .withNetworkAliases("llm-stub")
+                .waitingFor(Wait.forHttp("/actuator/health")
+                        .forPort(8085)
+                        .forStatusCode(200))
+                .withStartupTimeout(java.time.Duration.ofMinutes(5));
+        container.start();
+        return container;
+    }
+
+    @Bean
+    DynamicPropertyRegistrar llmStubPropertyRegistrar(@Nullable GenericContainer<?> llmStubContainer) {
+        return (DynamicPropertyRegistry registry) -> {
+            if (llmStubContainer != null) {
+                registry.add("openai.api.url", () -> "http://" + llmStubContainer.getHost() + ":"
+                        + llmStubContainer.getMappedPort(8085) + "/v1/chat/completions");
+            }
+        };
+    }
+
     // Declare RabbitMQ queues for testing
     @Bean
     public Queue ocrQueue() {
@@ -131,7 +171,8 @@ public class TestcontainersConfiguration {
      */
     @Bean
     @SuppressWarnings("resource") // Container lifecycle managed by Spring Test
-    GenericContainer<?> ocrWorkerContainer(Network network, RabbitMQContainer rabbitMQContainer, GenericContainer<?> minioContainer) {
+    GenericContainer<?> ocrWorkerContainer(Network network, RabbitMQContainer rabbitMQContainer, GenericContainer<?> minioContainer,
+                                           @Nullable GenericContainer<?> llmStubContainer) {
         boolean ocrEnabled = Boolean.parseBoolean(System.getProperty("test.ocr.enabled", "false"));
         
         if (!ocrEnabled) {
@@ -153,13 +194,17 @@ public class TestcontainersConfiguration {
             System.out.println(" Building OCR Worker image (first time)");
             System.out.println("   This will take 2-3 minutes. Subsequent runs will reuse the image.");
             
-            Path paperlessWorkersPath = Paths.get(System.getProperty("user.dir"))
-                    .getParent()
-                    .resolve("paperlessWorkers");
+            // The Dockerfile expects the repository root as context, with the shared llm-client next to the workers
+            Path projectRoot = Paths.get(System.getProperty("user.dir")).getParent();
+            Path dockerfile = projectRoot.resolve("paperlessWorkers/Dockerfile");
             
+            // withDockerfile sends the Dockerfile's own directory as context, the modifier widens it to the
+            // repository root (filtered by the root .dockerignore)
             ImageFromDockerfile ocrWorkerImage = new ImageFromDockerfile(imageName, false)
-                    .withDockerfile(paperlessWorkersPath.resolve("Dockerfile"))
-                    .withFileFromPath(".", paperlessWorkersPath);
+                    .withDockerfile(dockerfile)
+                    .withBuildImageCmdModifier(cmd -> cmd
+                            .withBaseDirectory(projectRoot.toFile())
+                            .withDockerfile(dockerfile.toFile()));
             
             container = new GenericContainer<>(ocrWorkerImage);
         }
@@ -195,6 +240,15 @@ public class TestcontainersConfiguration {
                 .withStartupTimeout(java.time.Duration.ofMinutes(2))  // Longer timeout for real OCR
                 // Ensure dependencies are fully started before starting this container
                 .dependsOn(minioContainer, rabbitMQContainer);
+
+        if (llmStubContainer != null) {
+            finalContainer
+                    .withEnv("OPENAI_API_URL", "http://llm-stub:8085/v1/chat/completions")
+                    // The stub's latency and limits are measured, not the worker's own request budget
+                    .withEnv("OPENAI_RPM_LIMIT", "1000000")
+                    .withEnv("OPENAI_TPM_LIMIT", "1000000000")
+                    .dependsOn(llmStubContainer);
+        }
         
         // Give RabbitMQ and MinIO extra time to be fully ready on the network
         System.out.println(" Waiting for dependencies to be fully ready...");
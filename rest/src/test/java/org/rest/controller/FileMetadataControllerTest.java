@@ -1,6 +1,10 @@
 package org.rest.controller;
 
 import org.junit.jupiter.api.Test;
+import org.rest.dto.FileMetadataListItemDto;
+import org.rest.dto.FileMetadataPageDto;
+import org.rest.dto.StoredObjectDto;
+import org.rest.exception.DuplicateFileException;
 import org.rest.exception.FileMetadataNotFoundException;
 import org.rest.exception.GlobalExceptionHandler;
 import org.rest.mapper.FileMetadataMapper;
@@ -14,14 +18,21 @@ import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.time.Instant;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
@@ -71,8 +82,10 @@ class FileMetadataControllerTest {
 
         // Mapper/Service/Storage stubs
         when(fileMetadataMapper.toEntity(any(), any())).thenReturn(mapped);
-        doNothing().when(fileStorage).upload(anyString(), any(byte[].class), anyString());
-        when(fileMetadataService.createFileMetadataWithWorkerNotification(any(FileMetadata.class))).thenReturn(saved);
+        when(fileStorage.stageContentAddressed(any(InputStream.class), anyLong(), anyString()))
+                .thenReturn(StoredObjectDto.builder().objectKey("sha256/abc").contentHash("abc").stagingKey("staging/1").build());
+        when(fileMetadataService.createFileMetadataWithWorkerNotification(any(FileMetadata.class), any(StoredObjectDto.class)))
+                .thenReturn(saved);
         when(fileMetadataMapper.toResponseDto(any(FileMetadata.class))).thenAnswer(inv -> {
             FileMetadata fm = inv.getArgument(0);
             var dto = new org.rest.dto.FileMetadataResponseDto();
@@ -100,6 +113,42 @@ class FileMetadataControllerTest {
                 .andExpect(jsonPath("$.filename").value("new.pdf"))
                 .andExpect(jsonPath("$.author").value("Jane"))
                 .andExpect(jsonPath("$.fileType").value("PDF"));
+
+        verify(fileStorage).stageContentAddressed(any(InputStream.class), eq((long) "dummy".getBytes().length), eq("application/pdf"));
+        verify(fileMetadataService).createFileMetadataWithWorkerNotification(any(FileMetadata.class),
+                argThat(staged -> "sha256/abc".equals(staged.getObjectKey())));
+        // The staged copy is removed once the object is stored under its content-addressed key
+        verify(fileStorage).delete("staging/1");
+    }
+
+    @Test
+    void testUploadFile_DuplicateFilename_RemovesPromotedObject() throws Exception {
+        // given
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "new.pdf", "application/pdf", "dummy".getBytes()
+        );
+        FileMetadata mapped = new FileMetadata();
+        mapped.setFilename("new.pdf");
+
+        when(fileMetadataMapper.toEntity(any(), any())).thenReturn(mapped);
+        when(fileStorage.stageContentAddressed(any(InputStream.class), anyLong(), anyString()))
+                .thenReturn(StoredObjectDto.builder().objectKey("sha256/abc").contentHash("abc").stagingKey("staging/1").build());
+        when(fileMetadataService.createFileMetadataWithWorkerNotification(any(FileMetadata.class), any(StoredObjectDto.class)))
+                .thenThrow(new DuplicateFileException("File with filename 'new.pdf' already exists"));
+
+        // when/then
+        mockMvc.perform(
+                        multipart("/api/v1/files")
+                                .file(file)
+                                .param("author", "Jane")
+                                .contentType(MediaType.MULTIPART_FORM_DATA)
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isConflict());
+
+        // The insert rolled back, so the promoted object is removed unless another document references it
+        verify(fileMetadataService).deleteObjectIfUnreferenced("sha256/abc");
+        verify(fileStorage).delete("staging/1");
     }
 
     @Test
@@ -184,14 +233,17 @@ class FileMetadataControllerTest {
         updated.setAuthor("Updated Author");
         updated.setFileType("PDF");
         updated.setSize((long) "updated content".getBytes().length);
+        updated.setObjectKey("sha256/updated");
         updated.setUploadTime(now);
         updated.setLastEdited(now);
 
         when(fileMetadataService.getFileMetadataById(1L)).thenReturn(existing);
         when(fileMetadataMapper.extractExtensionUpper("updated.pdf")).thenReturn("PDF");
-        doNothing().when(fileStorage).upload(anyString(), any(byte[].class), anyString());
+        when(fileStorage.stageContentAddressed(any(InputStream.class), anyLong(), anyString()))
+                .thenReturn(StoredObjectDto.builder().objectKey("sha256/updated").contentHash("updated").stagingKey("staging/2").build());
         doNothing().when(fileStorage).delete(anyString());
-        when(fileMetadataService.updateFileMetadataWithWorkerNotification(eq(1L), any(FileMetadata.class), eq(true))).thenReturn(updated);
+        when(fileMetadataService.updateFileMetadataWithWorkerNotification(eq(1L), any(FileMetadata.class), any(StoredObjectDto.class)))
+                .thenReturn(updated);
         when(fileMetadataMapper.toResponseDto(any(FileMetadata.class))).thenAnswer(inv -> {
             FileMetadata fm = inv.getArgument(0);
             var dto = new org.rest.dto.FileMetadataResponseDto();
@@ -220,6 +272,9 @@ class FileMetadataControllerTest {
                 .andExpect(jsonPath("$.filename").value("updated.pdf"))
                 .andExpect(jsonPath("$.author").value("Updated Author"))
                 .andExpect(jsonPath("$.fileType").value("PDF"));
+
+        verify(fileStorage).delete("staging/2");
+        verify(fileMetadataService).deleteObjectIfUnreferenced("old-objectKey");
     }
 
     @Test
@@ -272,11 +327,106 @@ class FileMetadataControllerTest {
 
         when(fileMetadataService.getFileMetadataById(1L)).thenReturn(existing);
         doNothing().when(fileMetadataService).deleteFileMetadata(1L);
-        doNothing().when(fileStorage).delete(anyString());
 
         mockMvc.perform(delete("/api/v1/files/1"))
                 .andExpect(status().isNoContent())
                 .andExpect(content().string(""));
+
+        // Reference counting and the object lock live in the service
+        verify(fileMetadataService).deleteFileMetadata(1L);
+        verify(fileMetadataService).deleteObjectIfUnreferenced("test-objectKey");
+    }
+
+    @Test
+    void testDownloadFile_StreamsFullContent() throws Exception {
+        byte[] content = "%PDF-1.4 full content".getBytes();
+        FileMetadata existing = new FileMetadata();
+        existing.setId(1L);
+        existing.setFilename("doc.pdf");
+        existing.setObjectKey("doc-objectKey");
+
+        when(fileMetadataService.getFileMetadataById(1L)).thenReturn(existing);
+        when(fileStorage.stat("doc-objectKey")).thenReturn(StoredObjectDto.builder()
+                .objectKey("doc-objectKey").size(content.length).contentType("application/pdf").etag("abc123").build());
+        when(fileStorage.openStream("doc-objectKey", 0, null)).thenReturn(new ByteArrayInputStream(content));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/files/1/download"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/pdf"))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(header().longValue("Content-Length", content.length))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void testDownloadFile_WithRange_Returns206() throws Exception {
+        byte[] slice = "PDF".getBytes();
+        FileMetadata existing = new FileMetadata();
+        existing.setId(1L);
+        existing.setFilename("doc.pdf");
+        existing.setObjectKey("doc-objectKey");
+
+        when(fileMetadataService.getFileMetadataById(1L)).thenReturn(existing);
+        when(fileStorage.stat("doc-objectKey")).thenReturn(StoredObjectDto.builder()
+                .objectKey("doc-objectKey").size(100).contentType("application/pdf").etag("abc123").build());
+        when(fileStorage.openStream("doc-objectKey", 1, 3L)).thenReturn(new ByteArrayInputStream(slice));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/files/1/download")
+                        .header("Range", "bytes=1-3")
+                        .header("If-Range", "\"abc123\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 1-3/100"))
+                .andExpect(header().longValue("Content-Length", 3))
+                .andExpect(content().bytes(slice));
+    }
+
+    @Test
+    void testDownloadFile_StaleIfRange_ReturnsFullContent() throws Exception {
+        byte[] content = "new content".getBytes();
+        FileMetadata existing = new FileMetadata();
+        existing.setId(1L);
+        existing.setFilename("doc.pdf");
+        existing.setObjectKey("doc-objectKey");
+
+        when(fileMetadataService.getFileMetadataById(1L)).thenReturn(existing);
+        when(fileStorage.stat("doc-objectKey")).thenReturn(StoredObjectDto.builder()
+                .objectKey("doc-objectKey").size(content.length).contentType("application/pdf").etag("new-etag").build());
+        when(fileStorage.openStream("doc-objectKey", 0, null)).thenReturn(new ByteArrayInputStream(content));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/files/1/download")
+                        .header("Range", "bytes=0-3")
+                        .header("If-Range", "\"old-etag\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void testDownloadFile_UnsatisfiableRange_Returns416() throws Exception {
+        FileMetadata existing = new FileMetadata();
+        existing.setId(1L);
+        existing.setFilename("doc.pdf");
+        existing.setObjectKey("doc-objectKey");
+
+        when(fileMetadataService.getFileMetadataById(1L)).thenReturn(existing);
+        when(fileStorage.stat("doc-objectKey")).thenReturn(StoredObjectDto.builder()
+                .objectKey("doc-objectKey").size(10).contentType("application/pdf").build());
+
+        mockMvc.perform(get("/api/v1/files/1/download").header("Range", "bytes=50-60"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */10"));
     }
 
     @Test
@@ -313,4 +463,24 @@ class FileMetadataControllerTest {
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$[0].filename").value("test.pdf"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetFileMetadataPage() throws Exception {
+        Instant now = Instant.parse("2024-06-01T12:00:00Z");
+        FileMetadataPageDto page = FileMetadataPageDto.builder()
+                .items(List.of(new FileMetadataListItemDto(7L, "paged.pdf", "Tester", "PDF", 123L, now, now)))
+                .nextCursor("next-cursor")
+                .hasMore(true)
+                .limit(1)
+                .build();
+        when(fileMetadataService.getFileMetadataPage("cursor", 1)).thenReturn(page);
+
+        mockMvc.perform(get("/api/v1/files/page").param("cursor", "cursor").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(7))
+                .andExpect(jsonPath("$.items[0].filename").value("paged.pdf"))
+                .andExpect(jsonPath("$.items[0].summary").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value("next-cursor"))
+                .andExpect(jsonPath("$.hasMore").value(true));
+    }
+}
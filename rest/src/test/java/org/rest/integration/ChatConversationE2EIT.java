@@ -18,9 +18,11 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -101,17 +103,21 @@ class ChatConversationE2EIT {
         // =====================================================================
         // STEP 2: Send message to OpenAI (with empty history for first message)
         // =====================================================================
-        when(openAIService.generateChatCompletion(any(ChatCompletionRequestDto.class)))
-                .thenReturn("You have 5 documents in your system.");
+        when(openAIService.generateChatCompletionAsync(any(ChatCompletionRequestDto.class)))
+                .thenReturn(CompletableFuture.completedFuture("You have 5 documents in your system."));
 
         ChatCompletionRequestDto chatRequest1 = new ChatCompletionRequestDto(
                 "Hello! How many documents do I have?",
                 null // No history yet
         );
 
-        mockMvc.perform(post("/api/v1/chat")
+        MvcResult chatRequest1Result = mockMvc.perform(post("/api/v1/chat")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(chatRequest1)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(chatRequest1Result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message").value("You have 5 documents in your system."));
 
@@ -172,17 +178,21 @@ class ChatConversationE2EIT {
                 new ChatCompletionRequestDto.ConversationMessage("assistant", "You have 5 documents in your system.")
         );
 
-        when(openAIService.generateChatCompletion(any(ChatCompletionRequestDto.class)))
-                .thenReturn("Your documents include: 2 invoices, 2 reports, and 1 contract.");
+        when(openAIService.generateChatCompletionAsync(any(ChatCompletionRequestDto.class)))
+                .thenReturn(CompletableFuture.completedFuture("Your documents include: 2 invoices, 2 reports, and 1 contract."));
 
         ChatCompletionRequestDto chatRequest2 = new ChatCompletionRequestDto(
                 "Can you summarize them?",
                 history
         );
 
-        mockMvc.perform(post("/api/v1/chat")
+        MvcResult chatRequest2Result = mockMvc.perform(post("/api/v1/chat")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(chatRequest2)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(chatRequest2Result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message").value("Your documents include: 2 invoices, 2 reports, and 1 contract."));
 
@@ -74,7 +74,7 @@ class GenAIResultListenerTest {
         listener.handleGenAiResult(testResult);
 
         // Assert
-        verify(fileMetadataService).updateSummary(100L, testResult.getSummary());
+        verify(fileMetadataService).updateProcessingResult(100L, testResult.getSummary(), testResult.getExtractedText());
         verify(fileMetadataService).getFileMetadataById(100L);
 
         ArgumentCaptor<DocumentIndexDto> captor = ArgumentCaptor.forClass(DocumentIndexDto.class);
@@ -97,13 +97,13 @@ class GenAIResultListenerTest {
     void handleGenAiResult_UpdateSummaryFails_NoIndexingSent() {
         // Arrange
         doThrow(new RuntimeException("DB error")).when(fileMetadataService)
-                .updateSummary(100L, testResult.getSummary());
+                .updateProcessingResult(100L, testResult.getSummary(), testResult.getExtractedText());
 
         // Act
         listener.handleGenAiResult(testResult);
 
         // Assert
-        verify(fileMetadataService).updateSummary(100L, testResult.getSummary());
+        verify(fileMetadataService).updateProcessingResult(100L, testResult.getSummary(), testResult.getExtractedText());
         verify(fileMetadataService, never()).getFileMetadataById(any());
         verify(rabbitTemplate, never()).convertAndSend(eq("search-indexing-queue"), any(DocumentIndexDto.class));
     }
@@ -118,7 +118,7 @@ class GenAIResultListenerTest {
         listener.handleGenAiResult(testResult);
 
         // Assert
-        verify(fileMetadataService).updateSummary(100L, testResult.getSummary());
+        verify(fileMetadataService).updateProcessingResult(100L, testResult.getSummary(), testResult.getExtractedText());
         verify(fileMetadataService).getFileMetadataById(100L);
         verify(rabbitTemplate, never()).convertAndSend(eq("search-indexing-queue"), any(DocumentIndexDto.class));
     }
@@ -133,7 +133,7 @@ class GenAIResultListenerTest {
         // Act & Assert (should not throw exception)
         assertDoesNotThrow(() -> listener.handleGenAiResult(testResult));
 
-        verify(fileMetadataService).updateSummary(100L, testResult.getSummary());
+        verify(fileMetadataService).updateProcessingResult(100L, testResult.getSummary(), testResult.getExtractedText());
         verify(fileMetadataService).getFileMetadataById(100L);
         verify(rabbitTemplate).convertAndSend(eq("search-indexing-queue"), any(DocumentIndexDto.class));
     }
@@ -0,0 +1,94 @@
+package org.rest.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.rest.dto.BatchPublishResultDto;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.ConnectException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BatchingMessagePublisherTest {
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BatchingMessagePublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        publisher = new BatchingMessagePublisher(rabbitTemplate, meterRegistry);
+        ReflectionTestUtils.setField(publisher, "batchSize", 2);
+        ReflectionTestUtils.setField(publisher, "confirmTimeoutMs", 200L);
+
+        // Run the batch callback against the mocked template, as RabbitTemplate does on its dedicated channel
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation -> {
+            RabbitOperations.OperationsCallback<?> callback = invocation.getArgument(0);
+            return callback.doInRabbit(rabbitTemplate);
+        });
+    }
+
+    private void confirmAll(boolean ack) {
+        doAnswer(invocation -> {
+            CorrelationData correlationData = invocation.getArgument(2);
+            correlationData.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "rejected"));
+            return null;
+        }).when(rabbitTemplate).convertAndSend(anyString(), any(Object.class), any(CorrelationData.class));
+    }
+
+    @Test
+    void testSendBatch_AllConfirmed() {
+        confirmAll(true);
+
+        BatchPublishResultDto result = publisher.sendBatch("search-indexing-queue", List.of("a", "b", "c"));
+
+        assertEquals(3, result.getTotal());
+        assertEquals(3, result.getConfirmed());
+        assertEquals(0, result.getNacked());
+        // 3 messages with batch size 2 -> 2 batches
+        verify(rabbitTemplate, times(2)).invoke(any());
+        assertEquals(3.0, meterRegistry.counter("rabbitmq.publisher.confirmed", "queue", "search-indexing-queue").count());
+        assertEquals(0.0, meterRegistry.get("rabbitmq.publisher.in.flight").gauge().value());
+    }
+
+    @Test
+    void testSendBatch_Nacked() {
+        confirmAll(false);
+
+        BatchPublishResultDto result = publisher.sendBatch("search-indexing-queue", List.of("a"));
+
+        assertEquals(0, result.getConfirmed());
+        assertEquals(1, result.getNacked());
+        assertEquals(1.0, meterRegistry.counter("rabbitmq.publisher.nacked", "queue", "search-indexing-queue").count());
+    }
+
+    @Test
+    void testSendBatch_MissingConfirmTimesOut() {
+        BatchPublishResultDto result = publisher.sendBatch("search-indexing-queue", List.of("a"));
+
+        assertEquals(1, result.getNacked());
+        assertEquals(0.0, meterRegistry.get("rabbitmq.publisher.in.flight").gauge().value());
+    }
+
+    @Test
+    void testSendBatch_BrokerUnavailable() {
+        doThrow(new AmqpConnectException(new ConnectException("Connection refused"))).when(rabbitTemplate).invoke(any());
+
+        BatchPublishResultDto result = publisher.sendBatch("search-indexing-queue", List.of("a", "b"));
+
+        assertEquals(0, result.getConfirmed());
+        assertEquals(2, result.getNacked());
+    }
+}
@@ -3,12 +3,22 @@ package org.rest.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.rest.dto.FileMetadataListItemDto;
+import org.rest.dto.FileMetadataPageDto;
+import org.rest.dto.StoredObjectDto;
 import org.rest.exception.FileMetadataNotFoundException;
 import org.rest.model.FileMetadata;
 import org.rest.repository.FileMetadataRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
 import java.util.Optional;
 import java.util.Collections;
 import java.util.List;
@@ -22,7 +32,10 @@ public class FileMetadataServiceTest {
     private FileMetadataRepository fileMetadataRepository;
 
     @Mock
-    private MessageProducerService messageProducerService;
+    private OutboxService outboxService;
+
+    @Mock
+    private FileStorage fileStorage;
 
     @InjectMocks
     private FileMetadataService fileMetadataService;
@@ -32,6 +45,9 @@ public class FileMetadataServiceTest {
     @BeforeEach
     void setUp() {
         closeable = MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(fileMetadataService, "defaultPageSize", 50);
+        ReflectionTestUtils.setField(fileMetadataService, "maxPageSize", 200);
+        ReflectionTestUtils.setField(fileMetadataService, "searchMode", "trigram");
     }
 
     @org.junit.jupiter.api.AfterEach
@@ -147,6 +163,56 @@ public class FileMetadataServiceTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void testGetFileMetadataPage_FirstPageWithMore() {
+        ReflectionTestUtils.setField(fileMetadataService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(fileMetadataService, "maxPageSize", 10);
+        Instant now = Instant.parse("2024-06-01T12:00:00Z");
+        when(fileMetadataRepository.findListPage(Limit.of(3))).thenReturn(List.of(
+                new FileMetadataListItemDto(3L, "c.pdf", "A", "PDF", 1L, now, now),
+                new FileMetadataListItemDto(2L, "b.pdf", "A", "PDF", 1L, now, now),
+                new FileMetadataListItemDto(1L, "a.pdf", "A", "PDF", 1L, now.minusSeconds(60), now)));
+
+        FileMetadataPageDto page = fileMetadataService.getFileMetadataPage(null, null);
+
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        assertNotNull(page.getNextCursor());
+        assertEquals(2, page.getLimit());
+
+        // Next page continues strictly after the last returned row
+        when(fileMetadataRepository.findListPageAfter(now, 2L, Limit.of(3))).thenReturn(List.of(
+                new FileMetadataListItemDto(1L, "a.pdf", "A", "PDF", 1L, now.minusSeconds(60), now)));
+
+        FileMetadataPageDto next = fileMetadataService.getFileMetadataPage(page.getNextCursor(), null);
+
+        assertEquals(1, next.getItems().size());
+        assertFalse(next.isHasMore());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void testGetFileMetadataPage_LimitIsCapped() {
+        ReflectionTestUtils.setField(fileMetadataService, "defaultPageSize", 50);
+        ReflectionTestUtils.setField(fileMetadataService, "maxPageSize", 200);
+        when(fileMetadataRepository.findListPage(Limit.of(201))).thenReturn(Collections.emptyList());
+
+        FileMetadataPageDto page = fileMetadataService.getFileMetadataPage(null, 5000);
+
+        assertEquals(200, page.getLimit());
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void testGetFileMetadataPage_InvalidCursor() {
+        ReflectionTestUtils.setField(fileMetadataService, "defaultPageSize", 50);
+        ReflectionTestUtils.setField(fileMetadataService, "maxPageSize", 200);
+
+        assertThrows(IllegalArgumentException.class, () -> fileMetadataService.getFileMetadataPage("not-a-cursor", null));
+        assertThrows(IllegalArgumentException.class, () -> fileMetadataService.getFileMetadataPage(null, 0));
+    }
+
     @Test
     void testSearchFileMetadata() {
         FileMetadata entity = new FileMetadata();
@@ -155,8 +221,8 @@ public class FileMetadataServiceTest {
         entity.setAuthor("Search Author");
         entity.setFileType("pdf");
         entity.setSize(333L);
-        when(fileMetadataRepository.searchByKeyword("search")).thenReturn(List.of(entity));
-        List<FileMetadata> result = fileMetadataService.searchFileMetadata("search");
+        when(fileMetadataRepository.searchByKeywordTrigram("search", PageRequest.of(0, 50))).thenReturn(List.of(entity));
+        List<FileMetadata> result = fileMetadataService.searchFileMetadata("search", 0, null);
         assertEquals(1, result.size());
         assertEquals("search.pdf", result.getFirst().getFilename());
     }
@@ -169,8 +235,8 @@ public class FileMetadataServiceTest {
         entity.setAuthor("Alice");
         entity.setFileType("pdf");
         entity.setSize(444L);
-        when(fileMetadataRepository.findByAuthor("Alice")).thenReturn(List.of(entity));
-        List<FileMetadata> result = fileMetadataService.getFileMetadataByAuthor("Alice");
+        when(fileMetadataRepository.findByAuthorTrigram("Alice", PageRequest.of(1, 20))).thenReturn(List.of(entity));
+        List<FileMetadata> result = fileMetadataService.getFileMetadataByAuthor("Alice", 1, 20);
         assertEquals(1, result.size());
         assertEquals("Alice", result.getFirst().getAuthor());
     }
@@ -183,12 +249,55 @@ public class FileMetadataServiceTest {
         entity.setAuthor("Type Author");
         entity.setFileType("pdf");
         entity.setSize(555L);
-        when(fileMetadataRepository.findByFileType("pdf")).thenReturn(List.of(entity));
-        List<FileMetadata> result = fileMetadataService.getFileMetadataByFileType("pdf");
+        when(fileMetadataRepository.findByFileTypeTrigram("pdf", PageRequest.of(0, 50))).thenReturn(List.of(entity));
+        List<FileMetadata> result = fileMetadataService.getFileMetadataByFileType("pdf", 0, null);
         assertEquals(1, result.size());
         assertEquals("pdf", result.getFirst().getFileType());
     }
 
+    @Test
+    void testSearchFileMetadataEscapesLikeWildcards() {
+        when(fileMetadataRepository.searchByKeywordTrigram("100\\%\\_done", PageRequest.of(0, 50))).thenReturn(Collections.emptyList());
+
+        fileMetadataService.searchFileMetadata("100%_done", 0, null);
+
+        verify(fileMetadataRepository).searchByKeywordTrigram("100\\%\\_done", PageRequest.of(0, 50));
+    }
+
+    @Test
+    void testSearchFileMetadataLikeMode() {
+        ReflectionTestUtils.setField(fileMetadataService, "searchMode", "like");
+        when(fileMetadataRepository.searchByKeyword("search", PageRequest.of(0, 200))).thenReturn(Collections.emptyList());
+
+        fileMetadataService.searchFileMetadata("search", 0, 5000);
+
+        verify(fileMetadataRepository).searchByKeyword("search", PageRequest.of(0, 200));
+        verify(fileMetadataRepository, never()).searchByKeywordTrigram(anyString(), any());
+    }
+
+    @Test
+    void testSearchFileMetadataUnpagedWithoutPageOrSize() {
+        when(fileMetadataRepository.searchByKeywordTrigram("search", Pageable.unpaged())).thenReturn(Collections.emptyList());
+
+        fileMetadataService.searchFileMetadata("search", null, null);
+
+        verify(fileMetadataRepository).searchByKeywordTrigram("search", Pageable.unpaged());
+    }
+
+    @Test
+    void testSearchFileMetadataSizeOnlyStartsAtFirstPage() {
+        when(fileMetadataRepository.searchByKeywordTrigram("search", PageRequest.of(0, 10))).thenReturn(Collections.emptyList());
+
+        fileMetadataService.searchFileMetadata("search", null, 10);
+
+        verify(fileMetadataRepository).searchByKeywordTrigram("search", PageRequest.of(0, 10));
+    }
+
+    @Test
+    void testSearchFileMetadataNegativePage() {
+        assertThrows(IllegalArgumentException.class, () -> fileMetadataService.searchFileMetadata("search", -1, null));
+    }
+
     @Test
     void testCreateFileMetadataWithWorkerNotification() {
         // arrange
@@ -215,9 +324,125 @@ public class FileMetadataServiceTest {
         assertNotNull(result);
         assertEquals(1L, result.getId());
         verify(fileMetadataRepository).save(any(FileMetadata.class));
-        verify(messageProducerService).sendToOcrQueue(any());
-        // Note: sendToGenAiQueue is NOT called here - OCR worker handles that (pipeline pattern)
-        verify(messageProducerService, never()).sendToGenAiQueue(any());
+        // Note: only the OCR message is queued here - OCR worker hands over to GenAI (pipeline pattern)
+        verify(outboxService).enqueueForOcr(any());
+        verifyNoMoreInteractions(outboxService);
+    }
+
+    @Test
+    void testCreateFileMetadataWithWorkerNotification_ContentHashHit_ReusesResult() {
+        // arrange
+        FileMetadata inputEntity = new FileMetadata();
+        inputEntity.setFilename("copy.pdf");
+        inputEntity.setAuthor("Other Author");
+        inputEntity.setContentHash("abc123");
+
+        FileMetadata savedEntity = new FileMetadata();
+        savedEntity.setId(2L);
+        savedEntity.setFilename("copy.pdf");
+        savedEntity.setAuthor("Other Author");
+        savedEntity.setObjectKey("sha256/abc123");
+        savedEntity.setContentHash("abc123");
+
+        FileMetadata processed = new FileMetadata();
+        processed.setId(1L);
+        processed.setContentHash("abc123");
+        processed.setSummary("Existing summary");
+        processed.setExtractedText("Existing text");
+
+        when(fileMetadataRepository.existsByFilenameAndAuthor(anyString(), anyString())).thenReturn(false);
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenReturn(savedEntity);
+        when(fileMetadataRepository.findFirstByContentHashAndSummaryIsNotNullAndExtractedTextIsNotNullOrderByIdAsc("abc123"))
+                .thenReturn(Optional.of(processed));
+
+        // act
+        fileMetadataService.createFileMetadataWithWorkerNotification(inputEntity);
+
+        // assert
+        org.mockito.ArgumentCaptor<org.rest.dto.GenAiResultDto> captor =
+                org.mockito.ArgumentCaptor.forClass(org.rest.dto.GenAiResultDto.class);
+        verify(outboxService).enqueueGenAiResult(captor.capture());
+        assertEquals(2L, captor.getValue().getDocumentId());
+        assertEquals("sha256/abc123", captor.getValue().getObjectKey());
+        assertEquals("Existing text", captor.getValue().getExtractedText());
+        assertEquals("Existing summary", captor.getValue().getSummary());
+        verify(outboxService, never()).enqueueForOcr(any());
+    }
+
+    @Test
+    void testCreateFileMetadataWithWorkerNotification_ContentHashMiss_SendsToOcr() {
+        // arrange
+        FileMetadata inputEntity = new FileMetadata();
+        inputEntity.setFilename("new.pdf");
+        inputEntity.setAuthor("Author");
+        inputEntity.setContentHash("def456");
+
+        FileMetadata savedEntity = new FileMetadata();
+        savedEntity.setId(3L);
+        savedEntity.setContentHash("def456");
+
+        when(fileMetadataRepository.existsByFilenameAndAuthor(anyString(), anyString())).thenReturn(false);
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenReturn(savedEntity);
+        when(fileMetadataRepository.findFirstByContentHashAndSummaryIsNotNullAndExtractedTextIsNotNullOrderByIdAsc("def456"))
+                .thenReturn(Optional.empty());
+
+        // act
+        fileMetadataService.createFileMetadataWithWorkerNotification(inputEntity);
+
+        // assert
+        verify(outboxService).enqueueForOcr(any());
+        verify(outboxService, never()).enqueueGenAiResult(any());
+    }
+
+    @Test
+    void testDeleteObjectIfUnreferenced_SharedObject_KeepsStoredFile() {
+        when(fileMetadataRepository.countByObjectKey("sha256/shared")).thenReturn(1L);
+
+        fileMetadataService.deleteObjectIfUnreferenced("sha256/shared");
+
+        verify(fileMetadataRepository).lockObjectKey("sha256/shared");
+        verify(fileStorage, never()).delete(anyString());
+    }
+
+    @Test
+    void testDeleteObjectIfUnreferenced_CountsAndDeletesUnderObjectLock() {
+        when(fileMetadataRepository.countByObjectKey("sha256/orphan")).thenReturn(0L);
+
+        fileMetadataService.deleteObjectIfUnreferenced("sha256/orphan");
+
+        InOrder inOrder = inOrder(fileMetadataRepository, fileStorage);
+        inOrder.verify(fileMetadataRepository).lockObjectKey("sha256/orphan");
+        inOrder.verify(fileMetadataRepository).countByObjectKey("sha256/orphan");
+        inOrder.verify(fileStorage).delete("sha256/orphan");
+    }
+
+    @Test
+    void testCreateFileMetadataWithWorkerNotification_StoresStagedObjectUnderObjectLock() {
+        // arrange
+        FileMetadata inputEntity = new FileMetadata();
+        inputEntity.setFilename("scan.pdf");
+        inputEntity.setAuthor("Tester");
+        StoredObjectDto staged = StoredObjectDto.builder()
+                .objectKey("sha256/abc").contentHash("abc").stagingKey("staging/1").build();
+
+        when(fileMetadataRepository.existsByFilenameAndAuthor("scan.pdf", "Tester")).thenReturn(false);
+        when(fileStorage.promoteStaged(staged)).thenReturn(staged);
+        when(fileMetadataRepository.save(any(FileMetadata.class))).thenAnswer(inv -> {
+            FileMetadata saved = inv.getArgument(0);
+            saved.setId(9L);
+            return saved;
+        });
+
+        // act
+        FileMetadata result = fileMetadataService.createFileMetadataWithWorkerNotification(inputEntity, staged);
+
+        // assert - the object is stored and referenced while the lock is held, a concurrent delete waits for the commit
+        assertEquals("sha256/abc", result.getObjectKey());
+        assertEquals("abc", result.getContentHash());
+        InOrder inOrder = inOrder(fileMetadataRepository, fileStorage);
+        inOrder.verify(fileMetadataRepository).lockObjectKey("sha256/abc");
+        inOrder.verify(fileStorage).promoteStaged(staged);
+        inOrder.verify(fileMetadataRepository).save(inputEntity);
     }
 
     @Test
@@ -244,9 +469,9 @@ public class FileMetadataServiceTest {
         assertNotNull(result);
         // Note: save is called twice - once in updateFileMetadata, once to clear the summary
         verify(fileMetadataRepository, times(2)).save(any(FileMetadata.class));
-        verify(messageProducerService).sendToOcrQueue(any());
-        // Note: sendToGenAiQueue is NOT called here - OCR worker handles that (pipeline pattern)
-        verify(messageProducerService, never()).sendToGenAiQueue(any());
+        // Note: only the OCR message is queued here - OCR worker hands over to GenAI (pipeline pattern)
+        verify(outboxService).enqueueForOcr(any());
+        verifyNoMoreInteractions(outboxService);
     }
 
     @Test
@@ -271,7 +496,7 @@ public class FileMetadataServiceTest {
         // assert
         assertNotNull(result);
         verify(fileMetadataRepository).save(any(FileMetadata.class));
-        verify(messageProducerService, never()).sendToOcrQueue(any());
-        verify(messageProducerService, never()).sendToGenAiQueue(any());
+        verify(outboxService, never()).enqueueForOcr(any());
+        verify(outboxService).enqueueDocumentUpdateEvent(any());
     }
 }
\ No newline at end of file
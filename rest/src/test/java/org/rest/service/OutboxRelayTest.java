@@ -0,0 +1,176 @@
+package org.rest.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.rest.model.OutboxMessage;
+import org.rest.repository.OutboxMessageRepository;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OutboxRelayTest {
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        outboxRelay = new OutboxRelay(outboxMessageRepository, rabbitTemplate, transactionTemplate, meterRegistry);
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 2);
+        ReflectionTestUtils.setField(outboxRelay, "confirmTimeoutMs", 100L);
+        ReflectionTestUtils.setField(outboxRelay, "maxAttempts", 3);
+    }
+
+    private OutboxMessage outboxMessage(long id) {
+        return OutboxMessage.builder()
+                .id(id)
+                .destination("ocr-worker-queue")
+                .payloadType("org.rest.dto.FileMessageDto")
+                .contentType("application/json")
+                .payload("{\"id\":" + id + "}")
+                .build();
+    }
+
+    private void confirmWith(boolean ack) {
+        doAnswer(invocation -> {
+            CorrelationData correlationData = invocation.getArgument(3);
+            correlationData.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "queue full"));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    void testRelayBatch_AllConfirmed_DeletesBatch() {
+        List<OutboxMessage> batch = List.of(outboxMessage(1L), outboxMessage(2L));
+        when(outboxMessageRepository.lockNextBatch(2)).thenReturn(batch);
+        confirmWith(true);
+
+        int processed = outboxRelay.relayBatch();
+
+        assertEquals(2, processed);
+        org.mockito.ArgumentCaptor<Message> captor = org.mockito.ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate, times(2)).send(eq(""), eq("ocr-worker-queue"), captor.capture(), any(CorrelationData.class));
+        Message sent = captor.getAllValues().getFirst();
+        assertEquals("{\"id\":1}", new String(sent.getBody(), StandardCharsets.UTF_8));
+        assertEquals("application/json", sent.getMessageProperties().getContentType());
+        assertEquals("org.rest.dto.FileMessageDto", sent.getMessageProperties().getHeaders().get("__TypeId__"));
+        verify(outboxMessageRepository).deleteAllInBatch(batch);
+        assertEquals(2.0, meterRegistry.counter("outbox.relay.published").count());
+    }
+
+    @Test
+    void testRelayBatch_Nacked_KeepsMessageForRetry() {
+        OutboxMessage message = outboxMessage(1L);
+        when(outboxMessageRepository.lockNextBatch(2)).thenReturn(List.of(message));
+        confirmWith(false);
+
+        int processed = outboxRelay.relayBatch();
+
+        assertEquals(0, processed);
+        assertEquals(1, message.getAttempts());
+        assertTrue(message.getLastError().contains("queue full"));
+        verify(outboxMessageRepository).save(message);
+        verify(outboxMessageRepository).deleteAllInBatch(Collections.emptyList());
+        assertEquals(1.0, meterRegistry.counter("outbox.relay.failed").count());
+    }
+
+    @Test
+    void testRelayBatch_Returned_KeepsMessageForRetry() {
+        OutboxMessage message = outboxMessage(1L);
+        when(outboxMessageRepository.lockNextBatch(2)).thenReturn(List.of(message));
+        doAnswer(invocation -> {
+            Message sent = invocation.getArgument(2);
+            CorrelationData correlationData = invocation.getArgument(3);
+            correlationData.setReturned(new ReturnedMessage(sent, 312, "NO_ROUTE", "", "ocr-worker-queue"));
+            correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        int processed = outboxRelay.relayBatch();
+
+        assertEquals(0, processed);
+        assertTrue(message.getLastError().contains("NO_ROUTE"));
+        verify(outboxMessageRepository).deleteAllInBatch(Collections.emptyList());
+    }
+
+    @Test
+    void testRelayBatch_NackedAtMaxAttempts_ParksMessage() {
+        OutboxMessage message = outboxMessage(1L);
+        message.setAttempts(2);
+        when(outboxMessageRepository.lockNextBatch(2)).thenReturn(List.of(message));
+        confirmWith(false);
+
+        outboxRelay.relayBatch();
+
+        assertEquals(3, message.getAttempts());
+        assertNotNull(message.getParkedAt());
+        verify(outboxMessageRepository).save(message);
+        assertEquals(1.0, meterRegistry.counter("outbox.relay.parked").count());
+    }
+
+    @Test
+    void testRelayBatch_MissingConfirms_ShareOneDeadline() {
+        List<OutboxMessage> batch = List.of(outboxMessage(1L), outboxMessage(2L));
+        when(outboxMessageRepository.lockNextBatch(2)).thenReturn(batch);
+
+        long start = System.nanoTime();
+        int processed = outboxRelay.relayBatch();
+        long elapsedMillis = java.util.concurrent.TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(0, processed);
+        assertTrue(elapsedMillis < 200, "both confirms should time out within one deadline, took " + elapsedMillis + " ms");
+        assertTrue(batch.getFirst().getLastError().contains("timed out"));
+        assertTrue(batch.get(1).getLastError().contains("timed out"));
+        assertNull(batch.getFirst().getParkedAt());
+    }
+
+    @Test
+    void testRelayBatch_BrokerDown_StopsBatch() {
+        OutboxMessage first = outboxMessage(1L);
+        OutboxMessage second = outboxMessage(2L);
+        when(outboxMessageRepository.lockNextBatch(2)).thenReturn(List.of(first, second));
+        doThrow(new AmqpConnectException(new ConnectException("Connection refused")))
+                .when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        int processed = outboxRelay.relayBatch();
+
+        assertEquals(0, processed);
+        verify(rabbitTemplate, times(1)).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+        assertEquals(1, first.getAttempts());
+        assertEquals(0, second.getAttempts());
+        assertNull(first.getParkedAt());
+    }
+
+    @Test
+    void testRelayBatch_EmptyOutbox() {
+        when(outboxMessageRepository.lockNextBatch(2)).thenReturn(Collections.emptyList());
+
+        assertEquals(0, outboxRelay.relayBatch());
+        verifyNoInteractions(rabbitTemplate);
+    }
+}
@@ -1,11 +1,15 @@
 package org.search.config;
 
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.DefaultClassMapper;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -13,7 +17,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Configures RabbitMQ with JSON message conversion and DTO class mapping between REST and search-service
+ * Configures RabbitMQ with JSON message conversion and DTO class mapping from REST and the OCR worker to search-service
  */
 @Configuration
 public class RabbitMqConfig {
@@ -21,23 +25,59 @@ public class RabbitMqConfig {
     @Value("${rabbitmq.queue.search-indexing}")
     private String searchIndexingQueueName;
 
+    @Value("${rabbitmq.queue.search-indexing-dlq}")
+    private String searchIndexingDeadLetterQueueName;
+
+    @Value("${rabbitmq.queue.search-indexing-retry}")
+    private String searchIndexingRetryQueueName;
+
+    @Value("${search.indexing.bulk.retry-delay-ms:1000}")
+    private long retryDelayMs;
+
+    @Value("${rabbitmq.queue.ocr-chunks}")
+    private String ocrChunkQueueName;
+
     @Bean
     public Queue searchIndexingQueue() {
         return new Queue(searchIndexingQueueName, true);
     }
 
+    // Indexing messages Elasticsearch rejected for good, with the reason in the x-failure-reason header
+    @Bean
+    public Queue searchIndexingDeadLetterQueue() {
+        return new Queue(searchIndexingDeadLetterQueueName, true);
+    }
+
+    // Indexing messages Elasticsearch rejected temporarily wait here for retry-delay-ms,
+    // then the broker dead-letters them back to the indexing queue through the default exchange
+    @Bean
+    public Queue searchIndexingRetryQueue() {
+        return QueueBuilder.durable(searchIndexingRetryQueueName)
+                .ttl((int) retryDelayMs)
+                .deadLetterExchange("")
+                .deadLetterRoutingKey(searchIndexingQueueName)
+                .build();
+    }
+
+    @Bean
+    public Queue ocrChunkQueue() {
+        return new Queue(ocrChunkQueueName, true);
+    }
+
     @Bean
     public Jackson2JsonMessageConverter messageConverter() {
         Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
         
         // Configure class mapper to map class names from REST to search-service
         DefaultClassMapper classMapper = new DefaultClassMapper();
-        classMapper.setTrustedPackages("org.rest.dto", "org.search.dto");
+        classMapper.setTrustedPackages("org.rest.dto", "org.workers.dto", "org.search.dto");
         
         // Map REST DTOs to search-service DTOs
         Map<String, Class<?>> idClassMapping = new HashMap<>();
         idClassMapping.put("org.rest.dto.DocumentIndexDto", org.search.dto.DocumentIndexDto.class);
         idClassMapping.put("org.rest.dto.DocumentUpdateEventDto", org.search.dto.DocumentUpdateEventDto.class);
+        // Partial OCR results come straight from the OCR worker
+        idClassMapping.put("org.workers.dto.OcrChunkDto", org.search.dto.OcrChunkDto.class);
         classMapper.setIdClassMapping(idClassMapping);
         
         converter.setClassMapper(classMapper);
@@ -51,4 +91,24 @@ public class RabbitMqConfig {
         rabbitTemplate.setMessageConverter(messageConverter);
         return rabbitTemplate;
     }
+
+    // Hands the bulk indexing listener batches of up to max-actions messages, or what arrived within flush-interval-ms.
+    // Acknowledgement is manual, the listener acks each message once its bulk item is confirmed
+    @Bean
+    public SimpleRabbitListenerContainerFactory bulkIndexingContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${search.indexing.bulk.max-actions:500}") int maxActions,
+            @Value("${search.indexing.bulk.flush-interval-ms:1000}") long flushIntervalMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(maxActions);
+        factory.setBatchReceiveTimeout(flushIntervalMs);
+        // A full batch has to fit into the unacknowledged messages of the consumer
+        factory.setPrefetchCount(maxActions);
+        return factory;
+    }
 }
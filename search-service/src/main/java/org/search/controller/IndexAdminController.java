@@ -0,0 +1,46 @@
+package org.search.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.search.dto.ReindexStatusDto;
+import org.search.service.SearchIndexManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Admin endpoints for the search indices.
+ * A reindex builds the next index version in the background and swaps the aliases once it is complete,
+ * e.g. after a mapping change. Search keeps serving from the current index in the meantime.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/index")
+@RequiredArgsConstructor
+@Slf4j
+public class IndexAdminController {
+
+    private final SearchIndexManager indexManager;
+
+    @PostMapping("/reindex")
+    public ResponseEntity<ReindexStatusDto> reindex() {
+        log.info("Received reindex request");
+
+        try {
+            ReindexStatusDto before = indexManager.getStatus();
+            ReindexStatusDto status = indexManager.startReindex();
+            // A reindex that was already running is reported, not started twice
+            boolean alreadyRunning = before.getState() == ReindexStatusDto.State.RUNNING;
+            return ResponseEntity.status(alreadyRunning ? HttpStatus.CONFLICT : HttpStatus.ACCEPTED).body(status);
+        } catch (IOException e) {
+            log.error("Reindex could not be started: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/reindex/status")
+    public ResponseEntity<ReindexStatusDto> reindexStatus() {
+        return ResponseEntity.ok(indexManager.getStatus());
+    }
+}
@@ -1,11 +1,14 @@
 package org.search.controller;
 
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.search.dto.SearchRequestDto;
 import org.search.dto.SearchResponseDto;
 import org.search.service.ElasticsearchService;
+import org.search.service.SearchCursorExpiredException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -26,14 +29,7 @@ public class SearchController {
     @PostMapping
     public ResponseEntity<SearchResponseDto> search(@Valid @RequestBody SearchRequestDto searchRequest) {
         log.info("Received search request: {}", searchRequest.getQuery());
-
-        try {
-            SearchResponseDto response = elasticsearchService.search(searchRequest);
-            return ResponseEntity.ok(response);
-        } catch (IOException e) {
-            log.error("Search failed: {}", e.getMessage(), e);
-            return ResponseEntity.internalServerError().build();
-        }
+        return execute(searchRequest);
     }
 
     @GetMapping
@@ -44,7 +40,10 @@ public class SearchController {
             @RequestParam(defaultValue = "0") Integer page,
             @RequestParam(defaultValue = "10") Integer size,
             @RequestParam(defaultValue = "uploadTime") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortOrder
+            @RequestParam(defaultValue = "desc") String sortOrder,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") Boolean pointInTime,
+            @RequestParam(defaultValue = "false") Boolean facets
     ) {
         log.info("Received GET search request: query={}", query);
 
@@ -56,12 +55,25 @@ public class SearchController {
                 .size(size)
                 .sortBy(sortBy)
                 .sortOrder(sortOrder)
+                .cursor(cursor)
+                .pointInTime(pointInTime)
+                .facets(facets)
                 .build();
 
+        return execute(searchRequest);
+    }
+
+    private ResponseEntity<SearchResponseDto> execute(SearchRequestDto searchRequest) {
         try {
             SearchResponseDto response = elasticsearchService.search(searchRequest);
             return ResponseEntity.ok(response);
-        } catch (IOException e) {
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected search request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (SearchCursorExpiredException e) {
+            log.warn("Search cursor expired: {}", e.getCause().getMessage());
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        } catch (IOException | ElasticsearchException e) {
             log.error("Search failed: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
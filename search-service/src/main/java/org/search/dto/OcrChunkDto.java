@@ -0,0 +1,29 @@
+package org.search.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Partial OCR result received from the OCR worker while a document is still being processed.
+ * Text chunks are numbered from 0, the final message has complete=true, no text and the total chunk count.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OcrChunkDto {
+    private Long documentId;
+    private String objectKey;
+    private String filename;
+    private String author;
+    private String fileType;
+    private Long size;
+    private int sequenceNumber;
+    private int firstPage;
+    private int lastPage;
+    private String text;
+    private boolean complete;
+    private Integer totalChunks;
+}
@@ -0,0 +1,33 @@
+package org.search.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of the background reindex into a new index version, see the admin index endpoints
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReindexStatusDto {
+    private State state;
+    private String sourceIndex;
+    private String targetIndex;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private Long documentsCopied;
+    private Long documentsCaughtUp; // written during the copy and taken again right before the alias swap
+    private String message;
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+}
@@ -9,6 +9,7 @@ import lombok.NoArgsConstructor;
 /**
  * Search request DTO with query, filters, pagination and sorting parameters.
  * Supports filtering by author, file type and specific search fields.
+ * Pages are addressed by page number, or by the cursor of the previous response for deep pagination.
  */
 @Data
 @Builder
@@ -34,4 +35,15 @@ public class SearchRequestDto {
 
     @Builder.Default
     private String sortOrder = "desc";
+
+    // nextCursor of the previous page; replaces page, so later pages cost the same as the first one
+    private String cursor;
+
+    // Browse a snapshot of the index (point in time), pages do not shift when documents are indexed meanwhile
+    @Builder.Default
+    private Boolean pointInTime = false;
+
+    // Facet counts by author, file type, upload month and size range, computed in the same request as the hits
+    @Builder.Default
+    private Boolean facets = false;
 }
\ No newline at end of file
@@ -6,9 +6,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 /**
- * Search response DTO containing search results, pagination metadata and search execution time
+ * Search response DTO containing search results, pagination metadata and search execution time.
+ * nextCursor is set while more results may follow and is passed back as cursor for the next page.
+ * facets holds the buckets per facet (author, fileType, uploadTime, size) if they were requested.
  */
 @Data
 @Builder
@@ -21,4 +24,6 @@ public class SearchResponseDto {
     private Integer size;
     private Integer totalPages;
     private Long searchTimeMs;
+    private String nextCursor;
+    private Map<String, List<FacetBucketDto>> facets;
 }
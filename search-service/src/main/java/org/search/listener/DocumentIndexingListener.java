@@ -1,32 +1,119 @@
 package org.search.listener;
 
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.bulk.OperationType;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.search.dto.DocumentIndexDto;
 import org.search.dto.DocumentUpdateEventDto;
 import org.search.service.ElasticsearchService;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * RabbitMQ listener for document indexing events.
  * Processes new document indexing, updates and deletions in Elasticsearch.
+ * In bulk mode (search.indexing.bulk.enabled) messages arrive in batches and are written with _bulk requests,
+ * each message is acknowledged only once Elasticsearch confirmed its item.
+ * Items rejected temporarily wait in the retry queue, whose TTL dead-letters them back to the indexing queue.
+ * A retry arriving after a newer event for the same document was applied is dropped, so it cannot undo that event.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class DocumentIndexingListener {
 
+    static final String RETRY_COUNT_HEADER = "x-retry-count";
+    static final String FAILURE_HEADER = "x-failure-reason";
+    // Receive order of the message, kept across retries to compare it with later events for the same document
+    static final String RECEIVED_AT_HEADER = "x-first-received-at";
+
     private final ElasticsearchService elasticsearchService;
     private final ObjectMapper objectMapper;
+    private final RabbitTemplate rabbitTemplate;
+
+    private final Counter indexedCounter;
+    private final Counter retriedCounter;
+    private final Counter deadLetteredCounter;
+    private final Counter supersededCounter;
+    private final DistributionSummary bulkActions;
+    private final DistributionSummary bulkBytes;
+    private final Timer bulkTimer;
+
+    // Documents with retries in the retry queue, and what was applied to them since, per listener instance
+    private final Map<Long, Integer> pendingRetries = new ConcurrentHashMap<>();
+    private final Map<Long, Applied> appliedSinceRetry = new ConcurrentHashMap<>();
+    private final AtomicLong receiveSequence = new AtomicLong();
+
+    @Value("${rabbitmq.queue.search-indexing-retry}")
+    private String retryQueue;
+
+    @Value("${rabbitmq.queue.search-indexing-dlq}")
+    private String deadLetterQueue;
+
+    @Value("${search.indexing.bulk.max-size-mb:5}")
+    private long maxBulkSizeMb;
+
+    @Value("${search.indexing.bulk.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${search.indexing.bulk.retry-delay-ms:1000}")
+    private long retryDelayMs;
+
+    public DocumentIndexingListener(ElasticsearchService elasticsearchService, ObjectMapper objectMapper,
+                                    RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry) {
+        this.elasticsearchService = elasticsearchService;
+        this.objectMapper = objectMapper;
+        this.rabbitTemplate = rabbitTemplate;
+
+        this.indexedCounter = Counter.builder("search.indexing.bulk.items")
+                .description("Indexing messages processed through _bulk requests")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("search.indexing.bulk.items")
+                .description("Indexing messages processed through _bulk requests")
+                .tag("result", "retry")
+                .register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("search.indexing.bulk.items")
+                .description("Indexing messages processed through _bulk requests")
+                .tag("result", "dead_letter")
+                .register(meterRegistry);
+        this.supersededCounter = Counter.builder("search.indexing.bulk.items")
+                .description("Indexing messages processed through _bulk requests")
+                .tag("result", "superseded")
+                .register(meterRegistry);
+        this.bulkActions = DistributionSummary.builder("search.indexing.bulk.actions")
+                .description("Operations per _bulk request")
+                .register(meterRegistry);
+        this.bulkBytes = DistributionSummary.builder("search.indexing.bulk.size")
+                .description("Message payload per _bulk request")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.bulkTimer = Timer.builder("search.indexing.bulk.duration")
+                .description("Round trip of one _bulk request")
+                .register(meterRegistry);
+    }
 
-    @RabbitListener(queues = "${rabbitmq.queue.search-indexing}")
+    @RabbitListener(queues = "${rabbitmq.queue.search-indexing}",
+            autoStartup = "#{!${search.indexing.bulk.enabled:true}}")
     public void handleDocumentIndexing(Message message) {
         log.info("Received message for search-indexing queue");
 
@@ -34,28 +121,16 @@ public class DocumentIndexingListener {
             // Parse message body to determine the type
             String body = new String(message.getBody());
             Map<String, Object> map = objectMapper.readValue(body, new TypeReference<Map<String, Object>>() {});
-            
+
             if (map.containsKey("eventType")) {
                 DocumentUpdateEventDto event = objectMapper.readValue(body, DocumentUpdateEventDto.class);
                 log.info("Processing {} event for document ID: {}",
                         event.getEventType(), event.getDocumentId());
-                
+
                 if (event.getEventType() == DocumentUpdateEventDto.EventType.UPDATE) {
-                    // Convert to DocumentIndexDto and perform partial update
-                    // Only include fields that should be updated (don't include extractedText to preserve it)
-                    DocumentIndexDto document = DocumentIndexDto.builder()
-                            .documentId(event.getDocumentId())
-                            .filename(event.getFilename())
-                            .author(event.getAuthor())
-                            .fileType(event.getFileType())
-                            .size(event.getSize())
-                            .objectKey(event.getObjectKey())
-                            .summary(event.getSummary())
-                            // extractedText will be preserved in Elasticsearch
-                            .build();
-                    elasticsearchService.updateDocumentPartial(document); // Partial update preserves extractedText
+                    elasticsearchService.updateDocumentPartial(toPartialUpdate(event)); // Partial update preserves extractedText
                     log.info("Successfully updated document in Elasticsearch: {}", event.getDocumentId());
-                    
+
                 } else if (event.getEventType() == DocumentUpdateEventDto.EventType.DELETE) {
                     elasticsearchService.deleteDocument(event.getDocumentId());
                     log.info("Successfully deleted document from Elasticsearch: {}", event.getDocumentId());
@@ -71,4 +146,241 @@ public class DocumentIndexingListener {
             log.error("Failed to process search-indexing message: {}", e.getMessage(), e);
         }
     }
+
+    /**
+     * Bulk mode: the container hands over up to max-actions messages or whatever arrived within flush-interval-ms.
+     * They are split into _bulk requests of at most max-size-mb and acknowledged item by item. Items Elasticsearch
+     * rejected temporarily (429, 5xx) go to the retry queue, anything else goes to the dead letter queue.
+     */
+    @RabbitListener(queues = "${rabbitmq.queue.search-indexing}", containerFactory = "bulkIndexingContainerFactory",
+            autoStartup = "${search.indexing.bulk.enabled:true}")
+    public void handleDocumentIndexingBatch(List<Message> messages, Channel channel) throws IOException {
+        log.info("Received batch of {} messages for search-indexing queue", messages.size());
+
+        // Events earlier in this batch are applied before the later ones, a retry behind them is just as stale
+        Map<Long, Applied> appliedInBatch = new HashMap<>();
+        List<Message> pending = new ArrayList<>();
+        List<IndexingEvent> events = new ArrayList<>();
+        long pendingBytes = 0;
+        for (Message message : messages) {
+            IndexingEvent event;
+            try {
+                event = toEvent(message);
+            } catch (IOException e) {
+                deadLetter(message, channel, "Unreadable message: " + e.getMessage());
+                continue;
+            }
+            if (event == null) {
+                // Event types without an index operation, nothing to confirm
+                ack(message, channel);
+                continue;
+            }
+            long firstReceivedAt = firstReceivedAt(message);
+            if (isRetry(message) && isSuperseded(event, firstReceivedAt, appliedInBatch)) {
+                log.info("Dropping retry of {} for document {}, a newer event was already applied",
+                        event.kind(), event.documentId());
+                supersededCounter.increment();
+                retryDone(event.documentId());
+                ack(message, channel);
+                continue;
+            }
+            appliedInBatch.merge(event.documentId(), Applied.of(event.kind(), firstReceivedAt), Applied::newest);
+
+            int bytes = message.getBody().length;
+            if (!pending.isEmpty() && pendingBytes + bytes > maxBulkSizeMb * 1024 * 1024) {
+                flush(pending, events, pendingBytes, channel);
+                pending.clear();
+                events.clear();
+                pendingBytes = 0;
+            }
+            pending.add(message);
+            events.add(event);
+            pendingBytes += bytes;
+        }
+        if (!pending.isEmpty()) {
+            flush(pending, events, pendingBytes, channel);
+        }
+    }
+
+    private void flush(List<Message> messages, List<IndexingEvent> events, long bytes, Channel channel)
+            throws IOException {
+        List<BulkOperation> operations = events.stream().map(IndexingEvent::operation).toList();
+        bulkActions.record(operations.size());
+        bulkBytes.record(bytes);
+
+        BulkResponse response;
+        Timer.Sample sample = Timer.start();
+        try {
+            response = elasticsearchService.bulk(operations);
+        } catch (IOException | RuntimeException e) {
+            // Elasticsearch not reachable, the whole request goes back to the queue after a pause
+            log.error("Bulk request with {} operations failed, requeueing: {}", operations.size(), e.getMessage(), e);
+            pause();
+            for (Message message : messages) {
+                channel.basicNack(message.getMessageProperties().getDeliveryTag(), false, true);
+            }
+            return;
+        } finally {
+            sample.stop(bulkTimer);
+        }
+
+        List<BulkResponseItem> items = response.items();
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            IndexingEvent event = events.get(i);
+            BulkResponseItem item = i < items.size() ? items.get(i) : null;
+            if (isRetry(message)) {
+                // Leaves the retry loop here, retryOrDeadLetter registers it again if it needs another round
+                retryDone(event.documentId());
+            }
+            if (item == null) {
+                retryOrDeadLetter(message, event, channel, "No bulk response item");
+            } else if (item.error() == null || isMissingDocument(item)) {
+                indexedCounter.increment();
+                applied(event, firstReceivedAt(message));
+                ack(message, channel);
+            } else if (item.status() == 429 || item.status() >= 500) {
+                retryOrDeadLetter(message, event, channel, item.error().type() + ": " + item.error().reason());
+            } else {
+                deadLetter(message, channel, item.error().type() + ": " + item.error().reason());
+            }
+        }
+    }
+
+    private boolean isSuperseded(IndexingEvent event, long firstReceivedAt, Map<Long, Applied> appliedInBatch) {
+        Applied applied = appliedSinceRetry.get(event.documentId());
+        Applied inBatch = appliedInBatch.get(event.documentId());
+        return applied != null && applied.supersedes(event.kind(), firstReceivedAt)
+                || inBatch != null && inBatch.supersedes(event.kind(), firstReceivedAt);
+    }
+
+    // Only remembered while the document has a retry pending, so the maps stay as small as the retry queue
+    private void applied(IndexingEvent event, long firstReceivedAt) {
+        if (pendingRetries.containsKey(event.documentId())) {
+            appliedSinceRetry.merge(event.documentId(), Applied.of(event.kind(), firstReceivedAt), Applied::newest);
+        }
+    }
+
+    private void retryDone(Long documentId) {
+        if (pendingRetries.computeIfPresent(documentId, (id, count) -> count > 1 ? count - 1 : null) == null) {
+            appliedSinceRetry.remove(documentId);
+        }
+    }
+
+    private static boolean isRetry(Message message) {
+        return message.getMessageProperties().getHeader(RETRY_COUNT_HEADER) != null;
+    }
+
+    // Milliseconds * 1000 plus a counter, so messages of one batch are ordered too; stamped on first receipt
+    private long firstReceivedAt(Message message) {
+        Object header = message.getMessageProperties().getHeader(RECEIVED_AT_HEADER);
+        if (header instanceof Number number) {
+            return number.longValue();
+        }
+        long receivedAt = receiveSequence.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis() * 1000));
+        message.getMessageProperties().setHeader(RECEIVED_AT_HEADER, receivedAt);
+        return receivedAt;
+    }
+
+    // Deleting or updating a document that is already gone is what a redelivered DELETE leaves behind
+    private static boolean isMissingDocument(BulkResponseItem item) {
+        return item.status() == 404 && item.operationType() != OperationType.Index;
+    }
+
+    private IndexingEvent toEvent(Message message) throws IOException {
+        String body = new String(message.getBody());
+        Map<String, Object> map = objectMapper.readValue(body, new TypeReference<Map<String, Object>>() {});
+        if (!map.containsKey("eventType")) {
+            DocumentIndexDto document = objectMapper.readValue(body, DocumentIndexDto.class);
+            return new IndexingEvent(document.getDocumentId(), EventKind.INDEX,
+                    elasticsearchService.indexOperation(document));
+        }
+        DocumentUpdateEventDto event = objectMapper.readValue(body, DocumentUpdateEventDto.class);
+        if (event.getEventType() == DocumentUpdateEventDto.EventType.UPDATE) {
+            return new IndexingEvent(event.getDocumentId(), EventKind.UPDATE,
+                    elasticsearchService.partialUpdateOperation(toPartialUpdate(event)));
+        } else if (event.getEventType() == DocumentUpdateEventDto.EventType.DELETE) {
+            return new IndexingEvent(event.getDocumentId(), EventKind.DELETE,
+                    elasticsearchService.deleteOperation(event.getDocumentId()));
+        }
+        return null;
+    }
+
+    // Only include fields that should be updated (extractedText will be preserved in Elasticsearch)
+    private static DocumentIndexDto toPartialUpdate(DocumentUpdateEventDto event) {
+        return DocumentIndexDto.builder()
+                .documentId(event.getDocumentId())
+                .filename(event.getFilename())
+                .author(event.getAuthor())
+                .fileType(event.getFileType())
+                .size(event.getSize())
+                .objectKey(event.getObjectKey())
+                .summary(event.getSummary())
+                .build();
+    }
+
+    private void retryOrDeadLetter(Message message, IndexingEvent event, Channel channel, String reason)
+            throws IOException {
+        Object header = message.getMessageProperties().getHeader(RETRY_COUNT_HEADER);
+        int retries = header instanceof Number number ? number.intValue() : 0;
+        if (retries >= maxRetries) {
+            deadLetter(message, channel, reason + " (after " + retries + " retries)");
+            return;
+        }
+        log.warn("Bulk item rejected temporarily, retry {} of {} in {} ms: {}",
+                retries + 1, maxRetries, retryDelayMs, reason);
+        message.getMessageProperties().setHeader(RETRY_COUNT_HEADER, retries + 1);
+        pendingRetries.merge(event.documentId(), 1, Integer::sum);
+        // Waits out the retry queue's TTL and is then dead-lettered back to the indexing queue
+        rabbitTemplate.send(retryQueue, message);
+        retriedCounter.increment();
+        ack(message, channel);
+    }
+
+    private void deadLetter(Message message, Channel channel, String reason) throws IOException {
+        log.error("Moving search-indexing message to {}: {}", deadLetterQueue, reason);
+        message.getMessageProperties().setHeader(FAILURE_HEADER, reason);
+        rabbitTemplate.send(deadLetterQueue, message);
+        deadLetteredCounter.increment();
+        ack(message, channel);
+    }
+
+    private static void ack(Message message, Channel channel) throws IOException {
+        channel.basicAck(message.getMessageProperties().getDeliveryTag(), false);
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(retryDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private enum EventKind {
+        INDEX, UPDATE, DELETE
+    }
+
+    private record IndexingEvent(Long documentId, EventKind kind, BulkOperation operation) {
+    }
+
+    /**
+     * Newest events applied to a document: receive order of any event and of the newest full one (INDEX or DELETE).
+     * A full event replaces the whole document and supersedes every older event, an UPDATE only sets the metadata
+     * and supersedes older UPDATEs, but not an older INDEX that also carries the extracted text.
+     */
+    private record Applied(long latest, long latestFull) {
+
+        static Applied of(EventKind kind, long receivedAt) {
+            return new Applied(receivedAt, kind == EventKind.UPDATE ? Long.MIN_VALUE : receivedAt);
+        }
+
+        Applied newest(Applied other) {
+            return new Applied(Math.max(latest, other.latest), Math.max(latestFull, other.latestFull));
+        }
+
+        boolean supersedes(EventKind kind, long receivedAt) {
+            return latestFull > receivedAt || kind == EventKind.UPDATE && latest > receivedAt;
+        }
+    }
 }
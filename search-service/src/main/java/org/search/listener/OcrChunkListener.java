@@ -0,0 +1,40 @@
+package org.search.listener;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.search.dto.OcrChunkDto;
+import org.search.service.ElasticsearchService;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * RabbitMQ listener for partial OCR results.
+ * Makes the text of large documents searchable page by page before OCR and summarization have finished.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OcrChunkListener {
+
+    private final ElasticsearchService elasticsearchService;
+
+    @RabbitListener(queues = "${rabbitmq.queue.ocr-chunks}")
+    public void handleOcrChunk(OcrChunkDto chunk) {
+        if (chunk.isComplete()) {
+            log.info("Received OCR complete marker for document ID: {} ({} chunks)",
+                    chunk.getDocumentId(), chunk.getTotalChunks());
+        } else {
+            log.info("Received OCR chunk {} (pages {}-{}) for document ID: {}",
+                    chunk.getSequenceNumber(), chunk.getFirstPage(), chunk.getLastPage(), chunk.getDocumentId());
+        }
+
+        try {
+            elasticsearchService.indexOcrChunk(chunk);
+        } catch (IOException e) {
+            log.error("Failed to index OCR chunk {} of document ID {}: {}",
+                    chunk.getSequenceNumber(), chunk.getDocumentId(), e.getMessage(), e);
+        }
+    }
+}
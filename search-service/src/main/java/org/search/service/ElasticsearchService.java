@@ -1,35 +1,54 @@
 package org.search.service;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Conflicts;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.ErrorCause;
 import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.Result;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.AggregationRange;
+import co.elastic.clients.elasticsearch._types.aggregations.CalendarInterval;
 import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch.core.*;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
 import co.elastic.clients.elasticsearch.core.search.Hit;
 import co.elastic.clients.elasticsearch.core.search.HitsMetadata;
-import co.elastic.clients.elasticsearch.indices.CreateIndexRequest;
-import co.elastic.clients.elasticsearch.indices.ExistsRequest;
-import jakarta.annotation.PostConstruct;
+import co.elastic.clients.json.JsonData;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.search.dto.DocumentIndexDto;
+import org.search.dto.FacetBucketDto;
+import org.search.dto.OcrChunkDto;
 import org.search.dto.SearchRequestDto;
 import org.search.dto.SearchResultDto;
 import org.search.dto.SearchResponseDto;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import static org.search.service.SearchIndexManager.NGRAM_FIELD;
+import static org.search.service.SearchIndexManager.NGRAM_SIZE;
+import static org.search.service.SearchIndexManager.PREFIX_FIELD;
+
 /**
  * Service for managing document indexing, search and updates in Elasticsearch.
- * Handles index creation, document CRUD operations
- * and advanced search with filtering, highlighting and pagination
+ * Handles document CRUD operations and advanced search with filtering, highlighting and pagination.
+ * The indices themselves are managed by SearchIndexManager
  */
 @Service
 @RequiredArgsConstructor
@@ -37,69 +56,179 @@ import java.util.stream.Collectors;
 public class ElasticsearchService {
 
     private final ElasticsearchClient elasticsearchClient;
+    private final SearchIndexManager indexManager;
+
+    // Keeps OCR chunks by sequence number and rebuilds extractedText from them, see indexOcrChunk
+    private static final String OCR_CHUNK_SCRIPT = """
+            if (ctx._source.processedTime != null || ctx._source.ocrComplete == true) {
+              ctx.op = 'noop';
+              return;
+            }
+            if (ctx._source.ocrChunks == null) {
+              ctx._source.ocrChunks = new HashMap();
+            }
+            if (params.complete) {
+              ctx._source.ocrTotalChunks = params.totalChunks;
+            } else {
+              ctx._source.ocrChunks[params.sequenceNumber] = params.text;
+            }
+            List keys = new ArrayList(ctx._source.ocrChunks.keySet());
+            keys.sort((a, b) -> Integer.parseInt(a) - Integer.parseInt(b));
+            StringBuilder text = new StringBuilder();
+            for (def key : keys) {
+              text.append(ctx._source.ocrChunks[key]).append(params.separator);
+            }
+            ctx._source.extractedText = text.toString().trim();
+            if (ctx._source.ocrTotalChunks != null && keys.size() == ctx._source.ocrTotalChunks) {
+              ctx._source.ocrComplete = true;
+              ctx._source.remove('ocrChunks');
+            }
+            """;
 
+    // Highlighting re-analyzes the text into trigrams, so only the start of very long OCR texts is considered
+    private static final int HIGHLIGHT_MAX_ANALYZED_OFFSET = 200_000;
+
+    // Error type of a search on a point in time that expired or was closed
+    private static final String SEARCH_CONTEXT_MISSING = "search_context_missing_exception";
+
+    static final String AUTHOR_FACET = "author";
+    static final String FILE_TYPE_FACET = "fileType";
+    static final String UPLOAD_TIME_FACET = "uploadTime";
+    static final String SIZE_FACET = "size";
+
+    // Buckets of the size facet in bytes, from inclusive and to exclusive
+    private static final List<SizeRange> SIZE_RANGES = List.of(
+            new SizeRange("< 100 KB", null, 100 * 1024.0),
+            new SizeRange("100 KB - 1 MB", 100 * 1024.0, 1024 * 1024.0),
+            new SizeRange("1 MB - 10 MB", 1024 * 1024.0, 10 * 1024 * 1024.0),
+            new SizeRange(">= 10 MB", 10 * 1024 * 1024.0, null));
+
+    // Search reads through the read alias, all writes go through the write alias, see SearchIndexManager
     @Value("${elasticsearch.index.documents}")
     private String indexName;
 
-    @PostConstruct
-    public void init() {
-        try {
-            createIndexIfNotExists();
-        } catch (IOException e) {
-            log.error("Failed to initialize Elasticsearch index", e);
-        }
-    }
+    @Value("${elasticsearch.index.documents-write}")
+    private String writeIndexName;
 
-    private void createIndexIfNotExists() throws IOException {
-        ExistsRequest existsRequest = ExistsRequest.of(e -> e.index(indexName));
-        boolean exists = elasticsearchClient.indices().exists(existsRequest).value();
-
-        if (!exists) {
-            log.info("Creating Elasticsearch index: {}", indexName);
-            CreateIndexRequest createIndexRequest = CreateIndexRequest.of(c -> c
-                    .index(indexName)
-                    .mappings(m -> m
-                            .properties("documentId", p -> p.long_(l -> l))
-                            .properties("filename", p -> p.text(t -> t.analyzer("standard")))
-                            .properties("author", p -> p.text(t -> t.analyzer("standard").fields("keyword", f -> f.keyword(k -> k))))
-                            .properties("fileType", p -> p.keyword(k -> k))
-                            .properties("size", p -> p.long_(l -> l))
-                            .properties("objectKey", p -> p.keyword(k -> k))
-                            .properties("uploadTime", p -> p.date(d -> d.format("strict_date_optional_time")))
-                            .properties("extractedText", p -> p.text(t -> t.analyzer("standard")))
-                            .properties("summary", p -> p.text(t -> t.analyzer("standard")))
-                            .properties("processedTime", p -> p.date(d -> d.format("strict_date_optional_time")))
-                    )
-            );
-            elasticsearchClient.indices().create(createIndexRequest);
-            log.info("Elasticsearch index created successfully: {}", indexName);
-        } else {
-            log.info("Elasticsearch index already exists: {}", indexName);
-        }
-    }
+    // Ids of deleted documents, checked when an OCR chunk created a document so a late chunk cannot bring it back
+    @Value("${elasticsearch.index.tombstones:document_tombstones}")
+    private String tombstoneIndexName;
+
+    // Late chunks arrive within minutes of a delete, older tombstones are removed by removeExpiredTombstones
+    @Value("${elasticsearch.tombstones.ttl:7d}")
+    private String tombstoneTtl;
+
+    @Value("${elasticsearch.search.point-in-time.keep-alive:2m}")
+    private String pointInTimeKeepAlive;
+
+    @Value("${search.facets.size:20}")
+    private int facetSize;
 
     public void indexDocument(DocumentIndexDto document) throws IOException {
         log.info("Indexing document ID: {} - {}", document.getDocumentId(), document.getFilename());
 
         IndexRequest<DocumentIndexDto> request = IndexRequest.of(i -> i
-                .index(indexName)
+                .index(writeIndexName)
                 .id(String.valueOf(document.getDocumentId()))
                 .document(document)
         );
 
-        IndexResponse response = elasticsearchClient.index(request);
+        IndexResponse response = indexManager.write(List.of(request.id()), () -> elasticsearchClient.index(request));
         log.info("Document indexed successfully: {} with result: {}", document.getDocumentId(), response.result());
     }
 
+    /**
+     * Adds a partial OCR result to the document, creating it with the metadata from the chunk if needed.
+     * Chunks are kept by sequence number, so extractedText is rebuilt in page order even if they arrive out of order.
+     * Once the full result is indexed (processedTime set) or all chunks are in, late or redelivered chunks are ignored.
+     * A chunk that created the document checks for a deletion tombstone and removes the document again if there is
+     * one: deletes write the tombstone before removing the document, so either the delete or this check catches it.
+     */
+    public void indexOcrChunk(OcrChunkDto chunk) throws IOException {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("documentId", chunk.getDocumentId());
+        if (chunk.getFilename() != null) metadata.put("filename", chunk.getFilename());
+        if (chunk.getAuthor() != null) metadata.put("author", chunk.getAuthor());
+        if (chunk.getFileType() != null) metadata.put("fileType", chunk.getFileType());
+        if (chunk.getSize() != null) metadata.put("size", chunk.getSize());
+        if (chunk.getObjectKey() != null) metadata.put("objectKey", chunk.getObjectKey());
+
+        Map<String, JsonData> params = new HashMap<>();
+        params.put("complete", JsonData.of(chunk.isComplete()));
+        params.put("sequenceNumber", JsonData.of(String.valueOf(chunk.getSequenceNumber())));
+        params.put("text", JsonData.of(chunk.getText() != null ? chunk.getText() : ""));
+        params.put("totalChunks", JsonData.of(chunk.getTotalChunks() != null ? chunk.getTotalChunks() : -1));
+        params.put("separator", JsonData.of("\n\n"));
+
+        UpdateRequest<Object, Object> request = UpdateRequest.of(u -> u
+                .index(writeIndexName)
+                .id(String.valueOf(chunk.getDocumentId()))
+                .script(sc -> sc.lang("painless").source(OCR_CHUNK_SCRIPT).params(params))
+                .scriptedUpsert(true)
+                .upsert(metadata)
+                .retryOnConflict(5) // chunks of one document may be indexed concurrently
+        );
+
+        UpdateResponse<Object> response = indexManager.write(List.of(request.id()),
+                () -> elasticsearchClient.update(request, Object.class));
+        log.info("OCR chunk {} indexed for document {} with result: {}",
+                chunk.isComplete() ? "complete marker" : String.valueOf(chunk.getSequenceNumber()),
+                chunk.getDocumentId(), response.result());
+
+        if (response.result() == Result.Created && isDeleted(request.id())) {
+            log.info("Document {} was deleted before its OCR chunk arrived, removing it again", chunk.getDocumentId());
+            DeleteRequest delete = DeleteRequest.of(d -> d.index(writeIndexName).id(request.id()));
+            indexManager.write(List.of(request.id()), () -> elasticsearchClient.delete(delete));
+        }
+    }
+
+    // Realtime get, a tombstone written just before is visible without a refresh
+    private boolean isDeleted(String id) throws IOException {
+        return elasticsearchClient.exists(ExistsRequest.of(e -> e.index(tombstoneIndexName).id(id))).value();
+    }
+
+    // Written before the documents are deleted, a failure leaves the documents in place for the retried delete
+    private void writeTombstones(List<String> ids) throws IOException {
+        Map<String, Object> tombstone = Map.of("deletedAt", Instant.now().toString());
+        BulkResponse response = elasticsearchClient.bulk(BulkRequest.of(b -> {
+            ids.forEach(id -> b.operations(o -> o.index(i -> i.index(tombstoneIndexName).id(id).document(tombstone))));
+            return b;
+        }));
+        if (response.errors()) {
+            throw new IOException("Could not write deletion tombstones for documents " + ids);
+        }
+    }
+
+    // Keeps the tombstone index from growing with every deleted document, a failed run is caught up by the next one
+    @Scheduled(initialDelayString = "${elasticsearch.tombstones.cleanup-interval-ms:3600000}",
+            fixedDelayString = "${elasticsearch.tombstones.cleanup-interval-ms:3600000}")
+    public void removeExpiredTombstones() {
+        try {
+            DeleteByQueryResponse response = elasticsearchClient.deleteByQuery(DeleteByQueryRequest.of(d -> d
+                    .index(tombstoneIndexName)
+                    // No document was deleted yet
+                    .ignoreUnavailable(true)
+                    .allowNoIndices(true)
+                    // A document deleted again meanwhile got a fresh tombstone, which must stay
+                    .conflicts(Conflicts.Proceed)
+                    .query(q -> q.range(r -> r.date(dr -> dr.field("deletedAt").lt("now-" + tombstoneTtl))))
+            ));
+            log.info("Removed {} deletion tombstone(s) older than {}", response.deleted(), tombstoneTtl);
+        } catch (IOException | ElasticsearchException e) {
+            log.warn("Could not remove expired deletion tombstones: {}", e.getMessage());
+        }
+    }
+
     public void deleteDocument(Long documentId) throws IOException {
         log.info("Deleting document from index: {}", documentId);
+        writeTombstones(List.of(String.valueOf(documentId)));
 
         DeleteRequest request = DeleteRequest.of(d -> d
-                .index(indexName)
+                .index(writeIndexName)
                 .id(String.valueOf(documentId))
         );
 
-        DeleteResponse response = elasticsearchClient.delete(request);
+        DeleteResponse response = indexManager.write(List.of(request.id()), () -> elasticsearchClient.delete(request));
         log.info("Document deleted: {} with result: {}", documentId, response.result());
     }
     
@@ -107,7 +236,76 @@ public class ElasticsearchService {
     public void updateDocumentPartial(DocumentIndexDto document) throws IOException {
         log.info("Partially updating document ID: {} - {}", document.getDocumentId(), document.getFilename());
 
-        // Map with only non-null fields to preserve existing fields in Elasticsearch
+        Map<String, Object> updates = partialUpdateFields(document);
+        log.info("Updating {} fields for document {}", updates.size(), document.getDocumentId());
+
+        UpdateRequest<Object, Object> request = UpdateRequest.of(u -> u
+                .index(writeIndexName)
+                .id(String.valueOf(document.getDocumentId()))
+                .doc(updates)
+                .docAsUpsert(false) // don't create if doesn't exist
+        );
+
+        UpdateResponse<Object> response = indexManager.write(List.of(request.id()),
+                () -> elasticsearchClient.update(request, Object.class));
+        log.info("Document partially updated: {} with result: {}", document.getDocumentId(), response.result());
+    }
+
+    // Bulk counterparts of indexDocument, updateDocumentPartial and deleteDocument, see bulk
+    public BulkOperation indexOperation(DocumentIndexDto document) {
+        return BulkOperation.of(b -> b.index(i -> i
+                .index(writeIndexName)
+                .id(String.valueOf(document.getDocumentId()))
+                .document(document)
+        ));
+    }
+
+    public BulkOperation partialUpdateOperation(DocumentIndexDto document) {
+        Map<String, Object> updates = partialUpdateFields(document);
+        return BulkOperation.of(b -> b.<Object, Object>update(u -> u
+                .index(writeIndexName)
+                .id(String.valueOf(document.getDocumentId()))
+                .action(a -> a.doc(updates).docAsUpsert(false))
+        ));
+    }
+
+    public BulkOperation deleteOperation(Long documentId) {
+        return BulkOperation.of(b -> b.delete(d -> d
+                .index(writeIndexName)
+                .id(String.valueOf(documentId))
+        ));
+    }
+
+    /**
+     * Sends the operations in one _bulk request. The response holds one item per operation in the same order;
+     * a failed item does not fail the request, callers have to check each item.
+     */
+    public BulkResponse bulk(List<BulkOperation> operations) throws IOException {
+        List<String> deletedIds = operations.stream()
+                .filter(BulkOperation::isDelete)
+                .map(ElasticsearchService::documentId)
+                .toList();
+        if (!deletedIds.isEmpty()) {
+            writeTombstones(deletedIds);
+        }
+        List<String> ids = operations.stream().map(ElasticsearchService::documentId).toList();
+        BulkResponse response = indexManager.write(ids,
+                () -> elasticsearchClient.bulk(BulkRequest.of(b -> b.operations(operations))));
+        log.info("Bulk request with {} operations took {}ms, errors: {}", operations.size(), response.took(), response.errors());
+        return response;
+    }
+
+    private static String documentId(BulkOperation operation) {
+        return switch (operation._kind()) {
+            case Index -> operation.index().id();
+            case Create -> operation.create().id();
+            case Update -> operation.update().id();
+            case Delete -> operation.delete().id();
+        };
+    }
+
+    // Map with only non-null fields to preserve existing fields in Elasticsearch
+    private static Map<String, Object> partialUpdateFields(DocumentIndexDto document) {
         Map<String, Object> updates = new HashMap<>();
         if (document.getFilename() != null) updates.put("filename", document.getFilename());
         if (document.getAuthor() != null) updates.put("author", document.getAuthor());
@@ -118,18 +316,7 @@ public class ElasticsearchService {
         if (document.getUploadTime() != null) updates.put("uploadTime", document.getUploadTime());
         if (document.getProcessedTime() != null) updates.put("processedTime", document.getProcessedTime());
         // extractedText not included because it should be preserved
-
-        log.info("Updating {} fields for document {}", updates.size(), document.getDocumentId());
-
-        UpdateRequest<Object, Object> request = UpdateRequest.of(u -> u
-                .index(indexName)
-                .id(String.valueOf(document.getDocumentId()))
-                .doc(updates)
-                .docAsUpsert(false) // don't create if doesn't exist
-        );
-
-        UpdateResponse<Object> response = elasticsearchClient.update(request, Object.class);
-        log.info("Document partially updated: {} with result: {}", document.getDocumentId(), response.result());
+        return updates;
     }
 
     public SearchResponseDto search(SearchRequestDto searchRequest) throws IOException {
@@ -138,17 +325,14 @@ public class ElasticsearchService {
 
         List<Query> mustQueries = new ArrayList<>();
 
-        // If query is "*" or empty, use match_all, otherwise use wildcard queries with multi-term support
+        // If query is "*" or empty, use match_all, otherwise use substring queries with multi-term support
         if (searchRequest.getQuery() != null && 
             !searchRequest.getQuery().isBlank() && 
             !"*".equals(searchRequest.getQuery().trim())) {
             
             // Split query into terms for substring matching across word boundaries
             String[] terms = searchRequest.getQuery().trim().split("\\s+");
-            List<String> wildcardTerms = new ArrayList<>();
-            for (String term : terms) {
-                wildcardTerms.add("*" + term.toLowerCase() + "*");
-            }
+            List<String> substringTerms = List.of(terms);
             
             // Determine which fields to search based on searchField parameter
             List<Query> shouldQueries = new ArrayList<>();
@@ -157,26 +341,26 @@ public class ElasticsearchService {
             if (searchField != null && !searchField.isBlank()) {
                 switch (searchField.toLowerCase()) {
                     case "filename":
-                        shouldQueries.add(createMultiTermQuery("filename", wildcardTerms, 1.0f));
+                        shouldQueries.add(createMultiTermQuery("filename", substringTerms, 1.0f));
                         break;
                     case "extractedtext":
-                        shouldQueries.add(createMultiTermQuery("extractedText", wildcardTerms, 1.0f));
+                        shouldQueries.add(createMultiTermQuery("extractedText", substringTerms, 1.0f));
                         break;
                     case "summary":
-                        shouldQueries.add(createMultiTermQuery("summary", wildcardTerms, 1.0f));
+                        shouldQueries.add(createMultiTermQuery("summary", substringTerms, 1.0f));
                         break;
                     default: // "all" or any other value
-                        shouldQueries.add(createMultiTermQuery("filename", wildcardTerms, 3.0f));
-                        shouldQueries.add(createMultiTermQuery("author", wildcardTerms, 2.0f));
-                        shouldQueries.add(createMultiTermQuery("extractedText", wildcardTerms, 2.0f));
-                        shouldQueries.add(createMultiTermQuery("summary", wildcardTerms, 2.0f));
+                        shouldQueries.add(createMultiTermQuery("filename", substringTerms, 3.0f));
+                        shouldQueries.add(createMultiTermQuery("author", substringTerms, 2.0f));
+                        shouldQueries.add(createMultiTermQuery("extractedText", substringTerms, 2.0f));
+                        shouldQueries.add(createMultiTermQuery("summary", substringTerms, 2.0f));
                 }
             } else {
                 // Default (search all fields)
-                shouldQueries.add(createMultiTermQuery("filename", wildcardTerms, 3.0f));
-                shouldQueries.add(createMultiTermQuery("author", wildcardTerms, 2.0f));
-                shouldQueries.add(createMultiTermQuery("extractedText", wildcardTerms, 2.0f));
-                shouldQueries.add(createMultiTermQuery("summary", wildcardTerms, 2.0f));
+                shouldQueries.add(createMultiTermQuery("filename", substringTerms, 3.0f));
+                shouldQueries.add(createMultiTermQuery("author", substringTerms, 2.0f));
+                shouldQueries.add(createMultiTermQuery("extractedText", substringTerms, 2.0f));
+                shouldQueries.add(createMultiTermQuery("summary", substringTerms, 2.0f));
             }
             
             // Bool query with should (OR) for multiple fields
@@ -188,6 +372,10 @@ public class ElasticsearchService {
             mustQueries.add(matchAllQuery);
         }
 
+        // Exact filters don't score. Without facets they go to the filter clause of the main query,
+        // with facets they are applied as post_filter, so each facet can be counted without its own filter, see facetAggregations
+        Map<String, Query> facetFilters = new LinkedHashMap<>();
+
         // Author filter (exact match using keyword)
         if (searchRequest.getAuthor() != null && !searchRequest.getAuthor().isBlank()) {
             Query authorQuery = Query.of(q -> q
@@ -196,7 +384,7 @@ public class ElasticsearchService {
                             .value(FieldValue.of(searchRequest.getAuthor()))
                     )
             );
-            mustQueries.add(authorQuery);
+            facetFilters.put(AUTHOR_FACET, authorQuery);
         }
 
         // File type filter
@@ -207,31 +395,77 @@ public class ElasticsearchService {
                             .value(FieldValue.of(searchRequest.getFileType()))
                     )
             );
-            mustQueries.add(fileTypeQuery);
+            facetFilters.put(FILE_TYPE_FACET, fileTypeQuery);
         }
 
-        BoolQuery boolQuery = BoolQuery.of(b -> b.must(mustQueries));
-
-        SearchRequest request = SearchRequest.of(s -> s
-                .index(indexName)
-                .query(q -> q.bool(boolQuery))
-                .from(searchRequest.getPage() * searchRequest.getSize())
-                .size(searchRequest.getSize())
-                .sort(so -> so
-                        .field(f -> f
-                                .field(searchRequest.getSortBy())
-                                .order("asc".equalsIgnoreCase(searchRequest.getSortOrder())
-                                        ? co.elastic.clients.elasticsearch._types.SortOrder.Asc
-                                        : co.elastic.clients.elasticsearch._types.SortOrder.Desc)
-                        )
-                )
-                .highlight(h -> h
-                        .fields("extractedText", hf -> hf.numberOfFragments(1).fragmentSize(150))
-                        .fields("summary", hf -> hf.numberOfFragments(1).fragmentSize(150))
-                )
-        );
+        boolean facets = Boolean.TRUE.equals(searchRequest.getFacets());
+        BoolQuery boolQuery = BoolQuery.of(b -> {
+            b.must(mustQueries);
+            if (!facets) {
+                b.filter(List.copyOf(facetFilters.values()));
+            }
+            return b;
+        });
+
+        SortOrder order = "asc".equalsIgnoreCase(searchRequest.getSortOrder()) ? SortOrder.Asc : SortOrder.Desc;
+        SearchCursor cursor = searchRequest.getCursor() != null && !searchRequest.getCursor().isBlank()
+                ? SearchCursor.decode(searchRequest.getCursor())
+                : null;
+        if (cursor != null && (!cursor.sortBy().equals(searchRequest.getSortBy())
+                || !cursor.sortOrder().equalsIgnoreCase(order.jsonValue()))) {
+            throw new IllegalArgumentException("Search cursor belongs to a different sort order");
+        }
+        // A point in time is opened with the first page and travels with the cursor from then on
+        String pitId = cursor != null ? cursor.pitId()
+                : Boolean.TRUE.equals(searchRequest.getPointInTime()) ? openPointInTime() : null;
+
+        SearchRequest request = SearchRequest.of(s -> {
+            s.query(q -> q.bool(boolQuery))
+                    .size(searchRequest.getSize())
+                    .sort(so -> so.field(f -> f.field(searchRequest.getSortBy()).order(order)))
+                    // Tiebreaker, search_after needs a unique position for every hit
+                    .sort(so -> so.field(f -> f.field("documentId").order(order)))
+                    .highlight(h -> h
+                            // The trigram subfields match substrings, overlapping trigrams are merged into one highlight
+                            .maxAnalyzedOffset(HIGHLIGHT_MAX_ANALYZED_OFFSET)
+                            .fields("extractedText." + NGRAM_FIELD, hf -> hf.numberOfFragments(1).fragmentSize(150))
+                            .fields("summary." + NGRAM_FIELD, hf -> hf.numberOfFragments(1).fragmentSize(150))
+                    );
+            if (facets) {
+                if (!facetFilters.isEmpty()) {
+                    s.postFilter(q -> q.bool(b -> b.filter(List.copyOf(facetFilters.values()))));
+                }
+                s.aggregations(facetAggregations(facetFilters));
+            }
+            if (pitId != null) {
+                // The point in time already names the index
+                s.pit(p -> p.id(pitId).keepAlive(t -> t.time(pointInTimeKeepAlive)));
+            } else {
+                s.index(indexName);
+            }
+            if (cursor != null) {
+                s.searchAfter(cursor.sortValues());
+            } else {
+                s.from(searchRequest.getPage() * searchRequest.getSize());
+            }
+            return s;
+        });
 
-        SearchResponse<DocumentIndexDto> response = elasticsearchClient.search(request, DocumentIndexDto.class);
+        SearchResponse<DocumentIndexDto> response;
+        try {
+            response = elasticsearchClient.search(request, DocumentIndexDto.class);
+        } catch (IOException | RuntimeException e) {
+            if (cursor == null && pitId != null) {
+                // Opened for this first page, no cursor will ever carry it
+                closePointInTime(pitId);
+            }
+            if (cursor != null && cursor.pitId() != null
+                    && e instanceof ElasticsearchException elasticsearchException
+                    && isSearchContextMissing(elasticsearchException)) {
+                throw new SearchCursorExpiredException("Point in time of the search cursor expired", e);
+            }
+            throw e;
+        }
         HitsMetadata<DocumentIndexDto> hits = response.hits();
 
         List<SearchResultDto> results = hits.hits().stream()
@@ -241,6 +475,16 @@ public class ElasticsearchService {
         long totalHits = hits.total() != null ? hits.total().value() : 0;
         int totalPages = (int) Math.ceil((double) totalHits / searchRequest.getSize());
 
+        // A full page may be followed by more hits; Elasticsearch may hand out a new point in time id with each response
+        String nextPitId = response.pitId() != null ? response.pitId() : pitId;
+        String nextCursor = null;
+        if (!hits.hits().isEmpty() && hits.hits().size() == searchRequest.getSize()) {
+            Hit<DocumentIndexDto> last = hits.hits().get(hits.hits().size() - 1);
+            nextCursor = SearchCursor.after(searchRequest.getSortBy(), order.jsonValue(), last.sort(), nextPitId).encode();
+        } else if (nextPitId != null) {
+            closePointInTime(nextPitId);
+        }
+
         long searchTime = System.currentTimeMillis() - startTime;
         log.info("Search completed in {}ms, found {} results", searchTime, totalHits);
 
@@ -251,18 +495,103 @@ public class ElasticsearchService {
                 .size(searchRequest.getSize())
                 .totalPages(totalPages)
                 .searchTimeMs(searchTime)
+                .nextCursor(nextCursor)
+                .facets(Boolean.TRUE.equals(searchRequest.getFacets()) ? mapFacets(response.aggregations()) : null)
                 .build();
     }
 
+    /**
+     * Facets are counted over the hits of the query. Every facet sits in a filter aggregation with the selected
+     * filters except its own, so selecting an author still shows the other authors with their counts, narrowed down
+     * by the file type filter, and vice versa.
+     */
+    private Map<String, Aggregation> facetAggregations(Map<String, Query> facetFilters) {
+        List<AggregationRange> sizeRanges = SIZE_RANGES.stream()
+                .map(range -> AggregationRange.of(r -> r.key(range.key()).from(range.from()).to(range.to())))
+                .toList();
+
+        Map<String, Aggregation> aggregations = new LinkedHashMap<>();
+        aggregations.put(AUTHOR_FACET, Aggregation.of(a -> a.terms(t -> t.field("author.keyword").size(facetSize))));
+        aggregations.put(FILE_TYPE_FACET, Aggregation.of(a -> a.terms(t -> t.field("fileType").size(facetSize))));
+        aggregations.put(UPLOAD_TIME_FACET, Aggregation.of(a -> a.dateHistogram(d -> d
+                .field("uploadTime")
+                .calendarInterval(CalendarInterval.Month)
+                .format("yyyy-MM")
+                .minDocCount(1))));
+        aggregations.put(SIZE_FACET, Aggregation.of(a -> a.range(r -> r.field("size").ranges(sizeRanges))));
+
+        Map<String, Aggregation> filtered = new LinkedHashMap<>();
+        aggregations.forEach((name, aggregation) -> {
+            List<Query> otherFilters = facetFilters.entrySet().stream()
+                    .filter(filter -> !filter.getKey().equals(name))
+                    .map(Map.Entry::getValue)
+                    .toList();
+            filtered.put(name, Aggregation.of(a -> a
+                    .filter(f -> f.bool(b -> b.filter(otherFilters)))
+                    .aggregations(name, aggregation)));
+        });
+        return filtered;
+    }
+
+    private static Map<String, List<FacetBucketDto>> mapFacets(Map<String, Aggregate> aggregations) {
+        Map<String, List<FacetBucketDto>> facets = new LinkedHashMap<>();
+        aggregations.forEach((name, wrapper) -> {
+            // Unwrap the filter aggregation that leaves out the facet's own filter
+            Aggregate aggregate = wrapper.isFilter() ? wrapper.filter().aggregations().get(name) : wrapper;
+            List<FacetBucketDto> buckets = aggregate == null ? List.of() : switch (aggregate._kind()) {
+                case Sterms -> aggregate.sterms().buckets().array().stream()
+                        .map(bucket -> facetBucket(bucket.key().stringValue(), bucket.docCount()))
+                        .toList();
+                case DateHistogram -> aggregate.dateHistogram().buckets().array().stream()
+                        .map(bucket -> facetBucket(bucket.keyAsString(), bucket.docCount()))
+                        .toList();
+                case Range -> aggregate.range().buckets().array().stream()
+                        .map(bucket -> facetBucket(bucket.key(), bucket.docCount()))
+                        .toList();
+                // A terms aggregation on a field without any values yet (empty index) comes back untyped
+                default -> List.of();
+            };
+            facets.put(name, buckets);
+        });
+        return facets;
+    }
+
+    private static FacetBucketDto facetBucket(String key, long count) {
+        return FacetBucketDto.builder().key(key).count(count).build();
+    }
+
+    private String openPointInTime() throws IOException {
+        return elasticsearchClient.openPointInTime(OpenPointInTimeRequest.of(o -> o
+                .index(indexName)
+                .keepAlive(t -> t.time(pointInTimeKeepAlive))
+        )).id();
+    }
+
+    // An expired point in time fails the search phase, the missing context shows up as the error or as a root cause
+    private static boolean isSearchContextMissing(ElasticsearchException e) {
+        ErrorCause error = e.error();
+        return error != null && (SEARCH_CONTEXT_MISSING.equals(error.type())
+                || error.rootCause().stream().anyMatch(cause -> SEARCH_CONTEXT_MISSING.equals(cause.type())));
+    }
+
+    // The last page releases the snapshot right away instead of holding its segments until keep-alive runs out
+    private void closePointInTime(String pitId) {
+        try {
+            elasticsearchClient.closePointInTime(ClosePointInTimeRequest.of(c -> c.id(pitId)));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not close point in time: {}", e.getMessage());
+        }
+    }
+
     private SearchResultDto mapToSearchResult(Hit<DocumentIndexDto> hit) {
         DocumentIndexDto source = hit.source();
         String highlightedText = null;
 
         if (hit.highlight() != null) {
-            if (hit.highlight().containsKey("extractedText")) {
-                highlightedText = hit.highlight().get("extractedText").get(0);
-            } else if (hit.highlight().containsKey("summary")) {
-                highlightedText = hit.highlight().get("summary").get(0);
+            if (hit.highlight().containsKey("extractedText." + NGRAM_FIELD)) {
+                highlightedText = hit.highlight().get("extractedText." + NGRAM_FIELD).get(0);
+            } else if (hit.highlight().containsKey("summary." + NGRAM_FIELD)) {
+                highlightedText = hit.highlight().get("summary." + NGRAM_FIELD).get(0);
             }
         }
 
@@ -281,24 +610,15 @@ public class ElasticsearchService {
     }
 
     // Creates a query that matches all terms in the specified field
-    private Query createMultiTermQuery(String field, List<String> wildcardTerms, float boost) {
-        if (wildcardTerms.size() == 1) {
-            // For single term: simple wildcard query
-            return Query.of(q -> q.wildcard(w -> w
-                    .field(field)
-                    .value(wildcardTerms.get(0))
-                    .caseInsensitive(true)
-                    .boost(boost)
-            ));
+    private Query createMultiTermQuery(String field, List<String> substringTerms, float boost) {
+        if (substringTerms.size() == 1) {
+            // For single term: simple substring query
+            return substringQuery(field, substringTerms.get(0), boost);
         } else {
             // For multiple terms: bool query where ALL terms must match (AND logic)
             List<Query> termQueries = new ArrayList<>();
-            for (String wildcardTerm : wildcardTerms) {
-                termQueries.add(Query.of(q -> q.wildcard(w -> w
-                        .field(field)
-                        .value(wildcardTerm)
-                        .caseInsensitive(true)
-                )));
+            for (String substringTerm : substringTerms) {
+                termQueries.add(substringQuery(field, substringTerm, null));
             }
             return Query.of(q -> q.bool(b -> b
                     .must(termQueries)
@@ -306,4 +626,26 @@ public class ElasticsearchService {
             ));
         }
     }
-}
\ No newline at end of file
+
+    // The trigrams of the term must follow each other as in the term, so scattered trigrams elsewhere in a long text
+    // do not match; with a word shorter than a trigram the term matches word prefixes
+    private static Query substringQuery(String field, String term, Float boost) {
+        boolean trigrams = Arrays.stream(term.split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .allMatch(word -> word.length() >= NGRAM_SIZE);
+        if (trigrams) {
+            return Query.of(q -> q.matchPhrase(p -> p
+                    .field(field + "." + NGRAM_FIELD)
+                    .query(term)
+                    .boost(boost)));
+        }
+        return Query.of(q -> q.match(m -> m
+                .field(field + "." + PREFIX_FIELD)
+                .query(term)
+                .operator(Operator.And)
+                .boost(boost)));
+    }
+
+    private record SizeRange(String key, Double from, Double to) {
+    }
+}
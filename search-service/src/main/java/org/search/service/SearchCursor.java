@@ -0,0 +1,63 @@
+package org.search.service;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Position after the last hit of a page, handed to clients as an opaque Base64 string.
+ * Holds the sort values of that hit for search_after, the sort they belong to, and the point in time if one is used.
+ */
+record SearchCursor(String sortBy, String sortOrder, List<Object> searchAfter, String pitId) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static SearchCursor after(String sortBy, String sortOrder, List<FieldValue> sortValues, String pitId) {
+        List<Object> values = sortValues.stream()
+                .map(value -> value.isNull() ? null : value._get())
+                .toList();
+        return new SearchCursor(sortBy, sortOrder, values, pitId);
+    }
+
+    static SearchCursor decode(String cursor) {
+        SearchCursor decoded;
+        try {
+            decoded = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), SearchCursor.class);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new IllegalArgumentException("Invalid search cursor", e);
+        }
+        if (decoded == null || decoded.sortBy() == null || decoded.sortOrder() == null
+                || decoded.searchAfter() == null || decoded.searchAfter().isEmpty()) {
+            throw new IllegalArgumentException("Invalid search cursor");
+        }
+        return decoded;
+    }
+
+    String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(MAPPER.writeValueAsString(this).getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode search cursor", e);
+        }
+    }
+
+    // JSON numbers come back as Integer, Long or Double, all of them are valid sort values again
+    List<FieldValue> sortValues() {
+        return searchAfter.stream()
+                .map(value -> switch (value) {
+                    case null -> FieldValue.NULL;
+                    case Integer number -> FieldValue.of(number.longValue());
+                    case Long number -> FieldValue.of(number);
+                    case Number number -> FieldValue.of(number.doubleValue());
+                    case Boolean bool -> FieldValue.of(bool);
+                    default -> FieldValue.of(value.toString());
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,11 @@
+package org.search.service;
+
+/**
+ * The point in time of a search cursor is gone (keep-alive ran out or it was closed), the client has to start over
+ */
+public class SearchCursorExpiredException extends RuntimeException {
+
+    public SearchCursorExpiredException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,458 @@
+package org.search.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.HealthStatus;
+import co.elastic.clients.elasticsearch._types.SlicesCalculation;
+import co.elastic.clients.elasticsearch._types.analysis.TokenChar;
+import co.elastic.clients.elasticsearch._types.mapping.IndexOptions;
+import co.elastic.clients.elasticsearch._types.mapping.TextProperty;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch.cluster.HealthRequest;
+import co.elastic.clients.elasticsearch.core.DeleteByQueryRequest;
+import co.elastic.clients.elasticsearch.core.ReindexRequest;
+import co.elastic.clients.elasticsearch.core.ReindexResponse;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.indices.CreateIndexRequest;
+import co.elastic.clients.elasticsearch.indices.DeleteIndexRequest;
+import co.elastic.clients.elasticsearch.indices.ExistsAliasRequest;
+import co.elastic.clients.elasticsearch.indices.ExistsRequest;
+import co.elastic.clients.elasticsearch.indices.GetAliasRequest;
+import co.elastic.clients.elasticsearch.indices.GetIndexRequest;
+import co.elastic.clients.elasticsearch.indices.IndexSettings;
+import co.elastic.clients.elasticsearch.indices.IndexSettingsAnalysis;
+import co.elastic.clients.elasticsearch.indices.PutIndicesSettingsRequest;
+import co.elastic.clients.elasticsearch.indices.RefreshRequest;
+import co.elastic.clients.elasticsearch.indices.UpdateAliasesRequest;
+import co.elastic.clients.elasticsearch.tasks.GetTasksRequest;
+import co.elastic.clients.elasticsearch.tasks.GetTasksResponse;
+import co.elastic.clients.json.JsonData;
+import jakarta.annotation.PostConstruct;
+import jakarta.json.JsonObject;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.search.dto.ReindexStatusDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Owns the physical document indices. Documents live in versioned indices (documents_v1, documents_v2, ...)
+ * behind a read alias used by search and a write alias used by indexing. A reindex builds the next version
+ * in the background from the current one and swaps both aliases in one atomic step, so search keeps
+ * serving from the old index until the new one is complete.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SearchIndexManager {
+
+    // Substring search runs on trigram subfields, terms shorter than a trigram match word prefixes instead
+    static final int NGRAM_SIZE = 3;
+    static final String NGRAM_FIELD = "ngram";
+    static final String PREFIX_FIELD = "prefix";
+    private static final int MAX_PREFIX_LENGTH = 20;
+    // Ids per catch-up request, below index.max_terms_count
+    private static final int CATCH_UP_CHUNK = 10_000;
+
+    private final ElasticsearchClient elasticsearchClient;
+
+    // Held shared by every write and exclusively while the aliases are swapped, see write and reindex
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // Ids written while a reindex copies the index, null when no reindex runs
+    private volatile Set<String> touchedIds;
+    private final AtomicReference<ReindexStatusDto> status = new AtomicReference<>(
+            ReindexStatusDto.builder().state(ReindexStatusDto.State.IDLE).build());
+
+    @Value("${elasticsearch.index.documents}")
+    private String readAlias;
+
+    @Value("${elasticsearch.index.documents-write}")
+    private String writeAlias;
+
+    @Value("${elasticsearch.index.number-of-replicas:1}")
+    private int numberOfReplicas;
+
+    @Value("${elasticsearch.index.refresh-interval:1s}")
+    private String refreshInterval;
+
+    @Value("${elasticsearch.index.retained-versions:1}")
+    private int retainedVersions;
+
+    @Value("${elasticsearch.reindex.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @FunctionalInterface
+    public interface WriteCall<T> {
+        T execute() throws IOException;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            initialize();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to initialize Elasticsearch index", e);
+        }
+    }
+
+    /**
+     * Creates the first versioned index with both aliases, or migrates an index created before versioning
+     * (a concrete index with the alias name) into one. Runs before the listeners start consuming.
+     */
+    void initialize() throws IOException {
+        if (elasticsearchClient.indices().existsAlias(ExistsAliasRequest.of(e -> e.name(readAlias))).value()) {
+            log.info("Elasticsearch alias {} points to {}", readAlias, aliasTargets(readAlias));
+            return;
+        }
+
+        String target = versionedName(1);
+        boolean legacy = elasticsearchClient.indices().exists(ExistsRequest.of(e -> e.index(readAlias))).value();
+        if (!legacy) {
+            log.info("Creating Elasticsearch index {} with aliases {} and {}", target, readAlias, writeAlias);
+            elasticsearchClient.indices().create(CreateIndexRequest.of(c -> c
+                    .index(target)
+                    .settings(st -> indexSettings(st, false))
+                    .mappings(SearchIndexManager::documentMapping)
+                    .aliases(readAlias, a -> a)
+                    .aliases(writeAlias, a -> a.isWriteIndex(true))
+            ));
+            return;
+        }
+
+        // The alias can only take over the name once the concrete index is gone, both happen in one alias update
+        log.warn("Index {} predates versioned indices, migrating it to {}", readAlias, target);
+        createForBulkLoad(target);
+        try {
+            long copied = copy(readAlias, target);
+            finishBulkLoad(target);
+            elasticsearchClient.indices().updateAliases(UpdateAliasesRequest.of(u -> u
+                    .actions(a -> a.removeIndex(r -> r.index(readAlias)))
+                    .actions(a -> a.add(ad -> ad.index(target).alias(readAlias)))
+                    .actions(a -> a.add(ad -> ad.index(target).alias(writeAlias).isWriteIndex(true)))
+            ));
+            log.info("Migrated {} documents from {} to {}", copied, readAlias, target);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(target);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a write against the write alias. While a reindex copies the index, the ids are recorded so the
+     * new index catches up on them before the swap; during the swap itself writes wait.
+     */
+    public <T> T write(Collection<String> ids, WriteCall<T> call) throws IOException {
+        swapLock.readLock().lock();
+        try {
+            Set<String> touched = touchedIds;
+            if (touched != null) {
+                touched.addAll(ids);
+            }
+            return call.execute();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    public ReindexStatusDto getStatus() {
+        return status.get();
+    }
+
+    /**
+     * Starts building the next index version in the background.
+     * Returns the running status, or the status of the reindex that is already running.
+     */
+    public synchronized ReindexStatusDto startReindex() throws IOException {
+        ReindexStatusDto current = status.get();
+        if (current.getState() == ReindexStatusDto.State.RUNNING) {
+            return current;
+        }
+
+        String source = aliasTargets(writeAlias).get(0);
+        String target = versionedName(latestVersion() + 1);
+        ReindexStatusDto running = ReindexStatusDto.builder()
+                .state(ReindexStatusDto.State.RUNNING)
+                .sourceIndex(source)
+                .targetIndex(target)
+                .startedAt(Instant.now())
+                .build();
+        status.set(running);
+        touchedIds = ConcurrentHashMap.newKeySet();
+        Thread.ofVirtual().name("search-reindex-" + target).start(() -> reindex(source, target));
+        return running;
+    }
+
+    void reindex(String source, String target) {
+        log.info("Reindexing {} into {}", source, target);
+        try {
+            createForBulkLoad(target);
+            long copied = copy(source, target);
+            finishBulkLoad(target);
+
+            long caughtUp;
+            swapLock.writeLock().lock();
+            try {
+                caughtUp = catchUp(source, target, touchedIds);
+                elasticsearchClient.indices().updateAliases(UpdateAliasesRequest.of(u -> u
+                        .actions(a -> a.remove(r -> r.index(source).alias(readAlias)))
+                        .actions(a -> a.remove(r -> r.index(source).alias(writeAlias)))
+                        .actions(a -> a.add(ad -> ad.index(target).alias(readAlias)))
+                        .actions(a -> a.add(ad -> ad.index(target).alias(writeAlias).isWriteIndex(true)))
+                ));
+                touchedIds = null;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+
+            log.info("Aliases {} and {} now point to {} ({} documents copied, {} caught up), {} is kept for rollback",
+                    readAlias, writeAlias, target, copied, caughtUp, source);
+            deleteOldVersions(target);
+            status.set(status.get().toBuilder()
+                    .state(ReindexStatusDto.State.SUCCEEDED)
+                    .documentsCopied(copied)
+                    .documentsCaughtUp(caughtUp)
+                    .finishedAt(Instant.now())
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            log.error("Reindex from {} into {} failed, search stays on {}", source, target, source, e);
+            touchedIds = null;
+            deleteQuietly(target);
+            status.set(status.get().toBuilder()
+                    .state(ReindexStatusDto.State.FAILED)
+                    .message(e.getMessage())
+                    .finishedAt(Instant.now())
+                    .build());
+        }
+    }
+
+    // No replicas and no refreshes while the index is filled, both are restored by finishBulkLoad
+    private void createForBulkLoad(String index) throws IOException {
+        elasticsearchClient.indices().create(CreateIndexRequest.of(c -> c
+                .index(index)
+                .settings(st -> indexSettings(st, true))
+                .mappings(SearchIndexManager::documentMapping)
+        ));
+    }
+
+    private void finishBulkLoad(String index) throws IOException {
+        elasticsearchClient.indices().putSettings(PutIndicesSettingsRequest.of(p -> p
+                .index(index)
+                .settings(st -> st
+                        .numberOfReplicas(String.valueOf(numberOfReplicas))
+                        .refreshInterval(t -> t.time(refreshInterval)))
+        ));
+        elasticsearchClient.indices().refresh(RefreshRequest.of(r -> r.index(index)));
+        elasticsearchClient.cluster().health(HealthRequest.of(h -> h
+                .index(index)
+                .waitForStatus(HealthStatus.Yellow)
+                .timeout(t -> t.time("60s"))
+        ));
+    }
+
+    // Copies all documents with a sliced _reindex task and polls it, a long reindex would outlast the HTTP timeout
+    private long copy(String source, String target) throws IOException {
+        ReindexResponse started = elasticsearchClient.reindex(ReindexRequest.of(r -> r
+                .source(s -> s.index(source))
+                .dest(d -> d.index(target))
+                .slices(sl -> sl.computed(SlicesCalculation.Auto))
+                .waitForCompletion(false)
+        ));
+        String task = started.task();
+        try {
+            while (true) {
+                GetTasksResponse response = elasticsearchClient.tasks().get(GetTasksRequest.of(g -> g.taskId(task)));
+                if (response.completed()) {
+                    if (response.error() != null) {
+                        throw new IllegalStateException("Reindex task " + task + " failed: " + response.error().reason());
+                    }
+                    JsonObject result = response.response().toJson().asJsonObject();
+                    if (!result.getJsonArray("failures").isEmpty()) {
+                        throw new IllegalStateException("Reindex task " + task + " had failures: " + result.getJsonArray("failures"));
+                    }
+                    return result.getJsonNumber("total").longValue();
+                }
+                Thread.sleep(pollIntervalMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for reindex task " + task, e);
+        }
+    }
+
+    /**
+     * Documents written during the copy are taken again from the source, ids missing there were deleted meanwhile.
+     * Runs under the write lock: the source is refreshed first, so the copy also sees writes of the last refresh interval.
+     */
+    private long catchUp(String source, String target, Set<String> ids) throws IOException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        elasticsearchClient.indices().refresh(RefreshRequest.of(r -> r.index(source)));
+
+        List<String> all = new ArrayList<>(ids);
+        long total = 0;
+        for (int from = 0; from < all.size(); from += CATCH_UP_CHUNK) {
+            List<String> chunk = all.subList(from, Math.min(all.size(), from + CATCH_UP_CHUNK));
+            List<String> present = elasticsearchClient.search(SearchRequest.of(s -> s
+                            .index(source)
+                            .query(q -> q.ids(i -> i.values(chunk)))
+                            .source(sc -> sc.fetch(false))
+                            .size(chunk.size())
+                    ), JsonData.class).hits().hits().stream()
+                    .map(Hit::id)
+                    .toList();
+
+            if (!present.isEmpty()) {
+                // Overwrites the copied version, the target still holds the state from before the write
+                ReindexResponse response = elasticsearchClient.reindex(ReindexRequest.of(r -> r
+                        .source(s -> s.index(source).query(q -> q.ids(i -> i.values(present))))
+                        .dest(d -> d.index(target))
+                        .refresh(true)
+                ));
+                total += response.total() != null ? response.total() : 0;
+            }
+
+            Set<String> presentIds = Set.copyOf(present);
+            List<String> deleted = chunk.stream().filter(id -> !presentIds.contains(id)).toList();
+            if (!deleted.isEmpty()) {
+                elasticsearchClient.deleteByQuery(DeleteByQueryRequest.of(d -> d
+                        .index(target)
+                        .query(q -> q.ids(i -> i.values(deleted)))
+                        .refresh(true)
+                ));
+                total += deleted.size();
+            }
+        }
+        return total;
+    }
+
+    // Keeps the retained-versions newest versions below the live one for rollback, older ones are dropped
+    private void deleteOldVersions(String live) {
+        try {
+            int liveVersion = version(live);
+            for (String index : versionedIndices()) {
+                int version = version(index);
+                if (version > 0 && version < liveVersion - retainedVersions) {
+                    log.info("Deleting index {}, only {} previous version(s) are retained", index, retainedVersions);
+                    elasticsearchClient.indices().delete(DeleteIndexRequest.of(d -> d.index(index)));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not delete old index versions: {}", e.getMessage());
+        }
+    }
+
+    private List<String> aliasTargets(String alias) throws IOException {
+        return new ArrayList<>(elasticsearchClient.indices().getAlias(GetAliasRequest.of(g -> g.name(alias)))
+                .result().keySet());
+    }
+
+    private int latestVersion() throws IOException {
+        int latest = 0;
+        for (String index : versionedIndices()) {
+            latest = Math.max(latest, version(index));
+        }
+        return latest;
+    }
+
+    private Collection<String> versionedIndices() throws IOException {
+        return elasticsearchClient.indices().get(GetIndexRequest.of(g -> g.index(readAlias + "_v*")))
+                .result().keySet();
+    }
+
+    // 0 for indices that only share the prefix
+    private int version(String index) {
+        Matcher matcher = Pattern.compile(Pattern.quote(readAlias) + "_v(\\d+)").matcher(index);
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : 0;
+    }
+
+    private String versionedName(int version) {
+        return readAlias + "_v" + version;
+    }
+
+    private void deleteQuietly(String index) {
+        try {
+            elasticsearchClient.indices().delete(DeleteIndexRequest.of(d -> d.index(index).ignoreUnavailable(true)));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not delete index {}: {}", index, e.getMessage());
+        }
+    }
+
+    private IndexSettings.Builder indexSettings(IndexSettings.Builder settings, boolean bulkLoad) {
+        settings.analysis(substringAnalysis());
+        if (bulkLoad) {
+            settings.numberOfReplicas("0").refreshInterval(t -> t.time("-1"));
+        } else {
+            settings.numberOfReplicas(String.valueOf(numberOfReplicas));
+        }
+        return settings;
+    }
+
+    private static TypeMapping.Builder documentMapping(TypeMapping.Builder mapping) {
+        return mapping
+                .properties("documentId", p -> p.long_(l -> l))
+                .properties("filename", p -> p.text(SearchIndexManager::substringText))
+                .properties("author", p -> p.text(t -> substringText(t).fields("keyword", f -> f.keyword(k -> k))))
+                .properties("fileType", p -> p.keyword(k -> k))
+                .properties("size", p -> p.long_(l -> l))
+                .properties("objectKey", p -> p.keyword(k -> k))
+                .properties("uploadTime", p -> p.date(d -> d.format("strict_date_optional_time")))
+                .properties("extractedText", p -> p.text(SearchIndexManager::substringText))
+                .properties("summary", p -> p.text(SearchIndexManager::substringText))
+                .properties("processedTime", p -> p.date(d -> d.format("strict_date_optional_time")))
+                .properties("ocrChunks", p -> p.object(o -> o.enabled(false)))
+                .properties("ocrTotalChunks", p -> p.integer(i -> i))
+                .properties("ocrComplete", p -> p.boolean_(b -> b));
+    }
+
+    // Trigrams for substring matching anywhere in a word, edge n-grams for word prefixes shorter than a trigram
+    private static IndexSettingsAnalysis substringAnalysis() {
+        return IndexSettingsAnalysis.of(a -> a
+                .tokenizer("substring_ngram", t -> t.definition(d -> d.ngram(n -> n
+                        .minGram(NGRAM_SIZE)
+                        .maxGram(NGRAM_SIZE)
+                        .tokenChars(TokenChar.Letter, TokenChar.Digit))))
+                .tokenizer("prefix_edge_ngram", t -> t.definition(d -> d.edgeNgram(n -> n
+                        .minGram(1)
+                        .maxGram(MAX_PREFIX_LENGTH)
+                        .tokenChars(TokenChar.Letter, TokenChar.Digit))))
+                .analyzer("substring", an -> an.custom(c -> c
+                        .tokenizer("substring_ngram")
+                        .filter("lowercase", "asciifolding")))
+                .analyzer("prefix", an -> an.custom(c -> c
+                        .tokenizer("prefix_edge_ngram")
+                        .filter("lowercase", "asciifolding")))
+                .analyzer("prefix_search", an -> an.custom(c -> c
+                        .tokenizer("standard")
+                        .filter("lowercase", "asciifolding")))
+        );
+    }
+
+    // Full-text field with the n-gram subfields. Trigram positions let a phrase query require adjacent trigrams,
+    // prefixes only need to match, and neither subfield scores by length so no norms are stored
+    private static TextProperty.Builder substringText(TextProperty.Builder text) {
+        return text
+                .analyzer("standard")
+                .fields(NGRAM_FIELD, f -> f.text(t -> t
+                        .analyzer("substring")
+                        .indexOptions(IndexOptions.Positions)
+                        .norms(false)))
+                .fields(PREFIX_FIELD, f -> f.text(t -> t
+                        .analyzer("prefix")
+                        .searchAnalyzer("prefix_search")
+                        .indexOptions(IndexOptions.Docs)
+                        .norms(false)));
+    }
+}
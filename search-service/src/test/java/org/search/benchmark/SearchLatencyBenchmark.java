@@ -0,0 +1,201 @@
+package org.search.benchmark;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.search.dto.DocumentIndexDto;
+import org.search.dto.SearchRequestDto;
+import org.search.service.ElasticsearchService;
+import org.search.service.SearchIndexManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the legacy *term* wildcard search against the n-gram subfield search at 100k documents,
+ * p50/p99 latency per query shape. Needs a running Elasticsearch (docker compose up elasticsearch), then:
+ * ./mvnw test -Dtest=SearchLatencyBenchmark -Dbenchmark.enabled=true [-Delasticsearch.url=http://localhost:9200]
+ */
+@EnabledIfSystemProperty(named = "benchmark.enabled", matches = "true")
+class SearchLatencyBenchmark {
+
+    private static final int DOCUMENTS = 100_000;
+    private static final int BULK_SIZE = 2_000;
+    private static final List<String> QUERIES = List.of("invoice", "voic", "taffl", "4711", "ve rechnung", "mueller gmbh");
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 200;
+    private static final String WILDCARD_INDEX = "benchmark-documents-wildcard";
+    private static final String NGRAM_INDEX = "benchmark-documents-ngram";
+    private static final String[] WORDS = {
+            "invoice", "contract", "amount", "payment", "delivery", "customer", "account", "reference",
+            "Rechnung", "Vertrag", "Betrag", "Zahlung", "Lieferung", "Kunde", "Konto", "Datum",
+            "Taffler", "Mueller", "Huber", "Gruber", "GmbH", "Vienna", "port-4711", "2024"};
+
+    private static RestClient restClient;
+    private static ElasticsearchClient client;
+    private static ElasticsearchService ngramService;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        HttpHost host = HttpHost.create(System.getProperty("elasticsearch.url", "http://localhost:9200"));
+        restClient = RestClient.builder(host).build();
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        client = new ElasticsearchClient(new RestClientTransport(restClient, new JacksonJsonpMapper(objectMapper)));
+
+        deleteIndices();
+        // Baseline: the mapping before n-gram subfields, plain standard-analyzed text
+        client.indices().create(c -> c
+                .index(WILDCARD_INDEX)
+                .mappings(m -> m
+                        .properties("filename", p -> p.text(t -> t.analyzer("standard")))
+                        .properties("author", p -> p.text(t -> t.analyzer("standard").fields("keyword", f -> f.keyword(k -> k))))
+                        .properties("uploadTime", p -> p.date(d -> d.format("strict_date_optional_time")))
+                        .properties("extractedText", p -> p.text(t -> t.analyzer("standard")))
+                        .properties("summary", p -> p.text(t -> t.analyzer("standard")))));
+        // The n-gram index is created like in the service: a versioned index behind read and write aliases
+        SearchIndexManager indexManager = new SearchIndexManager(client);
+        ReflectionTestUtils.setField(indexManager, "readAlias", NGRAM_INDEX);
+        ReflectionTestUtils.setField(indexManager, "writeAlias", NGRAM_INDEX + "_write");
+        ReflectionTestUtils.setField(indexManager, "numberOfReplicas", 0);
+        ReflectionTestUtils.setField(indexManager, "refreshInterval", "1s");
+        indexManager.init();
+        ngramService = new ElasticsearchService(client, indexManager);
+        ReflectionTestUtils.setField(ngramService, "indexName", NGRAM_INDEX);
+        ReflectionTestUtils.setField(ngramService, "writeIndexName", NGRAM_INDEX + "_write");
+
+        fill(WILDCARD_INDEX);
+        fill(NGRAM_INDEX + "_write");
+        client.indices().refresh(r -> r.index(WILDCARD_INDEX, NGRAM_INDEX));
+        client.indices().forcemerge(f -> f.index(WILDCARD_INDEX, NGRAM_INDEX).maxNumSegments(1L));
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        if (client != null) {
+            deleteIndices();
+        }
+        if (restClient != null) {
+            restClient.close();
+        }
+    }
+
+    @Test
+    void wildcardVersusNgramSearch() throws IOException {
+        // Hit counts differ slightly: words shorter than a trigram ("ve") only match word prefixes now
+        System.out.printf("%n%-14s %-10s %10s %10s %10s%n", "query", "search", "hits", "p50 ms", "p99 ms");
+        for (String query : QUERIES) {
+            long[] wildcard = measure(() -> wildcardSearch(query));
+            long[] ngram = measure(() -> ngramSearch(query));
+            System.out.printf("%-14s %-10s %10d %10.1f %10.1f%n", query, "wildcard", wildcardSearch(query),
+                    percentile(wildcard, 0.5), percentile(wildcard, 0.99));
+            System.out.printf("%-14s %-10s %10d %10.1f %10.1f%n", query, "ngram", ngramSearch(query),
+                    percentile(ngram, 0.5), percentile(ngram, 0.99));
+        }
+    }
+
+    // The query ElasticsearchService built before the n-gram subfields
+    private static long wildcardSearch(String query) throws IOException {
+        List<Query> should = new ArrayList<>();
+        for (String field : List.of("filename", "author", "extractedText", "summary")) {
+            List<Query> terms = Arrays.stream(query.split("\\s+"))
+                    .map(term -> Query.of(q -> q.wildcard(w -> w
+                            .field(field)
+                            .value("*" + term.toLowerCase() + "*")
+                            .caseInsensitive(true))))
+                    .toList();
+            should.add(Query.of(q -> q.bool(b -> b.must(terms))));
+        }
+        return client.search(s -> s
+                        .index(WILDCARD_INDEX)
+                        .query(q -> q.bool(b -> b.should(should).minimumShouldMatch("1")))
+                        .size(10)
+                        .sort(so -> so.field(f -> f.field("uploadTime"))),
+                DocumentIndexDto.class).hits().total().value();
+    }
+
+    private static long ngramSearch(String query) throws IOException {
+        return ngramService.search(SearchRequestDto.builder().query(query).build()).getTotalHits();
+    }
+
+    private static long[] measure(SearchCall search) throws IOException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            search.run();
+        }
+        long[] nanos = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            search.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        return sortedNanos[(int) Math.min(sortedNanos.length - 1, sortedNanos.length * percentile)] / 1_000_000.0;
+    }
+
+    // Same seeded documents in both indices, each with about two pages of OCR text
+    private static void fill(String index) throws IOException {
+        Random random = new Random(42);
+        LocalDateTime uploaded = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int from = 0; from < DOCUMENTS; from += BULK_SIZE) {
+            BulkRequest.Builder bulk = new BulkRequest.Builder().index(index);
+            for (int id = from; id < Math.min(DOCUMENTS, from + BULK_SIZE); id++) {
+                DocumentIndexDto document = DocumentIndexDto.builder()
+                        .documentId((long) id)
+                        .filename(words(random, 3).replace(' ', '-') + ".pdf")
+                        .author(WORDS[16 + random.nextInt(4)] + " " + WORDS[random.nextInt(8)])
+                        .fileType("PDF")
+                        .size(1024L + random.nextInt(1_000_000))
+                        .objectKey("benchmark-" + id)
+                        .uploadTime(uploaded.plusMinutes(id))
+                        .extractedText(words(random, 600))
+                        .summary(words(random, 40))
+                        .build();
+                String documentId = String.valueOf(id);
+                bulk.operations(o -> o.index(i -> i.id(documentId).document(document)));
+            }
+            BulkResponse response = client.bulk(bulk.build());
+            assertThat(response.errors()).isFalse();
+        }
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(i > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    // Wildcard deletes are disabled by default (action.destructive_requires_name), so the versions are resolved first
+    private static void deleteIndices() throws IOException {
+        List<String> indices = new ArrayList<>(List.of(WILDCARD_INDEX));
+        indices.addAll(client.indices().get(g -> g.index(NGRAM_INDEX + "_v*")).result().keySet());
+        client.indices().delete(d -> d.index(indices).ignoreUnavailable(true));
+    }
+
+    @FunctionalInterface
+    private interface SearchCall {
+        long run() throws IOException;
+    }
+}
@@ -1,10 +1,16 @@
 package org.search.listener;
 
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.bulk.OperationType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.search.dto.DocumentIndexDto;
@@ -12,7 +18,13 @@ import org.search.dto.DocumentUpdateEventDto;
 import org.search.service.ElasticsearchService;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -23,9 +35,15 @@ class DocumentIndexingListenerTest {
     @Mock
     private ElasticsearchService elasticsearchService;
 
-    @InjectMocks
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private Channel channel;
+
     private DocumentIndexingListener listener;
 
+    private SimpleMeterRegistry meterRegistry;
     private ObjectMapper objectMapper;
     private DocumentIndexDto testDocument;
     private DocumentUpdateEventDto testUpdateEvent;
@@ -34,7 +52,19 @@ class DocumentIndexingListenerTest {
     @BeforeEach
     void setUp() {
         objectMapper = new ObjectMapper();
-        listener = new DocumentIndexingListener(elasticsearchService, objectMapper);
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new DocumentIndexingListener(elasticsearchService, objectMapper, rabbitTemplate, meterRegistry);
+        ReflectionTestUtils.setField(listener, "retryQueue", "search-indexing-retry");
+        ReflectionTestUtils.setField(listener, "deadLetterQueue", "search-indexing-dlq");
+        ReflectionTestUtils.setField(listener, "maxBulkSizeMb", 5L);
+        ReflectionTestUtils.setField(listener, "maxRetries", 3);
+        ReflectionTestUtils.setField(listener, "retryDelayMs", 0L);
+
+        // Bulk mode only needs an operation per message, the bulk response decides the outcome
+        BulkOperation operation = BulkOperation.of(b -> b.delete(d -> d.index("documents").id("1")));
+        lenient().when(elasticsearchService.indexOperation(any(DocumentIndexDto.class))).thenReturn(operation);
+        lenient().when(elasticsearchService.partialUpdateOperation(any(DocumentIndexDto.class))).thenReturn(operation);
+        lenient().when(elasticsearchService.deleteOperation(anyLong())).thenReturn(operation);
 
         testDocument = DocumentIndexDto.builder()
                 .documentId(1L)
@@ -188,4 +218,187 @@ class DocumentIndexingListenerTest {
         // Assert
         verify(elasticsearchService, times(2)).indexDocument(any(DocumentIndexDto.class));
     }
+
+    private Message message(Object payload, long deliveryTag) throws Exception {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        return new Message(objectMapper.writeValueAsBytes(payload), properties);
+    }
+
+    private static BulkResponseItem item(OperationType type, int status, String errorType) {
+        return BulkResponseItem.of(i -> {
+            i.operationType(type).index("documents").id("1").status(status);
+            if (errorType != null) {
+                i.error(e -> e.type(errorType).reason("test"));
+            }
+            return i;
+        });
+    }
+
+    private static BulkResponse bulkResponse(BulkResponseItem... items) {
+        return BulkResponse.of(b -> b.took(3).errors(false).items(List.of(items)));
+    }
+
+    @Test
+    void handleBatch_ShouldSendOneBulkRequestAndAckEachConfirmedItem() throws Exception {
+        // Arrange
+        when(elasticsearchService.bulk(anyList())).thenReturn(bulkResponse(
+                item(OperationType.Index, 201, null),
+                item(OperationType.Update, 200, null),
+                item(OperationType.Delete, 200, null)));
+
+        // Act
+        listener.handleDocumentIndexingBatch(List.of(
+                message(testDocument, 1), message(testUpdateEvent, 2), message(testDeleteEvent, 3)), channel);
+
+        // Assert
+        verify(elasticsearchService, times(1)).bulk(anyList());
+        verify(elasticsearchService).indexOperation(any(DocumentIndexDto.class));
+        verify(elasticsearchService).partialUpdateOperation(any(DocumentIndexDto.class));
+        verify(elasticsearchService).deleteOperation(1L);
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+        verify(channel).basicAck(3, false);
+        verifyNoInteractions(rabbitTemplate);
+        assertEquals(3.0, meterRegistry.get("search.indexing.bulk.items").tag("result", "success").counter().count());
+    }
+
+    @Test
+    void handleBatch_WhenItemIsRejectedTemporarily_ShouldSendToRetryQueueWithRetryCount() throws Exception {
+        // Arrange
+        when(elasticsearchService.bulk(anyList())).thenReturn(bulkResponse(
+                item(OperationType.Index, 201, null),
+                item(OperationType.Index, 429, "es_rejected_execution_exception")));
+
+        // Act
+        listener.handleDocumentIndexingBatch(List.of(message(testDocument, 1), message(testDocument, 2)), channel);
+
+        // Assert
+        verify(rabbitTemplate).send(eq("search-indexing-retry"), argThat((Message m) ->
+                Integer.valueOf(1).equals(m.getMessageProperties().getHeader(DocumentIndexingListener.RETRY_COUNT_HEADER))
+                        && m.getMessageProperties().getHeader(DocumentIndexingListener.RECEIVED_AT_HEADER) != null));
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+    }
+
+    @Test
+    void handleBatch_WhenNewerEventWasAppliedBeforeRetry_ShouldDropRetry() throws Exception {
+        // Arrange - the UPDATE fails temporarily, a DELETE for the same document succeeds in the next batch
+        when(elasticsearchService.bulk(anyList()))
+                .thenReturn(bulkResponse(item(OperationType.Update, 429, "es_rejected_execution_exception")))
+                .thenReturn(bulkResponse(item(OperationType.Delete, 200, null)));
+        listener.handleDocumentIndexingBatch(List.of(message(testUpdateEvent, 1)), channel);
+        ArgumentCaptor<Message> retry = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq("search-indexing-retry"), retry.capture());
+        listener.handleDocumentIndexingBatch(List.of(message(testDeleteEvent, 2)), channel);
+
+        // Act - the retry comes back from the retry queue
+        retry.getValue().getMessageProperties().setDeliveryTag(3);
+        listener.handleDocumentIndexingBatch(List.of(retry.getValue()), channel);
+
+        // Assert - acknowledged without writing the stale UPDATE over the DELETE
+        verify(elasticsearchService, times(2)).bulk(anyList());
+        verify(channel).basicAck(3, false);
+        assertEquals(1.0, meterRegistry.get("search.indexing.bulk.items").tag("result", "superseded").counter().count());
+    }
+
+    @Test
+    void handleBatch_WhenOnlyAnUpdateFollowedAFailedIndex_ShouldStillRetryIndex() throws Exception {
+        // Arrange - a later UPDATE only carries metadata, the retried INDEX still has to bring the extracted text
+        when(elasticsearchService.bulk(anyList()))
+                .thenReturn(bulkResponse(item(OperationType.Index, 429, "es_rejected_execution_exception")))
+                .thenReturn(bulkResponse(item(OperationType.Update, 200, null)))
+                .thenReturn(bulkResponse(item(OperationType.Index, 201, null)));
+        listener.handleDocumentIndexingBatch(List.of(message(testDocument, 1)), channel);
+        ArgumentCaptor<Message> retry = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq("search-indexing-retry"), retry.capture());
+        listener.handleDocumentIndexingBatch(List.of(message(testUpdateEvent, 2)), channel);
+
+        // Act
+        retry.getValue().getMessageProperties().setDeliveryTag(3);
+        listener.handleDocumentIndexingBatch(List.of(retry.getValue()), channel);
+
+        // Assert
+        verify(elasticsearchService, times(3)).bulk(anyList());
+        verify(channel).basicAck(3, false);
+    }
+
+    @Test
+    void handleBatch_WhenRetriesAreExhausted_ShouldDeadLetter() throws Exception {
+        // Arrange
+        when(elasticsearchService.bulk(anyList())).thenReturn(bulkResponse(
+                item(OperationType.Index, 503, "unavailable_shards_exception")));
+        Message message = message(testDocument, 1);
+        message.getMessageProperties().setHeader(DocumentIndexingListener.RETRY_COUNT_HEADER, 3);
+
+        // Act
+        listener.handleDocumentIndexingBatch(List.of(message), channel);
+
+        // Assert
+        verify(rabbitTemplate).send(eq("search-indexing-dlq"), any(Message.class));
+        verify(channel).basicAck(1, false);
+    }
+
+    @Test
+    void handleBatch_WhenItemIsInvalid_ShouldDeadLetterWithoutRetry() throws Exception {
+        // Arrange
+        when(elasticsearchService.bulk(anyList())).thenReturn(bulkResponse(
+                item(OperationType.Index, 400, "mapper_parsing_exception")));
+
+        // Act
+        listener.handleDocumentIndexingBatch(List.of(message(testDocument, 1)), channel);
+
+        // Assert
+        verify(rabbitTemplate).send(eq("search-indexing-dlq"), argThat((Message m) ->
+                String.valueOf(m.getMessageProperties().getHeader(DocumentIndexingListener.FAILURE_HEADER))
+                        .startsWith("mapper_parsing_exception")));
+        assertEquals(1.0, meterRegistry.get("search.indexing.bulk.items").tag("result", "dead_letter").counter().count());
+    }
+
+    @Test
+    void handleBatch_WhenUnreadable_ShouldDeadLetterAndIndexTheRest() throws Exception {
+        // Arrange
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(1);
+        Message broken = new Message("not json".getBytes(), properties);
+        when(elasticsearchService.bulk(anyList())).thenReturn(bulkResponse(item(OperationType.Index, 201, null)));
+
+        // Act
+        listener.handleDocumentIndexingBatch(List.of(broken, message(testDocument, 2)), channel);
+
+        // Assert
+        verify(rabbitTemplate).send(eq("search-indexing-dlq"), eq(broken));
+        verify(elasticsearchService).indexOperation(any(DocumentIndexDto.class));
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+    }
+
+    @Test
+    void handleBatch_WhenElasticsearchIsDown_ShouldRequeueAllMessages() throws Exception {
+        // Arrange
+        when(elasticsearchService.bulk(anyList())).thenThrow(new IOException("Connection refused"));
+
+        // Act
+        listener.handleDocumentIndexingBatch(List.of(message(testDocument, 1), message(testDocument, 2)), channel);
+
+        // Assert
+        verify(channel).basicNack(1, false, true);
+        verify(channel).basicNack(2, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void handleBatch_WhenOverSizeLimit_ShouldSplitIntoSeveralBulkRequests() throws Exception {
+        // Arrange - 0 MB allows one message per request
+        ReflectionTestUtils.setField(listener, "maxBulkSizeMb", 0L);
+        when(elasticsearchService.bulk(anyList())).thenReturn(bulkResponse(item(OperationType.Index, 201, null)));
+
+        // Act
+        listener.handleDocumentIndexingBatch(List.of(message(testDocument, 1), message(testDocument, 2)), channel);
+
+        // Assert
+        verify(elasticsearchService, times(2)).bulk(anyList());
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+    }
 }
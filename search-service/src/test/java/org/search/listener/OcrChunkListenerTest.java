@@ -0,0 +1,69 @@
+package org.search.listener;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.search.dto.OcrChunkDto;
+import org.search.service.ElasticsearchService;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OcrChunkListenerTest {
+
+    @Mock
+    private ElasticsearchService elasticsearchService;
+
+    @InjectMocks
+    private OcrChunkListener listener;
+
+    @Test
+    void handleOcrChunk_ShouldIndexChunk() throws Exception {
+        // Arrange
+        OcrChunkDto chunk = OcrChunkDto.builder()
+                .documentId(1L)
+                .sequenceNumber(0)
+                .firstPage(1)
+                .lastPage(5)
+                .text("First pages")
+                .build();
+
+        // Act
+        listener.handleOcrChunk(chunk);
+
+        // Assert
+        verify(elasticsearchService, times(1)).indexOcrChunk(chunk);
+    }
+
+    @Test
+    void handleOcrChunk_WithCompleteMarker_ShouldIndexMarker() throws Exception {
+        // Arrange
+        OcrChunkDto marker = OcrChunkDto.builder()
+                .documentId(1L)
+                .sequenceNumber(2)
+                .complete(true)
+                .totalChunks(2)
+                .build();
+
+        // Act
+        listener.handleOcrChunk(marker);
+
+        // Assert
+        verify(elasticsearchService, times(1)).indexOcrChunk(marker);
+    }
+
+    @Test
+    void handleOcrChunk_WhenIndexingFails_ShouldNotThrow() throws Exception {
+        // Arrange
+        OcrChunkDto chunk = OcrChunkDto.builder().documentId(1L).text("Text").build();
+        doThrow(new IOException("Elasticsearch unavailable")).when(elasticsearchService).indexOcrChunk(chunk);
+
+        // Act & Assert - later chunks and the full result still get indexed
+        assertDoesNotThrow(() -> listener.handleOcrChunk(chunk));
+    }
+}
@@ -1,18 +1,34 @@
 package org.search.service;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Conflicts;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.ErrorResponse;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.CalendarInterval;
+import co.elastic.clients.elasticsearch._types.aggregations.DateHistogramBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.RangeBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
 import co.elastic.clients.elasticsearch.core.*;
 import co.elastic.clients.elasticsearch.core.search.Hit;
 import co.elastic.clients.elasticsearch.core.search.HitsMetadata;
 import co.elastic.clients.elasticsearch.core.search.TotalHits;
 import co.elastic.clients.elasticsearch.core.search.TotalHitsRelation;
+import co.elastic.clients.transport.endpoints.BooleanResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.search.dto.DocumentIndexDto;
+import org.search.dto.FacetBucketDto;
+import org.search.dto.OcrChunkDto;
 import org.search.dto.SearchRequestDto;
 import org.search.dto.SearchResponseDto;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -21,9 +37,11 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -33,14 +51,21 @@ class ElasticsearchServiceTest {
     @Mock
     private ElasticsearchClient elasticsearchClient;
 
+    @Mock
+    private SearchIndexManager indexManager;
+
     @InjectMocks
     private ElasticsearchService elasticsearchService;
 
     private DocumentIndexDto testDocument;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
         ReflectionTestUtils.setField(elasticsearchService, "indexName", "documents");
+        ReflectionTestUtils.setField(elasticsearchService, "writeIndexName", "documents_write");
+        ReflectionTestUtils.setField(elasticsearchService, "tombstoneIndexName", "document_tombstones");
+        lenient().when(indexManager.write(anyCollection(), any()))
+                .thenAnswer(invocation -> invocation.<SearchIndexManager.WriteCall<?>>getArgument(1).execute());
 
         testDocument = DocumentIndexDto.builder()
                 .documentId(1L)
@@ -71,18 +96,124 @@ class ElasticsearchServiceTest {
         verify(elasticsearchClient, times(1)).index(any(IndexRequest.class));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void indexDocument_ShouldWriteThroughWriteAliasAndReportId() throws IOException {
+        // Arrange
+        IndexResponse mockResponse = mock(IndexResponse.class);
+        when(elasticsearchClient.index(any(IndexRequest.class))).thenReturn(mockResponse);
+
+        // Act
+        elasticsearchService.indexDocument(testDocument);
+
+        // Assert - the id is reported so a running reindex can catch up on it
+        ArgumentCaptor<IndexRequest<DocumentIndexDto>> captor = ArgumentCaptor.forClass(IndexRequest.class);
+        verify(elasticsearchClient).index(captor.capture());
+        assertThat(captor.getValue().index()).isEqualTo("documents_write");
+        verify(indexManager).write(eq(List.of("1")), any());
+    }
+
     @Test
     void deleteDocument_ShouldDeleteSuccessfully() throws IOException {
         // Arrange
         DeleteResponse mockResponse = mock(DeleteResponse.class);
         when(mockResponse.result()).thenReturn(co.elastic.clients.elasticsearch._types.Result.Deleted);
         when(elasticsearchClient.delete(any(DeleteRequest.class))).thenReturn(mockResponse);
+        when(elasticsearchClient.bulk(any(BulkRequest.class))).thenReturn(bulkResponse(false));
 
         // Act & Assert (should not throw exception)
         elasticsearchService.deleteDocument(1L);
 
-        // Verify
-        verify(elasticsearchClient, times(1)).delete(any(DeleteRequest.class));
+        // Verify - the tombstone is written before the document is deleted
+        InOrder inOrder = inOrder(elasticsearchClient);
+        ArgumentCaptor<BulkRequest> tombstones = ArgumentCaptor.forClass(BulkRequest.class);
+        inOrder.verify(elasticsearchClient).bulk(tombstones.capture());
+        inOrder.verify(elasticsearchClient).delete(any(DeleteRequest.class));
+        assertThat(tombstones.getValue().operations()).singleElement()
+                .satisfies(operation -> assertThat(operation.index().index()).isEqualTo("document_tombstones"))
+                .satisfies(operation -> assertThat(operation.index().id()).isEqualTo("1"));
+    }
+
+    @Test
+    void deleteDocument_WhenTombstoneFails_ShouldNotDelete() throws IOException {
+        // Arrange
+        when(elasticsearchClient.bulk(any(BulkRequest.class))).thenReturn(bulkResponse(true));
+
+        // Act & Assert
+        assertThatThrownBy(() -> elasticsearchService.deleteDocument(1L)).isInstanceOf(IOException.class);
+        verify(elasticsearchClient, never()).delete(any(DeleteRequest.class));
+    }
+
+    @Test
+    void bulk_WithDeleteOperations_ShouldWriteTombstonesFirst() throws IOException {
+        // Arrange
+        when(elasticsearchClient.bulk(any(BulkRequest.class))).thenReturn(bulkResponse(false));
+
+        // Act
+        elasticsearchService.bulk(List.of(elasticsearchService.indexOperation(testDocument),
+                elasticsearchService.deleteOperation(2L)));
+
+        // Assert - one request for the tombstone of document 2, then the actual bulk request
+        ArgumentCaptor<BulkRequest> captor = ArgumentCaptor.forClass(BulkRequest.class);
+        verify(elasticsearchClient, times(2)).bulk(captor.capture());
+        assertThat(captor.getAllValues().get(0).operations()).singleElement()
+                .satisfies(operation -> assertThat(operation.index().id()).isEqualTo("2"));
+        assertThat(captor.getAllValues().get(1).operations()).hasSize(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void indexOcrChunk_WhenDocumentWasDeleted_ShouldRemoveItAgain() throws IOException {
+        // Arrange - the chunk created the document, but a tombstone says it was deleted
+        UpdateResponse<Object> mockResponse = mock(UpdateResponse.class);
+        when(mockResponse.result()).thenReturn(co.elastic.clients.elasticsearch._types.Result.Created);
+        when(elasticsearchClient.update(any(UpdateRequest.class), eq(Object.class))).thenReturn(mockResponse);
+        when(elasticsearchClient.exists(any(ExistsRequest.class))).thenReturn(new BooleanResponse(true));
+        when(elasticsearchClient.delete(any(DeleteRequest.class))).thenReturn(mock(DeleteResponse.class));
+
+        // Act
+        elasticsearchService.indexOcrChunk(OcrChunkDto.builder().documentId(7L).sequenceNumber(0).text("late").build());
+
+        // Assert
+        ArgumentCaptor<ExistsRequest> exists = ArgumentCaptor.forClass(ExistsRequest.class);
+        verify(elasticsearchClient).exists(exists.capture());
+        assertThat(exists.getValue().index()).isEqualTo("document_tombstones");
+        ArgumentCaptor<DeleteRequest> delete = ArgumentCaptor.forClass(DeleteRequest.class);
+        verify(elasticsearchClient).delete(delete.capture());
+        assertThat(delete.getValue().id()).isEqualTo("7");
+        assertThat(delete.getValue().index()).isEqualTo("documents_write");
+    }
+
+    @Test
+    void removeExpiredTombstones_ShouldDeleteTombstonesOlderThanTtl() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(elasticsearchService, "tombstoneTtl", "7d");
+        when(elasticsearchClient.deleteByQuery(any(DeleteByQueryRequest.class))).thenReturn(mock(DeleteByQueryResponse.class));
+
+        // Act
+        elasticsearchService.removeExpiredTombstones();
+
+        // Assert
+        ArgumentCaptor<DeleteByQueryRequest> delete = ArgumentCaptor.forClass(DeleteByQueryRequest.class);
+        verify(elasticsearchClient).deleteByQuery(delete.capture());
+        assertThat(delete.getValue().index()).containsExactly("document_tombstones");
+        assertThat(delete.getValue().query().range().date().field()).isEqualTo("deletedAt");
+        assertThat(delete.getValue().query().range().date().lt()).isEqualTo("now-7d");
+        assertThat(delete.getValue().conflicts()).isEqualTo(Conflicts.Proceed);
+    }
+
+    @Test
+    void removeExpiredTombstones_ShouldNotThrowWhenElasticsearchFails() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(elasticsearchService, "tombstoneTtl", "7d");
+        when(elasticsearchClient.deleteByQuery(any(DeleteByQueryRequest.class))).thenThrow(new IOException("Connection refused"));
+
+        // Act & Assert - the next scheduled run tries again
+        elasticsearchService.removeExpiredTombstones();
+    }
+
+    private static BulkResponse bulkResponse(boolean errors) {
+        return BulkResponse.of(b -> b.took(1).errors(errors).items(List.of()));
     }
 
     @Test
@@ -105,6 +236,68 @@ class ElasticsearchServiceTest {
         verify(elasticsearchClient, times(1)).update(any(UpdateRequest.class), eq(Object.class));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void indexOcrChunk_ShouldUpsertWithChunkScript() throws IOException {
+        // Arrange
+        UpdateResponse<Object> mockResponse = mock(UpdateResponse.class);
+        when(mockResponse.result()).thenReturn(co.elastic.clients.elasticsearch._types.Result.Created);
+        when(elasticsearchClient.update(any(UpdateRequest.class), eq(Object.class))).thenReturn(mockResponse);
+        when(elasticsearchClient.exists(any(ExistsRequest.class))).thenReturn(new BooleanResponse(false));
+
+        OcrChunkDto chunk = OcrChunkDto.builder()
+                .documentId(7L)
+                .filename("scan.pdf")
+                .fileType("PDF")
+                .sequenceNumber(2)
+                .firstPage(11)
+                .lastPage(15)
+                .text("Page eleven to fifteen")
+                .build();
+
+        // Act
+        elasticsearchService.indexOcrChunk(chunk);
+
+        // Assert - scripted upsert so the first chunk creates the document with its metadata
+        ArgumentCaptor<UpdateRequest<Object, Object>> captor = ArgumentCaptor.forClass(UpdateRequest.class);
+        verify(elasticsearchClient).update(captor.capture(), eq(Object.class));
+        UpdateRequest<Object, Object> request = captor.getValue();
+
+        assertThat(request.id()).isEqualTo("7");
+        assertThat(request.scriptedUpsert()).isTrue();
+        assertThat(request.retryOnConflict()).isEqualTo(5);
+        assertThat((Map<String, Object>) request.upsert()).containsEntry("filename", "scan.pdf").doesNotContainKey("author");
+        assertThat(request.script().params().get("sequenceNumber").to(String.class)).isEqualTo("2");
+        assertThat(request.script().params().get("text").to(String.class)).isEqualTo("Page eleven to fifteen");
+        assertThat(request.script().params().get("complete").to(Boolean.class)).isFalse();
+        verify(elasticsearchClient, never()).delete(any(DeleteRequest.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void indexOcrChunk_WithCompleteMarker_ShouldPassTotalChunks() throws IOException {
+        // Arrange
+        UpdateResponse<Object> mockResponse = mock(UpdateResponse.class);
+        when(mockResponse.result()).thenReturn(co.elastic.clients.elasticsearch._types.Result.Updated);
+        when(elasticsearchClient.update(any(UpdateRequest.class), eq(Object.class))).thenReturn(mockResponse);
+
+        OcrChunkDto marker = OcrChunkDto.builder()
+                .documentId(7L)
+                .sequenceNumber(3)
+                .complete(true)
+                .totalChunks(3)
+                .build();
+
+        // Act
+        elasticsearchService.indexOcrChunk(marker);
+
+        // Assert
+        ArgumentCaptor<UpdateRequest<Object, Object>> captor = ArgumentCaptor.forClass(UpdateRequest.class);
+        verify(elasticsearchClient).update(captor.capture(), eq(Object.class));
+        assertThat(captor.getValue().script().params().get("complete").to(Boolean.class)).isTrue();
+        assertThat(captor.getValue().script().params().get("totalChunks").to(Integer.class)).isEqualTo(3);
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     void search_WithQuery_ShouldReturnResults() throws IOException {
@@ -274,6 +467,338 @@ class ElasticsearchServiceTest {
         verify(elasticsearchClient, times(1)).search(any(SearchRequest.class), eq(DocumentIndexDto.class));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void search_ShouldMatchOnNgramSubfieldsInsteadOfWildcards() throws IOException {
+        // Arrange
+        SearchRequestDto searchRequest = SearchRequestDto.builder()
+                .query("ta invoice") // "ta" is shorter than a trigram
+                .page(0)
+                .size(10)
+                .sortBy("uploadTime")
+                .sortOrder("desc")
+                .build();
+
+        SearchResponse<DocumentIndexDto> mockSearchResponse = mock(SearchResponse.class);
+        HitsMetadata<DocumentIndexDto> mockHits = mock(HitsMetadata.class);
+        when(mockHits.hits()).thenReturn(new ArrayList<>());
+        when(mockHits.total()).thenReturn(TotalHits.of(t -> t.value(0).relation(TotalHitsRelation.Eq)));
+        when(mockSearchResponse.hits()).thenReturn(mockHits);
+        when(elasticsearchClient.search(any(SearchRequest.class), eq(DocumentIndexDto.class)))
+                .thenReturn(mockSearchResponse);
+
+        // Act
+        elasticsearchService.search(searchRequest);
+
+        // Assert - adjacent trigrams for "invoice", so scattered "inv" and "oic" elsewhere do not match, word prefixes for "ta"
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(elasticsearchClient).search(captor.capture(), eq(DocumentIndexDto.class));
+        String query = captor.getValue().query().toString();
+
+        assertThat(query).doesNotContain("wildcard");
+        assertThat(query).contains("{\"match_phrase\":{\"extractedText.ngram\":");
+        assertThat(query).doesNotContain("{\"match\":{\"extractedText.ngram\":");
+        assertThat(query).contains("{\"match\":{\"extractedText.prefix\":", "\"operator\":\"and\"");
+        assertThat(query).contains("\"filename.ngram\"", "\"author.ngram\"", "\"extractedText.ngram\"", "\"summary.ngram\"");
+        assertThat(query).contains("\"filename.prefix\"", "\"extractedText.prefix\"");
+        assertThat(captor.getValue().highlight().fields()).containsKeys("extractedText.ngram", "summary.ngram");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void search_WithCursor_ShouldUseSearchAfterInsteadOfFrom() throws IOException {
+        // Arrange - a full first page hands out a cursor for the hit after its last one
+        SearchRequestDto firstPage = SearchRequestDto.builder()
+                .query("*")
+                .page(0)
+                .size(1)
+                .sortBy("uploadTime")
+                .sortOrder("desc")
+                .build();
+
+        Hit<DocumentIndexDto> mockHit = mock(Hit.class);
+        when(mockHit.source()).thenReturn(testDocument);
+        when(mockHit.sort()).thenReturn(List.of(FieldValue.of(1700000000000L), FieldValue.of(1L)));
+        SearchResponse<DocumentIndexDto> mockSearchResponse = mockSearchResponse(List.of(mockHit), 5);
+        when(elasticsearchClient.search(any(SearchRequest.class), eq(DocumentIndexDto.class)))
+                .thenReturn(mockSearchResponse);
+
+        // Act
+        SearchResponseDto first = elasticsearchService.search(firstPage);
+        SearchRequestDto secondPage = SearchRequestDto.builder()
+                .query("*")
+                .size(1)
+                .sortBy("uploadTime")
+                .sortOrder("desc")
+                .cursor(first.getNextCursor())
+                .build();
+        elasticsearchService.search(secondPage);
+
+        // Assert
+        assertThat(first.getNextCursor()).isNotBlank();
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(elasticsearchClient, times(2)).search(captor.capture(), eq(DocumentIndexDto.class));
+        SearchRequest firstRequest = captor.getAllValues().get(0);
+        SearchRequest secondRequest = captor.getAllValues().get(1);
+
+        assertThat(firstRequest.from()).isEqualTo(0);
+        assertThat(firstRequest.searchAfter()).isEmpty();
+        assertThat(firstRequest.sort()).hasSize(2); // sortBy plus the documentId tiebreaker
+        assertThat(secondRequest.from()).isNull();
+        assertThat(secondRequest.searchAfter()).extracting(FieldValue::longValue).containsExactly(1700000000000L, 1L);
+        verify(elasticsearchClient, never()).openPointInTime(any(OpenPointInTimeRequest.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void search_WithPointInTime_ShouldSearchSnapshotAndCloseItOnLastPage() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(elasticsearchService, "pointInTimeKeepAlive", "2m");
+        SearchRequestDto searchRequest = SearchRequestDto.builder()
+                .query("*")
+                .page(0)
+                .size(10)
+                .sortBy("uploadTime")
+                .sortOrder("desc")
+                .pointInTime(true)
+                .build();
+
+        OpenPointInTimeResponse pitResponse = mock(OpenPointInTimeResponse.class);
+        when(pitResponse.id()).thenReturn("pit-1");
+        when(elasticsearchClient.openPointInTime(any(OpenPointInTimeRequest.class))).thenReturn(pitResponse);
+        SearchResponse<DocumentIndexDto> mockSearchResponse = mockSearchResponse(new ArrayList<>(), 0);
+        when(elasticsearchClient.search(any(SearchRequest.class), eq(DocumentIndexDto.class)))
+                .thenReturn(mockSearchResponse);
+
+        // Act
+        SearchResponseDto result = elasticsearchService.search(searchRequest);
+
+        // Assert - the point in time names the index, and an incomplete page releases it
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(elasticsearchClient).search(captor.capture(), eq(DocumentIndexDto.class));
+        assertThat(captor.getValue().pit().id()).isEqualTo("pit-1");
+        assertThat(captor.getValue().index()).isEmpty();
+        assertThat(result.getNextCursor()).isNull();
+
+        ArgumentCaptor<ClosePointInTimeRequest> closeCaptor = ArgumentCaptor.forClass(ClosePointInTimeRequest.class);
+        verify(elasticsearchClient).closePointInTime(closeCaptor.capture());
+        assertThat(closeCaptor.getValue().id()).isEqualTo("pit-1");
+    }
+
+    @Test
+    void search_WhenFirstPageFails_ShouldClosePointInTimeOpenedForIt() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(elasticsearchService, "pointInTimeKeepAlive", "2m");
+        SearchRequestDto searchRequest = SearchRequestDto.builder()
+                .query("*")
+                .page(0)
+                .size(10)
+                .sortBy("uploadTime")
+                .sortOrder("desc")
+                .pointInTime(true)
+                .build();
+
+        OpenPointInTimeResponse pitResponse = mock(OpenPointInTimeResponse.class);
+        when(pitResponse.id()).thenReturn("pit-1");
+        when(elasticsearchClient.openPointInTime(any(OpenPointInTimeRequest.class))).thenReturn(pitResponse);
+        when(elasticsearchClient.search(any(SearchRequest.class), eq(DocumentIndexDto.class)))
+                .thenThrow(new IOException("Connection reset"));
+
+        // Act & Assert - no cursor carries the point in time, so it is closed right away
+        assertThatThrownBy(() -> elasticsearchService.search(searchRequest)).isInstanceOf(IOException.class);
+        ArgumentCaptor<ClosePointInTimeRequest> closeCaptor = ArgumentCaptor.forClass(ClosePointInTimeRequest.class);
+        verify(elasticsearchClient).closePointInTime(closeCaptor.capture());
+        assertThat(closeCaptor.getValue().id()).isEqualTo("pit-1");
+    }
+
+    @Test
+    void search_WithExpiredPointInTime_ShouldThrowSearchCursorExpiredException() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(elasticsearchService, "pointInTimeKeepAlive", "2m");
+        String cursor = SearchCursor.after("uploadTime", "desc", List.of(FieldValue.of(1L), FieldValue.of(2L)), "pit-1").encode();
+        when(elasticsearchClient.search(any(SearchRequest.class), eq(DocumentIndexDto.class)))
+                .thenThrow(elasticsearchException(404, "search_phase_execution_exception", "search_context_missing_exception"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> elasticsearchService.search(cursorRequest(cursor)))
+                .isInstanceOf(SearchCursorExpiredException.class);
+        verify(elasticsearchClient, never()).closePointInTime(any(ClosePointInTimeRequest.class));
+    }
+
+    @Test
+    void search_WithCursorAndOtherNotFoundError_ShouldRethrowElasticsearchException() throws IOException {
+        // Arrange - a cursor without point in time, the index itself is missing
+        String cursor = SearchCursor.after("uploadTime", "desc", List.of(FieldValue.of(1L), FieldValue.of(2L)), null).encode();
+        when(elasticsearchClient.search(any(SearchRequest.class), eq(DocumentIndexDto.class)))
+                .thenThrow(elasticsearchException(404, "index_not_found_exception", "index_not_found_exception"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> elasticsearchService.search(cursorRequest(cursor)))
+                .isInstanceOf(ElasticsearchException.class);
+    }
+
+    private static SearchRequestDto cursorRequest(String cursor) {
+        return SearchRequestDto.builder()
+                .query("*")
+                .size(10)
+                .sortBy("uploadTime")
+                .sortOrder("desc")
+                .cursor(cursor)
+                .build();
+    }
+
+    private static ElasticsearchException elasticsearchException(int status, String type, String rootCauseType) {
+        return new ElasticsearchException("search", ErrorResponse.of(r -> r
+                .status(status)
+                .error(e -> e.type(type).reason("failed").rootCause(c -> c.type(rootCauseType).reason("failed")))));
+    }
+
+    @Test
+    void search_WithInvalidCursor_ShouldThrowIllegalArgumentException() {
+        // Arrange
+        SearchRequestDto searchRequest = SearchRequestDto.builder()
+                .query("*")
+                .sortBy("uploadTime")
+                .sortOrder("desc")
+                .cursor("not-a-cursor")
+                .build();
+
+        // Act & Assert
+        assertThatThrownBy(() -> elasticsearchService.search(searchRequest))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(elasticsearchClient);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void search_WithFilters_ShouldUseFilterContext() throws IOException {
+        // Arrange
+        SearchRequestDto searchRequest = SearchRequestDto.builder()
+                .query("invoice")
+                .author("John Doe")
+                .fileType("PDF")
+                .sortBy("uploadTime")
+                .sortOrder("desc")
+                .build();
+        SearchResponse<DocumentIndexDto> mockSearchResponse = mockSearchResponse(new ArrayList<>(), 0);
+        when(elasticsearchClient.search(any(SearchRequest.class), eq(DocumentIndexDto.class)))
+                .thenReturn(mockSearchResponse);
+
+        // Act
+        elasticsearchService.search(searchRequest);
+
+        // Assert - only the text query scores, without facets the exact filters are filter clauses of the main query
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(elasticsearchClient).search(captor.capture(), eq(DocumentIndexDto.class));
+        BoolQuery bool = captor.getValue().query().bool();
+        assertThat(bool.must()).hasSize(1);
+        assertThat(bool.filter())
+                .extracting(query -> query.term().field()).containsExactly("author.keyword", "fileType");
+        assertThat(captor.getValue().postFilter()).isNull();
+        assertThat(captor.getValue().aggregations()).isEmpty();
+    }
+
+    @Test
+    void search_WithFiltersAndFacets_ShouldCountEachFacetWithoutItsOwnFilter() throws IOException {
+        // Arrange
+        SearchRequestDto searchRequest = SearchRequestDto.builder()
+                .query("invoice")
+                .author("John Doe")
+                .fileType("PDF")
+                .sortBy("uploadTime")
+                .sortOrder("desc")
+                .facets(true)
+                .build();
+        SearchResponse<DocumentIndexDto> mockSearchResponse = mockSearchResponse(new ArrayList<>(), 0);
+        when(elasticsearchClient.search(any(SearchRequest.class), eq(DocumentIndexDto.class)))
+                .thenReturn(mockSearchResponse);
+
+        // Act
+        elasticsearchService.search(searchRequest);
+
+        // Assert - the author facet still lists other authors, narrowed down by the file type, and vice versa
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(elasticsearchClient).search(captor.capture(), eq(DocumentIndexDto.class));
+        assertThat(captor.getValue().query().bool().filter()).isEmpty();
+        assertThat(captor.getValue().postFilter().bool().filter())
+                .extracting(query -> query.term().field()).containsExactly("author.keyword", "fileType");
+        Map<String, Aggregation> aggregations = captor.getValue().aggregations();
+        assertThat(aggregations.get("author").filter().bool().filter())
+                .extracting(query -> query.term().field()).containsExactly("fileType");
+        assertThat(aggregations.get("fileType").filter().bool().filter())
+                .extracting(query -> query.term().field()).containsExactly("author.keyword");
+        assertThat(aggregations.get("size").filter().bool().filter())
+                .extracting(query -> query.term().field()).containsExactly("author.keyword", "fileType");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void search_WithFacets_ShouldAggregateInSameRequest() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(elasticsearchService, "facetSize", 20);
+        SearchRequestDto searchRequest = SearchRequestDto.builder()
+                .query("*")
+                .sortBy("uploadTime")
+                .sortOrder("desc")
+                .facets(true)
+                .build();
+
+        SearchResponse<DocumentIndexDto> mockSearchResponse = mockSearchResponse(new ArrayList<>(), 7);
+        when(mockSearchResponse.aggregations()).thenReturn(Map.of(
+                ElasticsearchService.AUTHOR_FACET, facetAggregate(ElasticsearchService.AUTHOR_FACET, Aggregate.of(a -> a.sterms(t -> t
+                        .docCountErrorUpperBound(0L)
+                        .sumOtherDocCount(0L)
+                        .buckets(b -> b.array(List.of(
+                                StringTermsBucket.of(x -> x.key(FieldValue.of("John Doe")).docCount(5L)),
+                                StringTermsBucket.of(x -> x.key(FieldValue.of("Jane Doe")).docCount(2L)))))))),
+                ElasticsearchService.UPLOAD_TIME_FACET, facetAggregate(ElasticsearchService.UPLOAD_TIME_FACET, Aggregate.of(a -> a.dateHistogram(d -> d
+                        .buckets(b -> b.array(List.of(
+                                DateHistogramBucket.of(x -> x.key(1704067200000L).keyAsString("2024-01").docCount(7L)))))))),
+                ElasticsearchService.SIZE_FACET, facetAggregate(ElasticsearchService.SIZE_FACET, Aggregate.of(a -> a.range(r -> r
+                        .buckets(b -> b.array(List.of(
+                                RangeBucket.of(x -> x.key("< 100 KB").docCount(6L)),
+                                RangeBucket.of(x -> x.key(">= 10 MB").docCount(1L))))))))));
+        when(elasticsearchClient.search(any(SearchRequest.class), eq(DocumentIndexDto.class)))
+                .thenReturn(mockSearchResponse);
+
+        // Act
+        SearchResponseDto result = elasticsearchService.search(searchRequest);
+
+        // Assert - one request for hits and facets
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(elasticsearchClient, times(1)).search(captor.capture(), eq(DocumentIndexDto.class));
+        Map<String, Aggregation> aggregations = captor.getValue().aggregations();
+        assertThat(aggregations).containsOnlyKeys("author", "fileType", "uploadTime", "size");
+        assertThat(aggregations.get("author").aggregations().get("author").terms().field()).isEqualTo("author.keyword");
+        assertThat(aggregations.get("fileType").aggregations().get("fileType").terms().field()).isEqualTo("fileType");
+        assertThat(aggregations.get("uploadTime").aggregations().get("uploadTime").dateHistogram().calendarInterval())
+                .isEqualTo(CalendarInterval.Month);
+        assertThat(aggregations.get("size").aggregations().get("size").range().ranges()).hasSize(4);
+
+        assertThat(result.getFacets().get("author"))
+                .extracting(FacetBucketDto::getKey, FacetBucketDto::getCount)
+                .containsExactly(tuple("John Doe", 5L), tuple("Jane Doe", 2L));
+        assertThat(result.getFacets().get("uploadTime"))
+                .extracting(FacetBucketDto::getKey).containsExactly("2024-01");
+        assertThat(result.getFacets().get("size"))
+                .extracting(FacetBucketDto::getCount).containsExactly(6L, 1L);
+    }
+
+    // Facets come back inside the filter aggregation that leaves out their own filter
+    private static Aggregate facetAggregate(String name, Aggregate facet) {
+        return Aggregate.of(a -> a.filter(f -> f.docCount(7L).aggregations(name, facet)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SearchResponse<DocumentIndexDto> mockSearchResponse(List<Hit<DocumentIndexDto>> hitsList, long total) {
+        SearchResponse<DocumentIndexDto> mockSearchResponse = mock(SearchResponse.class);
+        HitsMetadata<DocumentIndexDto> mockHits = mock(HitsMetadata.class);
+        when(mockHits.hits()).thenReturn(hitsList);
+        when(mockHits.total()).thenReturn(TotalHits.of(t -> t.value(total).relation(TotalHitsRelation.Eq)));
+        when(mockSearchResponse.hits()).thenReturn(mockHits);
+        return mockSearchResponse;
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     void indexDocument_WhenElasticsearchFails_ShouldThrowException() throws IOException {
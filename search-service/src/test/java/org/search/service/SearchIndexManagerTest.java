@@ -0,0 +1,267 @@
+package org.search.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.mapping.IndexOptions;
+import co.elastic.clients.elasticsearch.cluster.ElasticsearchClusterClient;
+import co.elastic.clients.elasticsearch.core.DeleteByQueryRequest;
+import co.elastic.clients.elasticsearch.core.ReindexRequest;
+import co.elastic.clients.elasticsearch.core.ReindexResponse;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.HitsMetadata;
+import co.elastic.clients.elasticsearch.indices.CreateIndexRequest;
+import co.elastic.clients.elasticsearch.indices.DeleteIndexRequest;
+import co.elastic.clients.elasticsearch.indices.ElasticsearchIndicesClient;
+import co.elastic.clients.elasticsearch.indices.ExistsAliasRequest;
+import co.elastic.clients.elasticsearch.indices.ExistsRequest;
+import co.elastic.clients.elasticsearch.indices.GetAliasRequest;
+import co.elastic.clients.elasticsearch.indices.GetAliasResponse;
+import co.elastic.clients.elasticsearch.indices.GetIndexRequest;
+import co.elastic.clients.elasticsearch.indices.GetIndexResponse;
+import co.elastic.clients.elasticsearch.indices.IndexState;
+import co.elastic.clients.elasticsearch.indices.RefreshRequest;
+import co.elastic.clients.elasticsearch.indices.UpdateAliasesRequest;
+import co.elastic.clients.elasticsearch.tasks.ElasticsearchTasksClient;
+import co.elastic.clients.elasticsearch.tasks.GetTasksRequest;
+import co.elastic.clients.elasticsearch.tasks.GetTasksResponse;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.transport.endpoints.BooleanResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.search.dto.ReindexStatusDto;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchIndexManagerTest {
+
+    @Mock
+    private ElasticsearchClient elasticsearchClient;
+
+    @Mock
+    private ElasticsearchIndicesClient indicesClient;
+
+    @InjectMocks
+    private SearchIndexManager indexManager;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(indexManager, "readAlias", "documents");
+        ReflectionTestUtils.setField(indexManager, "writeAlias", "documents_write");
+        ReflectionTestUtils.setField(indexManager, "numberOfReplicas", 1);
+        ReflectionTestUtils.setField(indexManager, "refreshInterval", "1s");
+        ReflectionTestUtils.setField(indexManager, "pollIntervalMs", 0L);
+        ReflectionTestUtils.setField(indexManager, "retainedVersions", 1);
+        lenient().when(elasticsearchClient.indices()).thenReturn(indicesClient);
+    }
+
+    @Test
+    void initialize_WithoutIndex_ShouldCreateFirstVersionBehindBothAliases() throws IOException {
+        // Arrange
+        when(indicesClient.existsAlias(any(ExistsAliasRequest.class))).thenReturn(new BooleanResponse(false));
+        when(indicesClient.exists(any(ExistsRequest.class))).thenReturn(new BooleanResponse(false));
+
+        // Act
+        indexManager.initialize();
+
+        // Assert
+        ArgumentCaptor<CreateIndexRequest> captor = ArgumentCaptor.forClass(CreateIndexRequest.class);
+        verify(indicesClient).create(captor.capture());
+        CreateIndexRequest request = captor.getValue();
+        assertThat(request.index()).isEqualTo("documents_v1");
+        assertThat(request.aliases()).containsKeys("documents", "documents_write");
+        assertThat(request.aliases().get("documents_write").isWriteIndex()).isTrue();
+        assertThat(request.mappings().properties().get("filename").text().fields()).containsKeys("ngram", "prefix");
+        // Phrase queries on the trigrams need their positions
+        assertThat(request.mappings().properties().get("extractedText").text().fields().get("ngram").text().indexOptions())
+                .isEqualTo(IndexOptions.Positions);
+    }
+
+    @Test
+    void initialize_WithAlias_ShouldKeepCurrentIndex() throws IOException {
+        // Arrange
+        GetAliasResponse aliases = mock(GetAliasResponse.class);
+        when(aliases.result()).thenReturn(Map.of());
+        when(indicesClient.existsAlias(any(ExistsAliasRequest.class))).thenReturn(new BooleanResponse(true));
+        when(indicesClient.getAlias(any(GetAliasRequest.class))).thenReturn(aliases);
+
+        // Act
+        indexManager.initialize();
+
+        // Assert
+        verify(indicesClient, never()).create(any(CreateIndexRequest.class));
+        verify(indicesClient, never()).updateAliases(any(UpdateAliasesRequest.class));
+    }
+
+    @Test
+    void write_DuringReindex_ShouldRecordIds() throws IOException {
+        // Arrange
+        Set<String> touched = ConcurrentHashMap.newKeySet();
+        ReflectionTestUtils.setField(indexManager, "touchedIds", touched);
+
+        // Act
+        String result = indexManager.write(List.of("7", "8"), () -> "written");
+
+        // Assert
+        assertThat(result).isEqualTo("written");
+        assertThat(touched).containsExactlyInAnyOrder("7", "8");
+    }
+
+    @Test
+    void reindex_ShouldBuildNewIndexCatchUpAndSwapAliases() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(indexManager, "touchedIds", ConcurrentHashMap.newKeySet());
+        ReflectionTestUtils.setField(indexManager, "status", new AtomicReference<>(
+                ReindexStatusDto.builder().state(ReindexStatusDto.State.RUNNING).build()));
+        indexManager.write(List.of("7"), () -> null);
+
+        ReindexResponse reindexResponse = mock(ReindexResponse.class);
+        when(reindexResponse.task()).thenReturn("node:1");
+        when(reindexResponse.total()).thenReturn(1L);
+        when(elasticsearchClient.reindex(any(ReindexRequest.class))).thenReturn(reindexResponse);
+
+        ElasticsearchTasksClient tasksClient = mock(ElasticsearchTasksClient.class);
+        GetTasksResponse task = mock(GetTasksResponse.class);
+        when(task.completed()).thenReturn(true);
+        when(task.response()).thenReturn(JsonData.fromJson("{\"total\": 3, \"failures\": []}"));
+        when(tasksClient.get(any(GetTasksRequest.class))).thenReturn(task);
+        when(elasticsearchClient.tasks()).thenReturn(tasksClient);
+        when(elasticsearchClient.cluster()).thenReturn(mock(ElasticsearchClusterClient.class));
+        mockSourceHits("7");
+        mockVersions("documents_v1", "documents_v2");
+
+        // Act
+        indexManager.reindex("documents_v1", "documents_v2");
+
+        // Assert - bulk-load settings first, then the catch-up of document 7 and one atomic alias swap
+        ArgumentCaptor<CreateIndexRequest> create = ArgumentCaptor.forClass(CreateIndexRequest.class);
+        verify(indicesClient).create(create.capture());
+        assertThat(create.getValue().index()).isEqualTo("documents_v2");
+        assertThat(create.getValue().settings().numberOfReplicas()).isEqualTo("0");
+        assertThat(create.getValue().settings().refreshInterval().time()).isEqualTo("-1");
+
+        // Document 7 still exists in the source: the refreshed source is copied again, nothing is deleted
+        verify(indicesClient).refresh(argThat((RefreshRequest r) -> r.index().equals(List.of("documents_v1"))));
+        verify(elasticsearchClient, times(2)).reindex(any(ReindexRequest.class));
+        verify(elasticsearchClient, never()).deleteByQuery(any(DeleteByQueryRequest.class));
+        ArgumentCaptor<UpdateAliasesRequest> aliases = ArgumentCaptor.forClass(UpdateAliasesRequest.class);
+        verify(indicesClient).updateAliases(aliases.capture());
+        assertThat(aliases.getValue().actions()).hasSize(4);
+
+        ReindexStatusDto status = indexManager.getStatus();
+        assertThat(status.getState()).isEqualTo(ReindexStatusDto.State.SUCCEEDED);
+        assertThat(status.getDocumentsCopied()).isEqualTo(3);
+        assertThat(status.getDocumentsCaughtUp()).isEqualTo(1);
+        assertThat(ReflectionTestUtils.getField(indexManager, "touchedIds")).isNull();
+    }
+
+    @Test
+    void reindex_WithDocumentDeletedDuringCopy_ShouldDeleteItFromNewIndex() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(indexManager, "touchedIds", ConcurrentHashMap.newKeySet());
+        indexManager.write(List.of("7"), () -> null);
+        mockCompletedCopy();
+        mockSourceHits();
+        mockVersions("documents_v1", "documents_v2");
+
+        // Act
+        indexManager.reindex("documents_v1", "documents_v2");
+
+        // Assert - only the copy ran, the id missing in the source is deleted from the target
+        verify(elasticsearchClient, times(1)).reindex(any(ReindexRequest.class));
+        ArgumentCaptor<DeleteByQueryRequest> delete = ArgumentCaptor.forClass(DeleteByQueryRequest.class);
+        verify(elasticsearchClient).deleteByQuery(delete.capture());
+        assertThat(delete.getValue().index()).containsExactly("documents_v2");
+        assertThat(delete.getValue().query().ids().values()).containsExactly("7");
+        assertThat(indexManager.getStatus().getState()).isEqualTo(ReindexStatusDto.State.SUCCEEDED);
+    }
+
+    @Test
+    void reindex_ShouldDeleteVersionsBeyondRetention() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(indexManager, "touchedIds", ConcurrentHashMap.newKeySet());
+        mockCompletedCopy();
+        mockVersions("documents_v1", "documents_v2", "documents_v3");
+
+        // Act
+        indexManager.reindex("documents_v2", "documents_v3");
+
+        // Assert - documents_v2 stays for rollback
+        ArgumentCaptor<DeleteIndexRequest> delete = ArgumentCaptor.forClass(DeleteIndexRequest.class);
+        verify(indicesClient).delete(delete.capture());
+        assertThat(delete.getValue().index()).containsExactly("documents_v1");
+    }
+
+    private void mockCompletedCopy() throws IOException {
+        ReindexResponse reindexResponse = mock(ReindexResponse.class);
+        when(reindexResponse.task()).thenReturn("node:1");
+        when(elasticsearchClient.reindex(any(ReindexRequest.class))).thenReturn(reindexResponse);
+
+        ElasticsearchTasksClient tasksClient = mock(ElasticsearchTasksClient.class);
+        GetTasksResponse task = mock(GetTasksResponse.class);
+        when(task.completed()).thenReturn(true);
+        when(task.response()).thenReturn(JsonData.fromJson("{\"total\": 3, \"failures\": []}"));
+        when(tasksClient.get(any(GetTasksRequest.class))).thenReturn(task);
+        when(elasticsearchClient.tasks()).thenReturn(tasksClient);
+        when(elasticsearchClient.cluster()).thenReturn(mock(ElasticsearchClusterClient.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockSourceHits(String... ids) throws IOException {
+        List<Hit<JsonData>> hits = new ArrayList<>();
+        for (String id : ids) {
+            Hit<JsonData> hit = mock(Hit.class);
+            when(hit.id()).thenReturn(id);
+            hits.add(hit);
+        }
+        HitsMetadata<JsonData> metadata = mock(HitsMetadata.class);
+        when(metadata.hits()).thenReturn(hits);
+        SearchResponse<JsonData> response = mock(SearchResponse.class);
+        when(response.hits()).thenReturn(metadata);
+        when(elasticsearchClient.search(any(SearchRequest.class), eq(JsonData.class))).thenReturn(response);
+    }
+
+    private void mockVersions(String... indices) throws IOException {
+        GetIndexResponse response = mock(GetIndexResponse.class);
+        Map<String, IndexState> result = new HashMap<>();
+        for (String index : indices) {
+            result.put(index, IndexState.of(i -> i));
+        }
+        when(response.result()).thenReturn(result);
+        when(indicesClient.get(any(GetIndexRequest.class))).thenReturn(response);
+    }
+
+    @Test
+    void reindex_WhenCopyFails_ShouldKeepAliasesAndDropNewIndex() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(indexManager, "touchedIds", ConcurrentHashMap.newKeySet());
+        when(elasticsearchClient.reindex(any(ReindexRequest.class))).thenThrow(new IOException("Connection refused"));
+
+        // Act
+        indexManager.reindex("documents_v1", "documents_v2");
+
+        // Assert
+        verify(indicesClient, never()).updateAliases(any(UpdateAliasesRequest.class));
+        verify(indicesClient).delete(any(DeleteIndexRequest.class));
+        assertThat(indexManager.getStatus().getState()).isEqualTo(ReindexStatusDto.State.FAILED);
+        assertThat(indexManager.getStatus().getMessage()).isEqualTo("Connection refused");
+    }
+}